@@ -0,0 +1,527 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+/**
+ * BenchmarkSuite class times the main operations of the Student Grade System at several
+ * roster sizes and prints the results as CSV, so runs can be compared to catch
+ * performance regressions.
+ * <p>
+ * The benchmarks are:
+ * </p>
+ * <ul>
+ * <li>load: Client.loadStudentsInformationFromFile into the menu's student list.</li>
+ * <li>sort: Client.sortStudentsByStudentNumber on an unsorted copy of the roster.</li>
+ * <li>lookup: Client.reportGradeOfStudent for 1,000 student numbers, through the index.</li>
+ * <li>analyze: Client.analyzeStudentGrades on the menu's list (running statistics).</li>
+ * <li>analyze_scan: Client.analyzeStudentGrades on a copy, which needs a full pass.</li>
+ * <li>aggregate: UnitGradeAggregation of the roster by unit ID and level.</li>
+ * <li>top_k: Client.displayTopStudents of the top 100 on the menu's list (kept ranking).</li>
+ * <li>range: Client.outputStudentsInRangeToCSV of the middle tenth of the student numbers.</li>
+ * <li>name_search: Client.searchStudentsByName for a name substring (kept name index).</li>
+ * <li>export: Client.outputSortedStudentsToCSV of the sorted roster.</li>
+ * <li>overall_mark: Unit_Course.overallMark for every course work student.</li>
+ * <li>final_grade: Unit_Course.finalGrade for every course work student.</li>
+ * </ul>
+ * <p>
+ * Each benchmark runs some warm-up iterations and then some measured iterations. Console
+ * output of the operations is discarded while they run. One CSV line per benchmark and
+ * size is printed: the operations per iteration, the mean, minimum and maximum time of an
+ * iteration, and the mean time of one operation.
+ * </p>
+ * <p>
+ * Given a baseline file (the output of an earlier run), every result is compared with
+ * the baseline and any benchmark whose mean time grew by more than the tolerance is
+ * reported on the error stream; the exit status is then 1.
+ * </p>
+ * <p>
+ * The same benchmarks run under JMH through jmh/benchmarks/StudentBenchmarks.java,
+ * built with mvn -P jmh package, which share the rosters and operations set up here.
+ * This harness needs nothing but the JDK and is the fallback where JMH is not available.
+ * </p>
+ * <p>
+ * Usage: java -Xmx4g BenchmarkSuite [--sizes 1000,100000,10000000] [--only load,sort,...]
+ * [--warmup 2] [--iterations 5] [--baseline file] [--tolerance 0.25]. The rosters are
+ * written to temporary files, which are deleted afterwards. 10,000,000 rows need about
+ * 4 GB of heap.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class BenchmarkSuite {
+
+    private static final String[] BENCHMARKS = { "load", "sort", "lookup", "analyze", "analyze_scan", "aggregate",
+        "top_k", "range", "name_search", "export", "overall_mark", "final_grade" };
+
+    private static final int LOOKUPS = 1000;
+    private static final int ANALYSES = 1000;
+
+    // Console output is sent here while an operation runs
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+    private static final PrintStream OUT = System.out;
+
+    // Results are added here so the JIT cannot drop the work that produced them
+    private static long sink;
+
+    /**
+     * An operation being timed.
+     */
+    private interface Operation {
+
+        /**
+         * Runs one iteration of the operation.
+         *
+         * @throws Exception If the operation fails.
+         */
+        void run() throws Exception;
+    }
+
+    /**
+     * A benchmark ready to be timed.
+     */
+    private static final class Prepared {
+
+        // The number of operations in one iteration, and the iteration
+        private final int ops;
+        private final Operation operation;
+
+        /**
+         * Constructs a prepared benchmark.
+         *
+         * @param ops       The number of operations in one iteration.
+         * @param operation Runs one iteration.
+         */
+        Prepared(int ops, Operation operation) {
+            this.ops = ops;
+            this.operation = operation;
+        }
+    }
+
+    /**
+     * A roster of one size written to a temporary file and loaded into the menu's list,
+     * with an unsorted copy kept outside the indexed list. Closing it empties the menu's
+     * list and deletes the files.
+     */
+    private static final class Fixture implements AutoCloseable {
+
+        private final int size;
+        private final Path rosterFile;
+        private final Path exportFile;
+        private final List<Student> roster = Client.getStudents();
+        private final ArrayList<Student> unsorted;
+
+        /**
+         * Writes a roster and loads it into the menu's list.
+         *
+         * @param size The number of rows.
+         * @throws Exception If the roster cannot be written or loaded.
+         */
+        Fixture(int size) throws Exception {
+            this.size = size;
+            rosterFile = Files.createTempFile("roster", ".csv");
+            exportFile = Files.createTempFile("export", ".csv");
+            try {
+                writeRoster(rosterFile, size);
+                quietly(this::load);
+                if (roster.size() != size) {
+                    throw new IllegalStateException("Loaded " + roster.size() + " of " + size + " rows");
+                }
+                unsorted = new ArrayList<>(roster);
+            } catch (Exception e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * Empties the menu's list and loads the roster into it again.
+         *
+         * @throws Exception If the roster cannot be loaded.
+         */
+        private void load() throws Exception {
+            roster.clear();
+            Client.loadStudentsInformationFromFile(roster, rosterFile.toString());
+        }
+
+        /**
+         * Empties the menu's list and deletes the files.
+         *
+         * @throws IOException If a file cannot be deleted.
+         */
+        @Override
+        public void close() throws IOException {
+            roster.clear();
+            Files.deleteIfExists(rosterFile);
+            Files.deleteIfExists(exportFile);
+        }
+    }
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args Optional settings, see the class description.
+     * @throws Exception If a benchmark fails.
+     */
+    public static void main(String[] args) throws Exception {
+        int[] sizes = { 1000, 100_000, 10_000_000 };
+        LinkedHashSet<String> selected = new LinkedHashSet<>(Arrays.asList(BENCHMARKS));
+        int warmup = 2;
+        int iterations = 5;
+        Path baseline = null;
+        double tolerance = 0.25;
+
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1].trim() : "";
+            switch (args[i]) {
+                case "--sizes":
+                    sizes = Arrays.stream(value.split(",")).mapToInt(size -> Integer.parseInt(size.trim())).toArray();
+                    break;
+                case "--only":
+                    selected = new LinkedHashSet<>(Arrays.asList(value.split(",")));
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(value);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(value);
+                    break;
+                case "--baseline":
+                    baseline = Paths.get(value);
+                    break;
+                case "--tolerance":
+                    tolerance = Double.parseDouble(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+            i++;
+        }
+        selected.retainAll(Arrays.asList(BENCHMARKS));
+
+        HashMap<String, Double> baselineMeans = baseline == null ? null : readBaseline(baseline);
+        int regressions = 0;
+
+        OUT.println("benchmark,rows,ops,iterations,mean_ms,min_ms,max_ms,ns_per_op");
+        for (int size : sizes) {
+            for (String result : runSize(size, selected, warmup, iterations)) {
+                OUT.println(result);
+                if (baselineMeans != null && isRegression(result, baselineMeans, tolerance)) {
+                    regressions++;
+                }
+            }
+        }
+        if (regressions > 0) {
+            System.err.println(regressions + " benchmark(s) slower than the baseline by more than "
+                    + Math.round(tolerance * 100) + "%");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the selected benchmarks on a roster of one size.
+     *
+     * @param size       The number of rows.
+     * @param selected   The benchmarks to run.
+     * @param warmup     The number of warm-up iterations.
+     * @param iterations The number of measured iterations.
+     * @return One CSV result line per benchmark.
+     * @throws Exception If a benchmark fails.
+     */
+    private static ArrayList<String> runSize(int size, LinkedHashSet<String> selected, int warmup, int iterations)
+            throws Exception {
+        ArrayList<String> results = new ArrayList<>();
+        try (Fixture fixture = new Fixture(size)) {
+            for (String name : BENCHMARKS) {
+                if (!selected.contains(name)) {
+                    continue;
+                }
+                Prepared prepared = prepare(name, fixture);
+                results.add(measure(name, size, prepared.ops, warmup, iterations, prepared.operation));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Writes a roster of one size and loads it into the menu's list, for a JMH run (see
+     * jmh/benchmarks/StudentBenchmarks.java). JMH benchmarks cannot be in the unnamed
+     * package and so cannot refer to this class; they call this method by reflection and
+     * only see JDK types.
+     *
+     * @param size The number of rows.
+     * @return The fixture, to be passed to {@link #prepareForJmh(String, AutoCloseable)}
+     *         and closed after the run.
+     * @throws Exception If the roster cannot be written or loaded.
+     */
+    public static AutoCloseable openFixture(int size) throws Exception {
+        return new Fixture(size);
+    }
+
+    /**
+     * Prepares a benchmark for a JMH run, see {@link #openFixture(int)}.
+     *
+     * @param name    The name of the benchmark.
+     * @param fixture The fixture made by openFixture.
+     * @return Runs one iteration of the operation with console output discarded and
+     *         returns its time in nanoseconds.
+     * @throws Exception If the benchmark cannot be prepared.
+     */
+    public static Callable<Long> prepareForJmh(String name, AutoCloseable fixture) throws Exception {
+        Operation operation = prepare(name, (Fixture) fixture).operation;
+        return () -> quietly(operation);
+    }
+
+    /**
+     * Prepares a benchmark on a roster. Benchmarks are prepared in the order of
+     * {@link #BENCHMARKS}, as export sorts the menu's list.
+     *
+     * @param name    The name of the benchmark.
+     * @param fixture The roster.
+     * @return The operation and the number of operations in one iteration.
+     * @throws Exception If the benchmark cannot be prepared.
+     */
+    private static Prepared prepare(String name, Fixture fixture) throws Exception {
+        int size = fixture.size;
+        List<Student> roster = fixture.roster;
+        ArrayList<Student> unsorted = fixture.unsorted;
+        String exportFile = fixture.exportFile.toString();
+
+        switch (name) {
+            case "load":
+                return new Prepared(1, fixture::load);
+
+            case "sort": {
+                ArrayList<Student> copy = new ArrayList<>(size);
+                return new Prepared(1, () -> {
+                    copy.clear();
+                    copy.addAll(unsorted);
+                    Client.sortStudentsByStudentNumber(copy);
+                });
+            }
+
+            case "lookup": {
+                Random random = new Random(7);
+                long[] numbers = new long[LOOKUPS];
+                for (int i = 0; i < LOOKUPS; i++) {
+                    numbers[i] = roster.get(random.nextInt(size)).getStudentNumber();
+                }
+                return new Prepared(LOOKUPS, () -> {
+                    for (long number : numbers) {
+                        Client.reportGradeOfStudent(roster, number);
+                    }
+                });
+            }
+
+            case "analyze":
+                return new Prepared(ANALYSES, () -> {
+                    for (int i = 0; i < ANALYSES; i++) {
+                        Client.analyzeStudentGrades(roster);
+                    }
+                });
+
+            case "analyze_scan":
+                return new Prepared(1, () -> Client.analyzeStudentGrades(unsorted));
+
+            case "aggregate":
+                return new Prepared(1, () -> sink += UnitGradeAggregation.of(roster, 0).getStudentCount());
+
+            case "top_k":
+                return new Prepared(ANALYSES, () -> {
+                    for (int i = 0; i < ANALYSES; i++) {
+                        Client.displayTopStudents(roster, 100);
+                    }
+                });
+
+            case "range": {
+                long[] numbers = new long[size];
+                for (int i = 0; i < size; i++) {
+                    numbers[i] = roster.get(i).getStudentNumber();
+                }
+                Arrays.sort(numbers);
+                long from = numbers[size * 45 / 100];
+                long to = numbers[size * 55 / 100];
+                return new Prepared(1, () -> Client.outputStudentsInRangeToCSV(roster, from, to, exportFile));
+            }
+
+            case "name_search":
+                return new Prepared(ANALYSES, () -> {
+                    for (int i = 0; i < ANALYSES; i++) {
+                        Client.searchStudentsByName(roster, "ohn");
+                    }
+                });
+
+            case "export":
+                quietly(() -> Client.sortStudentsByStudentNumber(roster));
+                return new Prepared(1, () -> Client.outputSortedStudentsToCSV(roster, exportFile));
+
+            case "overall_mark": {
+                ArrayList<Unit_Course> units = unitCourses(unsorted);
+                return new Prepared(units.size(), () -> {
+                    double total = 0;
+                    for (Unit_Course unit : units) {
+                        total += unit.overallMark();
+                    }
+                    sink += (long) total;
+                });
+            }
+
+            case "final_grade": {
+                ArrayList<Unit_Course> units = unitCourses(unsorted);
+                return new Prepared(units.size(), () -> {
+                    long total = 0;
+                    for (Unit_Course unit : units) {
+                        total += unit.finalGrade().length();
+                    }
+                    sink += total;
+                });
+            }
+
+            default:
+                throw new IllegalArgumentException("Unknown benchmark: " + name);
+        }
+    }
+
+    /**
+     * Gets the unit courses of the course work students.
+     *
+     * @param students The students.
+     * @return The unit courses, in the order of the students.
+     */
+    private static ArrayList<Unit_Course> unitCourses(List<Student> students) {
+        ArrayList<Unit_Course> units = new ArrayList<>();
+        for (Student student : students) {
+            if (student instanceof Student_Course) {
+                units.add(((Student_Course) student).getUnitCourse());
+            }
+        }
+        return units;
+    }
+
+    /**
+     * Times an operation.
+     *
+     * @param name       The name of the benchmark.
+     * @param size       The number of rows.
+     * @param ops        The number of operations in one iteration.
+     * @param warmup     The number of warm-up iterations.
+     * @param iterations The number of measured iterations.
+     * @param operation  The operation.
+     * @return The CSV result line.
+     * @throws Exception If the operation fails.
+     */
+    private static String measure(String name, int size, int ops, int warmup, int iterations, Operation operation)
+            throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            quietly(operation);
+        }
+        long total = 0;
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (int i = 0; i < iterations; i++) {
+            long time = quietly(operation);
+            total += time;
+            min = Math.min(min, time);
+            max = Math.max(max, time);
+        }
+        double mean = (double) total / iterations;
+        return String.format("%s,%d,%d,%d,%.3f,%.3f,%.3f,%.1f", name, size, ops, iterations, mean / 1e6, min / 1e6,
+                max / 1e6, mean / Math.max(1, ops));
+    }
+
+    /**
+     * Runs an operation once with console output discarded.
+     *
+     * @param operation The operation.
+     * @return The time taken in nanoseconds.
+     * @throws Exception If the operation fails.
+     */
+    private static long quietly(Operation operation) throws Exception {
+        System.setOut(DISCARD);
+        try {
+            long start = System.nanoTime();
+            operation.run();
+            return System.nanoTime() - start;
+        } finally {
+            System.setOut(OUT);
+        }
+    }
+
+    /**
+     * Writes a roster of course work and research rows, in the layout read by the loader.
+     *
+     * @param file The file to write.
+     * @param rows The number of rows.
+     * @throws IOException If writing fails.
+     */
+    private static void writeRoster(Path file, int rows) throws IOException {
+        Random random = new Random(42);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < rows; i++) {
+                long studentNumber = 10_000_000L + random.nextInt(90_000_000);
+                if (random.nextInt(4) == 0) {
+                    writer.write("R,First" + (i % 5000) + ",Last" + (i % 20000) + "," + studentNumber + ","
+                            + random.nextInt(101) + "," + random.nextInt(101) + ",,,\n");
+                } else {
+                    writer.write("C,First" + (i % 5000) + ",Last" + (i % 20000) + "," + studentNumber + ",ICT"
+                            + (100 + random.nextInt(900)) + "," + (1 + random.nextInt(4)) + "," + random.nextInt(101)
+                            + "," + random.nextInt(101) + "," + random.nextInt(101) + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the mean time of each benchmark and size from an earlier run.
+     *
+     * @param file The output of the earlier run.
+     * @return The mean times in milliseconds, keyed by benchmark and size.
+     * @throws IOException If the file cannot be read.
+     */
+    private static HashMap<String, Double> readBaseline(Path file) throws IOException {
+        HashMap<String, Double> means = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",");
+                if (fields.length >= 5 && !fields[0].equals("benchmark")) {
+                    means.put(fields[0] + "," + fields[1], Double.parseDouble(fields[4]));
+                }
+            }
+        }
+        return means;
+    }
+
+    /**
+     * Checks a result against the baseline and reports it if it is too slow.
+     *
+     * @param result    The CSV result line.
+     * @param baseline  The baseline mean times.
+     * @param tolerance The allowed slowdown, 0.25 for 25%.
+     * @return true if the result is slower than the baseline allows, false otherwise.
+     */
+    private static boolean isRegression(String result, HashMap<String, Double> baseline, double tolerance) {
+        String[] fields = result.split(",");
+        Double before = baseline.get(fields[0] + "," + fields[1]);
+        double now = Double.parseDouble(fields[4]);
+        if (before == null || now <= before * (1 + tolerance)) {
+            return false;
+        }
+        System.err.printf("Regression: %s at %s rows took %.3f ms, baseline %.3f ms%n", fields[0], fields[1], now,
+                before);
+        return true;
+    }
+}
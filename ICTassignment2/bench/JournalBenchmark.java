@@ -0,0 +1,232 @@
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * JournalBenchmark class measures how many changes per second a {@link StudentJournal}
+ * makes durable as more threads change the students at once, and how long recovering
+ * the journal takes.
+ * <p>
+ * Each thread repeatedly adds one student, as one committed change, and then waits for
+ * it with {@link StudentJournal#sync()}, the way the menu and the query server do. The
+ * changes are appended under one lock, standing in for the write lock of the
+ * {@link ConcurrentStudentStore}. With one thread every change needs its own force of
+ * the file, while with more threads the changes waiting together are forced at once, so
+ * the changes per second should grow with the threads until the disk is busy. One CSV
+ * line per thread count gives the changes, the changes per second, and the mean and
+ * 99th percentile time to make a change durable. The journal of the last run is then
+ * opened again and the time to replay it is printed.
+ * </p>
+ * <p>
+ * Usage: java JournalBenchmark [--threads 1,2,4,8,16] [--seconds 5] [--directory dir].
+ * The journals are written to a temporary directory unless one is given, which is
+ * deleted afterwards. Use a directory on the disk being measured, as a temporary
+ * directory may be in memory.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class JournalBenchmark {
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optional settings, see the class description.
+     * @throws Exception If a journal cannot be written or read.
+     */
+    public static void main(String[] args) throws Exception {
+        int[] threadCounts = { 1, 2, 4, 8, 16 };
+        int seconds = 5;
+        Path parent = null;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1].trim() : "";
+            switch (args[i]) {
+                case "--threads":
+                    threadCounts = Arrays.stream(value.split(",")).mapToInt(count -> Integer.parseInt(count.trim())).toArray();
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(value);
+                    break;
+                case "--directory":
+                    parent = Files.createDirectories(Path.of(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+            i++;
+        }
+        Path root = parent == null ? Files.createTempDirectory("journal") : Files.createTempDirectory(parent, "journal");
+
+        try {
+            System.out.println("threads,changes,changes_per_sec,mean_ms,p99_ms");
+            Path directory = null;
+            for (int threads : threadCounts) {
+                directory = root.resolve("threads-" + threads);
+                run(directory, threads, seconds);
+            }
+
+            if (directory != null) {
+                int[] recovered = new int[1];
+                long start = System.nanoTime();
+                try (StudentJournal journal = StudentJournal.open(directory.toString(), null, new CountingHandler(recovered))) {
+                    System.out.printf("recovered %d students from %d bytes in %.1f ms%n", recovered[0], journal.size(),
+                            (System.nanoTime() - start) / 1e6);
+                }
+            }
+        } finally {
+            delete(root);
+        }
+    }
+
+    /**
+     * Runs one thread count against a new journal and prints its result line.
+     *
+     * @param directory The journal directory.
+     * @param threads   The number of threads.
+     * @param seconds   How long to run.
+     * @throws Exception If the journal fails.
+     */
+    private static void run(Path directory, int threads, int seconds) throws Exception {
+        Object storeLock = new Object();
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        Writer[] writers = new Writer[threads];
+        try (StudentJournal journal = StudentJournal.open(directory.toString(), null, new CountingHandler(new int[1]))) {
+            for (int i = 0; i < threads; i++) {
+                writers[i] = new Writer(journal, storeLock, i, end);
+                writers[i].start();
+            }
+            long[] latencies = new long[0];
+            for (Writer writer : writers) {
+                writer.join();
+                if (writer.failure != null) {
+                    throw writer.failure;
+                }
+                int offset = latencies.length;
+                latencies = Arrays.copyOf(latencies, offset + writer.count);
+                System.arraycopy(writer.latencies, 0, latencies, offset, writer.count);
+            }
+            Arrays.sort(latencies);
+            long total = 0;
+            for (long latency : latencies) {
+                total += latency;
+            }
+            int changes = latencies.length;
+            System.out.printf("%d,%d,%.0f,%.3f,%.3f%n", threads, changes, changes / (double) seconds,
+                    changes == 0 ? 0 : total / 1e6 / changes,
+                    changes == 0 ? 0 : latencies[Math.max(0, (int) Math.ceil(0.99 * changes) - 1)] / 1e6);
+        }
+    }
+
+    /**
+     * Deletes a directory of journal directories.
+     *
+     * @param root The directory.
+     * @throws IOException If a file cannot be deleted.
+     */
+    private static void delete(Path root) throws IOException {
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(root)) {
+            for (Path directory : directories) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                    for (Path file : files) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(directory);
+            }
+        }
+        Files.delete(root);
+    }
+
+    /**
+     * Counts the students recovered from a journal.
+     */
+    private static final class CountingHandler implements StudentJournal.RecordHandler {
+        private final int[] count;
+
+        /**
+         * Constructs a handler counting into the first element of an array.
+         *
+         * @param count The count.
+         */
+        CountingHandler(int[] count) {
+            this.count = count;
+        }
+
+        @Override
+        public void added(Student student) {
+            count[0]++;
+        }
+
+        @Override
+        public void removed(int row, Student student) {
+            count[0]--;
+        }
+
+        @Override
+        public void removedRows(int[] rows) {
+            count[0] -= rows.length;
+        }
+
+        @Override
+        public void sorted() {
+            // The count does not change
+        }
+    }
+
+    /**
+     * One thread adding students and waiting for each to be durable.
+     */
+    private static final class Writer extends Thread {
+        private final StudentJournal journal;
+        private final Object storeLock;
+        private final int id;
+        private final long end;
+
+        private long[] latencies = new long[1 << 12];
+        private int count;
+        private Exception failure;
+
+        /**
+         * Constructs a writer.
+         *
+         * @param journal   The journal.
+         * @param storeLock The lock changes are appended under.
+         * @param id        The number of the thread, used in the student numbers.
+         * @param end       The time to stop.
+         */
+        Writer(StudentJournal journal, Object storeLock, int id, long end) {
+            this.journal = journal;
+            this.storeLock = storeLock;
+            this.id = id;
+            this.end = end;
+        }
+
+        /**
+         * Adds students until the end time.
+         */
+        @Override
+        public void run() {
+            try {
+                long now;
+                while ((now = System.nanoTime()) < end) {
+                    Student student = new Student_Research("R", "First" + id, "Last" + count,
+                            10_000_000L + id * 1_000_000L + count);
+                    synchronized (storeLock) {
+                        journal.added(student);
+                        journal.commitChange();
+                    }
+                    journal.sync();
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - now;
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * LoadBenchmark class compares the byte parsing loader used by
+ * Client.loadStudentsInformationFromFile with the previous Scanner and String.split loader.
+ * <p>
+ * A CSV file with the given number of rows is written (mixing course work and research
+ * rows with a few invalid ones), loaded with both loaders, and the rows per second of
+ * each are printed as CSV lines. Both loaders must produce the same students.
+ * </p>
+ * <p>
+ * Usage: java LoadBenchmark [rows] [file]. The default is 1,000,000 rows in a temporary
+ * file, which is deleted afterwards.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class LoadBenchmark {
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optional number of rows and file name.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0].trim()) : 1_000_000;
+        Path file = args.length > 1 ? Paths.get(args[1]) : Files.createTempFile("students", ".csv");
+        writeFile(file, rows);
+        long bytes = Files.size(file);
+
+        System.out.println("loader,rows,bytes,ms,rows_per_sec");
+        try {
+            for (int run = 0; run < 3; run++) {
+                long start = System.nanoTime();
+                ArrayList<Student> legacy = new ArrayList<>();
+                legacyLoad(legacy, file.toString());
+                long legacyTime = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                ArrayList<Student> parsed = new ArrayList<>();
+                Client.loadStudentsInformationFromFile(parsed, file.toString());
+                long parsedTime = System.nanoTime() - start;
+
+                compare(legacy, parsed);
+                print("scanner_split", legacy.size(), bytes, legacyTime);
+                print("parser", parsed.size(), bytes, parsedTime);
+            }
+        } finally {
+            if (args.length < 2) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Prints one result line.
+     *
+     * @param loader  The name of the loader.
+     * @param rows    The number of students loaded.
+     * @param bytes   The size of the file.
+     * @param elapsed The time taken in nanoseconds.
+     */
+    private static void print(String loader, int rows, long bytes, long elapsed) {
+        System.out.printf("%s,%d,%d,%.1f,%.0f%n", loader, rows, bytes, elapsed / 1e6, rows / (elapsed / 1e9));
+    }
+
+    /**
+     * Writes a CSV file with the given number of rows. About one row in a thousand has an
+     * invalid student number or mark.
+     *
+     * @param file The file to write.
+     * @param rows The number of rows.
+     * @throws IOException If the file cannot be written.
+     */
+    private static void writeFile(Path file, int rows) throws IOException {
+        Random random = new Random(42);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < rows; i++) {
+                long studentNumber = 10_000_000L + random.nextInt(90_000_000);
+                String number = random.nextInt(1000) == 0 ? "x" + studentNumber : Long.toString(studentNumber);
+                if (random.nextInt(4) == 0) {
+                    writer.write("R,First" + i + ",Last" + i + "," + number + ","
+                            + random.nextInt(101) + "," + random.nextInt(101) + ",,,\n");
+                } else {
+                    writer.write("C,First" + i + ",Last" + i + "," + number + ",ICT" + (100 + random.nextInt(900))
+                            + "," + (1 + random.nextInt(4)) + "," + random.nextInt(101) + "," + random.nextInt(101)
+                            + "," + random.nextInt(101) + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that both loaders produced the same students.
+     *
+     * @param expected The students loaded by the Scanner loader.
+     * @param actual   The students loaded by the byte parsing loader.
+     */
+    private static void compare(ArrayList<Student> expected, ArrayList<Student> actual) {
+        if (expected.size() != actual.size()) {
+            throw new IllegalStateException("Row count differs: " + expected.size() + " != " + actual.size());
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            Student a = expected.get(i);
+            Student b = actual.get(i);
+            if (a.getStudentNumber() != b.getStudentNumber() || !a.getFirstName().equals(b.getFirstName())
+                    || !a.getLastName().equals(b.getLastName()) || a.getClass() != b.getClass()) {
+                throw new IllegalStateException("Student differs at row " + i);
+            }
+        }
+    }
+
+    /**
+     * The previous loader: a Scanner reading each line and String.split on commas.
+     *
+     * @param students The ArrayList to store the loaded Student objects.
+     * @param fileName The name of the file containing student information.
+     * @throws FileNotFoundException If file is not found.
+     */
+    private static void legacyLoad(ArrayList<Student> students, String fileName) throws FileNotFoundException {
+        Scanner sc = new Scanner(new File(fileName));
+        while (sc.hasNextLine()) {
+            String[] data = sc.nextLine().split(",");
+            if (data.length < 6) {
+                continue;
+            }
+            String enrolmentType = data[0].trim().toUpperCase();
+            long studentNumber;
+            try {
+                studentNumber = Long.parseLong(data[3].trim());
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            try {
+                if (data.length >= 9 && enrolmentType.equals("C")) {
+                    Unit_Course unitCourse = new Unit_Course(data[4].trim(), Integer.parseInt(data[5].trim()),
+                            Integer.parseInt(data[6].trim()), Integer.parseInt(data[7].trim()),
+                            Integer.parseInt(data[8].trim()));
+                    Student_Course studentCourse = new Student_Course("C", data[1].trim(), data[2].trim(), studentNumber);
+                    studentCourse.setUnitCourse(unitCourse);
+                    students.add(studentCourse);
+                } else if (enrolmentType.equals("R")) {
+                    Research_Course research = new Research_Course(Integer.parseInt(data[4].trim()),
+                            Integer.parseInt(data[5].trim()));
+                    Student_Research studentResearch = new Student_Research("R", data[1].trim(), data[2].trim(), studentNumber);
+                    studentResearch.setResearchCourse(research);
+                    students.add(studentResearch);
+                }
+            } catch (NumberFormatException | IllegalMarkException e) {
+                continue;
+            }
+        }
+        sc.close();
+    }
+}
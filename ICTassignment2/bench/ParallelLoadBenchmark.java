@@ -0,0 +1,44 @@
+import java.util.ArrayList;
+
+/**
+ * ParallelLoadBenchmark class measures how loading a student CSV file scales with the
+ * number of parser threads.
+ * <p>
+ * The file is loaded with 1, 2, 4, ... threads up to the number of available processors,
+ * in file order, and the rows per second of each run are printed as CSV lines.
+ * </p>
+ * <p>
+ * Usage: java ParallelLoadBenchmark file [maxThreads].
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class ParallelLoadBenchmark {
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args The file to load and optionally the largest thread count to try.
+     * @throws Exception If the file cannot be loaded.
+     */
+    public static void main(String[] args) throws Exception {
+        String fileName = args[0];
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1].trim())
+                : Runtime.getRuntime().availableProcessors();
+
+        System.out.println("threads,rows,ms,rows_per_sec");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            long best = Long.MAX_VALUE;
+            int rows = 0;
+            for (int run = 0; run < 3; run++) {
+                ArrayList<Student> students = new ArrayList<>();
+                long start = System.nanoTime();
+                Client.loadStudentsInformationFromFile(students, fileName, threads, true);
+                best = Math.min(best, System.nanoTime() - start);
+                rows = students.size();
+            }
+            System.out.printf("%d,%d,%.1f,%.0f%n", threads, rows, best / 1e6, rows / (best / 1e9));
+        }
+    }
+}
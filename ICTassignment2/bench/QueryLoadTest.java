@@ -0,0 +1,270 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * QueryLoadTest class drives a running {@link StudentQueryServer} with lookups and reports
+ * the throughput and the latency percentiles.
+ * <p>
+ * Each connection is one thread with a kept-alive socket that sends a request, reads the
+ * whole response and sends the next one, so the latency of every request is measured
+ * from sending it to reading the last byte of its response. The requests are GET
+ * /students/{studentNumber} for student numbers picked at random from a CSV file, or GET
+ * /analytics when no file is given. Requests made during the warm-up are not counted.
+ * </p>
+ * <p>
+ * Usage: java QueryLoadTest --token token [--port 8080] [--connections 8] [--seconds 10]
+ * [--warmup 2] [--numbers roster.csv], with the token the server printed when it
+ * started. The results are printed as one CSV line: requests, errors,
+ * requests per second, and the 50th, 90th, 99th and 99.9th percentile and maximum
+ * latency in milliseconds.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class QueryLoadTest {
+
+    // Most student numbers sampled from the CSV file
+    private static final int MAX_NUMBERS = 100_000;
+
+    /**
+     * Runs the load test.
+     *
+     * @param args The options.
+     * @throws Exception If the server cannot be reached or the file cannot be read.
+     */
+    public static void main(String[] args) throws Exception {
+        int port = StudentQueryServer.DEFAULT_PORT;
+        int connections = 8;
+        int seconds = 10;
+        int warmup = 2;
+        String numbersFile = null;
+        String token = "";
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--connections":
+                    connections = Integer.parseInt(args[++i]);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(args[++i]);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--numbers":
+                    numbersFile = args[++i];
+                    break;
+                case "--token":
+                    token = args[++i];
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        long[] numbers = numbersFile == null ? new long[0] : readNumbers(numbersFile);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup * 1_000_000_000L;
+        long end = measureFrom + seconds * 1_000_000_000L;
+
+        Connection[] workers = new Connection[connections];
+        for (int i = 0; i < connections; i++) {
+            workers[i] = new Connection(port, token, numbers, i, measureFrom, end);
+            workers[i].start();
+        }
+        long[] latencies = new long[0];
+        long errors = 0;
+        for (Connection worker : workers) {
+            worker.join();
+            if (worker.failure != null) {
+                throw worker.failure;
+            }
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + worker.count);
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            errors += worker.errors;
+        }
+        Arrays.sort(latencies);
+
+        System.out.println("requests,errors,requests_per_s,p50_ms,p90_ms,p99_ms,p999_ms,max_ms");
+        System.out.printf("%d,%d,%.0f,%.3f,%.3f,%.3f,%.3f,%.3f%n", latencies.length, errors,
+                latencies.length / (double) seconds, percentile(latencies, 50), percentile(latencies, 90),
+                percentile(latencies, 99), percentile(latencies, 99.9),
+                latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6);
+    }
+
+    /**
+     * Gets a latency percentile using the nearest rank method.
+     *
+     * @param sorted     The latencies in nanoseconds, in ascending order.
+     * @param percentile The percentile.
+     * @return The latency in milliseconds, or 0 if there are no latencies.
+     */
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    /**
+     * Reads up to {@value #MAX_NUMBERS} student numbers from the fourth column of a CSV
+     * file, skipping lines without a number.
+     *
+     * @param fileName The name of the CSV file.
+     * @return The student numbers.
+     * @throws IOException If the file cannot be read.
+     */
+    private static long[] readNumbers(String fileName) throws IOException {
+        long[] numbers = new long[1024];
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(fileName), StandardCharsets.UTF_8)) {
+            String line;
+            while (count < MAX_NUMBERS && (line = reader.readLine()) != null) {
+                String[] fields = line.split(",", 5);
+                if (fields.length < 4) {
+                    continue;
+                }
+                try {
+                    long number = Long.parseLong(fields[3].trim());
+                    if (count == numbers.length) {
+                        numbers = Arrays.copyOf(numbers, count * 2);
+                    }
+                    numbers[count++] = number;
+                } catch (NumberFormatException e) {
+                    // Header or malformed line
+                }
+            }
+        }
+        return Arrays.copyOf(numbers, count);
+    }
+
+    /**
+     * One kept-alive connection sending requests one after another.
+     */
+    private static final class Connection extends Thread {
+        private final int port;
+        private final String token;
+        private final long[] numbers;
+        private final SplittableRandom random;
+        private final long measureFrom;
+        private final long end;
+        private final byte[] buffer = new byte[1 << 16];
+
+        private long[] latencies = new long[1 << 16];
+        private int count;
+        private long errors;
+        private Exception failure;
+
+        /**
+         * Constructs a connection.
+         *
+         * @param port        The server port.
+         * @param token       The token of the server.
+         * @param numbers     The student numbers to look up, empty to request analytics.
+         * @param seed        The seed of the random student number choice.
+         * @param measureFrom The time from which latencies are recorded.
+         * @param end         The time to stop.
+         */
+        Connection(int port, String token, long[] numbers, int seed, long measureFrom, long end) {
+            this.port = port;
+            this.token = token;
+            this.numbers = numbers;
+            this.random = new SplittableRandom(seed);
+            this.measureFrom = measureFrom;
+            this.end = end;
+        }
+
+        /**
+         * Sends requests until the end time.
+         */
+        @Override
+        public void run() {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                socket.setTcpNoDelay(true);
+                OutputStream out = socket.getOutputStream();
+                InputStream in = socket.getInputStream();
+                long now;
+                while ((now = System.nanoTime()) < end) {
+                    String path = numbers.length == 0 ? "/analytics"
+                            : "/students/" + numbers[random.nextInt(numbers.length)];
+                    out.write(("GET " + path + " HTTP/1.1\r\nHost: localhost\r\n" + StudentQueryServer.TOKEN_HEADER + ": "
+                            + token + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                    int status = readResponse(in);
+                    long latency = System.nanoTime() - now;
+                    if (status != 200) {
+                        errors++;
+                    }
+                    if (now >= measureFrom) {
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = latency;
+                    }
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        /**
+         * Reads one response, using its Content-Length to find the end of the body.
+         *
+         * @param in The socket input.
+         * @return The status code.
+         * @throws IOException If the connection fails or closes.
+         */
+        private int readResponse(InputStream in) throws IOException {
+            // Read until the end of the headers
+            int length = 0;
+            int headerEnd = -1;
+            while (headerEnd < 0) {
+                int read = in.read(buffer, length, buffer.length - length);
+                if (read < 0) {
+                    throw new IOException("Connection closed by the server");
+                }
+                length += read;
+                for (int i = Math.max(3, length - read); i < length; i++) {
+                    if (buffer[i] == '\n' && buffer[i - 1] == '\r' && buffer[i - 2] == '\n' && buffer[i - 3] == '\r') {
+                        headerEnd = i + 1;
+                        break;
+                    }
+                }
+            }
+            String headers = new String(buffer, 0, headerEnd, StandardCharsets.US_ASCII);
+            int status = Integer.parseInt(headers.substring(9, 12));
+            int contentLength = 0;
+            for (String header : headers.split("\r\n")) {
+                if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    contentLength = Integer.parseInt(header.substring(15).trim());
+                }
+            }
+
+            // Skip the rest of the body
+            long remaining = contentLength - (length - headerEnd);
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new IOException("Connection closed by the server");
+                }
+                remaining -= read;
+            }
+            return status;
+        }
+    }
+}
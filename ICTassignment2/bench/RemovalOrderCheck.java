@@ -0,0 +1,170 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * RemovalOrderCheck class checks that removing students keeps a sorted list sorted, so
+ * the menu's sort, remove and export options can be used one after the other.
+ * <p>
+ * The check loads a CSV file into the menu's students and sorts them (Option 7), then
+ * removes students picked at random by student number (Option 3) and exports the sorted
+ * students (Option 8) after each removal, failing if the export is refused or its
+ * student numbers are out of order. Every student is then looked up through the hash
+ * index and compared with a scan of the list, and the whole range of student numbers
+ * is exported through the range index (Option 13) and compared with a sorted copy of
+ * the list, first while the list is sorted and again after students are appended and
+ * more are removed from the unsorted list.
+ * </p>
+ * <p>
+ * Usage: java RemovalOrderCheck [students.csv] [removals]. The exit status is 0 if every
+ * check passed and 1 otherwise.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class RemovalOrderCheck {
+
+    private static int failures;
+
+    /**
+     * Runs the check.
+     *
+     * @param args The CSV file, student_mark.csv by default, and the number of removals.
+     * @throws Exception If the file cannot be read or the export cannot be written.
+     */
+    public static void main(String[] args) throws Exception {
+        String fileName = args.length > 0 ? args[0] : "student_mark.csv";
+        int removals = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        SplittableRandom random = new SplittableRandom(42);
+        ConcurrentStudentStore store = Client.getStudentStore();
+        List<Student> students = Client.getStudents();
+        Path export = Files.createTempFile("removal-order", ".csv");
+        Path expected = Files.createTempFile("removal-order-expected", ".csv");
+
+        Client.loadStudentsInformationFromFile(store, fileName);
+        ArrayList<Student> extra = new ArrayList<>(students);
+        store.write(Client::sortStudentsByStudentNumber);
+        System.out.println("Loaded and sorted " + students.size() + " students");
+
+        for (int i = 0; i < removals && !students.isEmpty(); i++) {
+            long studentNumber = students.get(random.nextInt(students.size())).getStudentNumber();
+            Client.removeStudentsByStudentNumber(studentNumber);
+            store.read(list -> {
+                try {
+                    Client.outputSortedStudentsToCSV(list, export.toString());
+                } catch (NotSortedException e) {
+                    fail("export refused after removing " + studentNumber + ": " + e.getMessage());
+                }
+            });
+            checkExport(export, students.size(), studentNumber);
+        }
+        checkLookups(students, "sorted", export, expected);
+
+        // Students of an unsorted list are swap-removed, the indexes must follow either way
+        ArrayList<Student> added = new ArrayList<>();
+        for (int i = 0; i < extra.size(); i++) {
+            added.add(extra.get(random.nextInt(extra.size())));
+        }
+        Client.replaceStudents(Collections.emptyList(), added);
+        for (int i = 0; i < removals && !students.isEmpty(); i++) {
+            Client.removeStudentsByStudentNumber(students.get(random.nextInt(students.size())).getStudentNumber());
+        }
+        checkLookups(students, "unsorted", export, expected);
+
+        Files.deleteIfExists(export);
+        Files.deleteIfExists(expected);
+        System.out.println(failures == 0 ? "All checks passed" : failures + " checks failed");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * Checks that an export holds the expected number of students in ascending order.
+     *
+     * @param export   The exported file.
+     * @param expected The number of students in the list.
+     * @param removed  The student number removed just before the export.
+     * @throws IOException If the export cannot be read.
+     */
+    private static void checkExport(Path export, int expected, long removed) throws IOException {
+        // The first line is the header
+        List<String> lines = Files.readAllLines(export);
+        lines = lines.subList(Math.min(1, lines.size()), lines.size());
+        if (lines.size() != expected) {
+            fail("export after removing " + removed + " has " + lines.size() + " students, expected " + expected);
+        }
+        long previous = Long.MIN_VALUE;
+        for (String line : lines) {
+            long studentNumber = Long.parseLong(line.split(",", 5)[3]);
+            if (studentNumber < previous) {
+                fail("export after removing " + removed + " lists " + studentNumber + " after " + previous);
+                return;
+            }
+            if (studentNumber == removed) {
+                fail("export still lists removed student " + removed);
+                return;
+            }
+            previous = studentNumber;
+        }
+    }
+
+    /**
+     * Looks up every student number of the list through the hash index and compares the
+     * students found with a scan of the list, then compares an export of every student
+     * through the range index with an export of a sorted copy of the list.
+     *
+     * @param students The menu's students.
+     * @param state    Whether the list is sorted, for the messages.
+     * @param export   A file for the export through the range index.
+     * @param expected A file for the export of the sorted copy.
+     * @throws Exception If the exports cannot be written or read.
+     */
+    private static void checkLookups(List<Student> students, String state, Path export, Path expected)
+            throws Exception {
+        for (Student student : students) {
+            long studentNumber = student.getStudentNumber();
+            Student[] found = Client.findStudents(students, studentNumber);
+            int count = 0;
+            for (Student other : students) {
+                if (other.getStudentNumber() == studentNumber) {
+                    count++;
+                }
+            }
+            if (found.length != count) {
+                fail(state + ": hash index found " + found.length + " students for " + studentNumber + ", expected " + count);
+                return;
+            }
+            for (Student other : found) {
+                if (other.getStudentNumber() != studentNumber) {
+                    fail(state + ": hash index returned " + other.getStudentNumber() + " for " + studentNumber);
+                    return;
+                }
+            }
+        }
+
+        int exported = Client.getStudentStore().query(list ->
+                Client.writeStudentsInRangeToCSV(list, 0, Long.MAX_VALUE, export.toString()));
+        ArrayList<Student> copy = new ArrayList<>(students);
+        StudentSorter.sortByStudentNumber(copy);
+        Client.outputSortedStudentsToCSV(copy, expected.toString());
+        if (exported != copy.size() || !Files.readAllLines(export).equals(Files.readAllLines(expected))) {
+            fail(state + ": range index export of " + exported + " students differs from the "
+                    + copy.size() + " sorted students");
+        }
+        System.out.println("Checked lookups of " + students.size() + " " + state + " students");
+    }
+
+    /**
+     * Reports a failed check.
+     *
+     * @param message What went wrong.
+     */
+    private static void fail(String message) {
+        System.out.println("FAILED: " + message);
+        failures++;
+    }
+}
@@ -0,0 +1,420 @@
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * RosterGenerator class writes large synthetic student CSV files for scale and load
+ * testing.
+ * <p>
+ * Rows use the same layout as student_mark.csv, which Client.loadStudentsInformationFromFile
+ * reads: "C,first,last,number,unit,level,mark,mark,mark" and "R,first,last,number,mark,mark,,,".
+ * Student numbers are unique unless a row is chosen to be a duplicate, in which case it
+ * reuses the number of an earlier row. A chosen fraction of rows get marks outside 0 to
+ * 100, and another fraction are malformed (too few fields, a bad student number, level or
+ * mark, or an unknown enrolment type).
+ * </p>
+ * <p>
+ * The rows are generated in blocks. Each block has its own random generator, seeded from
+ * the seed and the block number, so the same seed always gives the same file whatever the
+ * number of threads. Blocks are encoded in parallel and written to the file in order,
+ * with only a few blocks per thread held in memory at a time.
+ * </p>
+ * <p>
+ * Usage: java RosterGenerator file rows [--seed 1] [--research 0.25] [--duplicates 0.01]
+ * [--invalid-marks 0.001] [--malformed 0.001] [--threads n]. A summary of the rows and
+ * the write speed is printed as CSV.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class RosterGenerator {
+
+    // Rows per block, the unit of parallel work
+    private static final int BLOCK_ROWS = 1 << 16;
+
+    // Longest possible row in bytes, used to size each block's buffer
+    private static final int MAX_ROW_BYTES = 96;
+
+    // First student number, matching the 8 digit numbers of the sample files
+    private static final long FIRST_STUDENT_NUMBER = 10_000_000L;
+
+    private static final String[] FIRST_NAMES = { "John", "Jane", "Robert", "Emily", "Michael", "Liam", "Olivia",
+        "Sophia", "Noah", "Emma", "James", "Ava", "William", "Mia", "Lucas", "Isabella", "Henry", "Amelia", "Jack",
+        "Charlotte", "Leo", "Harper", "Oliver", "Ella", "Ethan", "Grace", "Daniel", "Chloe", "Min", "Aung", "Wei",
+        "Priya" };
+    private static final String[] LAST_NAMES = { "Doe", "Smith", "Johnson", "Brown", "Williams", "Kim", "Park",
+        "Lee", "Nguyen", "Tran", "Wilson", "Taylor", "Anderson", "Thomas", "Martin", "Jackson", "White", "Harris",
+        "Clark", "Lewis", "Walker", "Young", "King", "Wright", "Scott", "Green", "Baker", "Adams", "Thite", "Chen",
+        "Patel", "Singh" };
+    private static final String[] UNIT_PREFIXES = { "ICT", "BUS", "COM", "MAS", "ENG", "LAW" };
+
+    private final long rows;
+    private final long seed;
+    private final double researchRate;
+    private final double duplicateRate;
+    private final double invalidMarkRate;
+    private final double malformedRate;
+
+    // Student numbers are a bijection of the row number onto [0, 2^numberBits)
+    private final int numberBits;
+
+    /**
+     * Counts of the kinds of rows written, one set per block.
+     */
+    private static final class Counts {
+        long duplicates;
+        long invalidMarks;
+        long malformed;
+    }
+
+    /**
+     * One encoded block and its counts.
+     */
+    private static final class Block {
+        final ByteBuffer bytes;
+        final Counts counts;
+
+        /**
+         * Constructs an encoded block.
+         *
+         * @param bytes  The encoded rows, ready to be written.
+         * @param counts The counts of the rows.
+         */
+        Block(ByteBuffer bytes, Counts counts) {
+            this.bytes = bytes;
+            this.counts = counts;
+        }
+    }
+
+    /**
+     * Constructs a generator.
+     *
+     * @param rows            The number of rows to write.
+     * @param seed            The seed of the random generators.
+     * @param researchRate    The fraction of research rows.
+     * @param duplicateRate   The fraction of rows reusing an earlier student number.
+     * @param invalidMarkRate The fraction of rows with a mark outside 0 to 100.
+     * @param malformedRate   The fraction of malformed lines.
+     */
+    public RosterGenerator(long rows, long seed, double researchRate, double duplicateRate, double invalidMarkRate,
+            double malformedRate) {
+        this.rows = rows;
+        this.seed = seed;
+        this.researchRate = researchRate;
+        this.duplicateRate = duplicateRate;
+        this.invalidMarkRate = invalidMarkRate;
+        this.malformedRate = malformedRate;
+        this.numberBits = Math.max(1, 64 - Long.numberOfLeadingZeros(Math.max(1, rows - 1)));
+    }
+
+    /**
+     * Runs the generator.
+     *
+     * @param args The file name, the number of rows and optional settings.
+     * @throws Exception If the file cannot be written.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: java RosterGenerator file rows [--seed 1] [--research 0.25] "
+                    + "[--duplicates 0.01] [--invalid-marks 0.001] [--malformed 0.001] [--threads n]");
+            return;
+        }
+        String fileName = args[0];
+        long rows = Long.parseLong(args[1].trim());
+        long seed = 1;
+        double research = 0.25;
+        double duplicates = 0.01;
+        double invalidMarks = 0.001;
+        double malformed = 0.001;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        for (int i = 2; i + 1 < args.length; i += 2) {
+            String value = args[i + 1].trim();
+            switch (args[i]) {
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--research":
+                    research = Double.parseDouble(value);
+                    break;
+                case "--duplicates":
+                    duplicates = Double.parseDouble(value);
+                    break;
+                case "--invalid-marks":
+                    invalidMarks = Double.parseDouble(value);
+                    break;
+                case "--malformed":
+                    malformed = Double.parseDouble(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        RosterGenerator generator = new RosterGenerator(rows, seed, research, duplicates, invalidMarks, malformed);
+        long start = System.nanoTime();
+        Counts counts = generator.write(fileName, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long bytes = Files.size(Paths.get(fileName));
+
+        System.out.println("rows,duplicates,invalid_marks,malformed,bytes,seconds,mb_per_sec");
+        System.out.printf("%d,%d,%d,%d,%d,%.2f,%.1f%n", rows, counts.duplicates, counts.invalidMarks,
+                counts.malformed, bytes, seconds, bytes / 1e6 / seconds);
+    }
+
+    /**
+     * Writes the rows to a file, replacing any existing file.
+     *
+     * @param fileName The name of the file.
+     * @param threads  The number of threads encoding blocks.
+     * @return The counts of duplicate, invalid mark and malformed rows written.
+     * @throws Exception If the file cannot be written or a block fails.
+     */
+    public Counts write(String fileName, int threads) throws Exception {
+        long blocks = (rows + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        int maxInFlight = Math.max(2, threads * 2);
+        Counts total = new Counts();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            // Keep a bounded window of blocks in flight, writing them in block order
+            ArrayDeque<Future<Block>> pending = new ArrayDeque<>();
+            long nextBlock = 0;
+            while (nextBlock < blocks || !pending.isEmpty()) {
+                while (nextBlock < blocks && pending.size() < maxInFlight) {
+                    long block = nextBlock++;
+                    pending.add(executor.submit(() -> encodeBlock(block)));
+                }
+                Block block = pending.poll().get();
+                while (block.bytes.hasRemaining()) {
+                    channel.write(block.bytes);
+                }
+                total.duplicates += block.counts.duplicates;
+                total.invalidMarks += block.counts.invalidMarks;
+                total.malformed += block.counts.malformed;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return total;
+    }
+
+    /**
+     * Encodes the rows of one block.
+     *
+     * @param block The block number.
+     * @return The encoded block.
+     */
+    private Block encodeBlock(long block) {
+        long firstRow = block * BLOCK_ROWS;
+        int count = (int) Math.min(BLOCK_ROWS, rows - firstRow);
+        SplittableRandom random = new SplittableRandom(mix(seed ^ mix(block + 1)));
+        ByteBuffer bytes = ByteBuffer.allocate(count * MAX_ROW_BYTES);
+        Counts counts = new Counts();
+
+        for (int i = 0; i < count; i++) {
+            long row = firstRow + i;
+            long studentNumber = FIRST_STUDENT_NUMBER + permute(row);
+            if (row > 0 && random.nextDouble() < duplicateRate) {
+                studentNumber = FIRST_STUDENT_NUMBER + permute(random.nextLong(row));
+                counts.duplicates++;
+            }
+            String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            boolean research = random.nextDouble() < researchRate;
+
+            if (random.nextDouble() < malformedRate) {
+                counts.malformed++;
+                writeMalformed(bytes, random, research, firstName, lastName, studentNumber);
+                continue;
+            }
+
+            boolean invalidMark = random.nextDouble() < invalidMarkRate;
+            if (invalidMark) {
+                counts.invalidMarks++;
+            }
+            int badMark = invalidMark ? random.nextInt(research ? 2 : 3) : -1;
+            if (research) {
+                put(bytes, "R,");
+                writeNames(bytes, firstName, lastName, studentNumber);
+                writeNumber(bytes, mark(random, badMark == 0));
+                bytes.put((byte) ',');
+                writeNumber(bytes, mark(random, badMark == 1));
+                put(bytes, ",,,\r\n");
+            } else {
+                put(bytes, "C,");
+                writeNames(bytes, firstName, lastName, studentNumber);
+                put(bytes, UNIT_PREFIXES[random.nextInt(UNIT_PREFIXES.length)]);
+                writeNumber(bytes, 100 + random.nextInt(300));
+                bytes.put((byte) ',');
+                writeNumber(bytes, 1 + random.nextInt(4));
+                for (int mark = 0; mark < 3; mark++) {
+                    bytes.put((byte) ',');
+                    writeNumber(bytes, mark(random, badMark == mark));
+                }
+                put(bytes, "\r\n");
+            }
+        }
+        bytes.flip();
+        return new Block(bytes, counts);
+    }
+
+    /**
+     * Writes a line the loader rejects or ignores.
+     *
+     * @param bytes         The block buffer.
+     * @param random        The block's random generator.
+     * @param research      Whether the line is based on a research row.
+     * @param firstName     The first name.
+     * @param lastName      The last name.
+     * @param studentNumber The student number.
+     */
+    private static void writeMalformed(ByteBuffer bytes, SplittableRandom random, boolean research,
+            String firstName, String lastName, long studentNumber) {
+        switch (random.nextInt(5)) {
+            case 0:
+                // Too few fields
+                put(bytes, research ? "R," : "C,");
+                put(bytes, firstName);
+                bytes.put((byte) ',');
+                put(bytes, lastName);
+                bytes.put((byte) ',');
+                writeNumber(bytes, studentNumber);
+                break;
+            case 1:
+                // Student number that is not a number
+                put(bytes, research ? "R," : "C,");
+                put(bytes, firstName);
+                bytes.put((byte) ',');
+                put(bytes, lastName);
+                put(bytes, ",S");
+                writeNumber(bytes, studentNumber);
+                put(bytes, research ? ",70,70,,," : ",ICT167,1,70,70,70");
+                break;
+            case 2:
+                // Mark that is not a number
+                put(bytes, research ? "R," : "C,");
+                writeNames(bytes, firstName, lastName, studentNumber);
+                put(bytes, research ? "seventy,70,,," : "ICT167,1,70,seventy,70");
+                break;
+            case 3:
+                // Level that is not a number
+                put(bytes, "C,");
+                writeNames(bytes, firstName, lastName, studentNumber);
+                put(bytes, "ICT167,one,70,70,70");
+                break;
+            default:
+                // Unknown enrolment type
+                put(bytes, "X,");
+                writeNames(bytes, firstName, lastName, studentNumber);
+                put(bytes, "ICT167,1,70,70,70");
+                break;
+        }
+        put(bytes, "\r\n");
+    }
+
+    /**
+     * Writes the first name, last name and student number fields, each followed by a comma.
+     *
+     * @param bytes         The block buffer.
+     * @param firstName     The first name.
+     * @param lastName      The last name.
+     * @param studentNumber The student number.
+     */
+    private static void writeNames(ByteBuffer bytes, String firstName, String lastName, long studentNumber) {
+        put(bytes, firstName);
+        bytes.put((byte) ',');
+        put(bytes, lastName);
+        bytes.put((byte) ',');
+        writeNumber(bytes, studentNumber);
+        bytes.put((byte) ',');
+    }
+
+    /**
+     * Draws a mark.
+     *
+     * @param random  The block's random generator.
+     * @param invalid Whether the mark must be outside 0 to 100.
+     * @return The mark.
+     */
+    private static int mark(SplittableRandom random, boolean invalid) {
+        if (!invalid) {
+            return random.nextInt(101);
+        }
+        return random.nextBoolean() ? 101 + random.nextInt(100) : -1 - random.nextInt(100);
+    }
+
+    /**
+     * Maps a row number to a distinct offset in [0, 2^numberBits), so that rows which are
+     * not duplicates never share a student number.
+     *
+     * @param row The row number.
+     * @return The offset from the first student number.
+     */
+    private long permute(long row) {
+        long mask = numberBits == 64 ? -1L : (1L << numberBits) - 1;
+        long x = row;
+        // Multiplying by an odd number and xor-shifting are both invertible modulo 2^bits
+        for (int round = 0; round < 2; round++) {
+            x = (x * 0x9E3779B97F4A7C15L) & mask;
+            x ^= x >>> Math.max(1, numberBits / 2);
+        }
+        return x;
+    }
+
+    /**
+     * Mixes the bits of a value, used to derive the seed of each block.
+     *
+     * @param z The value.
+     * @return The mixed value.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Writes ASCII text.
+     *
+     * @param bytes The block buffer.
+     * @param text  The text.
+     */
+    private static void put(ByteBuffer bytes, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            bytes.put((byte) text.charAt(i));
+        }
+    }
+
+    /**
+     * Writes a number as ASCII digits.
+     *
+     * @param bytes The block buffer.
+     * @param value The number.
+     */
+    private static void writeNumber(ByteBuffer bytes, long value) {
+        if (value < 0) {
+            bytes.put((byte) '-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            bytes.put((byte) ('0' + value / divisor % 10));
+        }
+    }
+}
@@ -0,0 +1,158 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * SnapshotBenchmark class compares restoring a roster from a binary StudentSnapshot with
+ * parsing the same roster from CSV.
+ * <p>
+ * A StudentStore with the given number of generated rows is written both as CSV and as a
+ * snapshot. The CSV file is parsed into a new StudentStore, and the snapshot is restored
+ * the way the menu restores it at start-up, through {@link Client#restoreStudents(String)}:
+ * read into a store that becomes the menu's students, with its indexes, statistics and
+ * ranking built over it. The two stores are checked to hold the same rows, and the time
+ * taken by each is printed as CSV lines. Opening the snapshot alone (reading the file and
+ * checking the checksum, without adding any rows to a store) is timed as well.
+ * </p>
+ * <p>
+ * Usage: java SnapshotBenchmark [rows]. The default is 2,000,000 rows in temporary
+ * files, which are deleted afterwards.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class SnapshotBenchmark {
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optional number of rows.
+     * @throws IOException If a file cannot be written or read.
+     */
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0].trim()) : 2_000_000;
+        Path csvFile = Files.createTempFile("students", ".csv");
+        Path snapshotFile = Files.createTempFile("students", ".snap");
+
+        try {
+            StudentStore store = generate(rows);
+            writeCsv(store, csvFile);
+            StudentSnapshot.write(store, snapshotFile.toString());
+
+            System.out.println("format,rows,bytes,ms,rows_per_sec");
+            for (int run = 0; run < 3; run++) {
+                long start = System.nanoTime();
+                StudentStore fromCsv = new StudentStore(rows);
+                try (FileChannel channel = FileChannel.open(csvFile, StandardOpenOption.READ)) {
+                    new StudentCsvParser(fromCsv).parse(channel);
+                }
+                long csvTime = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                StudentSnapshot snapshot = StudentSnapshot.open(snapshotFile.toString());
+                long openTime = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                if (!Client.restoreStudents(snapshotFile.toString())) {
+                    throw new IOException("Cannot restore the snapshot");
+                }
+                long snapshotTime = System.nanoTime() - start;
+                StudentStore fromSnapshot = Client.getStudents();
+
+                compare(fromCsv, fromSnapshot);
+                print("csv", fromCsv.size(), Files.size(csvFile), csvTime);
+                print("snapshot_open", snapshot.size(), Files.size(snapshotFile), openTime);
+                print("snapshot_restore", fromSnapshot.size(), Files.size(snapshotFile), snapshotTime);
+            }
+        } finally {
+            Files.deleteIfExists(csvFile);
+            Files.deleteIfExists(snapshotFile);
+        }
+    }
+
+    /**
+     * Generates a store of course work and research rows.
+     *
+     * @param rows The number of rows.
+     * @return The store.
+     */
+    private static StudentStore generate(int rows) {
+        StudentStore store = new StudentStore(rows);
+        for (int i = 0; i < rows; i++) {
+            String firstName = "First" + (i % 5000);
+            String lastName = "Last" + (i % 20000);
+            long studentNumber = 10_000_000L + (i * 7919L) % 90_000_000L;
+            if (i % 4 == 0) {
+                store.researchRow(firstName, lastName, studentNumber, i % 101, (i / 3) % 101);
+            } else {
+                store.courseWorkRow(firstName, lastName, studentNumber, "ICT" + (100 + i % 900), 1 + i % 4,
+                        i % 101, (i / 3) % 101, (i / 7) % 101);
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Writes every row of a store as CSV, in the layout read by the loader.
+     *
+     * @param store The store.
+     * @param file  The file to write.
+     * @throws IOException If writing fails.
+     */
+    private static void writeCsv(StudentStore store, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int row = 0; row < store.size(); row++) {
+                String prefix = store.getFirstName(row) + "," + store.getLastName(row) + ","
+                        + store.getStudentNumber(row) + ",";
+                if (store.getEnrolmentType(row) == StudentStore.RESEARCH) {
+                    writer.write("R," + prefix + store.getMarkA(row) + "," + store.getMarkB(row) + ",,,\n");
+                } else {
+                    writer.write("C," + prefix + store.getUnitID(row) + "," + store.getLevel(row) + ","
+                            + store.getMarkA(row) + "," + store.getMarkB(row) + "," + store.getMarkC(row) + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that two stores hold the same rows in the same order.
+     *
+     * @param expected The store loaded from CSV.
+     * @param actual   The store restored from the snapshot.
+     */
+    private static void compare(StudentStore expected, StudentStore actual) {
+        if (expected.size() != actual.size()) {
+            throw new IllegalStateException("Row counts differ: " + expected.size() + " and " + actual.size());
+        }
+        for (int row = 0; row < expected.size(); row++) {
+            if (expected.getStudentNumber(row) != actual.getStudentNumber(row)
+                    || expected.getEnrolmentType(row) != actual.getEnrolmentType(row)
+                    || !expected.getFirstName(row).equals(actual.getFirstName(row))
+                    || !expected.getLastName(row).equals(actual.getLastName(row))
+                    || !Objects.equals(expected.getUnitID(row), actual.getUnitID(row))
+                    || expected.getLevel(row) != actual.getLevel(row)
+                    || expected.getOverallMarkHundredths(row) != actual.getOverallMarkHundredths(row)
+                    || expected.getMarkC(row) != actual.getMarkC(row)) {
+                throw new IllegalStateException("Rows differ at row " + row);
+            }
+        }
+    }
+
+    /**
+     * Prints one result line.
+     *
+     * @param format The format that was loaded.
+     * @param rows   The number of rows loaded.
+     * @param bytes  The size of the file.
+     * @param nanos  The time taken in nanoseconds.
+     */
+    private static void print(String format, int rows, long bytes, long nanos) {
+        System.out.printf("%s,%d,%d,%.1f,%.0f%n", format, rows, bytes, nanos / 1e6, rows / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,107 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * SortBenchmark class measures how Client.sortStudentsByStudentNumber scales with the
+ * number of students.
+ * <p>
+ * For each roster size a list of students with random eight digit student numbers is
+ * generated (about one percent of them share a student number with another student),
+ * sorted, and checked for order and stability. The timings are printed as CSV lines.
+ * </p>
+ * <p>
+ * Usage: java SortBenchmark [size ...]. Without arguments the sizes 10k, 100k, 1M and
+ * 10M are used. The 10M run needs a heap of around 2 GB (for example -Xmx3g).
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class SortBenchmark {
+
+    // Default roster sizes from 10k to 10M rows
+    private static final int[] DEFAULT_SIZES = {10_000, 100_000, 1_000_000, 10_000_000};
+
+    // Number of timed runs per size, the fastest run is reported
+    private static final int RUNS = 3;
+
+    /**
+     * Runs the benchmark for every roster size.
+     *
+     * @param args Optional roster sizes to use instead of the defaults.
+     */
+    public static void main(String[] args) {
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i].trim());
+            }
+        }
+
+        // Warm up the JIT on a small roster before measuring
+        for (int i = 0; i < 5; i++) {
+            Client.sortStudentsByStudentNumber(generateStudents(50_000, i));
+        }
+
+        System.out.println("rows,best_ms,rows_per_sec");
+        for (int size : sizes) {
+            long best = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++) {
+                ArrayList<Student> students = generateStudents(size, run);
+
+                long start = System.nanoTime();
+                Client.sortStudentsByStudentNumber(students);
+                long elapsed = System.nanoTime() - start;
+
+                verify(students);
+                best = Math.min(best, elapsed);
+            }
+            System.out.printf("%d,%.3f,%.0f%n", size, best / 1e6, size / (best / 1e9));
+        }
+    }
+
+    /**
+     * Generates a roster of course work students with random student numbers. The first
+     * name holds the generation position so that stability can be checked after sorting.
+     *
+     * @param size The number of students to generate.
+     * @param seed The random seed.
+     * @return The generated students.
+     */
+    private static ArrayList<Student> generateStudents(int size, long seed) {
+        Random random = new Random(seed);
+        ArrayList<Student> students = new ArrayList<>(size);
+        long previous = 10_000_000L;
+        for (int i = 0; i < size; i++) {
+            long studentNumber;
+            if (i > 0 && random.nextInt(100) == 0) {
+                studentNumber = previous;
+            } else {
+                studentNumber = 10_000_000L + random.nextInt(90_000_000);
+            }
+            previous = studentNumber;
+            students.add(new Student_Course("C", Integer.toString(i), "Bench", studentNumber));
+        }
+        return students;
+    }
+
+    /**
+     * Checks that the students are sorted and that duplicates kept their original order.
+     *
+     * @param students The sorted students.
+     */
+    private static void verify(ArrayList<Student> students) {
+        for (int i = 1; i < students.size(); i++) {
+            Student previous = students.get(i - 1);
+            Student current = students.get(i);
+            if (previous.getStudentNumber() > current.getStudentNumber()) {
+                throw new IllegalStateException("Not sorted at position " + i);
+            }
+            if (previous.getStudentNumber() == current.getStudentNumber()
+                    && Integer.parseInt(previous.getFirstName()) > Integer.parseInt(current.getFirstName())) {
+                throw new IllegalStateException("Not stable at position " + i);
+            }
+        }
+    }
+}
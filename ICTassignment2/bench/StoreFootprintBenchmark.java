@@ -0,0 +1,79 @@
+import java.util.ArrayList;
+
+/**
+ * StoreFootprintBenchmark class compares the heap used per student by an ArrayList of
+ * Student objects and by a columnar StudentStore.
+ * <p>
+ * Both are filled with the same generated course work and research rows (names and unit
+ * IDs drawn from small pools, as in real rosters). The heap used after a garbage
+ * collection is printed as CSV lines in bytes per row.
+ * </p>
+ * <p>
+ * Usage: java StoreFootprintBenchmark [rows]. The default is 5,000,000 rows.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class StoreFootprintBenchmark {
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optional number of rows.
+     */
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0].trim()) : 5_000_000;
+
+        System.out.println("representation,rows,bytes_per_row");
+
+        long before = usedHeap();
+        ArrayList<Student> students = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            students.add(generate(i));
+        }
+        long listBytes = usedHeap() - before;
+        System.out.printf("student_objects,%d,%.1f%n", rows, (double) listBytes / rows);
+
+        StudentStore store = new StudentStore(rows);
+        for (int i = 0; i < rows; i++) {
+            store.add(students.get(i));
+        }
+        students = null;
+        long storeBytes = usedHeap() - before;
+        System.out.printf("student_store,%d,%.1f%n", store.size(), (double) storeBytes / rows);
+    }
+
+    /**
+     * Generates one student from the row number.
+     *
+     * @param i The row number.
+     * @return A Student_Course or Student_Research.
+     */
+    private static Student generate(int i) {
+        String firstName = "First" + (i % 5000);
+        String lastName = "Last" + (i % 20000);
+        long studentNumber = 10_000_000L + (i * 7919L) % 90_000_000L;
+        if (i % 4 == 0) {
+            Student_Research student = new Student_Research("R", firstName, lastName, studentNumber);
+            student.setResearchCourse(new Research_Course(i % 101, (i / 3) % 101));
+            return student;
+        }
+        Student_Course student = new Student_Course("C", firstName, lastName, studentNumber);
+        student.setUnitCourse(new Unit_Course("ICT" + (100 + i % 900), 1 + i % 4, i % 101, (i / 3) % 101, (i / 7) % 101));
+        return student;
+    }
+
+    /**
+     * Measures the heap in use after asking for a garbage collection.
+     *
+     * @return The used heap in bytes.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
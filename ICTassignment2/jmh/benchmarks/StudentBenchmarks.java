@@ -0,0 +1,104 @@
+package benchmarks;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * StudentBenchmarks class runs the benchmarks of BenchmarkSuite under JMH, for every
+ * benchmark and roster size, so that JMH forks, warms up and measures them and writes
+ * the results in a machine-readable format.
+ * <p>
+ * JMH does not accept benchmarks in the unnamed package, and classes of a named package
+ * cannot refer to the unnamed package where the Student Grade System lives. This class
+ * therefore finds BenchmarkSuite by reflection when a trial is set up, and only holds
+ * JDK types: the roster (an AutoCloseable) and the operation being measured (a
+ * Callable). Reflection is not used while measuring.
+ * </p>
+ * <p>
+ * One invocation is one iteration of the BenchmarkSuite operation, so lookup, analyze,
+ * top_k and name_search run 1,000 operations per invocation and overall_mark and
+ * final_grade run one per course work student. Console output of the operations is
+ * discarded.
+ * </p>
+ * <p>
+ * Usage: mvn -P jmh package, then java -jar target/benchmarks.jar -rf json -rff
+ * results.json [-p rows=1000,100000] [-p benchmark=load,sort]. 10,000,000 rows need
+ * about 4 GB of heap, which the fork is given.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StudentBenchmarks {
+
+    /**
+     * The number of rows in the roster.
+     */
+    @Param({ "1000", "100000", "10000000" })
+    public int rows;
+
+    /**
+     * The name of the BenchmarkSuite benchmark.
+     */
+    @Param({ "load", "sort", "lookup", "analyze", "analyze_scan", "aggregate", "top_k", "range", "name_search",
+        "export", "overall_mark", "final_grade" })
+    public String benchmark;
+
+    private AutoCloseable fixture;
+    private Callable<Long> operation;
+
+    /**
+     * Writes and loads the roster and prepares the benchmark.
+     *
+     * @throws Exception If the roster cannot be loaded or the benchmark is unknown.
+     */
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        Class<?> suite = Class.forName("BenchmarkSuite");
+        fixture = (AutoCloseable) suite.getMethod("openFixture", int.class).invoke(null, rows);
+        operation = (Callable<Long>) suite.getMethod("prepareForJmh", String.class, AutoCloseable.class)
+                .invoke(null, benchmark, fixture);
+    }
+
+    /**
+     * Runs one iteration of the benchmark.
+     *
+     * @return The time the iteration took, so that its work is not dropped.
+     * @throws Exception If the operation fails.
+     */
+    @Benchmark
+    public long run() throws Exception {
+        return operation.call();
+    }
+
+    /**
+     * Empties the menu's students and deletes the roster.
+     *
+     * @throws Exception If the roster cannot be deleted.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+}
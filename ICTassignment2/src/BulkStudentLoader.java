@@ -0,0 +1,320 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * BulkStudentLoader class loads many student CSV files at the same time, such as a
+ * directory of per-campus extracts.
+ * <p>
+ * The files are named by a directory, which loads every .csv file in it, or by a glob
+ * pattern such as extracts/*.csv or extracts/**&#47;*.csv. Each file is parsed on its own
+ * task into its own list of students, on virtual threads when the Java runtime has them
+ * (Java 21 and later) and on platform threads otherwise (see {@link TaskExecutors}). A
+ * semaphore caps how many files are open and being read at once, so hundreds of files
+ * do not all hit the disk together.
+ * </p>
+ * <p>
+ * Each result is handed to a merger, in the order of the file names, as soon as its
+ * file and every file before it are loaded, and the result lets go of its students once
+ * merged. Only the files loaded ahead of the next one to merge are held as Student
+ * objects, rather than every file of the load.
+ * </p>
+ * <p>
+ * Rejected rows are counted for each file instead of being printed. A file that cannot be
+ * read, or whose parser fails, is reported in its result and does not stop the other
+ * files.
+ * </p>
+ * <p>
+ * Precondition: The files are not changed while they are being loaded.
+ * Postconditions: The results are merged in the order of the file names, and the
+ * students of each result are in file order, so the merger gets the same students in the
+ * same order every time.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class BulkStudentLoader {
+
+    /**
+     * Files read at once when no cap is given.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 8;
+
+    // Error positions kept for each file, only the counts are reported
+    private static final int ERROR_CAPACITY = 1;
+
+    private static final String WILDCARDS = "*?[{";
+
+    /**
+     * The result of loading one file.
+     */
+    public static final class FileResult {
+        private final Path file;
+        private ArrayList<Student> students;
+        private final int rows;
+        private final long bytes;
+        private final long rowsRejected;
+        private final long nanos;
+        private final String error;
+
+        /**
+         * Constructs the result of a file.
+         *
+         * @param file         The file.
+         * @param students     The students loaded, in file order.
+         * @param bytes        The size of the file.
+         * @param rowsRejected The number of rejected rows.
+         * @param nanos        The time taken to load the file.
+         * @param error        Why the file could not be loaded, or null.
+         */
+        private FileResult(Path file, ArrayList<Student> students, long bytes, long rowsRejected, long nanos, String error) {
+            this.file = file;
+            this.students = students;
+            this.rows = students.size();
+            this.bytes = bytes;
+            this.rowsRejected = rowsRejected;
+            this.nanos = nanos;
+            this.error = error;
+        }
+
+        /**
+         * Gets the file.
+         *
+         * @return The path of the file.
+         */
+        public Path getFile() {
+            return file;
+        }
+
+        /**
+         * Gets the students loaded from the file.
+         *
+         * @return The students in file order, empty if the file could not be loaded or
+         *         the result has been merged.
+         */
+        public ArrayList<Student> getStudents() {
+            return students;
+        }
+
+        /**
+         * Gets the number of students loaded from the file, which stays the same after
+         * the result has been merged.
+         *
+         * @return The number of students.
+         */
+        public int getRows() {
+            return rows;
+        }
+
+        /**
+         * Gets the size of the file.
+         *
+         * @return The number of bytes.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Gets the number of rejected rows.
+         *
+         * @return The number of rows that were skipped.
+         */
+        public long getRowsRejected() {
+            return rowsRejected;
+        }
+
+        /**
+         * Gets the time taken to load the file, including waiting to be read.
+         *
+         * @return The time in nanoseconds.
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Gets why the file could not be loaded.
+         *
+         * @return The error message, or null if the file was loaded.
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * Describes the result as one line of a report.
+         *
+         * @return The file name and its students and rejected rows, or its error.
+         */
+        @Override
+        public String toString() {
+            if (error != null) {
+                return file + ": " + error;
+            }
+            return String.format("%s: %d students, %d rows rejected, %d bytes in %.1f ms", file, rows,
+                    rowsRejected, bytes, nanos / 1e6);
+        }
+    }
+
+    /**
+     * Finds the files named by a directory or a glob pattern.
+     * <p>
+     * A directory names every .csv file directly in it, and the name of a file names
+     * that file. Otherwise the pattern is split at the last directory before its first
+     * wildcard, and the rest is matched against the paths of the files under that
+     * directory, looking into subdirectories only when the pattern does.
+     * </p>
+     *
+     * @param pattern The directory, file or glob pattern.
+     * @return The regular files, sorted by path.
+     * @throws IOException If a directory cannot be listed.
+     */
+    public static ArrayList<Path> findFiles(String pattern) throws IOException {
+        int wildcard = indexOfWildcard(pattern);
+        Path base;
+        String glob;
+        if (wildcard < 0) {
+            base = Paths.get(pattern);
+            if (!Files.isDirectory(base)) {
+                ArrayList<Path> files = new ArrayList<>();
+                files.add(base);
+                return files;
+            }
+            glob = "*.csv";
+        } else {
+            int separator = Math.max(pattern.lastIndexOf('/', wildcard), pattern.lastIndexOf(File.separatorChar, wildcard));
+            base = Paths.get(separator < 0 ? "." : pattern.substring(0, separator + 1));
+            glob = pattern.substring(separator + 1);
+        }
+
+        // Only walk as deep as the pattern can match
+        int depth = glob.contains("**") ? Integer.MAX_VALUE : glob.split("[/\\\\]").length;
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        // As in a shell, **/ also matches no directory at all
+        PathMatcher shallowMatcher = FileSystems.getDefault().getPathMatcher("glob:" + glob.replace("**/", ""));
+        Path root = base;
+        try (Stream<Path> paths = Files.walk(root, depth)) {
+            List<Path> files = paths.filter(Files::isRegularFile)
+                    .map(root::relativize)
+                    .filter(path -> matcher.matches(path) || shallowMatcher.matches(path))
+                    .map(root::resolve)
+                    .sorted()
+                    .collect(Collectors.toList());
+            return new ArrayList<>(files);
+        }
+    }
+
+    /**
+     * Loads the files concurrently, reading at most the given number at once, and merges
+     * each result in the order of the files as soon as it can.
+     *
+     * @param files       The files to load.
+     * @param maxInFlight The most files read at once, or 0 for
+     *                    {@value #DEFAULT_MAX_IN_FLIGHT}.
+     * @param merger      Receives each result, in the order of the files, on the calling
+     *                    thread.
+     * @return The result of each file, in the order of the files, without its students.
+     * @throws InterruptedException If interrupted while waiting for the files.
+     */
+    public static ArrayList<FileResult> load(List<Path> files, int maxInFlight, Consumer<FileResult> merger)
+            throws InterruptedException {
+        int permits = maxInFlight <= 0 ? DEFAULT_MAX_IN_FLIGHT : maxInFlight;
+        Semaphore inFlight = new Semaphore(permits);
+        ExecutorService executor = TaskExecutors.newExecutor(Math.min(permits, Math.max(1, files.size())));
+        try {
+            ArrayList<Future<FileResult>> futures = new ArrayList<>(files.size());
+            for (Path file : files) {
+                futures.add(executor.submit(() -> {
+                    long start = System.nanoTime();
+                    inFlight.acquire();
+                    try {
+                        return loadFile(file, start);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+
+            ArrayList<FileResult> results = new ArrayList<>(files.size());
+            for (int i = 0; i < futures.size(); i++) {
+                FileResult result;
+                try {
+                    result = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    // loadFile reports its own exceptions, so only an Error gets here
+                    if (e.getCause() instanceof Error) {
+                        throw (Error) e.getCause();
+                    }
+                    result = new FileResult(files.get(i), new ArrayList<>(), 0, 0, 0,
+                            "Error while loading the file: " + e.getCause());
+                }
+                futures.set(i, null);
+                merger.accept(result);
+                result.students = new ArrayList<>();
+                results.add(result);
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Loads one file into its own list of students.
+     *
+     * @param file  The file.
+     * @param start The time the file was submitted.
+     * @return The result of the file.
+     */
+    private static FileResult loadFile(Path file, long start) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            StudentRowCollector collector = new StudentRowCollector();
+            ValidationErrors validation = new ValidationErrors(ValidationErrors.Mode.SKIP, ERROR_CAPACITY);
+            StudentCsvParser parser = new StudentCsvParser(collector, validation);
+            parser.parse(channel);
+            return new FileResult(file, collector.getStudents(), channel.size(), parser.getRowsRejected(),
+                    System.nanoTime() - start, null);
+        } catch (NoSuchFileException e) {
+            return new FileResult(file, new ArrayList<>(), 0, 0, System.nanoTime() - start, "File not Found");
+        } catch (IOException e) {
+            return new FileResult(file, new ArrayList<>(), 0, 0, System.nanoTime() - start,
+                    "Error while loading the file: " + e.getMessage());
+        } catch (RuntimeException e) {
+            return new FileResult(file, new ArrayList<>(), 0, 0, System.nanoTime() - start,
+                    "Error while loading the file: " + e);
+        }
+    }
+
+    /**
+     * Finds the first wildcard character of a glob pattern.
+     *
+     * @param pattern The pattern.
+     * @return The position of the wildcard, or -1 if there is none.
+     */
+    private static int indexOfWildcard(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if (WILDCARDS.indexOf(pattern.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -1,9 +1,19 @@
-import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.InputMismatchException;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Scanner;
+import java.util.function.Predicate;
 
 /**
  * The `Client` class serves as the main entry point for the Student Grade System program.
@@ -18,9 +28,79 @@ import java.util.Scanner;
 public class Client {
 
 	/**
-	 * ArrayList that contain student objects.
+	 * Columnar store that contain the students. Student objects are only created from its
+	 * rows while an operation needs them (see {@link StudentStore}).
 	 */
-    private static ArrayList<Student> students = new ArrayList<>();
+    private static StudentStore students = new StudentStore();
+
+    /**
+     * Tracks whether the students list is sorted by student number.
+     */
+    private static SortednessTracker sortTracker = new SortednessTracker(students);
+
+    /**
+     * Hash index from student number to position in the students list.
+     */
+    private static StudentNumberIndex studentIndex = new StudentNumberIndex(students);
+
+    /**
+     * Sorted index from student number to position in the students list.
+     */
+    private static StudentRangeIndex rangeIndex = new StudentRangeIndex(students);
+
+    /**
+     * Index from first and last names to positions in the students list.
+     */
+    private static StudentNameIndex nameIndex = new StudentNameIndex(students);
+
+    /**
+     * Most students displayed by a name search.
+     */
+    private static final int NAME_SEARCH_LIMIT = 50;
+
+    /**
+     * Most students removed one at a time, more are removed by compacting the students
+     * list and rebuilding its indexes.
+     */
+    private static final int COMPACT_THRESHOLD = 256;
+
+    /**
+     * Most loaded students added to the guarded students in one write, so that readers
+     * are not held off for the whole of a large load.
+     */
+    private static final int WRITE_CHUNK = 65536;
+
+    /**
+     * Added to the name of the start-up CSV file to name the snapshot kept next to it,
+     * which is loaded instead of the CSV file while it is newer.
+     */
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    /**
+     * Running grade statistics of the students list.
+     */
+    private static GradeAnalytics gradeAnalytics = new GradeAnalytics(students);
+
+    /**
+     * Ranking of the students list by overall mark.
+     */
+    private static MarkRanking markRanking = new MarkRanking(students);
+
+    /**
+     * Guards the students list so other threads can read and change it while the
+     * menu runs. Every access to the list and its trackers goes through this store.
+     */
+    private static ConcurrentStudentStore studentStore = new ConcurrentStudentStore(students);
+
+    /**
+     * Watches files for appended rows, null until the menu starts watching.
+     */
+    private static StudentFileWatcher fileWatcher;
+
+    /**
+     * Write-ahead log of the changes to the students list, null unless journaling.
+     */
+    private static volatile StudentJournal journal;
 
     /**
      * The main method that drives the Student Grade System program.
@@ -44,7 +124,7 @@ public class Client {
      * @param args Command line arguments (not used in this program).
      * @throws IOException         If an I/O error occurs during file operations.
      * @throws InputMismatchException If the user enters invalid input.
-     * @throws NotSortedException    If student ArrayList is not sorted.
+     * @throws NotSortedException    If the students are not sorted.
      */
     public static void main(String[] args) throws IOException,InputMismatchException, NotSortedException {
         Scanner sc = new Scanner(System.in);
@@ -55,10 +135,30 @@ public class Client {
         System.out.println("Student Grade System program starting");
         System.out.println("=======================================");
 
-        try {
-            loadStudentsInformationFromFile(students, "C:\\Users\\Acer\\eclipse-workspace\\ICTassignment2\\src\\student_mark.csv");
-        } catch (FileNotFoundException e) {
-            System.out.println("File not found. Please check the file path and try again.");
+        // With --journal <directory>, changes are journaled and recovered on the next start
+        String journalDirectory = null;
+        // With --metrics-dump <file>, the metrics are appended to the file every --metrics-interval seconds
+        String metricsFileName = null;
+        long metricsSeconds = StudentMetrics.DEFAULT_DUMP_SECONDS;
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals("--journal")) {
+                journalDirectory = args[i + 1];
+            } else if (args[i].equals("--metrics-dump")) {
+                metricsFileName = args[i + 1];
+            } else if (args[i].equals("--metrics-interval")) {
+                metricsSeconds = Long.parseLong(args[i + 1].trim());
+            }
+        }
+        StudentMetrics.registerMBean();
+        if (metricsFileName != null) {
+            StudentMetrics.startDump(metricsFileName, metricsSeconds);
+        }
+
+        String startFileName = "C:\\Users\\Acer\\eclipse-workspace\\ICTassignment2\\src\\student_mark.csv";
+        if (journalDirectory != null) {
+            openJournal(journalDirectory, startFileName);
+        } else {
+            loadStartStudents(startFileName);
         }
 
         int choice = 0;
@@ -80,7 +180,7 @@ public class Client {
                         System.out.println("Please enter your file name (file source): ");
                         String fileName = sc.nextLine();
                         try {
-                            loadStudentsInformationFromFile(students, fileName);
+                            loadStudentsInformationFromFile(studentStore, fileName);
                         } catch (FileNotFoundException e) {
                             System.out.println("File not found. Please check the file path and try again.");
                         }
@@ -94,38 +194,127 @@ public class Client {
                         break;
 
                     case 4:
-                        displayAllStudentDetails(students);
+                        studentStore.read(Client::displayAllStudentDetails);
                         break;
 
                     case 5:
-                        analyzeStudentGrades(students);
+                        studentStore.read(Client::analyzeStudentGrades);
                         break;
 
                     case 6:
                         System.out.println("Please enter the student number: ");
-                        studentNumber = sc.nextLong();
+                        long reportStudentNumber = sc.nextLong();
                         sc.nextLine();
-                        reportGradeOfStudent(students, studentNumber);
+                        studentStore.read(list -> reportGradeOfStudent(list, reportStudentNumber));
                         break;
 
                     case 7:
-                        sortStudentsByStudentNumber(students);
-                        displayAllStudentDetails(students);
+                        journaledWrite(studentStore, Client::sortStudentsByStudentNumber);
+                        studentStore.read(Client::displayAllStudentDetails);
                         System.out.println("Students sorted by student number: ");
                         break;
 
                     case 8:
                         System.out.println("Please enter the file name to save the sorted students (CSV format): ");
+                        String sortedFileName = sc.nextLine();
+                        studentStore.read(list -> {
+                            try {
+                                outputSortedStudentsToCSV(list, sortedFileName);
+                            } catch (FileNotFoundException e) {
+                                System.out.println("File not found. Please check the file path and try again.");
+                            } catch (IOException e) {
+                                System.out.println("An error occurred while writing to the file. Please try again.");
+                            } catch (NotSortedException e) {
+                                System.out.println(e.getMessage());
+                            }
+                        });
+                        break;
+
+                    case 9:
+                        System.out.println("Please enter the file name to save the snapshot to: ");
+                        String snapshotFileName = sc.nextLine();
+                        studentStore.read(list -> saveStudentsToSnapshot(list, snapshotFileName));
+                        break;
+
+                    case 10:
+                        System.out.println("Please enter the snapshot file name: ");
                         fileName = sc.nextLine();
-                        try {
-                            outputSortedStudentsToCSV(students, fileName);
-                        } catch (FileNotFoundException e) {
-                            System.out.println("File not found. Please check the file path and try again.");
-                        } catch (IOException e) {
-                            System.out.println("An error occurred while writing to the file. Please try again.");
+                        loadStudentsFromSnapshot(studentStore, fileName);
+                        break;
+
+                    case 11:
+                        studentStore.read(Client::summarizeGradesByUnit);
+                        System.out.println("Please enter a file name to save the summary (CSV format), or press Enter to skip: ");
+                        String summaryFileName = sc.nextLine().trim();
+                        if (!summaryFileName.isEmpty()) {
+                            studentStore.read(list -> outputGradeSummaryToCSV(list, summaryFileName));
                         }
                         break;
 
+                    case 12:
+                        System.out.println("1. Top students by overall mark\r\n"
+                                + "2. Rank of a student by student number\r\n"
+                                + "3. Overall mark at a percentile");
+                        System.out.println("Please enter your choice: ");
+                        int rankingChoice = sc.nextInt();
+                        sc.nextLine();
+                        if (rankingChoice == 1) {
+                            System.out.println("Please enter how many top students to display: ");
+                            int count = sc.nextInt();
+                            sc.nextLine();
+                            studentStore.read(list -> displayTopStudents(list, count));
+                        } else if (rankingChoice == 2) {
+                            System.out.println("Please enter the student number: ");
+                            long rankStudentNumber = sc.nextLong();
+                            sc.nextLine();
+                            studentStore.read(list -> reportRankOfStudent(list, rankStudentNumber));
+                        } else if (rankingChoice == 3) {
+                            System.out.println("Please enter the percentile (1-100): ");
+                            double percentile = sc.nextDouble();
+                            sc.nextLine();
+                            studentStore.read(list -> reportPercentileMark(list, percentile));
+                        } else {
+                            System.out.println("Invalid choice option");
+                        }
+                        break;
+
+                    case 13:
+                        System.out.println("Please enter the lowest student number of the range: ");
+                        long fromStudentNumber = sc.nextLong();
+                        System.out.println("Please enter the highest student number of the range: ");
+                        long toStudentNumber = sc.nextLong();
+                        sc.nextLine();
+                        System.out.println("Please enter the file name to save the students to (CSV format): ");
+                        String rangeFileName = sc.nextLine();
+                        studentStore.read(list -> outputStudentsInRangeToCSV(list, fromStudentNumber, toStudentNumber, rangeFileName));
+                        break;
+
+                    case 14:
+                        System.out.println("Please enter part of a first or last name: ");
+                        String name = sc.nextLine().trim();
+                        studentStore.read(list -> searchStudentsByName(list, name));
+                        break;
+
+                    case 15:
+                        System.out.println("Please enter a directory or a file pattern such as extracts/*.csv: ");
+                        String filePattern = sc.nextLine().trim();
+                        loadStudentsFromFiles(studentStore, filePattern, BulkStudentLoader.DEFAULT_MAX_IN_FLIGHT);
+                        break;
+
+                    case 16:
+                        System.out.println("Please enter the CSV file or directory to watch: ");
+                        String watchPath = sc.nextLine().trim();
+                        watchFiles(watchPath);
+                        break;
+
+                    case 17:
+                        System.out.println(StudentMetrics.getMetrics().getReport());
+                        break;
+
+                    case 18:
+                        displayStudentReport(sc);
+                        break;
+
                     default:
                         System.out.println("Invalid choice option");
                         break;
@@ -136,6 +325,7 @@ public class Client {
             }
         } while (choice != 1);
 
+        closeJournal();
         sc.close();
     }
     /**
@@ -165,110 +355,146 @@ public class Client {
                 + "6. Report grade of a student by student number.\r\n"
                 + "7. Sort students by student number.\r\n"
                 + "8. Output sorted students to a CSV file.\r\n"
+                + "9. Save students to a snapshot file.\r\n"
+                + "10. Load students from a snapshot file.\r\n"
+                + "11. Summarize grades by unit and level.\r\n"
+                + "12. Rank students by overall mark.\r\n"
+                + "13. Output students in a student number range to a CSV file.\r\n"
+                + "14. Search students by name.\r\n"
+                + "15. Add student information from every CSV file of a directory or pattern.\r\n"
+                + "16. Watch a CSV file or directory and add rows appended to it.\r\n"
+                + "17. Display performance metrics.\r\n"
+                + "18. Display student details or grades page by page, or save them to a file.\r\n"
                 + "");
     }
     
 //  --------------------------------------------------------------------------------------------------------------------------------------------------
-//  8 Options display menu logic function
+//  18 Options display menu logic function
 	
     
     /**
-     * Loads student information from a file and populates the provided ArrayList of Student objects.
+     * Loads student information from a file and populates the provided list of Student objects.
+     * <p>
+     * The file is read and parsed by a {@link StudentCsvParser}, which reads the numbers
+     * straight from the file bytes and only creates Strings for names and unit IDs.
+     * Files of at least {@link ParallelStudentLoader#PARALLEL_THRESHOLD} bytes are parsed
+     * on every available processor, keeping the students in file order. Rejected rows are
+     * skipped and a summary of them is printed, instead of a message for each row.
+     * </p>
      *
-     * @param students  The ArrayList to store the loaded Student objects.
+     * @param students  The list to store the loaded Student objects.
      * @param fileName  The name of the file containing student information.
      * @throws NumberFormatException If invalid format
      * @throws FileNotFoundException If file is not found.
      */
-    public static void loadStudentsInformationFromFile(ArrayList<Student> students, String fileName) throws NumberFormatException,FileNotFoundException  {
-        try {
-            // Open the file and create a Scanner to read its contents
-            File file = new File(fileName);
-            Scanner sc = new Scanner(file);
-
-            // Iterate through each line in the file
-            while (sc.hasNextLine()) {
-                String line = sc.nextLine();
-                String[] data = line.split(",");
-
-                // Check if the data length is sufficient for Course Work students
-                if (data.length >= 9) {
-                    String enrolmentType = data[0].trim().toUpperCase();
-                    String firstName = data[1].trim();
-                    String lastName = data[2].trim();
-
-                    long studentNumber;
-                    try {
-                        studentNumber = Long.parseLong(data[3].trim());
-                    } catch (NumberFormatException e) {
-                        System.out.println("Invalid student number format: " + data[3]);
-                        continue;
-                    }
-
-                    if (enrolmentType.equalsIgnoreCase("C")) {
-                        // Extract Course Work specific data
-                        String unitId = data[4].trim();
-                        int level = Integer.parseInt(data[5].trim());
-
-                        // Check if the assignment and exam marks are valid integer values
-                        int assignment1Mark, assignment2Mark, finalExamMark;
-                        try {
-                            assignment1Mark = Integer.parseInt(data[6].trim());
-                            assignment2Mark = Integer.parseInt(data[7].trim());
-                            finalExamMark = Integer.parseInt(data[8].trim());
-                        } catch (NumberFormatException e) {
-                            System.out.println("Invalid marks format for course work student: " + line);
-                            continue;
-                        }
-
-                        // Create Unit_Course and Student_Course instances
-                        Unit_Course unitCourse = new Unit_Course(unitId, level, assignment1Mark, assignment2Mark, finalExamMark);
-                        Student_Course studentCourse = new Student_Course(enrolmentType, firstName, lastName, studentNumber);
-                        studentCourse.setUnitCourse(unitCourse);
-
-                        students.add(studentCourse);
-                    }
-                }
+    public static void loadStudentsInformationFromFile(List<Student> students, String fileName) throws NumberFormatException,FileNotFoundException  {
+        loadStudentsInformationFromFile(students, fileName, 0, true);
+    }
 
-                // Check if the data length is sufficient for Research students
-                if (data.length >= 6) {
-                    String enrolmentType = data[0].trim().toUpperCase();
-                    String firstName = data[1].trim();
-                    String lastName = data[2].trim();
-
-                    long studentNumber;
-                    try {
-                        studentNumber = Long.parseLong(data[3].trim());
-                    } catch (NumberFormatException e) {
-                        System.out.println("Invalid student number format: " + data[3]);
-                        continue;
-                    }
+    /**
+     * Loads student information from a file and populates the provided list of Student objects,
+     * parsing the file on the given number of threads.
+     * <p>
+     * With more than one thread the file is split into chunks on line boundaries and each
+     * chunk is parsed by its own thread (see {@link ParallelStudentLoader}). Rejected rows
+     * are skipped and summarised as with one thread.
+     * </p>
+     *
+     * @param students      The list to store the loaded Student objects.
+     * @param fileName      The name of the file containing student information.
+     * @param threads       The number of parser threads, or 0 to choose from the file size
+     *                      and the number of available processors.
+     * @param keepFileOrder true to add the students in file order, false to add each chunk
+     *                      as soon as it has been parsed.
+     * @throws NumberFormatException If invalid format
+     * @throws FileNotFoundException If file is not found.
+     */
+    public static void loadStudentsInformationFromFile(List<Student> students, String fileName, int threads, boolean keepFileOrder) throws NumberFormatException,FileNotFoundException  {
+        loadStudentsInformationFromFile(students, fileName, threads, keepFileOrder,
+                new ValidationErrors(ValidationErrors.Mode.SKIP, ValidationErrors.DEFAULT_CAPACITY));
+    }
 
-                    if (enrolmentType.equalsIgnoreCase("R")) {
-                        // Extract Research specific data
-                        int proposalMark, dissertationMark;
-                        try {
-                            proposalMark = Integer.parseInt(data[4].trim());
-                            dissertationMark = Integer.parseInt(data[5].trim());
-                        } catch (NumberFormatException e) {
-                            System.out.println("Invalid marks format for research student: " + line);
-                            continue;
-                        }
+    /**
+     * Loads student information from a file, recording rejected rows in a ValidationErrors
+     * instead of printing a message for each of them, and prints a summary of the
+     * rejected rows at the end.
+     * <p>
+     * Every row added to the list is valid: rows with missing fields or an unknown
+     * enrolment type are rejected too. The mode of the ValidationErrors decides whether
+     * loading skips rejected rows, stops at the first one, or also writes them to a
+     * quarantine file.
+     * </p>
+     *
+     * @param students   The list to store the loaded Student objects.
+     * @param fileName   The name of the file containing student information.
+     * @param validation Where rejected rows are recorded.
+     * @throws FileNotFoundException If file is not found.
+     */
+    public static void loadStudentsInformationFromFile(List<Student> students, String fileName, ValidationErrors validation) throws FileNotFoundException {
+        loadStudentsInformationFromFile(students, fileName, 0, true, validation);
+    }
 
-                        // Create Research_Course and Student_Research instances
-                        Research_Course research = new Research_Course(proposalMark, dissertationMark);
-                        Student_Research studentResearch = new Student_Research(enrolmentType, firstName, lastName, studentNumber);
-                        studentResearch.setResearchCourse(research);
+    /**
+     * Loads student information from a file on the given number of threads, recording
+     * rejected rows in a ValidationErrors if one is given.
+     *
+     * @param students      The list to store the loaded Student objects.
+     * @param fileName      The name of the file containing student information.
+     * @param threads       The number of parser threads, or 0 to choose from the file size
+     *                      and the number of available processors.
+     * @param keepFileOrder true to add the students in file order, false to add each chunk
+     *                      as soon as it has been parsed.
+     * @param validation    Where rejected rows are recorded, or null to print a message
+     *                      for each of them.
+     * @throws FileNotFoundException If file is not found.
+     */
+    public static void loadStudentsInformationFromFile(List<Student> students, String fileName, int threads, boolean keepFileOrder, ValidationErrors validation) throws FileNotFoundException {
+        StudentEvents.FileLoad event = new StudentEvents.FileLoad();
+        event.begin();
+        int sizeBefore = students.size();
+
+        // Open the file and map it for reading
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            if (threads <= 0) {
+                threads = channel.size() >= ParallelStudentLoader.PARALLEL_THRESHOLD
+                        ? Runtime.getRuntime().availableProcessors() : 1;
+            }
 
-                        students.add(studentResearch);
+            long rowsRejected;
+            if (threads > 1) {
+                // Parse chunks of the file in parallel and add each chunk's students to the list
+                rowsRejected = ParallelStudentLoader.load(channel, threads, keepFileOrder, validation, loaded -> {
+                    for (Student student : loaded) {
+                        addStudent(students, student);
                     }
+                });
+            } else {
+                // Parse every line, collecting the students in file order
+                StudentRowCollector collector = new StudentRowCollector();
+                StudentCsvParser parser = new StudentCsvParser(collector, validation);
+                parser.parse(channel);
+                rowsRejected = parser.getRowsRejected();
+
+                // Add the students to the list
+                ArrayList<Student> loaded = collector.getStudents();
+                for (Student student : loaded) {
+                    addStudent(students, student);
                 }
             }
-
-            // Close the Scanner after reading the file
-            sc.close();
+            if (event.shouldCommit()) {
+                event.path = fileName;
+                event.format = "CSV";
+                event.rows = students.size() - sizeBefore;
+                event.rowsRejected = rowsRejected;
+                event.bytes = channel.size();
+                event.threads = threads;
+                event.commit();
+            }
             System.out.println("Loaded student information successfully from the file.");
-        } catch (FileNotFoundException e) {
+            if (validation != null) {
+                System.out.print(validation.summary());
+            }
+        } catch (NoSuchFileException e) {
         	System.out.println("File not Found: " + fileName);
         } catch (Exception e) {
             System.out.println("Error while loading the file.");
@@ -276,329 +502,1596 @@ public class Client {
         }
     }
 
-    
     /**
-     * Removes a student from the ArrayList based on the provided student number after user confirmation.
+     * Loads student information from a file into the students guarded by a
+     * ConcurrentStudentStore.
+     * <p>
+     * The file is parsed into a separate list first, while other threads keep reading and
+     * the store is not locked. Only adding the parsed students is written, in chunks (see
+     * {@link #addStudentsInChunks(ConcurrentStudentStore, List)}). Rejected rows are
+     * skipped and recorded in a ValidationErrors, and a summary of them is printed
+     * instead of a message for each row.
+     * </p>
      *
-     * @param studentNumber The student number of the student to be removed.
+     * @param store    The ConcurrentStudentStore to add the loaded Student objects to.
+     * @param fileName The name of the file containing student information.
+     * @throws FileNotFoundException If file is not found.
      */
-    public static void removeStudentByStudentNumber(long studentNumber) {
-        if (studentNumber < 0) {
-            System.out.println("Invalid student number. Please enter a non-negative value.");
-            return;
-        }
-        // Initialize a reference to the student to be removed
-        Student removeStudent = null;
-
-        // Search for the student in the list by their student number
-        for (Student student : students) {
-            if (student.getStudentNumber() == studentNumber) {
-                // If found, assign the student to the removeStudent variable and break the loop
-                removeStudent = student;
-                break;
-            }
-        }
-
-        // Check if the student was found
-        if (removeStudent != null) {
-            // If the student is found, display the student's information and ask for confirmation
-            System.out.println("Please confirm if you want to remove this student: ");
-            System.out.println("Student number: " + removeStudent.getStudentNumber());
-            System.out.println("Student name: " + removeStudent.getFirstName() + " " + removeStudent.getLastName());
-            System.out.println("Student type: " + (removeStudent instanceof Student_Course ? "Course Work" : "Research"));
-            System.out.println("If you are confirm, please press 'Y', or press any key to cancel");
-
-            // Read user input for confirmation
-            Scanner sc = new Scanner(System.in);
-            String confirm = sc.nextLine();
-
-            // Check if the user confirms the removal
-            if (confirm.equalsIgnoreCase("Y")) {
-                // If confirmed, remove the student from the list
-                students.remove(removeStudent);
-                System.out.println("Student successfully removed.");
-            } else {
-                // If canceled, display a message indicating that the removal was canceled
-                System.out.println("Removal canceled. Student is not removed.");
-            }
-
-        } else {
-            // If the student is not found, display a message indicating that the student was not found
-            System.out.println("Student with student number " + studentNumber + " was not found!");
-        }
-     
+    public static void loadStudentsInformationFromFile(ConcurrentStudentStore store, String fileName) throws FileNotFoundException {
+        ArrayList<Student> loaded = new ArrayList<>();
+        ValidationErrors validation = new ValidationErrors(ValidationErrors.Mode.SKIP, ValidationErrors.DEFAULT_CAPACITY);
+        loadStudentsInformationFromFile(loaded, fileName, validation);
+        addStudentsInChunks(store, loaded);
     }
-    
+
     /**
-     * Displays detailed information for all students in the provided ArrayList.
+     * Loads student information from every file named by a directory or glob pattern into
+     * the students guarded by a ConcurrentStudentStore, and prints the result of each file
+     * and the total throughput.
+     * <p>
+     * The files are parsed at the same time by a {@link BulkStudentLoader}, reading at most
+     * maxInFlight files at once. The students of each file are added in chunks as soon as
+     * the file and the files before it are parsed, in the order of the file names, so
+     * readers can see the students of the first files before the last ones are added. A
+     * file that cannot be loaded, or whose students cannot be added, is reported and the
+     * other files are still added.
+     * </p>
      *
-     * @param students The ArrayList containing the Student objects to be displayed.
+     * @param store       The ConcurrentStudentStore to add the loaded Student objects to.
+     * @param pattern     A directory, which loads its .csv files, a file name or a glob
+     *                    pattern.
+     * @param maxInFlight The most files read at once, or 0 for the default.
+     * @return The result of each file, empty if no file was found.
      */
-    public static void displayAllStudentDetails(ArrayList<Student> students) {
-        System.out.println("Student detail list: ");
-        for (Student student : students) {
-            // Display common student details: type, name, and student number
-            student.display();
-
-            // Check if the student is of type Student_Course (course work student)
-            if (student instanceof Student_Course) {
-                // If the student is of type Student_Course, cast the student to Student_Course type
-                Student_Course courseStudent = (Student_Course) student;
-
-                // Check if the associated Unit_Course exists
-                Unit_Course unitCourse = courseStudent.getUnitCourse();
-                if (unitCourse != null) {
-                    // If the associated Unit_Course exists, display its details: unit ID, Assignment 1 Mark, Assignment 2 Mark, Final Exam Mark
-                    System.out.println("Unit ID: " + unitCourse.getUnitID());
-                    System.out.println("Unit Level: " + unitCourse.getLevel());
-                    System.out.println("Assignment 1 Mark: " + unitCourse.getAssignment1Mark());
-                    System.out.println("Assignment 2 Mark: " + unitCourse.getAssignment2Mark());
-                    System.out.println("Final Exam Mark: " + unitCourse.getFinalExamMark());
-                } else {
-                    // If no associated Unit_Course, display a message indicating it
-                    System.out.println("No Unit Course Information");
+    public static ArrayList<BulkStudentLoader.FileResult> loadStudentsFromFiles(ConcurrentStudentStore store, String pattern, int maxInFlight) {
+        StudentEvents.FileLoad event = new StudentEvents.FileLoad();
+        event.begin();
+        long start = System.nanoTime();
+        long[] added = new long[1];
+        int[] failed = new int[1];
+        ArrayList<BulkStudentLoader.FileResult> results;
+        try {
+            ArrayList<Path> files = BulkStudentLoader.findFiles(pattern);
+            results = BulkStudentLoader.load(files, maxInFlight, result -> {
+                System.out.println(result);
+                if (result.getError() != null) {
+                    failed[0]++;
+                    return;
                 }
-            }
-            // Check if the student is of type Student_Research (research student)
-            else if (student instanceof Student_Research) {
-                // If the student is of type Student_Research, cast the student to Student_Research type
-                Student_Research researchStudent = (Student_Research) student;
-
-                // Check if the associated Research exists
-                Research_Course researchCourse = researchStudent.getResearchCourse();
-                if (researchCourse != null) {
-                    // If the associated Research exists, display its details: proposal mark and final dissertation mark
-                    System.out.println("Proposal Mark: " + researchCourse.getProposalMark());
-                    System.out.println("Final Dissertation Mark: " + researchCourse.getFinalDissertationMark());
-                    // You can add more research-related details here if needed
-                } else {
-                    // If no associated Research, display a message indicating it
-                    System.out.println("No Research Information");
+                try {
+                    addStudentsInChunks(store, result.getStudents());
+                    added[0] += result.getRows();
+                } catch (RuntimeException e) {
+                    failed[0]++;
+                    System.out.println(result.getFile() + ": Error while adding the students: " + e.getMessage());
                 }
-            }
-            System.out.println(); // Add an empty line between each student's details
+            });
+        } catch (IOException e) {
+            System.out.println("Error while listing the files: " + e.getMessage());
+            return new ArrayList<>();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Loading the files was interrupted.");
+            return new ArrayList<>();
+        }
+
+        long bytes = 0;
+        long rowsRejected = 0;
+        for (BulkStudentLoader.FileResult result : results) {
+            bytes += result.getBytes();
+            rowsRejected += result.getRowsRejected();
+        }
+        if (event.shouldCommit()) {
+            event.path = pattern;
+            event.format = results.size() + " CSV files";
+            event.rows = added[0];
+            event.rowsRejected = rowsRejected;
+            event.bytes = bytes;
+            event.threads = maxInFlight <= 0 ? BulkStudentLoader.DEFAULT_MAX_IN_FLIGHT : maxInFlight;
+            event.commit();
         }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Loaded %d students from %d of %d files (%.1f MB) in %.2f s: %.0f students/s, %.1f MB/s%n",
+                added[0], results.size() - failed[0], results.size(), bytes / 1e6, seconds,
+                added[0] / seconds, bytes / 1e6 / seconds);
+        return results;
     }
 
     /**
-     * Analyzes student grades based on their overall marks, displaying average overall marks,
-     * and the number of students above and below the average.
+     * Opens a write-ahead journal of the menu's students in a directory (see
+     * {@link StudentJournal}), and journals every later add, removal and sort of them.
+     * <p>
+     * If the directory holds a journal, the students it recorded are recovered. Otherwise
+     * the students of the base CSV file are loaded and a new journal is started over it.
+     * The journal is compacted in the background once it grows past
+     * {@link StudentJournal#DEFAULT_COMPACT_BYTES}.
+     * </p>
+     * <p>
+     * Precondition: No students have been added yet.
+     * </p>
      *
-     * @param students The ArrayList containing the Student objects to be analyzed.
+     * @param directory The journal directory.
+     * @param baseCsv   The CSV file a new journal starts from, or null for none.
+     * @return true if an existing journal was recovered, false otherwise.
      */
-    public static void analyzeStudentGrades(ArrayList<Student> students) {
-        int totalMarks = 0;
-        int numCourseWorkStudents = 0;
-        int numResearchStudents = 0;
+    public static boolean openJournal(String directory, String baseCsv) {
+        long start = System.nanoTime();
+        try {
+            StudentJournal opened = studentStore.update(list -> StudentJournal.open(directory, baseCsv,
+                    new StudentJournal.RecordHandler() {
+                        @Override
+                        public void added(Student student) {
+                            addStudent(list, student);
+                        }
 
-        // Calculate the total marks and count the number of course work students
-        for (Student student : students) {
-            // Check if the student is of type Student_Course (course work student)
-            if (student instanceof Student_Course) {
-                // If the student is of type Student_Course, cast the student to Student_Course type
-                Student_Course courseStudent = (Student_Course) student;
-
-                // Check if the associated Unit_Course exists
-                Unit_Course unitCourse = courseStudent.getUnitCourse();
-                if (unitCourse != null) {
-                    // If the associated Unit_Course exists, add the overall mark to the total and increment the count
-                    totalMarks += unitCourse.overallMark();
-                    numCourseWorkStudents++;
-                }
-            }
-            if (student instanceof Student_Research) {
-                Student_Research researchStudent = (Student_Research) student;
+                        @Override
+                        public void removed(int row, Student student) {
+                            if (row < list.size() && StudentJournal.sameStudent(list.get(row), student)) {
+                                removeStudentAt(row);
+                                return;
+                            }
+                            // The base file changed since it was journaled, remove an equal student
+                            for (Student found : findStudents(list, student.getStudentNumber())) {
+                                if (StudentJournal.sameStudent(found, student)) {
+                                    removeStudent(found);
+                                    return;
+                                }
+                            }
+                        }
 
-                Research_Course researchCourse = researchStudent.getResearchCourse();
+                        @Override
+                        public void removedRows(int[] rows) {
+                            removeStudentRows(rows);
+                        }
 
-                if (researchCourse != null) {
-                    totalMarks += researchCourse.overallMark();
-                    numResearchStudents++;
-                }
-            }
+                        @Override
+                        public void sorted() {
+                            sortStudentsByStudentNumber(list);
+                        }
+                    }));
+            journal = opened;
+            opened.startCompaction(studentStore, StudentJournal.DEFAULT_COMPACT_BYTES);
+            int size = studentStore.query(list -> list.size());
+            System.out.printf("%s journal in %s with %d students in %.0f ms.%n",
+                    opened.isRecovered() ? "Recovered the" : "Started a", directory, size,
+                    (System.nanoTime() - start) / 1e6);
+            return opened.isRecovered();
+        } catch (IOException e) {
+            System.out.println("Error while opening the journal: " + e.getMessage());
+            return false;
         }
+    }
 
-        // Calculate the average overall mark for course work students
-        double averageOverallMark = (double) totalMarks / (numCourseWorkStudents + numResearchStudents);
-
-        // Count the number of course work students above and below the average overall mark
-        int numAboveAverage = 0;
-        int numBelowAverage = 0;
-        for (Student student : students) {
-            // Check if the student is of type Student_Course (course work student)
-            if (student instanceof Student_Course) {
-                // If the student is of type Student_Course, cast the student to Student_Course type
-                Student_Course courseStudent = (Student_Course) student;
-
-                // Check if the associated Unit_Course exists
-                Unit_Course unitCourse = courseStudent.getUnitCourse();
-                if (unitCourse != null) {
-                    // If the associated Unit_Course exists, get the overall mark
-                    double overallMark = unitCourse.overallMark();
-
-                    // Compare the overall mark with the average and increment the respective counters
-                    if (overallMark >= averageOverallMark) {
-                        numAboveAverage++;
-                    } else {
-                        numBelowAverage++;
-                    }
-                }
-            }
+    /**
+     * Writes the journaled changes to disk and closes the journal, if there is one.
+     */
+    public static void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.out.println("Error while closing the journal: " + e.getMessage());
+        }
+        journal = null;
+    }
 
-            if (student instanceof Student_Research) {
-                Student_Research researchStudent = (Student_Research) student;
+    /**
+     * Adds loaded students to the students guarded by a ConcurrentStudentStore, at most
+     * {@link #WRITE_CHUNK} students per journaled write, so readers can get in between
+     * the chunks of a large load instead of waiting for all of it.
+     *
+     * @param store  The ConcurrentStudentStore to add the students to.
+     * @param loaded The students to be added, in order.
+     */
+    private static void addStudentsInChunks(ConcurrentStudentStore store, List<Student> loaded) {
+        for (int from = 0; from < loaded.size(); from += WRITE_CHUNK) {
+            List<Student> chunk = loaded.subList(from, Math.min(loaded.size(), from + WRITE_CHUNK));
+            journaledWrite(store, list -> addStudents(list, chunk));
+        }
+    }
 
-                Research_Course researchCourse = researchStudent.getResearchCourse();
-                if (researchCourse != null) {
-                    double overallMark = researchCourse.overallMark();
+    /**
+     * Applies a change through a ConcurrentStudentStore as one journaled change, and waits
+     * until it is on disk if there is a journal.
+     *
+     * @param <E>    The type of exception thrown by the change.
+     * @param store  The store to change.
+     * @param change The change.
+     * @throws E If the change fails.
+     */
+    private static <E extends Exception> void journaledWrite(ConcurrentStudentStore store,
+            ConcurrentStudentStore.StudentsAction<E> change) throws E {
+        journaledUpdate(store, list -> {
+            change.accept(list);
+            return null;
+        });
+    }
 
-                    if (overallMark >= averageOverallMark) {
-                        numAboveAverage++;
-                    } else {
-                        numBelowAverage++;
-                    }
+    /**
+     * Applies a change with a result through a ConcurrentStudentStore as one journaled
+     * change, and waits until it is on disk if there is a journal. Changes made by other
+     * threads at the same time are written with the same force.
+     *
+     * @param <T>    The type of the result.
+     * @param <E>    The type of exception thrown by the change.
+     * @param store  The store to change.
+     * @param change The change.
+     * @return The result of the change.
+     * @throws E If the change fails.
+     */
+    private static <T, E extends Exception> T journaledUpdate(ConcurrentStudentStore store,
+            ConcurrentStudentStore.StudentsFunction<T, E> change) throws E {
+        T result = store.update(list -> {
+            try {
+                return change.apply(list);
+            } finally {
+                // Also commits the part of a failed change that was made
+                StudentJournal current = journal;
+                if (current != null) {
+                    current.commitChange();
                 }
             }
+        });
+        StudentJournal current = journal;
+        if (current != null) {
+            try {
+                current.sync();
+            } catch (IOException e) {
+                System.out.println("Error while writing the journal, recent changes may be lost: " + e.getMessage());
+            }
         }
-
-        // Display the results
-        System.out.println("Student grades analysis:");
-        System.out.println("Average overall mark: " + String.format("%.2f", averageOverallMark));
-        
-        System.out.println("Number of students below average Mark: " + numBelowAverage);
-        System.out.println("Number of students above average Mark: " + numAboveAverage);
+        return result;
     }
-    
+
     /**
-     * Reports the grade of a student with a given student number.
-     * If the student is found, their grade is reported; otherwise, a message is printed.
+     * Starts watching a CSV file, or every .csv file of a directory, and adds the rows of
+     * the files to the menu's students as they are appended, replacing any earlier
+     * watcher. The current rows of the files are added first.
      *
-     * @param students      The ArrayList of Student objects to search through.
-     * @param studentNumber The student number of the student whose grade is to be reported.
+     * @param path The file or directory to watch.
      */
-    public static void reportGradeOfStudent(ArrayList<Student> students, long studentNumber) {
-        boolean found = false;
-
-        // Search for the student with the given student number
-        for (Student student : students) {
-            if (student.getStudentNumber() == studentNumber) {
-                found = true;
-                student.reportGrade();
-                // Exit the loop since the student has been found
-                break;
+    public static void watchFiles(String path) {
+        try {
+            StudentFileWatcher watcher = new StudentFileWatcher(path);
+            if (fileWatcher != null) {
+                fileWatcher.close();
             }
-        }
-
-        // If no student with the given student number is found, print a message indicating so
-        if (!found) {
-            System.out.println("Student with student number " + studentNumber + " was not found.");
+            fileWatcher = watcher;
+            watcher.start();
+            System.out.println("Watching " + path + " for appended rows.");
+        } catch (NoSuchFileException e) {
+            System.out.println("File not Found: " + path);
+        } catch (IOException e) {
+            System.out.println("Error while watching the files: " + e.getMessage());
         }
     }
 
     /**
-     * Sorts an ArrayList of Student objects based on their student numbers using sorting algorithm.
+     * Loads student information from a file into a columnar StudentStore, without creating
+     * a Student object for each row. Rejected rows are skipped and a summary of them is
+     * printed.
      *
-     * @param students The ArrayList of Student objects to be sorted.
+     * @param store    The StudentStore to add the rows to.
+     * @param fileName The name of the file containing student information.
+     * @throws FileNotFoundException If file is not found.
      */
-    public static void sortStudentsByStudentNumber(ArrayList<Student> students) {
-        int n = students.size();
-
-        // Apply Bubble Sort algorithm to sort the students based on their student numbers
-        for (int i = 0; i < n-1; ++i) {
-            for (int j = 0; j < n - i-1; ++j) {
-                // Compare adjacent elements and swap them if they are in the wrong order
-                if (students.get(j).getStudentNumber() > students.get(j+1).getStudentNumber()) {
-                    // Swap students[j] and students[j+1]
-                	Student temp = students.get(j);
-                	students.set(j , students.get(j+1));
-                    students.set(j+1, temp);
-                }
+    public static void loadStudentsInformationFromFile(StudentStore store, String fileName) throws FileNotFoundException {
+        StudentEvents.FileLoad event = new StudentEvents.FileLoad();
+        event.begin();
+        int sizeBefore = store.size();
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            ValidationErrors validation = new ValidationErrors(ValidationErrors.Mode.SKIP, ValidationErrors.DEFAULT_CAPACITY);
+            StudentCsvParser parser = new StudentCsvParser(store, validation);
+            parser.parse(channel);
+            if (event.shouldCommit()) {
+                event.path = fileName;
+                event.format = "CSV to StudentStore";
+                event.rows = store.size() - sizeBefore;
+                event.rowsRejected = parser.getRowsRejected();
+                event.bytes = channel.size();
+                event.threads = 1;
+                event.commit();
             }
-                       
+            System.out.println("Loaded student information successfully from the file.");
+            System.out.print(validation.summary());
+        } catch (NoSuchFileException e) {
+            System.out.println("File not Found: " + fileName);
+        } catch (Exception e) {
+            System.out.println("Error while loading the file.");
+            e.printStackTrace();
         }
     }
-    
+
     /**
-     * Checks if an ArrayList of Student objects is sorted by student number.
-     *
-     * <p>
-     * Precondition: The input ArrayList students contains objects of type Student.
-     * Postconditions:
-     * - The original order of students is preserved.
-     * - The students are sorted in ascending order based on their student numbers.
-     * </p>
+     * Saves the students to a binary snapshot file (see {@link StudentSnapshot}), which can
+     * be loaded back much faster than the CSV file they came from.
      *
-     * @param students An ArrayList of Student objects to be checked for sorting.
-     * @return true if the ArrayList is sorted by student number, false otherwise.
-     * @throws NullPointerException if students is null.
+     * @param students The list of Student objects to save.
+     * @param fileName The name of the snapshot file.
      */
-    private static boolean isSorted(ArrayList<Student> students) {
-        // Create a copy of the original ArrayList to compare after sorting
-        ArrayList<Student> original = new ArrayList<>(students);
-
-        // Sort the students by their student numbers
-        sortStudentsByStudentNumber(students);
+    public static void saveStudentsToSnapshot(List<Student> students, String fileName) {
+        try {
+            // The menu's students are already a store and are written as they are
+            StudentStore store = students instanceof StudentStore ? (StudentStore) students : StudentStore.fromStudents(students);
+            StudentSnapshot.write(store, fileName);
+            System.out.println("Students successfully saved to snapshot file: " + fileName);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Cannot save the students to a snapshot file: " + e.getMessage());
+        } catch (IOException e) {
+            System.out.println("Error writing to snapshot file: " + fileName);
+        }
+    }
 
-        // Check if the original ArrayList is equal to the sorted ArrayList
-        return original.equals(students);
-    }   
-    
     /**
-     * Outputs the sorted student data to a CSV file.
+     * Loads the students at start-up. While the snapshot next to the CSV file (see
+     * {@link #SNAPSHOT_SUFFIX}) is newer than the CSV file it is loaded instead, which is
+     * much faster than parsing (see {@link #restoreStudents(String)}). Otherwise the CSV
+     * file is loaded and a new snapshot is
+     * saved for the next start. Rows rejected from the CSV file are not in the snapshot,
+     * so they are only reported when the CSV file is parsed.
      *
-     * @param students The ArrayList of Student objects containing sorted data.
-     * @param fileName The name of the CSV file to write the data to.
-     * @throws IOException If writing to CSV file fails.
-     * @throws NotSortedException If ArrayList is not sorted
+     * @param fileName The name of the CSV file loaded at start-up.
      */
-    public static void outputSortedStudentsToCSV(ArrayList<Student> students, String fileName) throws IOException, NotSortedException {
-    	
-        if (!isSorted(students)) {
-        	throw new NotSortedException("ArrayList is not sorted. Please sort it first (Option 7).");
+    private static void loadStartStudents(String fileName) {
+        String snapshotFileName = fileName + SNAPSHOT_SUFFIX;
+        if (isSnapshotFresh(fileName, snapshotFileName) && restoreStudents(snapshotFileName)) {
+            return;
         }
-    		
         try {
-            StringBuilder csvData = new StringBuilder();
-            csvData.append("EnrolmentType,FirstName,LastName,StudentNumber,UnitID,Level,Assignment1Mark,Assignment2Mark,FinalExamMark,ProposalMark,DissertationMark\n");
-
-            // Write the sorted student data to the CSV string
-            for (Student student : students) {
-                String enrolmentType = student instanceof Student_Course ? "C" : "R";
-                String firstName = student.getFirstName();
-                String lastName = student.getLastName();
-                long studentNumber = student.getStudentNumber();
-
-                if (student instanceof Student_Course) {
-                    Student_Course courseStudent = (Student_Course) student;
-                    Unit_Course unitCourse = courseStudent.getUnitCourse();
-                    String unitID = unitCourse.getUnitID();
-                    int level = unitCourse.getLevel();
-                    int assignment1Mark = unitCourse.getAssignment1Mark();
-                    int assignment2Mark = unitCourse.getAssignment2Mark();
-                    int finalExamMark = unitCourse.getFinalExamMark();
-
-                    // Append the course student information to the CSV data
-                    csvData.append(String.format("%s,%s,%s,%d,%s,%d,%d,%d,%d,,\n",
-                            enrolmentType, firstName, lastName, studentNumber,
-                            unitID, level, assignment1Mark, assignment2Mark, finalExamMark));
-                } else if (student instanceof Student_Research) {
-                    Student_Research researchStudent = (Student_Research) student;
-                    Research_Course researchCourse = researchStudent.getResearchCourse();
-                    int proposalMark = researchCourse.getProposalMark();
-                    int dissertationMark = researchCourse.getFinalDissertationMark();
-
-                    // Append the research student information to the CSV data
-                    csvData.append(String.format("%s,%s,%s,%d,,,,,,%d,%d\n",
-                            enrolmentType, firstName, lastName, studentNumber,
-                            proposalMark, dissertationMark));
-                }
+            loadStudentsInformationFromFile(studentStore, fileName);
+        } catch (FileNotFoundException e) {
+            System.out.println("File not found. Please check the file path and try again.");
+            return;
+        }
+        if (!Files.isRegularFile(Paths.get(fileName))) {
+            return;
+        }
+        studentStore.read(list -> {
+            try {
+                StudentSnapshot.write((StudentStore) list, snapshotFileName);
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("Cannot save the start-up snapshot: " + snapshotFileName);
             }
-            // Write the CSV string to a file using java.nio.file.Files
-            java.nio.file.Files.write(java.nio.file.Paths.get(fileName), csvData.toString().getBytes());
-            System.out.println("Sorted students successfully output to CSV file: " + fileName);
-        } catch (IOException e) {
+        });
+    }
+
+    /**
+     * Restores the menu's students from a binary snapshot file at start-up. The store read
+     * from the file becomes the menu's students in place of the empty one, and the
+     * indexes, statistics and ranking are built over it from its columns in one pass each,
+     * instead of being told about the students one at a time.
+     * <p>
+     * Precondition: No students have been added and nothing else uses them yet, as before
+     * the menu starts.
+     * </p>
+     *
+     * @param fileName The name of the snapshot file.
+     * @return true if the students were restored, false if the file cannot be read.
+     */
+    static boolean restoreStudents(String fileName) {
+        StudentStore loaded = readSnapshot(fileName);
+        if (loaded == null) {
+            return false;
+        }
+        students = loaded;
+        sortTracker = new SortednessTracker(students);
+        studentIndex = new StudentNumberIndex(students);
+        rangeIndex = new StudentRangeIndex(students);
+        nameIndex = new StudentNameIndex(students);
+        gradeAnalytics = new GradeAnalytics(students);
+        markRanking = new MarkRanking(students);
+        studentStore = new ConcurrentStudentStore(students);
+        return true;
+    }
+
+    /**
+     * Checks whether a snapshot and the CSV file it was made from both exist, and the
+     * snapshot was saved after the CSV file last changed.
+     *
+     * @param fileName         The name of the CSV file.
+     * @param snapshotFileName The name of the snapshot file.
+     * @return true if the snapshot can be loaded instead of the CSV file.
+     */
+    private static boolean isSnapshotFresh(String fileName, String snapshotFileName) {
+        try {
+            Path file = Paths.get(fileName);
+            Path snapshot = Paths.get(snapshotFileName);
+            if (!Files.isRegularFile(snapshot) || !Files.isRegularFile(file)) {
+                return false;
+            }
+            return Files.getLastModifiedTime(snapshot).compareTo(Files.getLastModifiedTime(file)) >= 0;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Loads the students saved in a binary snapshot file and adds them to the list, in
+     * the order they were saved.
+     *
+     * @param students The list to add the loaded students to.
+     * @param fileName The name of the snapshot file.
+     */
+    public static void loadStudentsFromSnapshot(List<Student> students, String fileName) {
+        StudentStore loaded = readSnapshot(fileName);
+        if (loaded != null) {
+            addStudents(students, loaded);
+        }
+    }
+
+    /**
+     * Reads every row of a binary snapshot file into a new StudentStore, column by
+     * column, without creating Student objects.
+     *
+     * @param fileName The name of the snapshot file.
+     * @return The rows of the snapshot, or null if the file cannot be read.
+     */
+    private static StudentStore readSnapshot(String fileName) {
+        StudentEvents.FileLoad event = new StudentEvents.FileLoad();
+        event.begin();
+        try {
+            StudentSnapshot snapshot = StudentSnapshot.open(fileName);
+            StudentStore loaded = snapshot.toStore();
+            if (event.shouldCommit()) {
+                event.path = fileName;
+                event.format = "snapshot";
+                event.rows = snapshot.size();
+                event.bytes = Files.size(Paths.get(fileName));
+                event.threads = 1;
+                event.commit();
+            }
+            System.out.println("Loaded " + snapshot.size() + " students successfully from the snapshot file.");
+            return loaded;
+        } catch (NoSuchFileException e) {
+            System.out.println("File not Found: " + fileName);
+        } catch (IOException e) {
+            System.out.println("Error while loading the snapshot file: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Loads the students saved in a binary snapshot file into the students guarded by a
+     * ConcurrentStudentStore. The file is read before the store is written to, as in
+     * {@link #loadStudentsInformationFromFile(ConcurrentStudentStore, String)}.
+     *
+     * @param store    The ConcurrentStudentStore to add the loaded students to.
+     * @param fileName The name of the snapshot file.
+     */
+    public static void loadStudentsFromSnapshot(ConcurrentStudentStore store, String fileName) {
+        StudentStore loaded = readSnapshot(fileName);
+        if (loaded != null) {
+            addStudentsInChunks(store, loaded);
+        }
+    }
+
+    /**
+     * Gets the store guarding the students list managed by the menu, through which
+     * other threads can use the same students.
+     *
+     * @return The ConcurrentStudentStore of the menu's students.
+     */
+    static ConcurrentStudentStore getStudentStore() {
+        return studentStore;
+    }
+
+    /**
+     * Gets the students list managed by the menu, so that the benchmarks can run the
+     * menu operations on the indexed and tracked list.
+     *
+     * @return The store of the menu's students.
+     */
+    static StudentStore getStudents() {
+        return students;
+    }
+
+    /**
+     * Appends students to the list, keeping the indexes and statistics up to date.
+     *
+     * @param students The list to add the students to.
+     * @param loaded   The students to be added.
+     */
+    private static void addStudents(List<Student> students, List<Student> loaded) {
+        for (Student student : loaded) {
+            addStudent(students, student);
+        }
+    }
+
+    /**
+     * Appends a student to the list and keeps the student number indexes, the
+     * sortedness tracker, the grade statistics and the mark ranking up to date.
+     *
+     * @param students The list to add the student to.
+     * @param student  The student to be added.
+     */
+    private static void addStudent(List<Student> students, Student student) {
+        students.add(student);
+        if (journal != null && students == Client.students) {
+            journal.added(student);
+        }
+        sortTracker.studentAdded(students, student.getStudentNumber());
+        studentIndex.studentAdded(students, student.getStudentNumber());
+        rangeIndex.studentAdded(students, student.getStudentNumber());
+        nameIndex.studentAdded(students, student);
+        gradeAnalytics.studentAdded(students, student);
+        markRanking.studentAdded(students, student);
+    }
+
+    
+    /**
+     * Removes a student from the list based on the provided student number after user confirmation.
+     *
+     * @param studentNumber The student number of the student to be removed.
+     */
+    public static void removeStudentByStudentNumber(long studentNumber) {
+        if (studentNumber < 0) {
+            System.out.println("Invalid student number. Please enter a non-negative value.");
+            return;
+        }
+        // Look up every student with this student number in the index
+        Student[] found = studentStore.query(list -> findStudents(list, studentNumber));
+
+        // Check if the student was found
+        if (found.length == 0) {
+            // If the student is not found, display a message indicating that the student was not found
+            System.out.println("Student with student number " + studentNumber + " was not found!");
+            return;
+        }
+
+        Scanner sc = new Scanner(System.in);
+        int selected = 0;
+
+        // Several students share this student number, ask which one to remove
+        if (found.length > 1) {
+            System.out.println(found.length + " students have the student number " + studentNumber + ":");
+            for (int i = 0; i < found.length; i++) {
+                Student student = found[i];
+                System.out.println((i + 1) + ". " + student.getFirstName() + " " + student.getLastName()
+                        + " (" + (student instanceof Student_Course ? "Course Work" : "Research") + ")");
+            }
+            System.out.println("Please enter the number (1-" + found.length + ") of the student to remove, or press any key to cancel");
+            String selection = sc.nextLine().trim();
+            int choice;
+            try {
+                choice = Integer.parseInt(selection);
+            } catch (NumberFormatException e) {
+                choice = 0;
+            }
+            if (choice < 1 || choice > found.length) {
+                System.out.println("Removal canceled. Student is not removed.");
+                return;
+            }
+            selected = choice - 1;
+        }
+
+        // Display the student's information and ask for confirmation
+        Student removeStudent = found[selected];
+        System.out.println("Please confirm if you want to remove this student: ");
+        System.out.println("Student number: " + removeStudent.getStudentNumber());
+        System.out.println("Student name: " + removeStudent.getFirstName() + " " + removeStudent.getLastName());
+        System.out.println("Student type: " + (removeStudent instanceof Student_Course ? "Course Work" : "Research"));
+        System.out.println("If you are confirm, please press 'Y', or press any key to cancel");
+
+        // Read user input for confirmation
+        String confirm = sc.nextLine();
+
+        // Check if the user confirms the removal
+        if (confirm.equalsIgnoreCase("Y")) {
+            // If confirmed, remove the student from the list, unless another thread already did
+            StudentEvents.Removal event = new StudentEvents.Removal();
+            event.begin();
+            boolean removed = journaledUpdate(studentStore, list -> removeStudent(removeStudent));
+            commitRemoval(event, studentNumber, removed ? 1 : 0, false);
+            if (removed) {
+                System.out.println("Student successfully removed.");
+            } else {
+                System.out.println("Student was already removed.");
+            }
+        } else {
+            // If canceled, display a message indicating that the removal was canceled
+            System.out.println("Removal canceled. Student is not removed.");
+        }
+    }
+
+    /**
+     * Removes every student with the given student number from the menu's students,
+     * without asking for confirmation.
+     *
+     * @param studentNumber The student number of the students to be removed.
+     * @return The removed students, empty if no student was found.
+     */
+    static Student[] removeStudentsByStudentNumber(long studentNumber) {
+        StudentEvents.Removal event = new StudentEvents.Removal();
+        event.begin();
+        Student[] removed = journaledUpdate(studentStore, list -> {
+            Student[] found = findStudents(list, studentNumber);
+            for (Student student : found) {
+                removeStudent(student);
+            }
+            return found;
+        });
+        commitRemoval(event, studentNumber, removed.length, false);
+        return removed;
+    }
+
+    /**
+     * Removes students from the menu's students and appends others in one write, so
+     * readers see the students either before or after the whole change.
+     *
+     * @param removed The students to be removed, found by value.
+     * @param added   The students to be appended.
+     */
+    static void replaceStudents(Collection<Student> removed, List<Student> added) {
+        replaceStudents(StudentKeys.of(removed), added);
+    }
+
+    /**
+     * Removes students remembered by key from the menu's students and appends others in
+     * one write, so readers see the students either before or after the whole change.
+     *
+     * @param removed The keys of the students to be removed.
+     * @param added   The students to be appended.
+     */
+    static void replaceStudents(StudentKeys removed, List<Student> added) {
+        journaledWrite(studentStore, list -> {
+            removeStudents(removed);
+            addStudents(list, added);
+        });
+    }
+
+    /**
+     * Finds every student with the given student number.
+     *
+     * @param students      The list of Student objects to search through.
+     * @param studentNumber The student number to look for.
+     * @return The students in list order, empty if no student was found.
+     */
+    static Student[] findStudents(List<Student> students, long studentNumber) {
+        return studentsAt(students, findStudentRows(students, studentNumber));
+    }
+
+    /**
+     * Removes a student from the students list, found by student number through the
+     * index and then by value, as the store creates a new Student each time a row is
+     * read. Of several equal students the first is removed.
+     *
+     * @param student The student to be removed.
+     * @return true if the student was removed, false if it was not in the list.
+     */
+    private static boolean removeStudent(Student student) {
+        return removeStudent(student.getStudentNumber(), StudentJournal.valueHash(student));
+    }
+
+    /**
+     * Removes a student remembered by key from the students list, found by student number
+     * through the index and then by the hash of its fields. Of several equal students the
+     * first is removed.
+     *
+     * @param studentNumber The student number of the student to be removed.
+     * @param hash          The hash of the student (see {@link StudentJournal#valueHash}).
+     * @return true if the student was removed, false if it was not in the list.
+     */
+    private static boolean removeStudent(long studentNumber, long hash) {
+        for (int row : findStudentRows(students, studentNumber)) {
+            if (StudentJournal.valueHash(students.get(row)) == hash) {
+                removeStudentAt(row);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes students remembered by key from the students list. A few students are
+     * swap-removed one at a time; for more, the remaining students are moved up in
+     * order and the indexes and statistics are rebuilt, which is cheaper than shifting
+     * the sorted index once per student.
+     *
+     * @param removed The keys of the students to be removed.
+     */
+    private static void removeStudents(StudentKeys removed) {
+        StudentEvents.Removal event = new StudentEvents.Removal();
+        event.begin();
+        if (removed.size() <= COMPACT_THRESHOLD) {
+            int count = 0;
+            for (int key = 0; key < removed.size(); key++) {
+                if (removeStudent(removed.getStudentNumber(key), removed.getHash(key))) {
+                    count++;
+                }
+            }
+            commitRemoval(event, 0, count, false);
+            return;
+        }
+        // Each key takes the first row holding a matching student not taken yet
+        HashMap<Long, ArrayList<Long>> removing = new HashMap<>();
+        for (int key = 0; key < removed.size(); key++) {
+            removing.computeIfAbsent(removed.getStudentNumber(key), number -> new ArrayList<>()).add(removed.getHash(key));
+        }
+        int[] rows = new int[removed.size()];
+        int count = 0;
+        for (int row = 0; row < students.size() && count < rows.length; row++) {
+            ArrayList<Long> hashes = removing.get(students.getStudentNumber(row));
+            if (hashes != null && hashes.remove(StudentJournal.valueHash(students.get(row)))) {
+                rows[count++] = row;
+            }
+        }
+        removeStudentRows(Arrays.copyOf(rows, count));
+        commitRemoval(event, 0, count, true);
+    }
+
+    /**
+     * Commits the flight recorder event of a removal, if a recording has it enabled.
+     *
+     * @param event         The event begun before the removal.
+     * @param studentNumber The student number removed, or 0 for a group of students.
+     * @param removed       The number of students removed.
+     * @param compacted     true if the remaining students were moved up in order.
+     */
+    private static void commitRemoval(StudentEvents.Removal event, long studentNumber, int removed, boolean compacted) {
+        if (event.shouldCommit()) {
+            event.studentNumber = studentNumber;
+            event.removed = removed;
+            event.compacted = compacted;
+            event.commit();
+        }
+    }
+
+    /**
+     * Removes the students at the given positions of the students list, moving the
+     * remaining students up in order, and rebuilds the indexes and statistics.
+     *
+     * @param rows The positions of the students to be removed, in ascending order.
+     */
+    private static void removeStudentRows(int[] rows) {
+        students.removeRows(rows);
+        if (journal != null) {
+            journal.removedRows(rows);
+        }
+
+        sortTracker.rebuild(students);
+        studentIndex.rebuild(students);
+        rangeIndex.rebuild(students);
+        nameIndex.rebuild(students);
+        gradeAnalytics.rebuild(students);
+        markRanking.rebuild(students);
+    }
+
+    /**
+     * Gets the students at the given positions of a list.
+     *
+     * @param students The list of Student objects.
+     * @param rows     The positions.
+     * @return The students at the positions, in the same order.
+     */
+    private static Student[] studentsAt(List<Student> students, int[] rows) {
+        Student[] result = new Student[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            result[i] = students.get(rows[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Removes the student at the given position of the students list, and updates
+     * the indexes, the sortedness tracker, the grade statistics and the mark ranking.
+     * <p>
+     * While the students are sorted the later students are moved up one position, so
+     * they stay sorted for Option 8; the indexes keep stable ids for the moved rows, so
+     * only the array shift depends on the number of students. Otherwise the order does
+     * not matter and the last student is moved into the freed position in O(1) time.
+     * </p>
+     *
+     * @param row The position of the student to be removed.
+     */
+    private static void removeStudentAt(int row) {
+        boolean keepOrder = sortTracker.isSorted(students);
+        Student removed;
+        if (keepOrder) {
+            removed = students.remove(row);
+        } else {
+            removed = students.get(row);
+            int lastRow = students.size() - 1;
+            if (row != lastRow) {
+                students.set(row, students.get(lastRow));
+            }
+            students.remove(lastRow);
+        }
+        long removedStudentNumber = removed.getStudentNumber();
+        if (journal != null) {
+            journal.removed(row, removed);
+        }
+
+        if (keepOrder) {
+            sortTracker.studentRemoved(students, row, removedStudentNumber);
+            studentIndex.studentRemoved(students, row, removedStudentNumber);
+            rangeIndex.studentRemoved(students, row, removedStudentNumber);
+            nameIndex.studentRemoved(students, row, removed);
+            markRanking.studentRemoved(students, row, removed);
+        } else {
+            sortTracker.studentSwapRemoved(students, row, removedStudentNumber);
+            studentIndex.studentSwapRemoved(students, row, removedStudentNumber);
+            rangeIndex.studentSwapRemoved(students, row, removedStudentNumber);
+            nameIndex.studentSwapRemoved(students, row, removed);
+            markRanking.studentSwapRemoved(students, row, removed);
+        }
+        gradeAnalytics.studentRemoved(students, removed);
+    }
+
+    /**
+     * Finds the positions of every student with the given student number. The main
+     * students list is searched through the hash index, other lists are scanned.
+     *
+     * @param students      The list of Student objects to search through.
+     * @param studentNumber The student number to look for.
+     * @return The positions in ascending order, empty if no student was found.
+     */
+    private static int[] findStudentRows(List<Student> students, long studentNumber) {
+        StudentEvents.Lookup event = new StudentEvents.Lookup();
+        event.begin();
+        long start = StudentMetrics.startLookup();
+        int[] rows = studentIndex.rows(students, studentNumber);
+        if (rows != null) {
+            StudentMetrics.lookedUp(start);
+            commitLookup(event, studentNumber, rows.length, true);
+            return rows;
+        }
+
+        int count = 0;
+        int[] found = new int[4];
+        for (int i = 0; i < students.size(); i++) {
+            if (StudentStore.studentNumberAt(students, i) == studentNumber) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = i;
+            }
+        }
+        StudentMetrics.lookedUp(start);
+        commitLookup(event, studentNumber, count, false);
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Commits the flight recorder event of a lookup, if a recording has it enabled and it
+     * took long enough.
+     *
+     * @param event         The event begun before the lookup.
+     * @param studentNumber The student number looked up.
+     * @param found         The number of students found.
+     * @param indexed       true if the students were found through the index.
+     */
+    private static void commitLookup(StudentEvents.Lookup event, long studentNumber, int found, boolean indexed) {
+        if (event.shouldCommit()) {
+            event.studentNumber = studentNumber;
+            event.found = found;
+            event.indexed = indexed;
+            event.commit();
+        }
+    }
+    
+    /**
+     * Displays detailed information for all students in the provided list.
+     * <p>
+     * The details are written through a {@link StudentReportWriter} rather than printed
+     * a line at a time, so showing every student is limited by the console rather than
+     * by System.out.println.
+     * </p>
+     *
+     * @param students The list containing the Student objects to be displayed.
+     */
+    public static void displayAllStudentDetails(List<Student> students) {
+        try (StudentReportWriter report = StudentReportWriter.toConsole()) {
+            report.writeLine("Student detail list: ");
+            writeStudentReport(students, report, false, null, 0);
+        } catch (IOException e) {
+            System.out.println("An error occurred while displaying the students.");
+        }
+    }
+
+    /**
+     * Writes the details or the grade reports of the students that pass a filter, in
+     * the order of the list, stopping after a number of students or when the
+     * reader stops a paged report.
+     *
+     * @param students The list of Student objects to report on.
+     * @param report   The writer to write the reports to.
+     * @param grades   true to write grade reports as in reportGrade, false to write the
+     *                 details as in displayAllStudentDetails.
+     * @param filter   The students to include, or null to include every student.
+     * @param limit    The most students to write, or 0 for no limit.
+     * @return The number of students written.
+     * @throws IOException If writing fails.
+     */
+    public static long writeStudentReport(List<Student> students, StudentReportWriter report, boolean grades,
+            Predicate<? super Student> filter, long limit) throws IOException {
+        long written = 0;
+        for (Student student : students) {
+            if (limit > 0 && written == limit) {
+                break;
+            }
+            if (filter != null && !filter.test(student)) {
+                continue;
+            }
+            if (!(grades ? report.writeGradeReport(student) : report.writeDetails(student))) {
+                break;
+            }
+            written++;
+        }
+        return written;
+    }
+
+    /**
+     * Asks which students to report on and how, then displays their details or grade
+     * reports a page at a time, or saves them to a text file.
+     * <p>
+     * A paged report may wait for the reader between pages, so it is written from a
+     * columnar copy of the students and the students can still be changed meanwhile. A report
+     * to a file is written while reading the students.
+     * </p>
+     *
+     * @param sc The Scanner to read the answers from.
+     */
+    public static void displayStudentReport(Scanner sc) {
+        System.out.println("1. Student details\r\n"
+                + "2. Grades");
+        System.out.println("Please enter your choice: ");
+        String choice = sc.nextLine().trim();
+        if (!choice.equals("1") && !choice.equals("2")) {
+            System.out.println("Invalid choice option");
+            return;
+        }
+        boolean grades = choice.equals("2");
+
+        Predicate<Student> filter = null;
+        System.out.println("Please enter the enrolment type to include (C or R), or press Enter for every student: ");
+        String enrolmentType = sc.nextLine().trim();
+        if (enrolmentType.equalsIgnoreCase("C")) {
+            filter = student -> student instanceof Student_Course;
+        } else if (enrolmentType.equalsIgnoreCase("R")) {
+            filter = student -> student instanceof Student_Research;
+        } else if (!enrolmentType.isEmpty()) {
+            System.out.println("Invalid enrolment type. Please enter C or R.");
+            return;
+        }
+
+        System.out.println("Please enter the grade to include (HD, D, C, P or N), or press Enter for every grade: ");
+        String gradeName = sc.nextLine().trim();
+        if (!gradeName.isEmpty()) {
+            Grade grade;
+            try {
+                grade = Grade.valueOf(gradeName.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.out.println("Invalid grade. Please enter HD, D, C, P or N.");
+                return;
+            }
+            Predicate<Student> hasGrade = student -> {
+                int mark = GradeAnalytics.overallMarkHundredths(student);
+                return mark >= 0 && Grade.of(mark) == grade;
+            };
+            filter = filter == null ? hasGrade : filter.and(hasGrade);
+        }
+
+        long limit = readOptionalNumber(sc, "Please enter the most students to include, or press Enter for every student: ");
+        if (limit < 0) {
+            return;
+        }
+
+        System.out.println("Please enter a file name to save the report to, or press Enter to display it: ");
+        String fileName = sc.nextLine().trim();
+        Predicate<Student> include = filter;
+        if (!fileName.isEmpty()) {
+            studentStore.read(list -> {
+                try (StudentReportWriter report = new StudentReportWriter(fileName)) {
+                    long written = writeStudentReport(list, report, grades, include, limit);
+                    System.out.println(written + " students saved to " + fileName + ".");
+                } catch (IOException e) {
+                    System.out.println("An error occurred while writing to the file. Please try again.");
+                }
+            });
+            return;
+        }
+
+        long pageSize = readOptionalNumber(sc, "Please enter the students to display per page, or press Enter to display them all at once: ");
+        if (pageSize < 0) {
+            return;
+        }
+        List<Student> students = pageSize > 0 ? studentStore.query(StudentStore::fromStudents) : null;
+        try (StudentReportWriter report = StudentReportWriter.toConsole()) {
+            report.setPageSize((int) Math.min(pageSize, Integer.MAX_VALUE), sc);
+            if (students != null) {
+                writeStudentReport(students, report, grades, include, limit);
+            } else {
+                studentStore.read(list -> writeStudentReport(list, report, grades, include, limit));
+            }
+            report.flush();
+            System.out.println(report.getStudentsWritten() + " students displayed.");
+        } catch (IOException e) {
+            System.out.println("An error occurred while displaying the students.");
+        }
+    }
+
+    /**
+     * Prints a question and reads a number that may be left out by pressing Enter.
+     *
+     * @param sc       The Scanner to read the answer from.
+     * @param question The question to print.
+     * @return The number, 0 if Enter was pressed, or -1 if the answer was not a number
+     *         of at least 0.
+     */
+    private static long readOptionalNumber(Scanner sc, String question) {
+        System.out.println(question);
+        String answer = sc.nextLine().trim();
+        if (answer.isEmpty()) {
+            return 0;
+        }
+        try {
+            long number = Long.parseLong(answer);
+            if (number >= 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        System.out.println("Invalid input. Please enter a valid number.");
+        return -1;
+    }
+
+    /**
+     * Analyzes student grades based on their overall marks, displaying average overall marks,
+     * and the number of students above and below the average.
+     * <p>
+     * For the main students list the statistics are kept up to date as students are
+     * loaded and removed (see {@link GradeAnalytics}), so no pass over the students is
+     * needed. Other lists are analyzed in a single pass.
+     * </p>
+     *
+     * @param students The list containing the Student objects to be analyzed.
+     */
+    public static void analyzeStudentGrades(List<Student> students) {
+        displayGradeAnalysis(gradeAnalyticsOf(students));
+    }
+
+    /**
+     * Gets the grade statistics of a list of students, the kept up to date statistics
+     * for the main students list or a single pass over other lists.
+     *
+     * @param students The list of Student objects to be analyzed.
+     * @return The grade statistics.
+     */
+    static GradeAnalytics gradeAnalyticsOf(List<Student> students) {
+        StudentEvents.Analyze event = new StudentEvents.Analyze();
+        event.begin();
+        boolean kept = gradeAnalytics.isTracking(students);
+        GradeAnalytics analytics = kept ? gradeAnalytics : GradeAnalytics.of(students);
+        if (event.shouldCommit()) {
+            event.analysis = "grades";
+            event.students = students.size();
+            event.kept = kept;
+            event.commit();
+        }
+        return analytics;
+    }
+
+    /**
+     * Analyzes student grades held in a columnar StudentStore, displaying the average
+     * overall mark and the number of students above and below the average.
+     * <p>
+     * The overall marks are read from the mark columns in hundredths of a mark in a
+     * single pass.
+     * </p>
+     *
+     * @param store The StudentStore containing the students to be analyzed.
+     */
+    public static void analyzeStudentGrades(StudentStore store) {
+        StudentEvents.Analyze event = new StudentEvents.Analyze();
+        event.begin();
+        GradeAnalytics analytics = new GradeAnalytics();
+        for (int row = 0; row < store.size(); row++) {
+            analytics.add(store.getOverallMarkHundredths(row));
+        }
+        if (event.shouldCommit()) {
+            event.analysis = "grades of StudentStore rows";
+            event.students = store.size();
+            event.commit();
+        }
+        displayGradeAnalysis(analytics);
+    }
+
+    /**
+     * Displays the average overall mark and the number of students below and above it.
+     *
+     * @param analytics The grade statistics to display.
+     */
+    private static void displayGradeAnalysis(GradeAnalytics analytics) {
+        if (analytics.getCount() == 0) {
+            System.out.println("There are no students to analyze.");
+            return;
+        }
+
+        // Display the results
+        System.out.println("Student grades analysis:");
+        System.out.println("Average overall mark: " + String.format("%.2f", analytics.getAverage()));
+        
+        System.out.println("Number of students below average Mark: " + analytics.getNumBelowAverage());
+        System.out.println("Number of students above average Mark: " + analytics.getNumAtOrAboveAverage());
+    }
+    
+    /**
+     * Displays the count, mean, minimum and maximum overall mark and the grade
+     * distribution of the course work students of every unit ID and level.
+     *
+     * @param students The list of Student objects to summarize.
+     */
+    public static void summarizeGradesByUnit(List<Student> students) {
+        summarizeGrades(students).printReport();
+    }
+
+    /**
+     * Summarizes the grades of every unit ID and level, recording a flight recorder event.
+     *
+     * @param students The list of Student objects to summarize.
+     * @return The summary.
+     */
+    private static UnitGradeAggregation summarizeGrades(List<Student> students) {
+        StudentEvents.Analyze event = new StudentEvents.Analyze();
+        event.begin();
+        UnitGradeAggregation aggregation = UnitGradeAggregation.of(students, 0);
+        if (event.shouldCommit()) {
+            event.analysis = "grades by unit and level";
+            event.students = students.size();
+            event.commit();
+        }
+        return aggregation;
+    }
+
+    /**
+     * Outputs the summary of every unit ID and level to a CSV file.
+     *
+     * @param students The list of Student objects to summarize.
+     * @param fileName The name of the CSV file to write the summary to.
+     */
+    public static void outputGradeSummaryToCSV(List<Student> students, String fileName) {
+        try {
+            UnitGradeAggregation aggregation = summarizeGrades(students);
+            StudentEvents.Export event = new StudentEvents.Export();
+            event.begin();
+            aggregation.writeCsv(fileName);
+            if (event.shouldCommit()) {
+                event.path = fileName;
+                event.export = "grade summary";
+                event.rows = aggregation.getGroups().size();
+                event.bytes = Files.size(Paths.get(fileName));
+                event.commit();
+            }
+            System.out.println("Grade summary successfully output to CSV file: " + fileName);
+        } catch (IOException e) {
             System.out.println("Error writing to CSV file: " + fileName);
         }
     }
+
+    /**
+     * Displays the students with the highest overall marks, highest first, with their
+     * rank. Students with the same overall mark share a rank.
+     * <p>
+     * For the main students list the ranking is kept up to date as students are
+     * loaded and removed (see {@link MarkRanking}), so the students are not sorted.
+     * </p>
+     *
+     * @param students The list of Student objects to rank.
+     * @param count    The number of students to display.
+     */
+    public static void displayTopStudents(List<Student> students, int count) {
+        MarkRanking ranking = rankingOf(students);
+        if (ranking.getCount() == 0) {
+            System.out.println("There are no students to rank.");
+            return;
+        }
+        if (count < 1) {
+            System.out.println("Invalid number of students. Please enter a positive value.");
+            return;
+        }
+
+        ArrayList<Student> top = ranking.top(count);
+        System.out.println("Top " + top.size() + " students by overall mark:");
+        for (Student student : top) {
+            int mark = GradeAnalytics.overallMarkHundredths(student);
+            System.out.println(ranking.rankOfMark(mark) + ". " + student.getStudentNumber() + " "
+                    + student.getFirstName() + " " + student.getLastName()
+                    + " " + String.format("%.2f", mark / 100.0) + " " + Grade.of(mark));
+        }
+    }
+
+    /**
+     * Reports the rank by overall mark of a student with a given student number. If
+     * several students share the student number, the rank of each of them is reported.
+     *
+     * @param students      The list of Student objects to rank.
+     * @param studentNumber The student number of the student to rank.
+     */
+    public static void reportRankOfStudent(List<Student> students, long studentNumber) {
+        int[] rows = findStudentRows(students, studentNumber);
+        if (rows.length == 0) {
+            System.out.println("Student with student number " + studentNumber + " was not found.");
+            return;
+        }
+
+        MarkRanking ranking = rankingOf(students);
+        for (int row : rows) {
+            Student student = students.get(row);
+            int rank = ranking.rankOf(student);
+            if (rank < 0) {
+                System.out.println(student.getFirstName() + " " + student.getLastName() + " has no overall mark to rank.");
+            } else {
+                int mark = GradeAnalytics.overallMarkHundredths(student);
+                System.out.println(student.getFirstName() + " " + student.getLastName() + " is ranked " + rank
+                        + " of " + ranking.getCount() + " with an overall mark of " + String.format("%.2f", mark / 100.0));
+            }
+        }
+    }
+
+    /**
+     * Reports the overall mark at a percentile, the lowest mark that at least that
+     * percentage of students are at or below.
+     *
+     * @param students   The list of Student objects to rank.
+     * @param percentile The percentile, above 0 and at most 100.
+     */
+    public static void reportPercentileMark(List<Student> students, double percentile) {
+        if (!(percentile > 0 && percentile <= 100)) {
+            System.out.println("Invalid percentile. Please enter a value above 0 and at most 100.");
+            return;
+        }
+        MarkRanking ranking = rankingOf(students);
+        if (ranking.getCount() == 0) {
+            System.out.println("There are no students to rank.");
+            return;
+        }
+        int mark = ranking.percentileMark(percentile);
+        System.out.println("Overall mark at the " + percentile + " percentile: " + String.format("%.2f", mark / 100.0));
+    }
+
+    /**
+     * Gets the ranking of a list of students, the kept up to date ranking for the main
+     * students list or a new ranking for other lists.
+     *
+     * @param students The list of Student objects to rank.
+     * @return The ranking.
+     */
+    private static MarkRanking rankingOf(List<Student> students) {
+        return markRanking.isTracking(students) ? markRanking : MarkRanking.of(students);
+    }
+
+    /**
+     * Displays the students whose first or last name contains the given text, ignoring
+     * case. Text of one or two characters is matched against the start of the names.
+     * At most {@value #NAME_SEARCH_LIMIT} students are displayed.
+     * <p>
+     * For the main students list the names are kept in an index as students are
+     * loaded and removed (see {@link StudentNameIndex}), so the students are not scanned.
+     * Other lists are indexed first.
+     * </p>
+     *
+     * @param students The list of Student objects to search through.
+     * @param text     The part of the name to search for.
+     */
+    public static void searchStudentsByName(List<Student> students, String text) {
+        if (text.isEmpty()) {
+            System.out.println("Invalid name. Please enter at least one character.");
+            return;
+        }
+        StudentNameIndex index = nameIndex.isTracking(students) ? nameIndex : new StudentNameIndex(students);
+        int[] rows = text.length() < 3 ? index.rowsWithPrefix(text, NAME_SEARCH_LIMIT + 1)
+                : index.rowsContaining(text, NAME_SEARCH_LIMIT + 1);
+
+        if (rows.length == 0) {
+            System.out.println("No student name matches \"" + text + "\".");
+            return;
+        }
+        if (rows.length > NAME_SEARCH_LIMIT) {
+            System.out.println("More than " + NAME_SEARCH_LIMIT + " students match \"" + text + "\", showing the first "
+                    + NAME_SEARCH_LIMIT + ":");
+        } else {
+            System.out.println(rows.length + " students match \"" + text + "\":");
+        }
+        for (int i = 0; i < Math.min(rows.length, NAME_SEARCH_LIMIT); i++) {
+            Student student = students.get(rows[i]);
+            System.out.println(student.getStudentNumber() + " " + student.getFirstName() + " " + student.getLastName()
+                    + " (" + (student instanceof Student_Course ? "Course Work" : "Research") + ")");
+        }
+    }
+
+    /**
+     * Reports the grade of a student with a given student number.
+     * If the student is found, their grade is reported; otherwise, a message is printed.
+     * If several students share the student number, the grade of each of them is reported.
+     *
+     * @param students      The list of Student objects to search through.
+     * @param studentNumber The student number of the student whose grade is to be reported.
+     */
+    public static void reportGradeOfStudent(List<Student> students, long studentNumber) {
+        // Search for the students with the given student number
+        int[] rows = findStudentRows(students, studentNumber);
+
+        // If no student with the given student number is found, print a message indicating so
+        if (rows.length == 0) {
+            System.out.println("Student with student number " + studentNumber + " was not found.");
+            return;
+        }
+
+        try (StudentReportWriter report = StudentReportWriter.toConsole()) {
+            if (rows.length > 1) {
+                report.writeLine(rows.length + " students have the student number " + studentNumber + ":");
+            }
+            for (int row : rows) {
+                report.writeGradeReport(students.get(row));
+            }
+        } catch (IOException e) {
+            System.out.println("An error occurred while displaying the students.");
+        }
+    }
+
+    /**
+     * Sorts a list of Student objects based on their student numbers using sorting algorithm.
+     * <p>
+     * The sort is a stable radix sort on the student numbers (see {@link StudentSorter}),
+     * so students sharing a student number keep their original relative order.
+     * </p>
+     *
+     * @param students The list of Student objects to be sorted.
+     */
+    public static void sortStudentsByStudentNumber(List<Student> students) {
+        StudentEvents.Sort event = new StudentEvents.Sort();
+        event.begin();
+        long start = StudentMetrics.start();
+        StudentSorter.sortByStudentNumber(students);
+        if (journal != null && students == Client.students) {
+            journal.sorted();
+        }
+        sortTracker.studentsSorted(students);
+        studentIndex.rebuild(students);
+        rangeIndex.rebuild(students);
+        nameIndex.rebuild(students);
+        markRanking.rebuild(students);
+        StudentMetrics.sorted(students.size(), start);
+        if (event.shouldCommit()) {
+            event.algorithm = StudentSorter.algorithmFor(students.size());
+            event.students = students.size();
+            event.commit();
+        }
+    }
+    
+    /**
+     * Sorts the rows of a columnar StudentStore by student number.
+     *
+     * @param store The StudentStore to be sorted.
+     */
+    public static void sortStudentsByStudentNumber(StudentStore store) {
+        StudentEvents.Sort event = new StudentEvents.Sort();
+        event.begin();
+        long start = StudentMetrics.start();
+        store.sortByStudentNumber();
+        StudentMetrics.sorted(store.size(), start);
+        if (event.shouldCommit()) {
+            event.algorithm = StudentSorter.algorithmFor(store.size()) + " of StudentStore rows";
+            event.students = store.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Checks if a list of Student objects is sorted by student number.
+     *
+     * <p>
+     * Precondition: The input list students contains objects of type Student.
+     * Postconditions:
+     * - The original order of students is preserved.
+     * - The list is not modified or copied.
+     * </p>
+     *
+     * <p>
+     * For the main students list the answer is kept up to date by loading, removing
+     * and sorting, so the check is constant time. Otherwise the student numbers are
+     * scanned once.
+     * </p>
+     *
+     * @param students A list of Student objects to be checked for sorting.
+     * @return true if the list is sorted by student number, false otherwise.
+     * @throws NullPointerException if students is null.
+     */
+    private static boolean isSorted(List<Student> students) {
+        return sortTracker.isSorted(students);
+    }   
+    
+    /**
+     * Outputs the sorted student data to a CSV file.
+     *
+     * @param students The list of Student objects containing sorted data.
+     * @param fileName The name of the CSV file to write the data to.
+     * @throws IOException If writing to CSV file fails.
+     * @throws NotSortedException If the list is not sorted
+     */
+    public static void outputSortedStudentsToCSV(List<Student> students, String fileName) throws IOException, NotSortedException {
+    	
+        if (!isSorted(students)) {
+        	throw new NotSortedException("The students are not sorted. Please sort them first (Option 7).");
+        }
+    		
+        // Stream the rows through one reusable buffer straight into the file
+        StudentEvents.Export event = new StudentEvents.Export();
+        event.begin();
+        try (StudentCsvWriter writer = new StudentCsvWriter(fileName)) {
+            writer.writeHeader();
+
+            // Write the sorted student data to the CSV file
+            for (int row = 0; row < students.size(); row++) {
+                writeStudent(writer, students, row);
+            }
+            event.rows = writer.getRowsWritten();
+            event.bytes = writer.getBytesWritten();
+        } catch (IOException e) {
+            System.out.println("Error writing to CSV file: " + fileName);
+            return;
+        }
+        commitExport(event, fileName, "sorted students");
+        System.out.println("Sorted students successfully output to CSV file: " + fileName);
+    }
+    
+    /**
+     * Outputs the sorted rows of a columnar StudentStore to a CSV file, in the same format
+     * as {@link #outputSortedStudentsToCSV(List, String)}.
+     *
+     * @param store    The StudentStore containing sorted data.
+     * @param fileName The name of the CSV file to write the data to.
+     * @throws IOException If writing to CSV file fails.
+     * @throws NotSortedException If the store is not sorted
+     */
+    public static void outputSortedStudentsToCSV(StudentStore store, String fileName) throws IOException, NotSortedException {
+        if (!store.isSorted()) {
+            throw new NotSortedException("Student store is not sorted. Please sort it first (Option 7).");
+        }
+
+        StudentEvents.Export event = new StudentEvents.Export();
+        event.begin();
+        try (StudentCsvWriter writer = new StudentCsvWriter(fileName)) {
+            writer.writeHeader();
+            for (int row = 0; row < store.size(); row++) {
+                writeStudent(writer, store, row);
+            }
+            event.rows = writer.getRowsWritten();
+            event.bytes = writer.getBytesWritten();
+        }
+        commitExport(event, fileName, "sorted StudentStore rows");
+        System.out.println("Sorted students successfully output to CSV file: " + fileName);
+    }
+
+    /**
+     * Writes the student at a row of a list as a CSV row. The rows of a StudentStore are
+     * written straight from its columns, without creating a Student.
+     *
+     * @param writer   The writer to write the row to.
+     * @param students The list holding the student.
+     * @param row      The row of the student.
+     * @throws IOException If writing fails.
+     */
+    private static void writeStudent(StudentCsvWriter writer, List<Student> students, int row) throws IOException {
+        if (!(students instanceof StudentStore)) {
+            writer.writeStudent(students.get(row));
+            return;
+        }
+        StudentStore store = (StudentStore) students;
+        if (store.getEnrolmentType(row) == StudentStore.COURSE_WORK) {
+            writer.writeCourseWork(store.getFirstName(row), store.getLastName(row), store.getStudentNumber(row),
+                    store.getUnitID(row), store.getLevel(row), store.getMarkA(row), store.getMarkB(row),
+                    store.getMarkC(row));
+        } else {
+            writer.writeResearch(store.getFirstName(row), store.getLastName(row), store.getStudentNumber(row),
+                    store.getMarkA(row), store.getMarkB(row));
+        }
+    }
+    
+    /**
+     * Outputs the students whose student numbers are between two numbers (inclusive) to
+     * a CSV file, in student number order and in the same format as
+     * {@link #outputSortedStudentsToCSV(List, String)}. The list does not need to
+     * be sorted.
+     * <p>
+     * For the main students list the range is found with two binary searches in the
+     * kept up to date sorted index (see {@link StudentRangeIndex}), so only the students
+     * in the range are visited. Other lists are indexed first.
+     * </p>
+     *
+     * @param students          The list of Student objects to search through.
+     * @param fromStudentNumber The lowest student number of the range.
+     * @param toStudentNumber   The highest student number of the range.
+     * @param fileName          The name of the CSV file to write the students to.
+     */
+    public static void outputStudentsInRangeToCSV(List<Student> students, long fromStudentNumber, long toStudentNumber, String fileName) {
+        if (fromStudentNumber > toStudentNumber) {
+            System.out.println("Invalid range. The lowest student number must not be above the highest.");
+            return;
+        }
+        int written;
+        try {
+            written = writeStudentsInRangeToCSV(students, fromStudentNumber, toStudentNumber, fileName);
+        } catch (IOException e) {
+            System.out.println("Error writing to CSV file: " + fileName);
+            return;
+        }
+        System.out.println(written + " students between " + fromStudentNumber + " and " + toStudentNumber
+                + " successfully output to CSV file: " + fileName);
+    }
+
+    /**
+     * Writes the students whose student numbers are between two numbers (inclusive) to a
+     * CSV file, as {@link #outputStudentsInRangeToCSV(List, long, long, String)} does,
+     * without printing anything.
+     *
+     * @param students          The list of Student objects to search through.
+     * @param fromStudentNumber The lowest student number of the range.
+     * @param toStudentNumber   The highest student number of the range.
+     * @param fileName          The name of the CSV file to write the students to.
+     * @return The number of students written.
+     * @throws IOException If writing to CSV file fails.
+     */
+    static int writeStudentsInRangeToCSV(List<Student> students, long fromStudentNumber, long toStudentNumber, String fileName) throws IOException {
+        StudentRangeIndex index = rangeIndex.isTracking(students) ? rangeIndex : new StudentRangeIndex(students);
+        int from = index.lowerBound(fromStudentNumber);
+        int to = Math.max(from, index.upperBound(toStudentNumber));
+
+        StudentEvents.Export event = new StudentEvents.Export();
+        event.begin();
+        try (StudentCsvWriter writer = new StudentCsvWriter(fileName)) {
+            writer.writeHeader();
+            for (int position = from; position < to; position++) {
+                writeStudent(writer, students, index.rowAt(position));
+            }
+            event.rows = writer.getRowsWritten();
+            event.bytes = writer.getBytesWritten();
+        }
+        commitExport(event, fileName, "student number range " + fromStudentNumber + " to " + toStudentNumber);
+        return to - from;
+    }
+
+    /**
+     * Copies the students whose student numbers are between two numbers (inclusive) into
+     * a new store, in student number order. Copying is much quicker than writing the rows
+     * to a file, so a reader of the shared store can copy a range and write it out after
+     * releasing the store.
+     *
+     * @param students          The list of Student objects to search through.
+     * @param fromStudentNumber The lowest student number of the range.
+     * @param toStudentNumber   The highest student number of the range.
+     * @return A store holding copies of the students in the range.
+     */
+    static StudentStore copyStudentsInRange(List<Student> students, long fromStudentNumber, long toStudentNumber) {
+        StudentRangeIndex index = rangeIndex.isTracking(students) ? rangeIndex : new StudentRangeIndex(students);
+        int from = index.lowerBound(fromStudentNumber);
+        int to = Math.max(from, index.upperBound(toStudentNumber));
+
+        StudentStore range = new StudentStore(to - from);
+        for (int position = from; position < to; position++) {
+            range.addRow(students, index.rowAt(position));
+        }
+        return range;
+    }
+
+    /**
+     * Commits the flight recorder event of a CSV export whose rows and bytes are set, if a
+     * recording has it enabled.
+     *
+     * @param event    The event begun before the export.
+     * @param fileName The name of the CSV file.
+     * @param export   What was written.
+     */
+    private static void commitExport(StudentEvents.Export event, String fileName, String export) {
+        if (event.shouldCommit()) {
+            event.path = fileName;
+            event.export = export;
+            event.commit();
+        }
+    }
     
 }
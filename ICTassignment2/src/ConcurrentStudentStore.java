@@ -0,0 +1,192 @@
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ConcurrentStudentStore class lets several threads read and change one list of
+ * students safely.
+ * <p>
+ * Readers share a read lock on the list and work on it with its indexes and running
+ * statistics, so every read is served by the indexes. Writes are applied one at a time
+ * under the exclusive write lock, and nothing is copied: a write costs only the change
+ * it makes.
+ * </p>
+ * <p>
+ * The indexes and running statistics of the menu's list ({@link StudentNumberIndex},
+ * {@link StudentRangeIndex}, {@link StudentNameIndex}, {@link GradeAnalytics} and
+ * {@link MarkRanking}) may bring themselves up to date while answering a read, for
+ * example by merging students added since the last read, so their read methods are
+ * synchronized: readers sharing the read lock take turns on each one, and students are
+ * only added to or removed from them by writes, under the write lock.
+ * </p>
+ * <p>
+ * Reads are not lock-free. A reader waits while a write is applied, and because the
+ * lock is fair, so that a stream of readers cannot hold off a writer, a reader also
+ * waits behind a writer that is already waiting. A long read followed by a waiting
+ * write therefore holds up every later lookup until both have finished. Both sides are
+ * kept short to bound that wait: imports parse their file before writing and add the
+ * students in chunks of 65,536 rows, each its own write, and long readers such as the
+ * HTTP export copy the rows they need and write them out after releasing the store.
+ * Sorting and removals are still single writes over the whole list.
+ * </p>
+ * <p>
+ * Precondition: After the store is created, the list is only changed through
+ * {@link #write(StudentsAction)} or {@link #update(StudentsFunction)}, and readers do not
+ * change the list they are given or write to the store. Reads and writes nested inside
+ * a write work on the live list directly.
+ * Postconditions: Every reader sees the list either completely before or completely
+ * after each write.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class ConcurrentStudentStore {
+
+    /**
+     * An operation on the students that may throw a checked exception.
+     *
+     * @param <E> The type of exception thrown.
+     */
+    @FunctionalInterface
+    public interface StudentsAction<E extends Exception> {
+
+        /**
+         * Runs the operation.
+         *
+         * @param students The students.
+         * @throws E If the operation fails.
+         */
+        void accept(List<Student> students) throws E;
+    }
+
+    /**
+     * An operation on the students with a result that may throw a checked exception.
+     *
+     * @param <T> The type of the result.
+     * @param <E> The type of exception thrown.
+     */
+    @FunctionalInterface
+    public interface StudentsFunction<T, E extends Exception> {
+
+        /**
+         * Runs the operation.
+         *
+         * @param students The students.
+         * @return The result.
+         * @throws E If the operation fails.
+         */
+        T apply(List<Student> students) throws E;
+    }
+
+    // The live list, changed only by writers holding the exclusive lock
+    private final List<Student> students;
+
+    // Shared by readers, exclusive while a write is being applied
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+
+    private volatile long version;
+
+    /**
+     * Constructs a store over the given list.
+     *
+     * @param students The list of Student objects to be shared.
+     */
+    public ConcurrentStudentStore(List<Student> students) {
+        this.students = students;
+    }
+
+    /**
+     * Checks whether this store is guarding the given list.
+     *
+     * @param students The list to check.
+     * @return true if the list is the one being guarded, false otherwise.
+     */
+    public boolean isGuarding(List<Student> students) {
+        return students == this.students;
+    }
+
+    /**
+     * Gets the number of writes applied so far, which changes whenever the students
+     * may have changed.
+     *
+     * @return The version number.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Runs a reader on the students, after any write being applied.
+     *
+     * @param <E>    The type of exception thrown by the reader.
+     * @param reader The reader, which must not change the list.
+     * @throws E If the reader fails.
+     */
+    public <E extends Exception> void read(StudentsAction<E> reader) throws E {
+        query(list -> {
+            reader.accept(list);
+            return null;
+        });
+    }
+
+    /**
+     * Runs a reader on the students, after any write being applied, and returns its
+     * result.
+     *
+     * @param <T>    The type of the result.
+     * @param <E>    The type of exception thrown by the reader.
+     * @param reader The reader, which must not change the list.
+     * @return The result of the reader.
+     * @throws E If the reader fails.
+     */
+    public <T, E extends Exception> T query(StudentsFunction<T, E> reader) throws E {
+        if (lock.isWriteLockedByCurrentThread()) {
+            return reader.apply(students);
+        }
+        ReentrantReadWriteLock.ReadLock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return reader.apply(students);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Applies a change to the students, after any earlier writer and once current readers
+     * have finished.
+     *
+     * @param <E>    The type of exception thrown by the change.
+     * @param writer The change to apply.
+     * @throws E If the change fails.
+     */
+    public <E extends Exception> void write(StudentsAction<E> writer) throws E {
+        update(list -> {
+            writer.accept(list);
+            return null;
+        });
+    }
+
+    /**
+     * Applies a change to the students and returns its result.
+     *
+     * @param <T>    The type of the result.
+     * @param <E>    The type of exception thrown by the change.
+     * @param writer The change to apply.
+     * @return The result of the change.
+     * @throws E If the change fails.
+     */
+    public <T, E extends Exception> T update(StudentsFunction<T, E> writer) throws E {
+        if (lock.isWriteLockedByCurrentThread()) {
+            return writer.apply(students);
+        }
+        ReentrantReadWriteLock.WriteLock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            return writer.apply(students);
+        } finally {
+            version++;
+            writeLock.unlock();
+        }
+    }
+}
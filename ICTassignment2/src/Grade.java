@@ -0,0 +1,123 @@
+/**
+ * Grade enum lists the final grades a student can get in a unit.
+ * <p>
+ * Overall marks are whole hundredths of a mark from 0 to 10000 (see
+ * {@link Unit_Course#overallMarkHundredths()} and
+ * {@link Research_Course#overallMarkHundredths()}), so the grade of every possible
+ * mark is worked out once into a lookup table of 10001 entries. Finding a grade is then
+ * a single array read, with no comparisons and no floating point rounding at the grade
+ * boundaries.
+ * </p>
+ * <p>
+ * Precondition: Overall marks passed to {@link #of(int)} are between 0 and 10000.
+ * Postconditions: The grade matches {@link Unit#finalGrade(double)} for the same mark.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public enum Grade {
+
+    /**
+     * High Distinction, 80 and above.
+     */
+    HD(8000),
+
+    /**
+     * Distinction, 70 to below 80.
+     */
+    D(7000),
+
+    /**
+     * Credit, 60 to below 70.
+     */
+    C(6000),
+
+    /**
+     * Pass, 50 to below 60.
+     */
+    P(5000),
+
+    /**
+     * Fail, below 50.
+     */
+    N(0);
+
+    /**
+     * Highest overall mark in hundredths of a mark.
+     */
+    public static final int MAX_HUNDREDTHS = 100 * 100;
+
+    private static final Grade[] GRADES = values();
+
+    // Ordinal of the grade of every overall mark in hundredths
+    private static final byte[] TABLE = new byte[MAX_HUNDREDTHS + 1];
+
+    static {
+        for (int mark = 0; mark <= MAX_HUNDREDTHS; mark++) {
+            TABLE[mark] = (byte) scan(mark).ordinal();
+        }
+    }
+
+    // Lowest overall mark with this grade, in hundredths of a mark
+    private final int minimumHundredths;
+
+    /**
+     * Constructs a grade.
+     *
+     * @param minimumHundredths The lowest overall mark with this grade, in hundredths.
+     */
+    Grade(int minimumHundredths) {
+        this.minimumHundredths = minimumHundredths;
+    }
+
+    /**
+     * Gets the lowest overall mark with this grade.
+     *
+     * @return The lowest mark multiplied by 100.
+     */
+    public int getMinimumHundredths() {
+        return minimumHundredths;
+    }
+
+    /**
+     * Gets the grade of an overall mark in hundredths of a mark from the lookup table.
+     *
+     * @param overallMarkHundredths The overall mark multiplied by 100, 0 to 10000.
+     * @return The grade.
+     */
+    public static Grade of(int overallMarkHundredths) {
+        return GRADES[TABLE[overallMarkHundredths]];
+    }
+
+    /**
+     * Gets the grade of an overall mark that may not be a whole number of hundredths.
+     *
+     * @param overallMark The overall mark.
+     * @return The grade.
+     */
+    public static Grade of(double overallMark) {
+        for (Grade grade : GRADES) {
+            if (overallMark >= grade.minimumHundredths / 100.0) {
+                return grade;
+            }
+        }
+        return N;
+    }
+
+    /**
+     * Finds the grade of a mark by comparing it with each grade in turn, used to fill the
+     * lookup table.
+     *
+     * @param overallMarkHundredths The overall mark multiplied by 100.
+     * @return The grade.
+     */
+    private static Grade scan(int overallMarkHundredths) {
+        for (Grade grade : GRADES) {
+            if (overallMarkHundredths >= grade.minimumHundredths) {
+                return grade;
+            }
+        }
+        return N;
+    }
+}
@@ -0,0 +1,296 @@
+import java.util.List;
+import java.util.Arrays;
+
+/**
+ * GradeAnalytics class accumulates the overall marks of a group of students so that the
+ * average and the number of students above and below it can be answered without going
+ * over the students again.
+ * <p>
+ * Overall marks are kept in hundredths of a mark. With the course work weights
+ * (0.25/0.25/0.5) and the research weights (0.35/0.65) every overall mark is a multiple
+ * of 0.05, so a histogram of 2001 buckets (0.00, 0.05, ..., 100.00) holds every mark
+ * exactly. The count and total are kept alongside it.
+ * </p>
+ * <p>
+ * An accumulator can track a list of students: it is then told about every
+ * student added or removed, and answers in constant time (or one pass over the
+ * histogram for the above and below average counts) however many students are loaded.
+ * If the size of the tracked list stops matching, the next query rebuilds the
+ * histogram from the list before answering, which is why the queries are synchronized
+ * (see {@link ConcurrentStudentStore}).
+ * </p>
+ * <p>
+ * Precondition: Marks of a tracked student are not changed through the setters after
+ * the student was added.
+ * Postconditions: The results match a full pass over the students.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class GradeAnalytics {
+
+    /**
+     * Resolution of the histogram in hundredths of a mark.
+     */
+    public static final int BUCKET_WIDTH = 5;
+
+    /**
+     * Number of histogram buckets, from 0.00 to 100.00 in steps of 0.05.
+     */
+    public static final int BUCKETS = 100 * 100 / BUCKET_WIDTH + 1;
+
+    // The list being tracked, or null for a standalone accumulator
+    private final List<Student> tracked;
+    private int expectedSize;
+
+    private final long[] histogram = new long[BUCKETS];
+    private long count;
+    private long totalHundredths;
+
+    /**
+     * Constructs an empty standalone accumulator.
+     */
+    public GradeAnalytics() {
+        this.tracked = null;
+    }
+
+    /**
+     * Constructs an accumulator tracking the given list, starting from its current
+     * students.
+     *
+     * @param tracked The list of Student objects to be tracked.
+     */
+    public GradeAnalytics(List<Student> tracked) {
+        this.tracked = tracked;
+        rebuild();
+    }
+
+    /**
+     * Builds a standalone accumulator over the given students in a single pass.
+     *
+     * @param students The students to analyze.
+     * @return The filled accumulator.
+     */
+    public static GradeAnalytics of(List<Student> students) {
+        GradeAnalytics analytics = new GradeAnalytics();
+        for (int row = 0; row < students.size(); row++) {
+            int mark = overallMarkHundredths(students, row);
+            if (mark >= 0) {
+                analytics.add(mark);
+            }
+        }
+        return analytics;
+    }
+
+    /**
+     * Calculates the overall mark of a student in hundredths of a mark.
+     *
+     * @param student The student.
+     * @return The overall mark multiplied by 100, or -1 if the student has no unit
+     *         course or research course.
+     */
+    public static int overallMarkHundredths(Student student) {
+        if (student instanceof Student_Course) {
+            Unit_Course unitCourse = ((Student_Course) student).getUnitCourse();
+            if (unitCourse != null) {
+                return unitCourse.overallMarkHundredths();
+            }
+        } else if (student instanceof Student_Research) {
+            Research_Course researchCourse = ((Student_Research) student).getResearchCourse();
+            if (researchCourse != null) {
+                return researchCourse.overallMarkHundredths();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Calculates the overall mark of a row of a list of students in hundredths of a mark.
+     * For a {@link StudentStore} the mark is calculated from its mark columns, without
+     * creating a Student.
+     *
+     * @param students The list of students.
+     * @param row      The row number.
+     * @return The overall mark multiplied by 100, or -1 if the student has no unit
+     *         course or research course.
+     */
+    public static int overallMarkHundredths(List<Student> students, int row) {
+        if (students instanceof StudentStore) {
+            return ((StudentStore) students).getOverallMarkHundredths(row);
+        }
+        return overallMarkHundredths(students.get(row));
+    }
+
+    /**
+     * Checks whether this accumulator is tracking the given list.
+     *
+     * @param students The list to check.
+     * @return true if the list is the one being tracked, false otherwise.
+     */
+    public boolean isTracking(List<Student> students) {
+        return tracked != null && students == tracked;
+    }
+
+    /**
+     * Records that a student was appended to the tracked list.
+     *
+     * @param students The list the student was appended to.
+     * @param student  The appended student.
+     */
+    public void studentAdded(List<Student> students, Student student) {
+        if (!isTracking(students)) {
+            return;
+        }
+        expectedSize++;
+        int mark = overallMarkHundredths(student);
+        if (mark >= 0) {
+            add(mark);
+        }
+    }
+
+    /**
+     * Records that a student was removed from the tracked list.
+     *
+     * @param students The list the student was removed from.
+     * @param student  The removed student.
+     */
+    public void studentRemoved(List<Student> students, Student student) {
+        if (!isTracking(students)) {
+            return;
+        }
+        expectedSize--;
+        int mark = overallMarkHundredths(student);
+        if (mark >= 0) {
+            remove(mark);
+        }
+    }
+
+    /**
+     * Rebuilds the accumulator from the current contents of the tracked list, for example
+     * after students were removed from it in bulk.
+     *
+     * @param students The list being tracked.
+     */
+    public void rebuild(List<Student> students) {
+        if (isTracking(students)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Adds one overall mark.
+     *
+     * @param markHundredths The overall mark in hundredths of a mark, 0 to 10000.
+     */
+    public void add(int markHundredths) {
+        histogram[markHundredths / BUCKET_WIDTH]++;
+        count++;
+        totalHundredths += markHundredths;
+    }
+
+    /**
+     * Removes one overall mark that was added before.
+     *
+     * @param markHundredths The overall mark in hundredths of a mark, 0 to 10000.
+     */
+    public void remove(int markHundredths) {
+        histogram[markHundredths / BUCKET_WIDTH]--;
+        count--;
+        totalHundredths -= markHundredths;
+    }
+
+    /**
+     * Gets the number of students with an overall mark.
+     *
+     * @return The number of students analyzed.
+     */
+    public synchronized long getCount() {
+        checkInSync();
+        return count;
+    }
+
+    /**
+     * Gets the total of the overall marks in hundredths of a mark.
+     *
+     * @return The total overall mark multiplied by 100.
+     */
+    public synchronized long getTotalHundredths() {
+        checkInSync();
+        return totalHundredths;
+    }
+
+    /**
+     * Gets the average overall mark.
+     *
+     * @return The average overall mark, or 0 if there are no students.
+     */
+    public synchronized double getAverage() {
+        checkInSync();
+        return count == 0 ? 0 : totalHundredths / 100.0 / count;
+    }
+
+    /**
+     * Gets the number of students whose overall mark is at or above the average. A mark
+     * is at or above the average exactly when mark * count >= total, so no rounding is
+     * involved.
+     *
+     * @return The number of students at or above the average.
+     */
+    public synchronized long getNumAtOrAboveAverage() {
+        checkInSync();
+        long result = 0;
+        for (int bucket = BUCKETS - 1; bucket >= 0; bucket--) {
+            if ((long) bucket * BUCKET_WIDTH * count < totalHundredths) {
+                break;
+            }
+            result += histogram[bucket];
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of students whose overall mark is below the average.
+     *
+     * @return The number of students below the average.
+     */
+    public synchronized long getNumBelowAverage() {
+        return getCount() - getNumAtOrAboveAverage();
+    }
+
+    /**
+     * Gets the number of students whose overall mark falls in a histogram bucket.
+     *
+     * @param bucket The bucket number, the mark divided by 0.05.
+     * @return The number of students in the bucket.
+     */
+    public synchronized long getBucketCount(int bucket) {
+        checkInSync();
+        return histogram[bucket];
+    }
+
+    /**
+     * Rebuilds the accumulator if the tracked list was changed without it being told.
+     */
+    private void checkInSync() {
+        if (tracked != null && tracked.size() != expectedSize) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuilds the accumulator from the current students of the tracked list.
+     */
+    private void rebuild() {
+        Arrays.fill(histogram, 0);
+        count = 0;
+        totalHundredths = 0;
+        for (int row = 0; row < tracked.size(); row++) {
+            int mark = overallMarkHundredths(tracked, row);
+            if (mark >= 0) {
+                add(mark);
+            }
+        }
+        expectedSize = tracked.size();
+    }
+}
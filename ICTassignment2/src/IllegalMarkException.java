@@ -3,11 +3,16 @@
  *
  * This class represents an exception for illegal marks.
  * <p>
+ * It is unchecked, like the IllegalArgumentException it extends, because the loaders
+ * reject marks outside 0 to 100 before a course is created, so only a caller passing an
+ * unchecked mark to a mark setter can get one.
+ * </p>
+ * <p>
  * Precondition: The mark provided is outside the valid range.
  * Postconditions: An instance of this exception is thrown with an appropriate message.
  * </p>
  */
-public class IllegalMarkException extends Exception {
+public class IllegalMarkException extends IllegalArgumentException {
     
     /**
      * Constructor for IllegalMarkException.
@@ -0,0 +1,556 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Arrays;
+
+/**
+ * MarkRanking class ranks the students of a list by overall mark, answering the
+ * rank of a student, the student at a given rank, the top K students and percentile
+ * marks without sorting the students.
+ * <p>
+ * Overall marks are whole hundredths of a mark from 0 to 10000, so the rows of the
+ * students are kept in one bucket per possible mark, and a Fenwick (binary indexed) tree
+ * over the bucket sizes counts the students at or below any mark in O(log 10001) steps.
+ * Ranking a mark is one prefix count and selecting the k-th mark is one descent of the
+ * tree.
+ * </p>
+ * <p>
+ * The buckets hold the stable ids of the {@link RowIdMap} the tracked
+ * {@link StudentStore} keeps of its rows, rather than rows, and the mark
+ * and bucket position of every id are kept, so removing a student takes its id out of
+ * its bucket in O(1) time by moving the last id of the bucket into its place. As in
+ * {@link StudentNumberIndex}, a student removed from a sorted list only retires its id,
+ * and a swap-removed student's id is taken over by the student moved into its row. The
+ * top K students are taken bucket by bucket from the highest mark down: whole buckets
+ * are sorted by student number, and from the last bucket, which is only partly taken,
+ * the students with the lowest student numbers are picked with a bounded heap, so no
+ * more than K students are ever sorted.
+ * </p>
+ * <p>
+ * Ranks count from 1 for the highest overall mark. Students with the same overall mark
+ * share a rank (1, 2, 2, 4), and within the top K they are listed by student number.
+ * Students with no unit course or research course have no overall mark and are not
+ * ranked.
+ * </p>
+ * <p>
+ * Like {@link GradeAnalytics}, a ranking tracks a list of students: it is told
+ * about every student added or removed and is rebuilt after the list is sorted. A rank,
+ * top K or percentile query that finds the tracked list changed without the ranking
+ * being told refills the buckets and the Fenwick tree first, so those queries hold the ranking's
+ * lock (see {@link ConcurrentStudentStore}).
+ * </p>
+ * <p>
+ * Precondition: Marks of a ranked student are not changed through the setters after the
+ * student was added.
+ * Postconditions: The results match a full sort of the students by overall mark.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class MarkRanking {
+
+    /**
+     * Number of possible overall marks, from 0.00 to 100.00 in steps of 0.01.
+     */
+    public static final int MARKS = Grade.MAX_HUNDREDTHS + 1;
+
+    private static final Student[] NO_STUDENTS = new Student[0];
+
+    // Mark of an id whose student has no overall mark
+    private static final short NO_MARK = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    // The list being ranked
+    private final List<Student> tracked;
+
+    // Ids of the rows, the buckets hold ids, and the number of changes to them seen
+    private RowIdMap rowIds;
+    private int changesSeen;
+
+    // Ids of every overall mark, in no particular order
+    private int[][] buckets;
+    private int[] bucketSizes;
+
+    // Overall mark of each id and its position in the bucket of that mark, indexed by id
+    private short[] marks;
+    private int[] positions;
+
+    // Fenwick tree over the bucket sizes, tree[i] covers marks (i - lowbit(i), i] shifted by one
+    private final int[] tree = new int[MARKS + 1];
+    private int count;
+
+    /**
+     * Constructs a ranking tracking the given list, starting from its current students.
+     *
+     * @param tracked The list of Student objects to be tracked.
+     */
+    public MarkRanking(List<Student> tracked) {
+        this.tracked = tracked;
+        rebuild();
+    }
+
+    /**
+     * Builds a ranking over the given students, for a list that is not changed while the
+     * ranking is used.
+     *
+     * @param students The students to rank.
+     * @return The filled ranking.
+     */
+    public static MarkRanking of(List<Student> students) {
+        return new MarkRanking(students);
+    }
+
+    /**
+     * Checks whether this ranking is tracking the given list.
+     *
+     * @param students The list to check.
+     * @return true if the list is the one being tracked, false otherwise.
+     */
+    public boolean isTracking(List<Student> students) {
+        return students == tracked;
+    }
+
+    /**
+     * Records that a student was appended to the tracked list.
+     *
+     * @param students The list the student was appended to.
+     * @param student  The appended student.
+     */
+    public void studentAdded(List<Student> students, Student student) {
+        if (!isTracking(students)) {
+            return;
+        }
+        if (!rowIds.isNextChange(students, changesSeen)) {
+            rebuild();
+            return;
+        }
+        changesSeen++;
+        int id = rowIds.getIdCount() - 1;
+        if (id >= marks.length) {
+            int capacity = Math.max(id + 1, marks.length + (marks.length >> 1));
+            marks = Arrays.copyOf(marks, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+        }
+        insert(id, GradeAnalytics.overallMarkHundredths(student));
+    }
+
+    /**
+     * Records that the student at a row was removed by moving the last student of the
+     * list into that row. Must be called after the list has been changed.
+     *
+     * @param students The list the student was removed from.
+     * @param row      The row of the removed student.
+     * @param student  The removed student.
+     */
+    public void studentSwapRemoved(List<Student> students, int row, Student student) {
+        if (!isTracking(students)) {
+            return;
+        }
+        if (!rowIds.isNextChange(students, changesSeen)) {
+            rebuild();
+            return;
+        }
+        changesSeen++;
+        int id = rowIds.idOfSwapRemoved(row);
+        int lastId = rowIds.getLastRetired();
+        delete(id);
+        if (id != lastId) {
+            // The moved student takes over the id of its new row
+            int mark = marks[lastId];
+            marks[id] = (short) mark;
+            if (mark != NO_MARK) {
+                positions[id] = positions[lastId];
+                buckets[mark][positions[id]] = id;
+            }
+        }
+    }
+
+    /**
+     * Records that the student at a row was removed by moving every later student up
+     * by one row. Must be called after the list has been changed.
+     *
+     * @param students The list the student was removed from.
+     * @param row      The row of the removed student.
+     * @param student  The removed student.
+     */
+    public void studentRemoved(List<Student> students, int row, Student student) {
+        if (!isTracking(students)) {
+            return;
+        }
+        if (!rowIds.isNextChange(students, changesSeen)) {
+            rebuild();
+            return;
+        }
+        changesSeen++;
+        delete(rowIds.getLastRetired());
+    }
+
+    /**
+     * Rebuilds the ranking from the current contents of the list, for example after the
+     * list has been sorted.
+     *
+     * @param students The list to be ranked.
+     */
+    public void rebuild(List<Student> students) {
+        if (isTracking(students)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Gets the number of ranked students.
+     *
+     * @return The number of students with an overall mark.
+     */
+    public synchronized int getCount() {
+        checkInSync();
+        return count;
+    }
+
+    /**
+     * Gets the number of students whose overall mark is higher than the given mark.
+     *
+     * @param markHundredths The overall mark in hundredths of a mark, 0 to 10000.
+     * @return The number of students with a higher overall mark.
+     */
+    public synchronized int countAbove(int markHundredths) {
+        checkInSync();
+        return count - countAtOrBelow(markHundredths);
+    }
+
+    /**
+     * Gets the rank of an overall mark, one more than the number of students with a
+     * higher overall mark.
+     *
+     * @param markHundredths The overall mark in hundredths of a mark, 0 to 10000.
+     * @return The rank, 1 for the highest mark.
+     */
+    public int rankOfMark(int markHundredths) {
+        return countAbove(markHundredths) + 1;
+    }
+
+    /**
+     * Gets the rank of a student by overall mark.
+     *
+     * @param student The student to rank.
+     * @return The rank, 1 for the highest mark, or -1 if the student has no overall mark.
+     */
+    public int rankOf(Student student) {
+        int mark = GradeAnalytics.overallMarkHundredths(student);
+        return mark < 0 ? -1 : rankOfMark(mark);
+    }
+
+    /**
+     * Gets the overall mark of the student at a rank.
+     *
+     * @param rank The rank, 1 for the highest mark, up to {@link #getCount()}.
+     * @return The overall mark in hundredths of a mark.
+     * @throws IndexOutOfBoundsException If the rank is out of range.
+     */
+    public synchronized int markAtRank(int rank) {
+        checkInSync();
+        if (rank < 1 || rank > count) {
+            throw new IndexOutOfBoundsException("Rank " + rank + " is out of range 1-" + count);
+        }
+        return select(count - rank + 1);
+    }
+
+    /**
+     * Gets the overall mark at a percentile using the nearest rank method: the lowest
+     * mark that at least the given percentage of students are at or below.
+     *
+     * @param percentile The percentile, above 0 and at most 100.
+     * @return The overall mark in hundredths of a mark, or -1 if there are no students.
+     * @throws IllegalArgumentException If the percentile is out of range.
+     */
+    public synchronized int percentileMark(double percentile) {
+        if (!(percentile > 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be above 0 and at most 100");
+        }
+        checkInSync();
+        if (count == 0) {
+            return -1;
+        }
+        long position = (long) Math.ceil(percentile / 100 * count);
+        return select((int) Math.max(1, Math.min(count, position)));
+    }
+
+    /**
+     * Gets the students with the highest overall marks, highest first. Students with the
+     * same overall mark are listed by student number.
+     *
+     * @param k The number of students to get.
+     * @return Up to k students.
+     */
+    public synchronized ArrayList<Student> top(int k) {
+        checkInSync();
+        int wanted = Math.max(0, Math.min(k, count));
+        ArrayList<Student> result = new ArrayList<>(wanted);
+        while (result.size() < wanted) {
+            // The next bucket down holds the student ranked just below the ones taken so far
+            int mark = select(count - result.size());
+            for (int row : lowestStudentNumbers(mark, Math.min(bucketSizes[mark], wanted - result.size()))) {
+                result.add(tracked.get(row));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the students with exactly the given overall mark, by student number.
+     *
+     * @param markHundredths The overall mark in hundredths of a mark, 0 to 10000.
+     * @return The students with the mark.
+     */
+    public synchronized Student[] studentsWithMark(int markHundredths) {
+        checkInSync();
+        int size = bucketSizes[markHundredths];
+        if (size == 0) {
+            return NO_STUDENTS;
+        }
+        int[] rows = lowestStudentNumbers(markHundredths, size);
+        Student[] result = new Student[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = tracked.get(rows[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the rows of the students of a bucket with the lowest student numbers, keeping
+     * a max-heap of the lowest ones seen so far. Rows with the same student number are
+     * taken in row order.
+     *
+     * @param markHundredths The overall mark of the bucket.
+     * @param take           The number of rows to find, at most the size of the bucket.
+     * @return The rows, by student number.
+     */
+    private int[] lowestStudentNumbers(int markHundredths, int take) {
+        int[] bucket = buckets[markHundredths];
+        long[] heapNumbers = new long[take];
+        int[] heapRows = new int[take];
+        int heapSize = 0;
+        for (int i = 0; i < bucketSizes[markHundredths]; i++) {
+            int row = rowIds.rowOf(bucket[i]);
+            long studentNumber = StudentStore.studentNumberAt(tracked, row);
+            if (heapSize < take) {
+                siftUp(heapNumbers, heapRows, heapSize++, studentNumber, row);
+            } else if (before(studentNumber, row, heapNumbers[0], heapRows[0])) {
+                siftDown(heapNumbers, heapRows, heapSize, studentNumber, row);
+            }
+        }
+        // Taking the largest off the heap each time fills the result from the back
+        int[] result = new int[take];
+        for (int i = take - 1; i >= 0; i--) {
+            result[i] = heapRows[0];
+            heapSize--;
+            siftDown(heapNumbers, heapRows, heapSize, heapNumbers[heapSize], heapRows[heapSize]);
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether one student comes before another by student number, then row.
+     *
+     * @param studentNumber      The student number of the first student.
+     * @param row                The row of the first student.
+     * @param otherStudentNumber The student number of the second student.
+     * @param otherRow           The row of the second student.
+     * @return true if the first student comes first.
+     */
+    private static boolean before(long studentNumber, int row, long otherStudentNumber, int otherRow) {
+        return studentNumber < otherStudentNumber || (studentNumber == otherStudentNumber && row < otherRow);
+    }
+
+    /**
+     * Adds a student to a max-heap, moving it up from a new leaf.
+     *
+     * @param numbers       The student numbers of the heap.
+     * @param rows          The rows of the heap.
+     * @param hole          The size of the heap before the student is added.
+     * @param studentNumber The student number of the student.
+     * @param row           The row of the student.
+     */
+    private static void siftUp(long[] numbers, int[] rows, int hole, long studentNumber, int row) {
+        while (hole > 0) {
+            int parent = (hole - 1) >>> 1;
+            if (!before(numbers[parent], rows[parent], studentNumber, row)) {
+                break;
+            }
+            numbers[hole] = numbers[parent];
+            rows[hole] = rows[parent];
+            hole = parent;
+        }
+        numbers[hole] = studentNumber;
+        rows[hole] = row;
+    }
+
+    /**
+     * Replaces the top of a max-heap with a student, moving it down to its place.
+     *
+     * @param numbers       The student numbers of the heap.
+     * @param rows          The rows of the heap.
+     * @param size          The size of the heap.
+     * @param studentNumber The student number of the student.
+     * @param row           The row of the student.
+     */
+    private static void siftDown(long[] numbers, int[] rows, int size, long studentNumber, int row) {
+        int hole = 0;
+        int child;
+        while ((child = 2 * hole + 1) < size) {
+            if (child + 1 < size && before(numbers[child], rows[child], numbers[child + 1], rows[child + 1])) {
+                child++;
+            }
+            if (!before(studentNumber, row, numbers[child], rows[child])) {
+                break;
+            }
+            numbers[hole] = numbers[child];
+            rows[hole] = rows[child];
+            hole = child;
+        }
+        numbers[hole] = studentNumber;
+        rows[hole] = row;
+    }
+
+    /**
+     * Counts the students with an overall mark at or below the given mark.
+     *
+     * @param markHundredths The overall mark in hundredths of a mark.
+     * @return The number of students at or below the mark.
+     */
+    private int countAtOrBelow(int markHundredths) {
+        int result = 0;
+        for (int i = markHundredths + 1; i > 0; i -= i & -i) {
+            result += tree[i];
+        }
+        return result;
+    }
+
+    /**
+     * Finds the overall mark of the k-th lowest student by walking down the tree.
+     *
+     * @param k The position from the lowest mark, 1 to the number of students.
+     * @return The overall mark in hundredths of a mark.
+     */
+    private int select(int k) {
+        int position = 0;
+        for (int step = Integer.highestOneBit(MARKS); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= MARKS && tree[next] < k) {
+                position = next;
+                k -= tree[next];
+            }
+        }
+        // position is the last tree index with fewer than k students, the mark is the next one
+        return position;
+    }
+
+    /**
+     * Changes the number of students with an overall mark.
+     *
+     * @param markHundredths The overall mark in hundredths of a mark.
+     * @param delta          The change in the number of students.
+     */
+    private void update(int markHundredths, int delta) {
+        for (int i = markHundredths + 1; i <= MARKS; i += i & -i) {
+            tree[i] += delta;
+        }
+        count += delta;
+    }
+
+    /**
+     * Records the overall mark of an id and appends the id to the bucket of the mark.
+     *
+     * @param id             The id.
+     * @param markHundredths The overall mark in hundredths of a mark, or -1 for none.
+     */
+    private void insert(int id, int markHundredths) {
+        marks[id] = (short) markHundredths;
+        if (markHundredths < 0) {
+            return;
+        }
+        append(markHundredths, id);
+        update(markHundredths, 1);
+    }
+
+    /**
+     * Takes an id out of the bucket of its overall mark, moving the last id of the
+     * bucket into its place.
+     *
+     * @param id The id to take out.
+     */
+    private void delete(int id) {
+        int mark = marks[id];
+        if (mark == NO_MARK) {
+            return;
+        }
+        int[] bucket = buckets[mark];
+        int last = --bucketSizes[mark];
+        int moved = bucket[last];
+        bucket[positions[id]] = moved;
+        positions[moved] = positions[id];
+        update(mark, -1);
+    }
+
+    /**
+     * Appends an id to the bucket of its overall mark, growing the bucket if needed.
+     *
+     * @param markHundredths The overall mark in hundredths of a mark.
+     * @param id             The id.
+     */
+    private void append(int markHundredths, int id) {
+        int[] bucket = buckets[markHundredths];
+        int size = bucketSizes[markHundredths];
+        if (bucket == null) {
+            bucket = buckets[markHundredths] = new int[4];
+        } else if (size == bucket.length) {
+            bucket = buckets[markHundredths] = Arrays.copyOf(bucket, size * 2);
+        }
+        bucket[size] = id;
+        positions[id] = size;
+        bucketSizes[markHundredths] = size + 1;
+    }
+
+    /**
+     * Rebuilds the ranking if the tracked list was changed without it being told.
+     */
+    private void checkInSync() {
+        if (!rowIds.isCurrent(tracked, changesSeen)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuilds the ranking from the current students of the tracked list, filling the
+     * buckets and building the tree from the bucket sizes in linear time.
+     */
+    private void rebuild() {
+        int n = tracked.size();
+        rowIds = RowIdMap.of(tracked);
+        changesSeen = rowIds.getChangeCount();
+        int[] ids = rowIds.idsInRowOrder();
+        buckets = new int[MARKS][];
+        bucketSizes = new int[MARKS];
+        marks = new short[Math.max(INITIAL_CAPACITY, rowIds.getIdCount())];
+        positions = new int[marks.length];
+        for (int row = 0; row < n; row++) {
+            int mark = GradeAnalytics.overallMarkHundredths(tracked, row);
+            marks[ids[row]] = (short) mark;
+            if (mark >= 0) {
+                append(mark, ids[row]);
+            }
+        }
+
+        count = 0;
+        for (int i = 1; i <= MARKS; i++) {
+            tree[i] = bucketSizes[i - 1];
+            count += bucketSizes[i - 1];
+        }
+        for (int i = 1; i <= MARKS; i++) {
+            int parent = i + (i & -i);
+            if (parent <= MARKS) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * ParallelStudentLoader class parses a large student CSV file on several threads.
+ * <p>
+ * The file is split into byte ranges that start and end on line boundaries. Each range
+ * is parsed by its own {@link StudentCsvParser} on a fork-join pool, into a buffer of
+ * students owned by that task. The buffers are then handed to the caller one chunk at a
+ * time, either in file order or in the order the chunks finish.
+ * </p>
+ * <p>
+ * Messages about rejected rows are kept by each chunk rather than printed by the parser
+ * threads, and printed in file order: as each chunk is passed on when file order is
+ * kept, or once every chunk has been passed on otherwise.
+ * </p>
+ * <p>
+ * Precondition: The channel stays open until load returns.
+ * Postconditions: Every accepted row has been passed to the consumer exactly once. When
+ * file order is kept, the students arrive in the same order as a single threaded load.
+ * </p>
+ * <p>
+ * Given a {@link ValidationErrors}, each chunk records its rejected rows into its own
+ * chunk of it, and the chunks are merged in file order once the load has finished, so
+ * quarantined lines are written in file order too. In
+ * fail-fast mode the chunks are always passed in file order and loading stops after the
+ * chunk holding the first error.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class ParallelStudentLoader {
+
+    /**
+     * Files at least this big are loaded in parallel by default.
+     */
+    public static final long PARALLEL_THRESHOLD = 64L * 1024 * 1024;
+
+    // Smallest byte range worth giving to its own task
+    private static final long MIN_CHUNK_SIZE = 8L * 1024 * 1024;
+
+    // Chunks per thread, more than one so that a slow chunk does not hold up the rest
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    // Bytes read at a time while looking for the next line break
+    private static final int BOUNDARY_SCAN_SIZE = 4096;
+
+    /**
+     * The result of parsing one chunk.
+     */
+    private static final class Chunk {
+        final StudentRowCollector collector;
+        final ValidationErrors errors;
+        final long rowsParsed;
+        final long rowsRejected;
+
+        /**
+         * Constructs the result of a chunk.
+         *
+         * @param collector    The students of the chunk.
+         * @param errors       The rejected rows of the chunk, or null.
+         * @param rowsParsed   The number of rows parsed.
+         * @param rowsRejected The number of rows rejected.
+         */
+        Chunk(StudentRowCollector collector, ValidationErrors errors, long rowsParsed, long rowsRejected) {
+            this.collector = collector;
+            this.errors = errors;
+            this.rowsParsed = rowsParsed;
+            this.rowsRejected = rowsRejected;
+        }
+    }
+
+    /**
+     * Private constructor, this class only contains static helper methods.
+     */
+    private ParallelStudentLoader() {
+    }
+
+    /**
+     * Parses a file on the given number of threads and passes the students of each chunk
+     * to the consumer. The consumer is always called from the calling thread.
+     *
+     * @param channel       The open file channel to read.
+     * @param threads       The number of parser threads.
+     * @param keepFileOrder true to pass the chunks in file order, false to pass each
+     *                      chunk as soon as it has been parsed.
+     * @param consumer      Receives the students of each chunk.
+     * @return The number of rows rejected in the chunks passed to the consumer.
+     * @throws IOException If the file cannot be read.
+     */
+    public static long load(FileChannel channel, int threads, boolean keepFileOrder,
+            Consumer<ArrayList<Student>> consumer) throws IOException {
+        return load(channel, threads, keepFileOrder, null, consumer);
+    }
+
+    /**
+     * Parses a file on the given number of threads, recording rejected rows in a
+     * ValidationErrors, and passes the students of each chunk to the consumer. The
+     * consumer is always called from the calling thread.
+     *
+     * @param channel       The open file channel to read.
+     * @param threads       The number of parser threads.
+     * @param keepFileOrder true to pass the chunks in file order, false to pass each
+     *                      chunk as soon as it has been parsed.
+     * @param validation    Where rejected rows are recorded, or null to print messages.
+     * @param consumer      Receives the students of each chunk.
+     * @return The number of rows rejected in the chunks passed to the consumer.
+     * @throws IOException If the file cannot be read.
+     */
+    public static long load(FileChannel channel, int threads, boolean keepFileOrder, ValidationErrors validation,
+            Consumer<ArrayList<Student>> consumer) throws IOException {
+        long[] boundaries = chunkBoundaries(channel, threads);
+        int chunks = boundaries.length - 1;
+
+        // Fail-fast needs file order so that no row after the first error is added
+        boolean inOrder = keepFileOrder
+                || (validation != null && validation.getMode() == ValidationErrors.Mode.FAIL_FAST);
+
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try {
+            CompletionService<Chunk> completion = new ExecutorCompletionService<>(pool);
+            ArrayList<Future<Chunk>> futures = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                int index = i;
+                long start = boundaries[i];
+                long end = boundaries[i + 1];
+                futures.add(completion.submit(() -> {
+                    StudentRowCollector collector = new StudentRowCollector(true);
+                    ValidationErrors errors = validation == null ? null : validation.newChunk(index);
+                    StudentCsvParser parser = new StudentCsvParser(collector, errors);
+                    parser.parse(channel, start, end);
+                    return new Chunk(collector, errors, parser.getRowsParsed(), parser.getRowsRejected());
+                }));
+            }
+
+            int consumed = 0;
+            long rowsRejected = 0;
+            while (consumed < chunks) {
+                Chunk chunk = (inOrder ? futures.get(consumed) : completion.take()).get();
+                consumed++;
+                rowsRejected += chunk.rowsRejected;
+                if (inOrder) {
+                    chunk.collector.printMessages();
+                }
+                consumer.accept(chunk.collector.getStudents());
+                if (inOrder && chunk.errors != null && chunk.errors.isStopped()) {
+                    break;
+                }
+            }
+
+            // Chunks passed on as they finished print their messages in file order now
+            if (!inOrder) {
+                for (int i = 0; i < consumed; i++) {
+                    futures.get(i).get().collector.printMessages();
+                }
+            }
+
+            // Merge the rejected rows of the loaded chunks in file order
+            if (validation != null) {
+                long rowOffset = 0;
+                for (int i = 0; i < consumed; i++) {
+                    Chunk chunk = futures.get(i).get();
+                    validation.merge(chunk.errors, rowOffset);
+                    rowOffset += chunk.rowsParsed;
+                }
+            }
+            return rowsRejected;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading the file", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Error while parsing the file", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Splits the file into byte ranges that each start at the beginning of a line.
+     *
+     * @param channel The open file channel.
+     * @param threads The number of parser threads.
+     * @return The start of each range followed by the file size.
+     * @throws IOException If the file cannot be read.
+     */
+    private static long[] chunkBoundaries(FileChannel channel, int threads) throws IOException {
+        long size = channel.size();
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, size / ((long) Math.max(1, threads) * CHUNKS_PER_THREAD) + 1);
+
+        ArrayList<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        long position = chunkSize;
+        while (position < size) {
+            long lineStart = nextLineStart(channel, position, size);
+            if (lineStart >= size) {
+                break;
+            }
+            boundaries.add(lineStart);
+            position = lineStart + chunkSize;
+        }
+        boundaries.add(size);
+
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the first position after a line break at or after the given position.
+     *
+     * @param channel  The open file channel.
+     * @param position The position to start looking from.
+     * @param size     The size of the file.
+     * @return The start of the next line, or the file size if there is none.
+     * @throws IOException If the file cannot be read.
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n' || b == '\r') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+}
@@ -30,6 +30,7 @@ public class Research_Course extends Unit {
      * 
      * @param proposalMark           The mark obtained in the research proposal.
      * @param finalDissertationMark The mark obtained in the final dissertation.
+     * @throws IllegalMarkException If a mark is outside 0 to 100.
      */
     public Research_Course(int proposalMark, int finalDissertationMark) {
         super("R");
@@ -53,14 +54,11 @@ public class Research_Course extends Unit {
      * Setter method for setting the research proposal mark.
      * 
      * @param proposalMark The research proposal mark to be set.
+     * @throws IllegalMarkException If the mark is outside 0 to 100.
      */
     public void setProposalMark(int proposalMark) {
-        try {
-            // Validate and ensure that the proposal mark is within the valid range (0 to MAX_MARK)
-            this.proposalMark = validateAndSetMark(proposalMark);
-        } catch (IllegalMarkException e) {
-            System.out.println("Error: " + e.getMessage());
-        }
+        // Validate and ensure that the proposal mark is within the valid range (0 to MAX_MARK)
+        this.proposalMark = validateMark(proposalMark);
     }
 
     /**
@@ -76,14 +74,21 @@ public class Research_Course extends Unit {
      * Setter method for setting the final dissertation mark.
      * 
      * @param finalDissertationMark The final dissertation mark to be set.
+     * @throws IllegalMarkException If the mark is outside 0 to 100.
      */
     public void setFinalDissertationMark(int finalDissertationMark) {
-        try {
-            // Validate and ensure that the final dissertation mark is within the valid range (0 to MAX_MARK)
-            this.finalDissertationMark = validateAndSetMark(finalDissertationMark);
-        } catch (IllegalMarkException e) {
-            System.out.println("Error: " + e.getMessage());
-        }
+        // Validate and ensure that the final dissertation mark is within the valid range (0 to MAX_MARK)
+        this.finalDissertationMark = validateMark(finalDissertationMark);
+    }
+
+    /**
+     * Calculates the overall mark for the research course in hundredths of a mark. The
+     * weights 0.35 and 0.65 become 35 and 65, so the result is exact.
+     * 
+     * @return The overall mark multiplied by 100, 0 to 10000.
+     */
+    public int overallMarkHundredths() {
+        return 35 * proposalMark + 65 * finalDissertationMark;
     }
 
     /**
@@ -92,34 +97,41 @@ public class Research_Course extends Unit {
      * @return The overall mark based on research proposal and final dissertation marks.
      */
     public double overallMark() {
-        return (proposalMark * 0.35) + (finalDissertationMark * 0.65);
+        return overallMarkHundredths() / 100.0;
+    }
+
+    /**
+     * Gets the final grade of the research course from the grade lookup table.
+     * 
+     * @return The final grade for the research course.
+     */
+    public Grade grade() {
+        return grade(overallMarkHundredths());
     }
 
     /**
-     * Calls the finalGrade method from the superclass (Unit),
-     * using the overall mark calculated by the overallMark method.
+     * Calculates and returns the final grade based on the overall mark.
      * 
      * @return The final grade for the research course.
      */
     public String finalGrade() {
-        double overallMark = overallMark();
-        return super.finalGrade(overallMark);
+        return grade().name();
     }
 
-    // Helper method to validate and set the mark
+    // Helper method to validate the mark
     /**
-     * Validates and sets the mark for a certain operation.
+     * Validates a mark before it is set.
      *
      * This method is used to ensure that the provided mark is within the valid range.
      *
      * Precondition: The mark parameter should represent a numerical value.
-     * Postconditions: The mark is set if it is within the valid range (0 to MAX_MARK).
+     * Postconditions: Returns the mark if it is within the valid range (0 to MAX_MARK).
      *
-     * @param mark The mark to be validated and set.
+     * @param mark The mark to be validated.
      * @return The validated mark.
      * @throws IllegalMarkException If the provided mark is outside the valid range.
      */
-    private int validateAndSetMark(int mark) throws IllegalMarkException {
+    private static int validateMark(int mark) {
         if (mark < 0 || mark > MAX_MARK) {
             throw new IllegalMarkException("Mark must be between 0 and " + MAX_MARK);
         }
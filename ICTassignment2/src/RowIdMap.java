@@ -0,0 +1,288 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * RowIdMap class gives the rows of a list stable ids, so that an index can keep ids
+ * which do not change when a student is removed from the middle of the list and every
+ * later student moves up one row.
+ * <p>
+ * Ids are handed out in row order as students are appended, and the id of a removed
+ * student is retired. Because ids and rows are in the same order, the row of a live id
+ * is the id less the number of retired ids below it, and the id of a row is the
+ * (row + 1)-th live id. Retired ids are kept in a bit set with a Fenwick (binary
+ * indexed) tree over the number of retired ids in each 64 bit word, so both questions
+ * take O(log n) time, and constant time while no id has been retired. The bit set and
+ * tree take about a fifth of a byte per id and are only created on the first removal.
+ * </p>
+ * <p>
+ * A {@link StudentStore} owns the map of its rows and keeps it up to date itself, and
+ * every index tracking the store shares that one map. The store starts a new map when
+ * its rows are reordered or removed in bulk, and once more ids are retired than there are
+ * rows, which keeps the cost of removals O(log n) amortized. An index finding the map of
+ * its list replaced, or a change it was not told about, rebuilds itself (see
+ * {@link #isNextChange(List, int)}). An index over any other list makes its own map,
+ * which is never changed, and is rebuilt after every change of the list.
+ * </p>
+ * <p>
+ * Precondition: Ids passed in are ids that were handed out and not yet retired, and rows
+ * are 0 to {@link #size()} - 1.
+ * Postconditions: rowOf(idOf(row)) == row for every row.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class RowIdMap {
+
+    private static final int WORD_BITS = 64;
+    private static final int WORD_SHIFT = 6;
+    private static final long[] NO_WORDS = new long[0];
+    private static final int[] NO_TREE = new int[1];
+
+    // Number of ids handed out, and how many of them are retired
+    private int ids;
+    private int retired;
+
+    // Number of ids handed out or retired so far, and the id retired last
+    private int changes;
+    private int lastRetired = -1;
+
+    // One bit per id, set once the id is retired
+    private long[] words = NO_WORDS;
+
+    // Fenwick tree over the number of retired ids in each word, tree[i] covers words (i - lowbit(i), i] shifted by one
+    private int[] tree = NO_TREE;
+
+    /**
+     * Constructs a map whose ids are the rows of a list of the given size.
+     *
+     * @param rows The number of rows the list has now.
+     */
+    public RowIdMap(int rows) {
+        this.ids = rows;
+    }
+
+    /**
+     * Gets the map of the rows of a list: the map a StudentStore keeps of its rows, or a
+     * new map for any other list.
+     *
+     * @param students The list.
+     * @return The map.
+     */
+    public static RowIdMap of(List<Student> students) {
+        if (students instanceof StudentStore) {
+            return ((StudentStore) students).getRowIds();
+        }
+        return new RowIdMap(students.size());
+    }
+
+    /**
+     * Gets the number of rows, which is the number of live ids.
+     *
+     * @return The number of rows.
+     */
+    public int size() {
+        return ids - retired;
+    }
+
+    /**
+     * Gets the number of ids handed out, so every id is below it.
+     *
+     * @return The number of ids.
+     */
+    public int getIdCount() {
+        return ids;
+    }
+
+    /**
+     * Gets the number of retired ids.
+     *
+     * @return The number of retired ids.
+     */
+    public int getRetiredCount() {
+        return retired;
+    }
+
+    /**
+     * Gets the number of changes made to the map, each id handed out or retired being one.
+     *
+     * @return The number of changes.
+     */
+    public int getChangeCount() {
+        return changes;
+    }
+
+    /**
+     * Gets the id retired last, which was the id of the row removed last.
+     *
+     * @return The id, or -1 if no id has been retired.
+     */
+    public int getLastRetired() {
+        return lastRetired;
+    }
+
+    /**
+     * Checks whether an index using this map, which has seen the given number of its
+     * changes, can apply the change its list has just reported: the list must be a
+     * StudentStore still keeping this map, changed exactly once since.
+     *
+     * @param students    The list that reported the change.
+     * @param changesSeen The number of changes the index has seen.
+     * @return true if the index can apply the change, false if it must be rebuilt.
+     */
+    public boolean isNextChange(List<Student> students, int changesSeen) {
+        return students instanceof StudentStore && ((StudentStore) students).getRowIds() == this
+                && changes == changesSeen + 1;
+    }
+
+    /**
+     * Checks whether an index using this map, which has seen the given number of its
+     * changes, is up to date with its list: the map of a StudentStore must still be the
+     * store's and have no changes the index has not seen, and the map of any other list
+     * must have as many rows as the list.
+     *
+     * @param students    The list.
+     * @param changesSeen The number of changes the index has seen.
+     * @return true if the index is up to date, false if it must be rebuilt.
+     */
+    public boolean isCurrent(List<Student> students, int changesSeen) {
+        if (students instanceof StudentStore) {
+            return ((StudentStore) students).getRowIds() == this && changes == changesSeen;
+        }
+        return size() == students.size();
+    }
+
+    /**
+     * Hands out the id of a row appended to the end of the list.
+     *
+     * @return The new id, above every id handed out before.
+     */
+    public int append() {
+        changes++;
+        int id = ids++;
+        if (retired > 0 && id >= words.length << WORD_SHIFT) {
+            grow();
+        }
+        return id;
+    }
+
+    /**
+     * Retires the id of a removed row. Later rows keep their ids and move up one row.
+     *
+     * @param id The id to retire.
+     */
+    public void retire(int id) {
+        if (id >= words.length << WORD_SHIFT) {
+            grow();
+        }
+        int word = id >>> WORD_SHIFT;
+        words[word] |= 1L << id;
+        for (int i = word + 1; i < tree.length; i += i & -i) {
+            tree[i]++;
+        }
+        retired++;
+        changes++;
+        lastRetired = id;
+    }
+
+    /**
+     * Gets the current row of a live id.
+     *
+     * @param id The id.
+     * @return The row.
+     */
+    public int rowOf(int id) {
+        if (retired == 0) {
+            return id;
+        }
+        int word = id >>> WORD_SHIFT;
+        int retiredBelow = Long.bitCount(words[word] & ((1L << id) - 1));
+        for (int i = word; i > 0; i -= i & -i) {
+            retiredBelow += tree[i];
+        }
+        return id - retiredBelow;
+    }
+
+    /**
+     * Gets the id of a row.
+     *
+     * @param row The row.
+     * @return The id.
+     */
+    public int idOf(int row) {
+        if (retired == 0) {
+            return row;
+        }
+        // Walk down the tree to the word holding the (row + 1)-th live id
+        int word = 0;
+        int remaining = row;
+        for (int step = Integer.highestOneBit(words.length); step > 0; step >>= 1) {
+            int next = word + step;
+            if (next < tree.length) {
+                int live = (step << WORD_SHIFT) - tree[next];
+                if (live <= remaining) {
+                    word = next;
+                    remaining -= live;
+                }
+            }
+        }
+        // Skip the remaining live ids of that word
+        long live = ~words[word];
+        for (int i = 0; i < remaining; i++) {
+            live &= live - 1;
+        }
+        return (word << WORD_SHIFT) + Long.numberOfTrailingZeros(live);
+    }
+
+    /**
+     * Gets the id of the row a student was swap-removed from: the id the student moved
+     * into the row now has, or the retired id if the removed student was the last one.
+     *
+     * @param row The row of the removed student.
+     * @return The id.
+     */
+    public int idOfSwapRemoved(int row) {
+        return row < size() ? idOf(row) : lastRetired;
+    }
+
+    /**
+     * Gets the id of every row, in row order.
+     *
+     * @return The ids, one per row.
+     */
+    public int[] idsInRowOrder() {
+        int[] result = new int[size()];
+        if (retired == 0) {
+            for (int row = 0; row < result.length; row++) {
+                result[row] = row;
+            }
+            return result;
+        }
+        int row = 0;
+        for (int id = 0; row < result.length; id++) {
+            int word = id >>> WORD_SHIFT;
+            if (word < words.length && (words[word] & (1L << id)) != 0) {
+                continue;
+            }
+            result[row++] = id;
+        }
+        return result;
+    }
+
+    /**
+     * Grows the bit set to cover every id handed out, with room to spare, and rebuilds
+     * the tree from the words in linear time.
+     */
+    private void grow() {
+        int needed = (ids + WORD_BITS - 1) >>> WORD_SHIFT;
+        words = Arrays.copyOf(words, Math.max(needed + (needed >> 1), 16));
+        tree = new int[words.length + 1];
+        for (int i = 1; i < tree.length; i++) {
+            tree[i] += Long.bitCount(words[i - 1]);
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,247 @@
+import java.util.List;
+
+/**
+ * SortednessTracker class keeps track of whether a list of students is sorted by
+ * student number.
+ * <p>
+ * The tracker counts the descents of the list: the neighbouring pairs of students whose
+ * student numbers are in the wrong order. The list is sorted exactly when there are
+ * none. Appending or removing a student only changes the pairs around it, so the tracker
+ * is told about every student that is appended, removed or sorted and keeps the count up
+ * to date by comparing at most four student numbers, answering "is the list sorted?" in
+ * constant time. When it cannot be sure (for example the list was changed without the
+ * tracker being told), a single scan over the student numbers counts the descents again
+ * without copying or changing the list.
+ * </p>
+ * <p>
+ * Precondition: The tracked list contains non-null Student objects.
+ * Postconditions: The tracked list is never modified by this class.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class SortednessTracker {
+
+    // The list being tracked, other lists are always checked with a scan
+    private final List<Student> tracked;
+
+    // Number of rows whose student number is above the one of the next row, if known
+    private int descents;
+    private boolean known;
+
+    // Size the tracked list should have, a mismatch means it was changed behind our back
+    private int expectedSize;
+
+    /**
+     * Constructs a tracker for the given list.
+     *
+     * @param tracked The list of Student objects to be tracked.
+     */
+    public SortednessTracker(List<Student> tracked) {
+        this.tracked = tracked;
+        this.known = false;
+        this.expectedSize = tracked.size();
+    }
+
+    /**
+     * Records that a student was appended to the end of the list. Must be called after
+     * the list has been changed.
+     *
+     * @param students      The list the student was appended to.
+     * @param studentNumber The student number of the appended student.
+     */
+    public void studentAdded(List<Student> students, long studentNumber) {
+        if (students != tracked) {
+            return;
+        }
+        expectedSize++;
+        if (!isInSync()) {
+            known = false;
+        } else if (known && expectedSize > 1 && studentNumberAt(expectedSize - 2) > studentNumber) {
+            descents++;
+        }
+    }
+
+    /**
+     * Records that the student at a row was removed by moving the last student of the
+     * list into that row. Must be called after the list has been changed.
+     * <p>
+     * Only the pairs around the freed row and the old last row change, so the count is
+     * updated by comparing the removed and moved students with their neighbours.
+     * </p>
+     *
+     * @param students             The list the student was removed from.
+     * @param row                  The row of the removed student.
+     * @param removedStudentNumber The student number of the removed student.
+     */
+    public void studentSwapRemoved(List<Student> students, int row, long removedStudentNumber) {
+        if (students != tracked) {
+            return;
+        }
+        expectedSize--;
+        if (!isInSync()) {
+            known = false;
+            return;
+        }
+        if (!known) {
+            return;
+        }
+        int oldLastRow = expectedSize;
+        if (row == oldLastRow) {
+            // The last student was removed, only its pair with the one before it is gone
+            if (row > 0 && studentNumberAt(row - 1) > removedStudentNumber) {
+                descents--;
+            }
+            return;
+        }
+        long moved = studentNumberAt(row);
+
+        // Pairs of the old list holding the removed student or the old last student
+        if (row > 0 && studentNumberAt(row - 1) > removedStudentNumber) {
+            descents--;
+        }
+        long oldNext = row + 1 == oldLastRow ? moved : studentNumberAt(row + 1);
+        if (removedStudentNumber > oldNext) {
+            descents--;
+        }
+        if (oldLastRow - 1 > row && studentNumberAt(oldLastRow - 1) > moved) {
+            descents--;
+        }
+
+        // Pairs of the new list holding the moved student
+        if (row > 0 && studentNumberAt(row - 1) > moved) {
+            descents++;
+        }
+        if (row + 1 < expectedSize && moved > studentNumberAt(row + 1)) {
+            descents++;
+        }
+    }
+
+    /**
+     * Records that the student at a row was removed by moving every later student up by
+     * one row, keeping their order. Must be called after the list has been changed.
+     *
+     * @param students             The list the student was removed from.
+     * @param row                  The row of the removed student.
+     * @param removedStudentNumber The student number of the removed student.
+     */
+    public void studentRemoved(List<Student> students, int row, long removedStudentNumber) {
+        if (students != tracked) {
+            return;
+        }
+        expectedSize--;
+        if (!isInSync()) {
+            known = false;
+            return;
+        }
+        if (!known) {
+            return;
+        }
+        boolean hasPrevious = row > 0;
+        boolean hasNext = row < expectedSize;
+        if (hasPrevious && studentNumberAt(row - 1) > removedStudentNumber) {
+            descents--;
+        }
+        if (hasNext && removedStudentNumber > studentNumberAt(row)) {
+            descents--;
+        }
+        // The students on either side of the removed one are now neighbours
+        if (hasPrevious && hasNext && studentNumberAt(row - 1) > studentNumberAt(row)) {
+            descents++;
+        }
+    }
+
+    /**
+     * Records that the list was sorted by student number.
+     *
+     * @param students The list that was sorted.
+     */
+    public void studentsSorted(List<Student> students) {
+        if (students != tracked) {
+            return;
+        }
+        descents = 0;
+        known = true;
+        expectedSize = students.size();
+    }
+
+    /**
+     * Forgets the count of the list, for example after students were removed from it in
+     * bulk, so the next check counts it again.
+     *
+     * @param students The list being tracked.
+     */
+    public void rebuild(List<Student> students) {
+        if (students != tracked) {
+            return;
+        }
+        known = false;
+        expectedSize = students.size();
+    }
+
+    /**
+     * Checks whether the list is sorted by student number.
+     * <p>
+     * Constant time for the tracked list when its count is known, otherwise a single
+     * pass over the student numbers whose result is remembered for the tracked list.
+     * Synchronized so that concurrent readers do not remember the result at the same time.
+     * </p>
+     *
+     * @param students The list of Student objects to be checked.
+     * @return true if the list is sorted in ascending student number order, false otherwise.
+     */
+    public synchronized boolean isSorted(List<Student> students) {
+        if (students != tracked) {
+            return countDescents(students) == 0;
+        }
+        if (!known || !isInSync()) {
+            descents = countDescents(students);
+            known = true;
+            expectedSize = students.size();
+        }
+        return descents == 0;
+    }
+
+    /**
+     * Checks whether the tracked list still has the size the tracker expects.
+     *
+     * @return true if the sizes match, false otherwise.
+     */
+    private boolean isInSync() {
+        return tracked.size() == expectedSize;
+    }
+
+    /**
+     * Gets the student number at a row of the tracked list.
+     *
+     * @param row The row.
+     * @return The student number.
+     */
+    private long studentNumberAt(int row) {
+        return StudentStore.studentNumberAt(tracked, row);
+    }
+
+    /**
+     * Scans the list once comparing each student number with the previous one.
+     *
+     * @param students The list of Student objects to be checked.
+     * @return The number of students whose student number is above the next one.
+     */
+    private static int countDescents(List<Student> students) {
+        int n = students.size();
+        int count = 0;
+        if (n < 2) {
+            return count;
+        }
+        long previous = StudentStore.studentNumberAt(students, 0);
+        for (int i = 1; i < n; i++) {
+            long current = StudentStore.studentNumberAt(students, i);
+            if (current < previous) {
+                count++;
+            }
+            previous = current;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,59 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * StringDictionary class gives each distinct String a small integer code.
+ * <p>
+ * It is used by {@link StudentStore} to dictionary-encode name and unit ID columns, so
+ * every row stores an int code instead of a reference to its own String.
+ * </p>
+ * <p>
+ * Precondition: Strings added to the dictionary are not null.
+ * Postconditions: Equal Strings always get the same code, and codes start at 0 and
+ * increase by one for each new String.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class StringDictionary {
+
+    // Code of each distinct String, and the String of each code
+    private final HashMap<String, Integer> codes = new HashMap<>();
+    private final ArrayList<String> values = new ArrayList<>();
+
+    /**
+     * Gets the code of a String, adding it to the dictionary if it is new.
+     *
+     * @param value The String to encode.
+     * @return The code of the String.
+     */
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * Gets the String with the given code.
+     *
+     * @param code A code returned by encode.
+     * @return The String with that code.
+     */
+    public String decode(int code) {
+        return values.get(code);
+    }
+
+    /**
+     * Gets the number of distinct Strings in the dictionary.
+     *
+     * @return The number of distinct Strings.
+     */
+    public int size() {
+        return values.size();
+    }
+}
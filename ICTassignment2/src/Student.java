@@ -17,6 +17,11 @@
  */
 public class Student {
 
+    /**
+     * The line separator used by the details and grade reports, the same as println.
+     */
+    protected static final String NEW_LINE = System.lineSeparator();
+
     // Private instance variables to store student information
     private String firstName;
     private String lastName;
@@ -145,7 +150,17 @@ public class Student {
      * Reports the grade of the student.
      */
     public void reportGrade() {
-        System.out.println("There is no grade here.");
+        System.out.print(appendGradeReport(new StringBuilder()));
+    }
+
+    /**
+     * Appends the grade report of the student, as printed by reportGrade, to a buffer.
+     *
+     * @param text The buffer to append to.
+     * @return The buffer.
+     */
+    public StringBuilder appendGradeReport(StringBuilder text) {
+        return text.append("There is no grade here.").append(NEW_LINE);
     }
 
     /**
@@ -161,8 +176,19 @@ public class Student {
      * Displays the details of the student.
      */
     public void display() {
-        System.out.println("Enrolment Type: " + this.enrolmentType);
-        System.out.println("Student Name: " + this.firstName + " " + this.lastName);
-        System.out.println("Student Number: " + this.studentNumber);
+        System.out.print(appendDetails(new StringBuilder()));
+    }
+
+    /**
+     * Appends the details of the student, as printed by display, to a buffer.
+     *
+     * @param text The buffer to append to.
+     * @return The buffer.
+     */
+    public StringBuilder appendDetails(StringBuilder text) {
+        text.append("Enrolment Type: ").append(this.enrolmentType).append(NEW_LINE);
+        text.append("Student Name: ").append(this.firstName).append(' ').append(this.lastName).append(NEW_LINE);
+        text.append("Student Number: ").append(this.studentNumber).append(NEW_LINE);
+        return text;
     }
 }
@@ -0,0 +1,571 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * StudentCsvParser class reads student rows from a CSV file without creating a String
+ * for every line and field.
+ * <p>
+ * The file is read with positional {@link FileChannel#read(ByteBuffer, long)} calls into
+ * one direct buffer, which the parser reuses for every window of the file and every
+ * later parse, and scanned byte by byte for commas and line breaks. Student numbers,
+ * levels and marks are parsed directly from the buffered bytes; Strings are only created
+ * for names and unit IDs (and for the text of a rejected line). Each accepted row is
+ * passed to a {@link RowHandler}.
+ * </p>
+ * <p>
+ * The file is not memory mapped. A mapping stays until its buffer is garbage collected,
+ * and on Windows a file with a live mapping cannot be truncated, replaced or deleted, so
+ * a CSV file could not be exported over straight after loading it. Reading costs one
+ * copy of each byte into the buffer, which is small next to the parsing.
+ * </p>
+ * <p>
+ * The accept and reject rules are the same as splitting each line with
+ * {@code String.split(",")} and trimming each field: trailing empty fields are ignored,
+ * a course work (C) row needs at least 9 fields and a research (R) row at least 6.
+ * Lines with fewer than 6 fields or another enrolment type are skipped silently. Rows
+ * with a mark outside 0 to 100 are rejected, as a Unit_Course or Research_Course cannot
+ * hold such a mark.
+ * </p>
+ * <p>
+ * Given a {@link ValidationErrors}, rejected rows are recorded there as error codes with
+ * their row and column instead of being passed to {@link RowHandler#invalidRow} as
+ * messages. Skipped lines are then rejected as well, so every row reaching the handler
+ * is valid, and parsing stops early in fail-fast mode.
+ * </p>
+ * <p>
+ * The rows, bytes and rejected rows of each parse are added to the
+ * {@link StudentMetrics} once it has finished, not row by row.
+ * </p>
+ * <p>
+ * Precondition: The file is encoded in UTF-8 (or ASCII).
+ * Postconditions: Every accepted row has been passed to the handler in file order.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class StudentCsvParser {
+
+    /**
+     * Receives the rows found by the parser.
+     */
+    public interface RowHandler {
+
+        /**
+         * Called for every valid course work row.
+         *
+         * @param firstName       The first name of the student.
+         * @param lastName        The last name of the student.
+         * @param studentNumber   The student number.
+         * @param unitID          The unit ID.
+         * @param level           The level of the unit.
+         * @param assignment1Mark Marks obtained in the first assignment.
+         * @param assignment2Mark Marks obtained in the second assignment.
+         * @param finalExamMark   Marks obtained in the final exam.
+         */
+        void courseWorkRow(String firstName, String lastName, long studentNumber, String unitID,
+                int level, int assignment1Mark, int assignment2Mark, int finalExamMark);
+
+        /**
+         * Called for every valid research row.
+         *
+         * @param firstName        The first name of the student.
+         * @param lastName         The last name of the student.
+         * @param studentNumber    The student number.
+         * @param proposalMark     The mark obtained in the research proposal.
+         * @param dissertationMark The mark obtained in the final dissertation.
+         */
+        void researchRow(String firstName, String lastName, long studentNumber,
+                int proposalMark, int dissertationMark);
+
+        /**
+         * Called for every row that is rejected because a number could not be parsed or a
+         * mark is outside 0 to 100.
+         *
+         * @param message A message describing why the row was rejected.
+         */
+        void invalidRow(String message);
+    }
+
+    // Only the first nine fields are used, later fields only count towards the field count
+    private static final int MAX_FIELDS = 9;
+
+    // Size of the read buffer, it is grown if one line does not fit into it
+    private static final int WINDOW_SIZE = 1024 * 1024;
+
+    private final RowHandler handler;
+
+    // Where rejected rows are recorded, or null to pass messages to the handler
+    private final ValidationErrors validation;
+
+    // Start and end of each field of the current line, relative to the window
+    private final int[] fieldStart = new int[MAX_FIELDS];
+    private final int[] fieldEnd = new int[MAX_FIELDS];
+
+    // The window of the file being parsed, allocated on the first parse and then reused
+    private ByteBuffer buffer;
+
+    // Scratch space used to copy name and unit ID bytes out of the window
+    private byte[] scratch = new byte[64];
+
+    // Set by parseNumber to report whether the last field parsed was a valid number
+    private boolean numberValid;
+
+    // Statistics of the rows seen so far
+    private long rowsParsed;
+    private long rowsAccepted;
+    private long rowsRejected;
+    private long bytesRead;
+
+    // Rows rejected for each ValidationErrors.Code since the last parse was added to the metrics
+    private final long[] rejectedByCode = new long[ValidationErrors.Code.values().length];
+
+    /**
+     * Constructs a parser that passes rows to the given handler.
+     *
+     * @param handler The handler receiving the parsed rows.
+     */
+    public StudentCsvParser(RowHandler handler) {
+        this(handler, null);
+    }
+
+    /**
+     * Constructs a parser that passes valid rows to the given handler and records
+     * rejected rows in a ValidationErrors.
+     *
+     * @param handler    The handler receiving the parsed rows.
+     * @param validation Where rejected rows are recorded, or null to pass messages to
+     *                   the handler.
+     */
+    public StudentCsvParser(RowHandler handler, ValidationErrors validation) {
+        this.handler = handler;
+        this.validation = validation;
+    }
+
+    /**
+     * Parses a whole file.
+     *
+     * @param channel The open file channel to read.
+     * @throws IOException If the file cannot be read.
+     */
+    public void parse(FileChannel channel) throws IOException {
+        parse(channel, 0, channel.size());
+    }
+
+    /**
+     * Parses the lines between two byte positions of a file. The start position must be
+     * the first byte of a line and the end position the end of the file or just after a
+     * line break.
+     *
+     * @param channel The open file channel to read.
+     * @param start   The position of the first byte to parse.
+     * @param end     The position after the last byte to parse.
+     * @throws IOException If the file cannot be read or ends before the end position.
+     */
+    public void parse(FileChannel channel, long start, long end) throws IOException {
+        long rowsBefore = rowsParsed;
+        long bytesBefore = bytesRead;
+        try {
+            parseWindows(channel, start, end);
+        } finally {
+            StudentMetrics.parsed(rowsParsed - rowsBefore, bytesRead - bytesBefore, rejectedByCode);
+            Arrays.fill(rejectedByCode, 0);
+        }
+    }
+
+    /**
+     * Parses the lines between two byte positions of a file, one window at a time.
+     *
+     * @param channel The open file channel to read.
+     * @param start   The position of the first byte to parse.
+     * @param end     The position after the last byte to parse.
+     * @throws IOException If the file cannot be read or ends before the end position.
+     */
+    private void parseWindows(FileChannel channel, long start, long end) throws IOException {
+        long position = start;
+        // A small range, such as the tail of a watched file, does not need a full window
+        int window = (int) Math.min(WINDOW_SIZE, Math.max(end - start, 1));
+        if (buffer == null || buffer.capacity() < window) {
+            buffer = ByteBuffer.allocateDirect(window);
+        }
+
+        while (position < end) {
+            int limit = (int) Math.min(buffer.capacity(), end - position);
+            boolean lastWindow = position + limit == end;
+            read(channel, position, limit);
+
+            // Parse every complete line in the window
+            int lineStart = 0;
+            for (int i = 0; i < limit; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n' || b == '\r') {
+                    if (i > lineStart) {
+                        parseLine(buffer, lineStart, i);
+                        if (validation != null && validation.isStopped()) {
+                            bytesRead += position + i - start;
+                            return;
+                        }
+                    }
+                    lineStart = i + 1;
+                }
+            }
+
+            if (lastWindow) {
+                // The last line of the file may have no line break
+                if (limit > lineStart) {
+                    parseLine(buffer, lineStart, limit);
+                }
+                position = end;
+            } else if (lineStart == 0) {
+                // A single line is longer than the window, read it into a bigger one
+                buffer = ByteBuffer.allocateDirect((int) Math.min(buffer.capacity() * 2L, Integer.MAX_VALUE - 8));
+            } else {
+                // Continue from the start of the incomplete line
+                position += lineStart;
+            }
+        }
+        bytesRead += end - start;
+    }
+
+    /**
+     * Fills the start of the window with bytes of the file.
+     *
+     * @param channel  The open file channel to read.
+     * @param position The position of the first byte to read.
+     * @param length   The number of bytes to read.
+     * @throws IOException If the file cannot be read or ends before the last byte.
+     */
+    private void read(FileChannel channel, long position, int length) throws IOException {
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("The file ended at byte " + (position + buffer.position())
+                        + " before byte " + (position + length));
+            }
+        }
+    }
+
+    /**
+     * Gets the number of non-empty lines parsed, which is the row number of the last
+     * line parsed.
+     *
+     * @return The number of rows parsed.
+     */
+    public long getRowsParsed() {
+        return rowsParsed;
+    }
+
+    /**
+     * Gets the number of rows passed to the handler.
+     *
+     * @return The number of accepted rows.
+     */
+    public long getRowsAccepted() {
+        return rowsAccepted;
+    }
+
+    /**
+     * Gets the number of rows rejected because a number could not be parsed, or with a
+     * ValidationErrors, the number of rows it recorded.
+     *
+     * @return The number of rejected rows.
+     */
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    /**
+     * Gets the number of bytes parsed.
+     *
+     * @return The number of bytes read.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Splits one line into fields and passes it to the handler if it is valid.
+     *
+     * @param buffer The window holding the line.
+     * @param start  The position of the first byte of the line.
+     * @param end    The position after the last byte of the line.
+     * @throws IOException If a rejected line cannot be quarantined.
+     */
+    private void parseLine(ByteBuffer buffer, int start, int end) throws IOException {
+        rowsParsed++;
+
+        // Find the fields, remembering the last non-empty one like String.split does
+        int fieldCount = 0;
+        int lastNonEmpty = -1;
+        int currentStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || buffer.get(i) == ',') {
+                if (fieldCount < MAX_FIELDS) {
+                    fieldStart[fieldCount] = currentStart;
+                    fieldEnd[fieldCount] = i;
+                }
+                if (i > currentStart) {
+                    lastNonEmpty = fieldCount;
+                }
+                fieldCount++;
+                currentStart = i + 1;
+            }
+        }
+        int length = lastNonEmpty + 1;
+
+        if (length < 6) {
+            if (validation != null) {
+                reject(ValidationErrors.Code.TOO_FEW_FIELDS, length, buffer, start, end, null, 0, 0);
+            }
+            return;
+        }
+
+        long studentNumber = parseNumber(buffer, 3);
+        if (!numberValid) {
+            reject(ValidationErrors.Code.INVALID_STUDENT_NUMBER, 4, buffer, start, end,
+                    "Invalid student number format: ", fieldStart[3], fieldEnd[3]);
+            return;
+        }
+
+        int enrolmentType = enrolmentType(buffer);
+        if (enrolmentType == 'C' && length >= 9) {
+            int level = parseInt(buffer, 5);
+            if (!numberValid) {
+                reject(ValidationErrors.Code.INVALID_LEVEL, 6, buffer, start, end,
+                        "Invalid level format for course work student: ", start, end);
+                return;
+            }
+            int assignment1Mark = parseInt(buffer, 6);
+            int badMark = numberValid ? 0 : 7;
+            int assignment2Mark = parseInt(buffer, 7);
+            if (badMark == 0 && !numberValid) {
+                badMark = 8;
+            }
+            int finalExamMark = parseInt(buffer, 8);
+            if (badMark == 0 && !numberValid) {
+                badMark = 9;
+            }
+            if (badMark != 0) {
+                reject(ValidationErrors.Code.INVALID_MARK, badMark, buffer, start, end,
+                        "Invalid marks format for course work student: ", start, end);
+                return;
+            }
+            int outOfRange = !validMark(assignment1Mark) ? 7 : !validMark(assignment2Mark) ? 8
+                    : !validMark(finalExamMark) ? 9 : 0;
+            if (outOfRange != 0) {
+                reject(ValidationErrors.Code.MARK_OUT_OF_RANGE, outOfRange, buffer, start, end,
+                        "Marks out of range for course work student: ", start, end);
+                return;
+            }
+
+            rowsAccepted++;
+            handler.courseWorkRow(field(buffer, 1), field(buffer, 2), studentNumber, field(buffer, 4),
+                    level, assignment1Mark, assignment2Mark, finalExamMark);
+        } else if (enrolmentType == 'R') {
+            int proposalMark = parseInt(buffer, 4);
+            int badMark = numberValid ? 0 : 5;
+            int dissertationMark = parseInt(buffer, 5);
+            if (badMark == 0 && !numberValid) {
+                badMark = 6;
+            }
+            if (badMark != 0) {
+                reject(ValidationErrors.Code.INVALID_MARK, badMark, buffer, start, end,
+                        "Invalid marks format for research student: ", start, end);
+                return;
+            }
+            int outOfRange = !validMark(proposalMark) ? 5 : !validMark(dissertationMark) ? 6 : 0;
+            if (outOfRange != 0) {
+                reject(ValidationErrors.Code.MARK_OUT_OF_RANGE, outOfRange, buffer, start, end,
+                        "Marks out of range for research student: ", start, end);
+                return;
+            }
+
+            rowsAccepted++;
+            handler.researchRow(field(buffer, 1), field(buffer, 2), studentNumber, proposalMark, dissertationMark);
+        } else if (validation != null) {
+            reject(ValidationErrors.Code.UNKNOWN_ENROLMENT_TYPE, 1, buffer, start, end, null, 0, 0);
+        }
+    }
+
+    /**
+     * Rejects the current line: records it in the ValidationErrors if there is one,
+     * otherwise passes a message made of a prefix and part of the line to the handler.
+     *
+     * @param code      Why the line was rejected.
+     * @param column    The column number of the field in error.
+     * @param buffer    The window holding the line.
+     * @param start     The position of the first byte of the line.
+     * @param end       The position after the last byte of the line.
+     * @param prefix    The start of the message.
+     * @param textStart The position of the first byte of the line shown in the message.
+     * @param textEnd   The position after the last byte shown in the message.
+     * @throws IOException If the line cannot be quarantined.
+     */
+    private void reject(ValidationErrors.Code code, int column, ByteBuffer buffer, int start, int end,
+            String prefix, int textStart, int textEnd) throws IOException {
+        rowsRejected++;
+        rejectedByCode[code.ordinal()]++;
+        if (validation != null) {
+            validation.reject(code, rowsParsed, column, buffer, start, end);
+        } else {
+            handler.invalidRow(prefix + string(buffer, textStart, textEnd));
+        }
+    }
+
+    /**
+     * Checks whether a mark is between 0 and 100.
+     *
+     * @param mark The mark.
+     * @return true if the mark is in range, false otherwise.
+     */
+    private static boolean validMark(int mark) {
+        return mark >= 0 && mark <= 100;
+    }
+
+    /**
+     * Reads the enrolment type from the first field.
+     *
+     * @param buffer The window holding the line.
+     * @return 'C' or 'R' (for either case), or 0 for any other value.
+     */
+    private int enrolmentType(ByteBuffer buffer) {
+        int start = trimStart(buffer, fieldStart[0], fieldEnd[0]);
+        int end = trimEnd(buffer, start, fieldEnd[0]);
+        if (end - start != 1) {
+            return 0;
+        }
+        byte b = buffer.get(start);
+        if (b == 'C' || b == 'c') {
+            return 'C';
+        }
+        if (b == 'R' || b == 'r') {
+            return 'R';
+        }
+        return 0;
+    }
+
+    /**
+     * Parses a field as an int, with the same rules as {@code Integer.parseInt} on the
+     * trimmed field.
+     *
+     * @param buffer The window holding the line.
+     * @param field  The field number.
+     * @return The parsed value, numberValid tells if it was valid.
+     */
+    private int parseInt(ByteBuffer buffer, int field) {
+        long value = parseNumber(buffer, field);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            numberValid = false;
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a field as a long, with the same rules as {@code Long.parseLong} on the
+     * trimmed field. The value is accumulated as a negative number so that
+     * Long.MIN_VALUE can be parsed without overflow.
+     *
+     * @param buffer The window holding the line.
+     * @param field  The field number.
+     * @return The parsed value, numberValid tells if it was valid.
+     */
+    private long parseNumber(ByteBuffer buffer, int field) {
+        int start = trimStart(buffer, fieldStart[field], fieldEnd[field]);
+        int end = trimEnd(buffer, start, fieldEnd[field]);
+        numberValid = false;
+        if (start == end) {
+            return 0;
+        }
+
+        boolean negative = false;
+        byte first = buffer.get(start);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            start++;
+            if (start == end) {
+                return 0;
+            }
+        }
+
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limit / 10;
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9 || result < multiplyLimit) {
+                return 0;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return 0;
+            }
+            result -= digit;
+        }
+        numberValid = true;
+        return negative ? result : -result;
+    }
+
+    /**
+     * Creates a String from a trimmed field.
+     *
+     * @param buffer The window holding the line.
+     * @param field  The field number.
+     * @return The trimmed field text.
+     */
+    private String field(ByteBuffer buffer, int field) {
+        int start = trimStart(buffer, fieldStart[field], fieldEnd[field]);
+        int end = trimEnd(buffer, start, fieldEnd[field]);
+        return string(buffer, start, end);
+    }
+
+    /**
+     * Creates a String from a range of bytes of the window.
+     *
+     * @param buffer The window.
+     * @param start  The position of the first byte.
+     * @param end    The position after the last byte.
+     * @return The decoded text.
+     */
+    private String string(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Skips leading spaces and control characters, like {@code String.trim}.
+     *
+     * @param buffer The window.
+     * @param start  The position of the first byte of the field.
+     * @param end    The position after the last byte of the field.
+     * @return The position of the first byte that is not trimmed.
+     */
+    private static int trimStart(ByteBuffer buffer, int start, int end) {
+        while (start < end && (buffer.get(start) & 0xFF) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Skips trailing spaces and control characters, like {@code String.trim}.
+     *
+     * @param buffer The window.
+     * @param start  The position of the first byte of the field.
+     * @param end    The position after the last byte of the field.
+     * @return The position after the last byte that is not trimmed.
+     */
+    private static int trimEnd(ByteBuffer buffer, int start, int end) {
+        while (end > start && (buffer.get(end - 1) & 0xFF) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+}
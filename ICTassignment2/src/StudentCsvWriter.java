@@ -0,0 +1,291 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * StudentCsvWriter class writes student rows to a CSV file through one reusable buffer.
+ * <p>
+ * Rows are encoded straight into a direct ByteBuffer: numbers are converted to ASCII
+ * digits by hand and names are encoded to UTF-8 character by character, so no String,
+ * formatter or byte array is created per row. The buffer is written to a FileChannel
+ * whenever it fills up, which keeps memory use flat however many rows are written.
+ * </p>
+ * <p>
+ * The header and row layout are the same as the CSV files written by
+ * Client.outputSortedStudentsToCSV before this class existed.
+ * </p>
+ * <p>
+ * The rows, bytes and time of each file are added to the {@link StudentMetrics} when it
+ * is closed.
+ * </p>
+ * <p>
+ * Precondition: The writer is used by one thread at a time.
+ * Postconditions: After close, every row written is in the file.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class StudentCsvWriter implements AutoCloseable {
+
+    /**
+     * The header line of the CSV file.
+     */
+    public static final String HEADER = "EnrolmentType,FirstName,LastName,StudentNumber,UnitID,Level,"
+            + "Assignment1Mark,Assignment2Mark,FinalExamMark,ProposalMark,DissertationMark\n";
+
+    // Size of the output buffer, the channel is written in blocks of this size
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    // Longest row part written without checking for space: a long plus a separator
+    private static final int MAX_NUMBER_LENGTH = 21;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    // Digits of a number are produced backwards into this array
+    private final byte[] digits = new byte[MAX_NUMBER_LENGTH];
+
+    private long rowsWritten;
+    private long bytesWritten;
+
+    // When the file was opened, for the export metrics
+    private final long started = StudentMetrics.start();
+
+    /**
+     * Opens a CSV file for writing, replacing any existing file.
+     *
+     * @param fileName The name of the CSV file.
+     * @throws IOException If the file cannot be opened.
+     */
+    public StudentCsvWriter(String fileName) throws IOException {
+        this.channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Writes the header line.
+     *
+     * @throws IOException If writing fails.
+     */
+    public void writeHeader() throws IOException {
+        writeText(HEADER);
+    }
+
+    /**
+     * Writes a course work row.
+     *
+     * @param firstName       The first name of the student.
+     * @param lastName        The last name of the student.
+     * @param studentNumber   The student number.
+     * @param unitID          The unit ID.
+     * @param level           The level of the unit.
+     * @param assignment1Mark Marks obtained in the first assignment.
+     * @param assignment2Mark Marks obtained in the second assignment.
+     * @param finalExamMark   Marks obtained in the final exam.
+     * @throws IOException If writing fails.
+     */
+    public void writeCourseWork(String firstName, String lastName, long studentNumber, String unitID,
+            int level, int assignment1Mark, int assignment2Mark, int finalExamMark) throws IOException {
+        writeText("C,");
+        writeText(firstName);
+        writeByte(',');
+        writeText(lastName);
+        writeByte(',');
+        writeNumber(studentNumber);
+        writeByte(',');
+        writeText(unitID);
+        writeByte(',');
+        writeNumber(level);
+        writeByte(',');
+        writeNumber(assignment1Mark);
+        writeByte(',');
+        writeNumber(assignment2Mark);
+        writeByte(',');
+        writeNumber(finalExamMark);
+        writeText(",,\n");
+        rowsWritten++;
+    }
+
+    /**
+     * Writes a research row.
+     *
+     * @param firstName        The first name of the student.
+     * @param lastName         The last name of the student.
+     * @param studentNumber    The student number.
+     * @param proposalMark     The mark obtained in the research proposal.
+     * @param dissertationMark The mark obtained in the final dissertation.
+     * @throws IOException If writing fails.
+     */
+    public void writeResearch(String firstName, String lastName, long studentNumber,
+            int proposalMark, int dissertationMark) throws IOException {
+        writeText("R,");
+        writeText(firstName);
+        writeByte(',');
+        writeText(lastName);
+        writeByte(',');
+        writeNumber(studentNumber);
+        writeText(",,,,,,");
+        writeNumber(proposalMark);
+        writeByte(',');
+        writeNumber(dissertationMark);
+        writeByte('\n');
+        rowsWritten++;
+    }
+
+    /**
+     * Writes a Student_Course or Student_Research as a row.
+     *
+     * @param student The student to write.
+     * @throws IOException If writing fails.
+     */
+    public void writeStudent(Student student) throws IOException {
+        if (student instanceof Student_Course) {
+            Unit_Course unitCourse = ((Student_Course) student).getUnitCourse();
+            writeCourseWork(student.getFirstName(), student.getLastName(), student.getStudentNumber(),
+                    unitCourse.getUnitID(), unitCourse.getLevel(), unitCourse.getAssignment1Mark(),
+                    unitCourse.getAssignment2Mark(), unitCourse.getFinalExamMark());
+        } else if (student instanceof Student_Research) {
+            Research_Course researchCourse = ((Student_Research) student).getResearchCourse();
+            writeResearch(student.getFirstName(), student.getLastName(), student.getStudentNumber(),
+                    researchCourse.getProposalMark(), researchCourse.getFinalDissertationMark());
+        }
+    }
+
+    /**
+     * Gets the number of rows written, not counting the header.
+     *
+     * @return The number of rows written.
+     */
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Gets the number of bytes written to the file so far, including buffered bytes.
+     *
+     * @return The number of bytes written.
+     */
+    public long getBytesWritten() {
+        return bytesWritten + buffer.position();
+    }
+
+    /**
+     * Writes any buffered bytes and closes the file.
+     *
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+            StudentMetrics.exported(rowsWritten, bytesWritten, started);
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the channel.
+     *
+     * @throws IOException If writing fails.
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Makes sure the buffer has room for the given number of bytes.
+     *
+     * @param bytes The number of bytes about to be written.
+     * @throws IOException If writing fails.
+     */
+    private void ensureSpace(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes one ASCII byte.
+     *
+     * @param b The byte to write.
+     * @throws IOException If writing fails.
+     */
+    private void writeByte(char b) throws IOException {
+        ensureSpace(1);
+        buffer.put((byte) b);
+    }
+
+    /**
+     * Writes a number as ASCII digits.
+     *
+     * @param value The number to write.
+     * @throws IOException If writing fails.
+     */
+    private void writeNumber(long value) throws IOException {
+        ensureSpace(MAX_NUMBER_LENGTH);
+        if (value == 0) {
+            buffer.put((byte) '0');
+            return;
+        }
+
+        // Work with the negative value so that Long.MIN_VALUE needs no special case
+        boolean negative = value < 0;
+        long remaining = negative ? value : -value;
+        int position = digits.length;
+        while (remaining != 0) {
+            digits[--position] = (byte) ('0' - remaining % 10);
+            remaining /= 10;
+        }
+        if (negative) {
+            digits[--position] = '-';
+        }
+        buffer.put(digits, position, digits.length - position);
+    }
+
+    /**
+     * Writes text encoded as UTF-8.
+     *
+     * @param text The text to write.
+     * @throws IOException If writing fails.
+     */
+    private void writeText(String text) throws IOException {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            // Reserve room for a run of characters at once, at most 4 bytes each
+            int end = Math.min(length, i + BUFFER_SIZE / 4);
+            ensureSpace((end - i) * 4);
+            for (; i < end; i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    buffer.put((byte) c);
+                } else if (c < 0x800) {
+                    buffer.put((byte) (0xC0 | (c >> 6)));
+                    buffer.put((byte) (0x80 | (c & 0x3F)));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                    buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                    buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                    buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+                } else if (Character.isSurrogate(c)) {
+                    // An unpaired surrogate cannot be encoded, write '?' like String.getBytes
+                    buffer.put((byte) '?');
+                } else {
+                    buffer.put((byte) (0xE0 | (c >> 12)));
+                    buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                    buffer.put((byte) (0x80 | (c & 0x3F)));
+                }
+            }
+        }
+    }
+}
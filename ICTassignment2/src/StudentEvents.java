@@ -0,0 +1,169 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * StudentEvents class holds the JDK Flight Recorder events emitted by the operations of
+ * {@link Client}, so a recording shows which load, sort, analysis, lookup, removal or
+ * export a slow run spent its time in, next to the GC and allocation events of the JVM.
+ * <p>
+ * Each operation creates its event, calls {@code begin()} before the work and
+ * {@code commit()} after it, filling in the fields only if {@code shouldCommit()} is
+ * true. When no recording has the event enabled, begin and commit do nothing and the
+ * JIT compiler removes the event object, so the operations cost the same as without the
+ * events. The events are enabled by the student_operations.jfc settings file next to
+ * the sources, for example:
+ * </p>
+ * <pre>
+ * java -XX:StartFlightRecording:settings=src/student_operations.jfc,filename=run.jfr Client
+ * </pre>
+ * <p>
+ * Precondition: None, the events may be created on any thread.
+ * Postconditions: A committed event holds the duration of the operation and its fields.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public final class StudentEvents {
+
+    private static final String CATEGORY = "Student Grade System";
+
+    /**
+     * Private constructor, this class only holds the event types.
+     */
+    private StudentEvents() {
+    }
+
+    /**
+     * Loading the students of a CSV or snapshot file, or of several files at once.
+     */
+    @Name("StudentGradeSystem.FileLoad")
+    @Label("File Load")
+    @Category(CATEGORY)
+    @Description("Students loaded from a CSV file, a snapshot file or a pattern of CSV files")
+    public static final class FileLoad extends Event {
+        @Label("Path")
+        @Description("The file name, or the directory or pattern of a bulk load")
+        String path;
+
+        @Label("Format")
+        String format;
+
+        @Label("Rows")
+        @Description("The students added")
+        long rows;
+
+        @Label("Rows Rejected")
+        long rowsRejected;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Threads")
+        int threads;
+    }
+
+    /**
+     * Sorting students by student number.
+     */
+    @Name("StudentGradeSystem.Sort")
+    @Label("Sort")
+    @Category(CATEGORY)
+    @Description("Students sorted by student number, including rebuilding the indexes")
+    public static final class Sort extends Event {
+        @Label("Algorithm")
+        String algorithm;
+
+        @Label("Students")
+        int students;
+    }
+
+    /**
+     * Analyzing the overall marks of the students.
+     */
+    @Name("StudentGradeSystem.Analyze")
+    @Label("Analyze")
+    @Category(CATEGORY)
+    @Description("Grade statistics of the students or of each unit and level")
+    public static final class Analyze extends Event {
+        @Label("Analysis")
+        String analysis;
+
+        @Label("Students")
+        int students;
+
+        @Label("Kept Up To Date")
+        @Description("The statistics were kept up to date as students changed, so no pass over the students was needed")
+        boolean kept;
+    }
+
+    /**
+     * Looking up students by student number. Lookups are frequent, so the settings file
+     * only records the slow ones and without a stack trace.
+     */
+    @Name("StudentGradeSystem.Lookup")
+    @Label("Lookup")
+    @Category(CATEGORY)
+    @Description("Students found by student number")
+    @StackTrace(false)
+    public static final class Lookup extends Event {
+        @Label("Student Number")
+        long studentNumber;
+
+        @Label("Students Found")
+        int found;
+
+        @Label("Indexed")
+        @Description("The students were found through the index rather than by a scan")
+        boolean indexed;
+    }
+
+    /**
+     * Removing students.
+     */
+    @Name("StudentGradeSystem.Removal")
+    @Label("Removal")
+    @Category(CATEGORY)
+    @Description("Students removed by student number or as a group, including journaling the removal")
+    public static final class Removal extends Event {
+        @Label("Student Number")
+        @Description("The student number removed, or 0 for a group of students")
+        long studentNumber;
+
+        @Label("Students Removed")
+        int removed;
+
+        @Label("Compacted")
+        @Description("The remaining students were moved up in order and the indexes rebuilt")
+        boolean compacted;
+    }
+
+    /**
+     * Writing students to a CSV file.
+     */
+    @Name("StudentGradeSystem.Export")
+    @Label("CSV Export")
+    @Category(CATEGORY)
+    @Description("Students or a grade summary written to a CSV file")
+    public static final class Export extends Event {
+        @Label("Path")
+        String path;
+
+        @Label("Export")
+        @Description("What was written: sorted students, a student number range or a grade summary")
+        String export;
+
+        @Label("Rows")
+        long rows;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+}
@@ -0,0 +1,330 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StudentFileWatcher class keeps the menu's students up to date with CSV files that are
+ * appended to while the program runs, without loading the files again.
+ * <p>
+ * The watcher follows one file, or every .csv file directly in a directory. For each
+ * file it remembers the byte offset up to which rows have been added, so when a
+ * {@link WatchService} reports that the file changed, only the rows after the offset
+ * are parsed and added to the students through the {@link ConcurrentStudentStore}. Rows
+ * are added once their line break has been written; a last line without one is added
+ * once the file has stopped growing for a check. The files are also checked every
+ * {@value #RESCAN_MILLIS} ms in case a change was not reported.
+ * </p>
+ * <p>
+ * A file counts as rewritten, rather than appended to, when it is shorter than the
+ * offset, when it is a different file (another file key, such as an inode, after it was
+ * replaced), or when the bytes just before the offset have changed. The students added
+ * from a rewritten file are then removed and the whole file is added again, in one write.
+ * A deleted file keeps its students until a file of that name appears again. The students
+ * added from each file are remembered only by their {@link StudentKeys}, 16 bytes each,
+ * rather than by a copy of the rows.
+ * </p>
+ * <p>
+ * The new bytes are read with positional reads by one {@link StudentCsvParser}, which
+ * keeps its read buffer from check to check. Rejected rows, including marks outside 0 to
+ * 100, are skipped and counted in the message about the check instead of each printing a
+ * line.
+ * </p>
+ * <p>
+ * Precondition: Rows are only appended to the end of a file as whole lines, any other
+ * change rewrites the file.
+ * Postconditions: After each check, the students added from a file are the rows of the
+ * file as it is, in file order.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class StudentFileWatcher implements AutoCloseable {
+
+    /**
+     * Time between checks of every file when no change is reported.
+     */
+    public static final long RESCAN_MILLIS = 1000;
+
+    // Bytes before the offset compared to tell an append from a rewrite
+    private static final int FINGERPRINT_SIZE = 64;
+
+    // Bytes read at a time while looking for the last line break
+    private static final int SCAN_SIZE = 8192;
+
+    // Error positions kept by the parser, only the counts are reported
+    private static final int ERROR_CAPACITY = 1;
+
+    private final Path directory;
+    private final Path file;
+    private final WatchService watchService;
+
+    // The watched files by path, and the thread checking them
+    private final TreeMap<Path, WatchedFile> files = new TreeMap<>();
+    private Thread thread;
+
+    // The parser of every check, only used while holding the lock of the watcher
+    private final StudentRowCollector collector = new StudentRowCollector();
+    private final StudentCsvParser parser = new StudentCsvParser(collector,
+            new ValidationErrors(ValidationErrors.Mode.SKIP, ERROR_CAPACITY));
+
+    /**
+     * What has been added from one file.
+     */
+    private static final class WatchedFile {
+        private Object fileKey;
+        private long offset;
+        private long lastSize = -1;
+        private byte[] fingerprint = new byte[0];
+        private StudentKeys students = new StudentKeys();
+    }
+
+    /**
+     * Constructs a watcher for a CSV file or a directory of CSV files. Nothing is added
+     * until the watcher is started.
+     *
+     * @param path The file or directory to watch.
+     * @throws NoSuchFileException If there is no such file or directory.
+     * @throws IOException         If the directory cannot be watched.
+     */
+    public StudentFileWatcher(String path) throws IOException {
+        Path watched = Paths.get(path).toAbsolutePath().normalize();
+        if (!Files.exists(watched)) {
+            throw new NoSuchFileException(path);
+        }
+        if (Files.isDirectory(watched)) {
+            this.directory = watched;
+            this.file = null;
+        } else {
+            this.directory = watched.getParent();
+            this.file = watched;
+        }
+        this.watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    /**
+     * Adds the current rows of the files and starts watching them on a background thread.
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        checkFiles();
+        thread = new Thread(this::watch, "student-file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching the files. The students already added stay.
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // Closing a watch service does not fail in practice, and there is nothing to undo
+        }
+    }
+
+    /**
+     * Checks every watched file, and in directory mode looks for new .csv files.
+     */
+    public synchronized void checkFiles() {
+        if (file != null) {
+            check(file);
+            return;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.csv")) {
+            for (Path path : stream) {
+                files.computeIfAbsent(path, p -> new WatchedFile());
+            }
+        } catch (IOException e) {
+            System.out.println("Error while listing the directory: " + directory);
+        }
+        for (Path path : new ArrayList<>(files.keySet())) {
+            check(path);
+        }
+    }
+
+    /**
+     * Waits for changes to the directory and checks the files that changed, until the
+     * watcher is closed.
+     */
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.poll(RESCAN_MILLIS, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    checkFiles();
+                    continue;
+                }
+                boolean overflow = false;
+                List<Path> changed = new ArrayList<>();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        overflow = true;
+                    } else {
+                        changed.add(directory.resolve((Path) event.context()));
+                    }
+                }
+                key.reset();
+                if (overflow) {
+                    checkFiles();
+                } else {
+                    for (Path path : changed) {
+                        if (isWatched(path)) {
+                            synchronized (this) {
+                                check(path);
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Closed, stop watching
+        }
+    }
+
+    /**
+     * Checks whether a path of the directory is one of the watched files.
+     *
+     * @param path The path.
+     * @return true if the path is watched, false otherwise.
+     */
+    private boolean isWatched(Path path) {
+        if (file != null) {
+            return path.equals(file);
+        }
+        return path.getFileName().toString().endsWith(".csv");
+    }
+
+    /**
+     * Adds the rows appended to a file since the last check, or adds the whole file again
+     * if it was rewritten.
+     *
+     * @param path The path of the file.
+     */
+    private void check(Path path) {
+        WatchedFile watched = files.computeIfAbsent(path, p -> new WatchedFile());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Object fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+            long size = channel.size();
+            boolean rewritten = watched.offset > 0 && (size < watched.offset
+                    || !Objects.equals(fileKey, watched.fileKey)
+                    || !Arrays.equals(read(channel, watched.offset - watched.fingerprint.length, watched.fingerprint.length),
+                            watched.fingerprint));
+
+            // Add whole lines, and a last line without a line break once the file stops growing
+            long start = rewritten ? 0 : watched.offset;
+            long end = endOfLastLine(channel, start, size);
+            if (end == start && size > start && size == watched.lastSize) {
+                end = size;
+            }
+            watched.lastSize = size;
+            if (end == start && !rewritten) {
+                return;
+            }
+
+            long rejectedBefore = parser.getRowsRejected();
+            ArrayList<Student> added;
+            try {
+                parser.parse(channel, start, end);
+            } finally {
+                added = collector.takeStudents();
+            }
+            long rejected = parser.getRowsRejected() - rejectedBefore;
+            StudentKeys removed = rewritten ? watched.students : new StudentKeys();
+            Client.replaceStudents(removed, added);
+
+            String rejectedRows = rejected == 0 ? "" : " (" + rejected + " rows rejected)";
+            if (rewritten) {
+                watched.students = StudentKeys.of(added);
+                System.out.println("Reloaded " + path.getFileName() + " after it was rewritten: removed "
+                        + removed.size() + " and added " + added.size() + " students" + rejectedRows + ".");
+            } else {
+                for (Student student : added) {
+                    watched.students.add(student);
+                }
+                if (!added.isEmpty() || rejected > 0) {
+                    System.out.println("Added " + added.size() + " students from " + path.getFileName() + rejectedRows + ".");
+                }
+            }
+            watched.fileKey = fileKey;
+            watched.offset = end;
+            watched.fingerprint = read(channel, Math.max(0, end - FINGERPRINT_SIZE), (int) Math.min(end, FINGERPRINT_SIZE));
+        } catch (NoSuchFileException e) {
+            // Deleted, its students stay until a file of that name appears again
+            watched.lastSize = -1;
+        } catch (IOException e) {
+            System.out.println("Error while reading the file: " + path);
+        }
+    }
+
+    /**
+     * Finds the end of the last complete line between two positions of a file.
+     *
+     * @param channel The open file.
+     * @param start   The position to search from.
+     * @param size    The size of the file.
+     * @return The position just after the last line break, or start if there is none.
+     * @throws IOException If the file cannot be read.
+     */
+    private static long endOfLastLine(FileChannel channel, long start, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_SIZE);
+        long end = size;
+        while (end > start) {
+            int length = (int) Math.min(SCAN_SIZE, end - start);
+            buffer.clear().limit(length);
+            long position = end - length;
+            while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+                // Read the whole block
+            }
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                byte b = buffer.get(i);
+                if (b == '\n' || b == '\r') {
+                    return position + i + 1;
+                }
+            }
+            end = position;
+        }
+        return start;
+    }
+
+    /**
+     * Reads bytes of a file.
+     *
+     * @param channel  The open file.
+     * @param position The position of the first byte.
+     * @param length   The number of bytes.
+     * @return The bytes, fewer if the file ends first.
+     * @throws IOException If the file cannot be read.
+     */
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+            // Read until the buffer is full or the file ends
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+}
@@ -0,0 +1,1053 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * StudentJournal class is an append-only write-ahead log of the changes made to the
+ * students, so that adds and removals survive the program stopping before the students
+ * are saved.
+ * <p>
+ * Each change is appended as binary records in memory while the change is being made,
+ * ended by a commit record from {@link #commitChange()}. {@link #sync()} then writes the
+ * committed records to the journal file and forces them to disk with
+ * {@link FileChannel#force}. Recovery only applies the records of a change once its
+ * commit record has been read, so a change is recovered whole or not at all. Syncs are
+ * grouped: while one thread is forcing the file, records from other threads gather in
+ * memory, and the next thread to sync writes and forces all of them at once, so many
+ * changes share one force.
+ * </p>
+ * <p>
+ * A journal lives in a directory of numbered generations. Generation 0 starts from a base
+ * CSV file (or from no students); every later generation starts from a snapshot file
+ * (see {@link StudentSnapshot}). Compaction starts a new journal file, saves the students
+ * as they were at that point to the next snapshot, and deletes the older files, so the
+ * time to recover depends on the size of the students and not on how long the program
+ * has been running. Recovery loads the newest complete snapshot, or the base CSV file,
+ * and replays every journal file from that generation on, stopping at a record torn by
+ * a crash.
+ * </p>
+ * <p>
+ * File layout (numbers big-endian, strings as an int length, -1 for null, and UTF-8
+ * bytes):
+ * </p>
+ * <pre>
+ * header: magic "STUDJRNL", version (int), generation (long), base CSV file (string),
+ *         CRC32C of the header (int)
+ * record: length of the body (int), body, CRC32C of the body (int)
+ * body:   ADD student | REMOVE row (int) student | REMOVE_ROWS count (int) rows (int...)
+ *         | SORT | COMMIT
+ * student: enrolment type (string), kind (byte), student number (long), first name,
+ *          last name, then for course work: has unit (byte), unit ID, level, marks
+ *          (3 ints); for research: has course (byte), marks (2 ints)
+ * </pre>
+ * <p>
+ * Precondition: Records are appended in the order the changes are made, which holds when
+ * they are appended during the writes of a {@link ConcurrentStudentStore}.
+ * Postconditions: After sync returns, every change committed before it was called is
+ * replayed by recovery.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class StudentJournal implements AutoCloseable {
+
+    /**
+     * Receives the base students and the replayed changes during recovery.
+     */
+    public interface RecordHandler {
+
+        /**
+         * Called for a student added at the end of the list.
+         *
+         * @param student The added student.
+         */
+        void added(Student student);
+
+        /**
+         * Called for a student removed from a row: by moving the later students up in
+         * order if the students were sorted, or otherwise by moving the last student into
+         * the row. The students are the same as when it was logged, so the removal
+         * is made the same way.
+         *
+         * @param row     The row of the removed student.
+         * @param student The removed student as it was logged.
+         */
+        void removed(int row, Student student);
+
+        /**
+         * Called for students removed by moving the remaining students up in order.
+         *
+         * @param rows The rows of the removed students, in ascending order.
+         */
+        void removedRows(int[] rows);
+
+        /**
+         * Called when the students were sorted by student number.
+         */
+        void sorted();
+    }
+
+    /**
+     * Journal size above which periodic compaction starts a new generation.
+     */
+    public static final long DEFAULT_COMPACT_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * Time between checks of the journal size by periodic compaction.
+     */
+    public static final long COMPACT_CHECK_MILLIS = 10_000;
+
+    private static final byte[] MAGIC = "STUDJRNL".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+
+    // Record types
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final byte REMOVE_ROWS = 3;
+    private static final byte SORT = 4;
+    private static final byte COMMIT = 5;
+
+    // Kinds of student
+    private static final byte PLAIN = 0;
+    private static final byte COURSE_WORK = 1;
+    private static final byte RESEARCH = 2;
+
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String JOURNAL_SUFFIX = ".wal";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final String baseCsv;
+    private final boolean recovered;
+
+    // The journal file of the current generation, only written by the committing thread
+    private volatile long generation;
+    private FileChannel channel;
+
+    // Records appended but not yet written, and the bytes appended since the journal was opened
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private final DataOutputStream bodyOut = new DataOutputStream(body);
+    private final CRC32C checksum = new CRC32C();
+    private long appended;
+    private long generationStart;
+
+    // End of the last committed change, in the pending records and in the bytes appended
+    private int committedPending;
+    private long committed;
+
+    // Bytes known to be on disk, and whether a thread is writing and forcing the file
+    private final Object commitLock = new Object();
+    private long durable;
+    private boolean committing;
+    private IOException failure;
+
+    // Compaction, one at a time, on a background thread once started
+    private final Object compactLock = new Object();
+    private ScheduledExecutorService compactor;
+
+    /**
+     * Constructs a journal appending to an open journal file.
+     *
+     * @param directory  The journal directory.
+     * @param baseCsv    The base CSV file of generation 0, or null.
+     * @param generation The generation of the journal file.
+     * @param channel    The journal file, positioned at its end.
+     * @param recovered  true if an existing journal was recovered.
+     * @throws IOException If the size of the file cannot be read.
+     */
+    private StudentJournal(Path directory, String baseCsv, long generation, FileChannel channel, boolean recovered)
+            throws IOException {
+        this.directory = directory;
+        this.baseCsv = baseCsv;
+        this.generation = generation;
+        this.channel = channel;
+        this.recovered = recovered;
+        this.generationStart = -channel.position();
+    }
+
+    /**
+     * Opens the journal in a directory, recovering the students it holds, or starts a new
+     * journal over a base CSV file if the directory has none.
+     * <p>
+     * The students of the newest snapshot, or of the base CSV file, are passed to the
+     * handler as added students, followed by every change replayed from the journal
+     * files. A record torn by a crash ends the replay and is cut off the file.
+     * </p>
+     *
+     * @param directory The journal directory, created if it does not exist.
+     * @param baseCsv   The CSV file to start a new journal from, or null to start with no
+     *                  students. Ignored when the directory already holds a journal.
+     * @param handler   Receives the recovered students and changes.
+     * @return The journal, ready to append to.
+     * @throws IOException If the journal cannot be read or created.
+     */
+    public static StudentJournal open(String directory, String baseCsv, RecordHandler handler) throws IOException {
+        Path path = Paths.get(directory);
+        Files.createDirectories(path);
+        TreeSet<Long> snapshots = new TreeSet<>();
+        TreeSet<Long> journals = new TreeSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                long snapshot = generationOf(name, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+                long journal = generationOf(name, JOURNAL_PREFIX, JOURNAL_SUFFIX);
+                if (name.endsWith(TEMPORARY_SUFFIX)) {
+                    // A snapshot a crash stopped before it was complete
+                    Files.delete(file);
+                } else if (snapshot >= 0) {
+                    snapshots.add(snapshot);
+                } else if (journal >= 0) {
+                    journals.add(journal);
+                }
+            }
+        }
+
+        if (snapshots.isEmpty() && journals.isEmpty()) {
+            // A new journal over the base CSV file
+            loadCsv(baseCsv, handler);
+            FileChannel channel = createJournalFile(path, 0, baseCsv);
+            return new StudentJournal(path, baseCsv, 0, channel, false);
+        }
+
+        // Start from the newest snapshot, or from the base CSV file of generation 0
+        long first = snapshots.isEmpty() ? 0 : snapshots.last();
+        String base = null;
+        if (!journals.isEmpty()) {
+            base = readHeader(path.resolve(journalName(journals.last()))).baseCsv;
+        }
+        if (first > 0) {
+            StudentSnapshot snapshot = StudentSnapshot.open(path.resolve(snapshotName(first)).toString());
+            for (int row = 0; row < snapshot.size(); row++) {
+                handler.added(snapshot.getStudent(row));
+            }
+        } else {
+            loadCsv(base, handler);
+        }
+
+        long last = first;
+        long validEnd = -1;
+        for (long journal : journals.tailSet(first)) {
+            validEnd = replay(path.resolve(journalName(journal)), handler);
+            last = journal;
+        }
+
+        deleteOlderThan(path, first);
+
+        FileChannel channel;
+        if (validEnd < 0) {
+            channel = createJournalFile(path, last, base);
+        } else {
+            channel = FileChannel.open(path.resolve(journalName(last)), StandardOpenOption.WRITE);
+            channel.truncate(validEnd);
+            channel.position(validEnd);
+        }
+        return new StudentJournal(path, base, last, channel, true);
+    }
+
+    /**
+     * Checks whether an existing journal was recovered when it was opened.
+     *
+     * @return true if the journal was recovered, false if it was started.
+     */
+    public boolean isRecovered() {
+        return recovered;
+    }
+
+    /**
+     * Gets the current generation.
+     *
+     * @return The number of the current journal file.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Gets the number of bytes in the current journal file, including records not yet
+     * synced.
+     *
+     * @return The size of the journal.
+     */
+    public synchronized long size() {
+        return appended - generationStart;
+    }
+
+    /**
+     * Appends a record of a student added at the end of the list.
+     *
+     * @param student The added student.
+     */
+    public synchronized void added(Student student) {
+        try {
+            bodyOut.writeByte(ADD);
+            writeStudent(bodyOut, student);
+        } catch (IOException e) {
+            // Writing to a ByteArrayOutputStream does not fail
+            throw new UncheckedIOException(e);
+        }
+        appendBody();
+    }
+
+    /**
+     * Appends a record of a student removed from a row, in order if the students were
+     * sorted or by moving the last student into the row otherwise.
+     *
+     * @param row     The row of the removed student.
+     * @param student The removed student.
+     */
+    public synchronized void removed(int row, Student student) {
+        try {
+            bodyOut.writeByte(REMOVE);
+            bodyOut.writeInt(row);
+            writeStudent(bodyOut, student);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        appendBody();
+    }
+
+    /**
+     * Appends a record of students removed by moving the remaining students up in order.
+     *
+     * @param rows The rows of the removed students, in ascending order.
+     */
+    public synchronized void removedRows(int[] rows) {
+        try {
+            bodyOut.writeByte(REMOVE_ROWS);
+            bodyOut.writeInt(rows.length);
+            for (int row : rows) {
+                bodyOut.writeInt(row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        appendBody();
+    }
+
+    /**
+     * Appends a record of the students being sorted by student number.
+     */
+    public synchronized void sorted() {
+        body.write(SORT);
+        appendBody();
+    }
+
+    /**
+     * Ends the current change with a commit record, so recovery applies its records. Does
+     * nothing if no record was appended since the last commit.
+     */
+    public synchronized void commitChange() {
+        if (pending.size() == committedPending) {
+            return;
+        }
+        body.write(COMMIT);
+        appendBody();
+        committedPending = pending.size();
+        committed = appended;
+    }
+
+    /**
+     * Waits until every change committed before the call is on disk, writing and forcing
+     * the journal file unless another thread is already doing so for these changes.
+     *
+     * @throws IOException If the journal file cannot be written.
+     */
+    public void sync() throws IOException {
+        long target;
+        synchronized (this) {
+            target = committed;
+        }
+        synchronized (commitLock) {
+            try {
+                // Wait for the thread forcing the file, which may take our records with it
+                while (committing && durable < target) {
+                    commitLock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the journal");
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            if (durable >= target) {
+                return;
+            }
+            committing = true;
+        }
+        commit();
+    }
+
+    /**
+     * Starts a new generation: saves the students of a store to a snapshot and deletes the
+     * older journal and snapshot files. Changes made while the snapshot is written go to
+     * the new journal file.
+     * <p>
+     * The students are copied and the journal file switched under the read lock of the
+     * store, since no record is appended while it is held. Lookups carry on meanwhile,
+     * but a write waits, and with the fair lock so does every read queued behind that
+     * write. The copy is a copy of the columns, about 20 ms per million students, plus
+     * forcing the old journal file and the header of the new one. Writing the snapshot,
+     * the slow part, happens after the lock is released.
+     * </p>
+     * <p>
+     * If a student cannot be saved in a snapshot, the journal is not compacted and keeps
+     * growing, so no student is lost.
+     * </p>
+     *
+     * @param store The store whose students this journal records.
+     * @throws IOException If a student cannot be saved in a snapshot, or the snapshot or
+     *                     the new journal file cannot be written.
+     */
+    public void compact(ConcurrentStudentStore store) throws IOException {
+        synchronized (compactLock) {
+            // Copy the students and switch files together, so the copy is the state the new file starts from
+            StudentStore students;
+            try {
+                students = store.query(list -> {
+                    StudentStore copy = StudentStore.fromStudents(list);
+                    rotate();
+                    return copy;
+                });
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Cannot compact the journal: " + e.getMessage(), e);
+            }
+            long snapshotGeneration = generation;
+
+            Path snapshot = directory.resolve(snapshotName(snapshotGeneration));
+            Path temporary = directory.resolve(snapshotName(snapshotGeneration) + TEMPORARY_SUFFIX);
+            StudentSnapshot.write(students, temporary.toString());
+            try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                file.force(true);
+            }
+            Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE);
+            forceDirectory();
+            deleteOlderThan(directory, snapshotGeneration);
+        }
+    }
+
+    /**
+     * Checks the size of the journal periodically on a background thread, and compacts it
+     * once it is larger than the given size.
+     *
+     * @param store        The store whose students this journal records.
+     * @param compactBytes The journal size that starts a compaction.
+     */
+    public synchronized void startCompaction(ConcurrentStudentStore store, long compactBytes) {
+        if (compactor != null) {
+            return;
+        }
+        compactor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "student-journal-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(() -> {
+            if (size() > compactBytes) {
+                try {
+                    compact(store);
+                } catch (IOException e) {
+                    System.out.println("Error while compacting the journal: " + e.getMessage());
+                }
+            }
+        }, COMPACT_CHECK_MILLIS, COMPACT_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops compaction, syncs the appended records and closes the journal file.
+     *
+     * @throws IOException If the records cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (compactor != null) {
+                // Not interrupted, which would close the journal file under a running compaction
+                compactor.shutdown();
+            }
+        }
+        synchronized (compactLock) {
+            try {
+                sync();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Checks whether two students would be logged as the same record.
+     *
+     * @param first  A student.
+     * @param second Another student.
+     * @return true if every field of the students is equal, false otherwise.
+     */
+    public static boolean sameStudent(Student first, Student second) {
+        return Arrays.equals(encode(first), encode(second));
+    }
+
+    /**
+     * Hashes a student as it would be logged, with 64-bit FNV-1a, so students that are
+     * the same by {@link #sameStudent(Student, Student)} have the same hash.
+     *
+     * @param student The student.
+     * @return The hash of every field of the student.
+     */
+    public static long valueHash(Student student) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : encode(student)) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Frames the record body written to bodyOut and adds it to the pending records.
+     */
+    private void appendBody() {
+        byte[] bytes = body.toByteArray();
+        body.reset();
+        checksum.reset();
+        checksum.update(bytes);
+        writeInt(pending, bytes.length);
+        pending.write(bytes, 0, bytes.length);
+        writeInt(pending, (int) checksum.getValue());
+        appended += bytes.length + 2 * Integer.BYTES;
+    }
+
+    /**
+     * Writes the pending records to the journal file and forces it, as the committing
+     * thread, then lets the waiting threads go.
+     *
+     * @throws IOException If the journal file cannot be written.
+     */
+    private void commit() throws IOException {
+        long end = -1;
+        try {
+            end = writePending();
+        } catch (IOException e) {
+            // The records are lost from memory, so every later sync must fail too
+            synchronized (commitLock) {
+                failure = e;
+            }
+            throw e;
+        } finally {
+            synchronized (commitLock) {
+                if (end >= 0) {
+                    durable = end;
+                }
+                committing = false;
+                commitLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes the pending records of committed changes to the journal file and forces it
+     * to disk. Records of a change still being made stay pending.
+     *
+     * @return The number of bytes appended that are now on disk.
+     * @throws IOException If the journal file cannot be written.
+     */
+    private long writePending() throws IOException {
+        byte[] bytes;
+        long end;
+        synchronized (this) {
+            byte[] all = pending.toByteArray();
+            bytes = Arrays.copyOf(all, committedPending);
+            pending.reset();
+            pending.write(all, committedPending, all.length - committedPending);
+            committedPending = 0;
+            end = committed;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        return end;
+    }
+
+    /**
+     * Forces the records of the current journal file to disk and switches to the journal
+     * file of the next generation. Called during a write of the store, so no record is
+     * appended meanwhile.
+     *
+     * @throws IOException If a journal file cannot be written.
+     */
+    private void rotate() throws IOException {
+        synchronized (commitLock) {
+            try {
+                while (committing) {
+                    commitLock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the journal");
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            committing = true;
+        }
+        long end = -1;
+        try {
+            end = writePending();
+            FileChannel next = createJournalFile(directory, generation + 1, baseCsv);
+            channel.close();
+            channel = next;
+            generation++;
+            synchronized (this) {
+                generationStart = appended - next.position();
+            }
+        } finally {
+            synchronized (commitLock) {
+                if (end >= 0) {
+                    durable = end;
+                }
+                committing = false;
+                commitLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Creates the journal file of a generation and writes and forces its header.
+     *
+     * @param directory  The journal directory.
+     * @param generation The generation.
+     * @param baseCsv    The base CSV file of generation 0, or null.
+     * @return The journal file, positioned after the header.
+     * @throws IOException If the file cannot be written.
+     */
+    private static FileChannel createJournalFile(Path directory, long generation, String baseCsv) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(header);
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(generation);
+        writeString(out, baseCsv);
+        CRC32C headerChecksum = new CRC32C();
+        headerChecksum.update(header.toByteArray());
+        out.writeInt((int) headerChecksum.getValue());
+
+        FileChannel channel = FileChannel.open(directory.resolve(journalName(generation)), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        ByteBuffer buffer = ByteBuffer.wrap(header.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(true);
+        return channel;
+    }
+
+    /**
+     * The header of a journal file.
+     */
+    private static final class Header {
+        private final String baseCsv;
+        private final long size;
+
+        /**
+         * Constructs a header.
+         *
+         * @param baseCsv The base CSV file, or null.
+         * @param size    The number of bytes of the header.
+         */
+        Header(String baseCsv, long size) {
+            this.baseCsv = baseCsv;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Reads and checks the header of a journal file.
+     *
+     * @param file The journal file.
+     * @return The header.
+     * @throws IOException If the file cannot be read or is not a journal file.
+     */
+    private static Header readHeader(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return readHeader(in, file);
+        }
+    }
+
+    /**
+     * Reads and checks the header at the start of a journal file.
+     *
+     * @param in   The start of the file.
+     * @param file The journal file, for error messages.
+     * @return The header.
+     * @throws IOException If the file cannot be read or is not a journal file.
+     */
+    private static Header readHeader(DataInputStream in, Path file) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        int version = in.readInt();
+        if (!Arrays.equals(magic, MAGIC) || version != VERSION) {
+            throw new IOException("Not a student journal file: " + file);
+        }
+        long generation = in.readLong();
+        String baseCsv = readString(in);
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(header);
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(generation);
+        writeString(out, baseCsv);
+        CRC32C headerChecksum = new CRC32C();
+        headerChecksum.update(header.toByteArray());
+        if (in.readInt() != (int) headerChecksum.getValue()) {
+            throw new IOException("Corrupt student journal header: " + file);
+        }
+        return new Header(baseCsv, header.size() + Integer.BYTES);
+    }
+
+    /**
+     * Replays the committed changes of a journal file, up to its end or to the first torn
+     * record.
+     *
+     * @param file    The journal file.
+     * @param handler Receives the changes.
+     * @return The position after the last commit record.
+     * @throws IOException If the file cannot be read or is not a journal file.
+     */
+    private static long replay(Path file, RecordHandler handler) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            Header header = readHeader(in, file);
+            long position = header.size;
+            long committedEnd = position;
+            long fileSize = Files.size(file);
+            CRC32C recordChecksum = new CRC32C();
+            ArrayList<byte[]> change = new ArrayList<>();
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return committedEnd;
+                }
+                // A length running past the end of the file is a record torn by a crash
+                if (length <= 0 || position + 2L * Integer.BYTES + length > fileSize) {
+                    return committedEnd;
+                }
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                recordChecksum.reset();
+                recordChecksum.update(bytes);
+                if (in.readInt() != (int) recordChecksum.getValue()) {
+                    return committedEnd;
+                }
+                position += 2L * Integer.BYTES + length;
+
+                if (bytes[0] == COMMIT) {
+                    for (byte[] record : change) {
+                        apply(record, handler);
+                    }
+                    change.clear();
+                    committedEnd = position;
+                } else {
+                    change.add(bytes);
+                }
+            }
+        }
+    }
+
+    /**
+     * Passes one record to the handler.
+     *
+     * @param bytes   The body of the record.
+     * @param handler Receives the change.
+     * @throws IOException If the record is not valid.
+     */
+    private static void apply(byte[] bytes, RecordHandler handler) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        byte type = in.readByte();
+        switch (type) {
+            case ADD:
+                handler.added(readStudent(in));
+                break;
+            case REMOVE:
+                int row = in.readInt();
+                handler.removed(row, readStudent(in));
+                break;
+            case REMOVE_ROWS:
+                int[] rows = new int[in.readInt()];
+                for (int i = 0; i < rows.length; i++) {
+                    rows[i] = in.readInt();
+                }
+                handler.removedRows(rows);
+                break;
+            case SORT:
+                handler.sorted();
+                break;
+            default:
+                throw new IOException("Unknown journal record type: " + type);
+        }
+    }
+
+    /**
+     * Passes the students of a CSV file to the handler as added students. Rejected rows
+     * are skipped quietly, as they were reported when the file was first loaded.
+     *
+     * @param fileName The CSV file, or null for no students.
+     * @param handler  Receives the students.
+     * @throws IOException If the file cannot be read.
+     */
+    private static void loadCsv(String fileName, RecordHandler handler) throws IOException {
+        if (fileName == null) {
+            return;
+        }
+        StudentRowCollector collector = new StudentRowCollector();
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            new StudentCsvParser(collector, new ValidationErrors(ValidationErrors.Mode.SKIP, 1)).parse(channel);
+        } catch (NoSuchFileException e) {
+            System.out.println("File not Found: " + fileName);
+        }
+        for (Student student : collector.getStudents()) {
+            handler.added(student);
+        }
+    }
+
+    /**
+     * Encodes a student as it is logged.
+     *
+     * @param student The student.
+     * @return The bytes of the student.
+     */
+    private static byte[] encode(Student student) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            writeStudent(new DataOutputStream(bytes), student);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes a student.
+     *
+     * @param out     The output.
+     * @param student The student.
+     * @throws IOException If writing fails.
+     */
+    private static void writeStudent(DataOutputStream out, Student student) throws IOException {
+        writeString(out, student.getEnrolmentType());
+        if (student instanceof Student_Course) {
+            out.writeByte(COURSE_WORK);
+        } else if (student instanceof Student_Research) {
+            out.writeByte(RESEARCH);
+        } else {
+            out.writeByte(PLAIN);
+        }
+        out.writeLong(student.getStudentNumber());
+        writeString(out, student.getFirstName());
+        writeString(out, student.getLastName());
+
+        if (student instanceof Student_Course) {
+            Unit_Course unit = ((Student_Course) student).getUnitCourse();
+            out.writeBoolean(unit != null);
+            if (unit != null) {
+                writeString(out, unit.getUnitID());
+                out.writeInt(unit.getLevel());
+                out.writeInt(unit.getAssignment1Mark());
+                out.writeInt(unit.getAssignment2Mark());
+                out.writeInt(unit.getFinalExamMark());
+            }
+        } else if (student instanceof Student_Research) {
+            Research_Course research = ((Student_Research) student).getResearchCourse();
+            out.writeBoolean(research != null);
+            if (research != null) {
+                out.writeInt(research.getProposalMark());
+                out.writeInt(research.getFinalDissertationMark());
+            }
+        }
+    }
+
+    /**
+     * Reads a student.
+     *
+     * @param in The input.
+     * @return The student.
+     * @throws IOException If reading fails.
+     */
+    private static Student readStudent(DataInputStream in) throws IOException {
+        String enrolmentType = readString(in);
+        byte kind = in.readByte();
+        long studentNumber = in.readLong();
+        String firstName = readString(in);
+        String lastName = readString(in);
+
+        if (kind == COURSE_WORK) {
+            Student_Course student = new Student_Course(enrolmentType, firstName, lastName, studentNumber);
+            if (in.readBoolean()) {
+                String unitID = readString(in);
+                int level = in.readInt();
+                int assignment1Mark = in.readInt();
+                int assignment2Mark = in.readInt();
+                int finalExamMark = in.readInt();
+                student.setUnitCourse(new Unit_Course(unitID, level, assignment1Mark, assignment2Mark, finalExamMark));
+            }
+            return student;
+        } else if (kind == RESEARCH) {
+            Student_Research student = new Student_Research(enrolmentType, firstName, lastName, studentNumber);
+            if (in.readBoolean()) {
+                int proposalMark = in.readInt();
+                int dissertationMark = in.readInt();
+                student.setResearchCourse(new Research_Course(proposalMark, dissertationMark));
+            }
+            return student;
+        }
+        return new Student(enrolmentType, firstName, lastName, studentNumber);
+    }
+
+    /**
+     * Writes a string as its length and UTF-8 bytes.
+     *
+     * @param out    The output.
+     * @param string The string, or null.
+     * @throws IOException If writing fails.
+     */
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        if (string == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by writeString.
+     *
+     * @param in The input.
+     * @return The string, or null.
+     * @throws IOException If reading fails.
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes an int in big-endian order.
+     *
+     * @param out   The output.
+     * @param value The value.
+     */
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    /**
+     * Deletes the journal and snapshot files of the generations before the given one,
+     * which recovery no longer needs.
+     *
+     * @param directory  The journal directory.
+     * @param generation The oldest generation to keep.
+     * @throws IOException If the directory cannot be listed or a file deleted.
+     */
+    private static void deleteOlderThan(Path directory, long generation) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                long snapshot = generationOf(name, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+                long journal = generationOf(name, JOURNAL_PREFIX, JOURNAL_SUFFIX);
+                if ((snapshot >= 0 && snapshot < generation) || (journal >= 0 && journal < generation)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Forces the directory entries to disk, so a renamed snapshot survives a crash. Not
+     * every platform can open a directory, in which case the rename is left to the file
+     * system.
+     */
+    private void forceDirectory() {
+        try (FileChannel file = FileChannel.open(directory, StandardOpenOption.READ)) {
+            file.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened on this platform
+        }
+    }
+
+    /**
+     * Gets the generation from a file name.
+     *
+     * @param name   The file name.
+     * @param prefix The prefix of the name.
+     * @param suffix The suffix of the name.
+     * @return The generation, or -1 if the name is not of that form.
+     */
+    private static long generationOf(String name, String prefix, String suffix) {
+        if (!name.startsWith(prefix) || !name.endsWith(suffix) || name.length() <= prefix.length() + suffix.length()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Gets the name of the journal file of a generation.
+     *
+     * @param generation The generation.
+     * @return The file name.
+     */
+    private static String journalName(long generation) {
+        return JOURNAL_PREFIX + generation + JOURNAL_SUFFIX;
+    }
+
+    /**
+     * Gets the name of the snapshot file of a generation.
+     *
+     * @param generation The generation.
+     * @return The file name.
+     */
+    private static String snapshotName(long generation) {
+        return SNAPSHOT_PREFIX + generation + SNAPSHOT_SUFFIX;
+    }
+}
@@ -0,0 +1,89 @@
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * StudentKeys class remembers a group of students by key, so they can be removed again
+ * later without keeping a copy of them.
+ * <p>
+ * The key of a student is its student number and a 64-bit hash of every field (see
+ * {@link StudentJournal#valueHash(Student)}), 16 bytes a student in two arrays, against
+ * about 25 bytes a row and the dictionaries for a {@link StudentStore} copy. A row of
+ * the students matches a key when it has the student number and the hash, which for
+ * students with the same student number only differs from comparing every field if two
+ * different students have the same 64-bit hash.
+ * </p>
+ * <p>
+ * Precondition: None.
+ * Postconditions: The keys are kept in the order they were added.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class StudentKeys {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // The student number and hash of each key, only the first size entries are used
+    private long[] studentNumbers = new long[INITIAL_CAPACITY];
+    private long[] hashes = new long[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Creates the keys of a group of students.
+     *
+     * @param students The students.
+     * @return The keys, in the order of the students.
+     */
+    public static StudentKeys of(Collection<Student> students) {
+        StudentKeys keys = new StudentKeys();
+        for (Student student : students) {
+            keys.add(student);
+        }
+        return keys;
+    }
+
+    /**
+     * Adds the key of a student.
+     *
+     * @param student The student.
+     */
+    public void add(Student student) {
+        if (size == studentNumbers.length) {
+            studentNumbers = Arrays.copyOf(studentNumbers, size + (size >> 1));
+            hashes = Arrays.copyOf(hashes, studentNumbers.length);
+        }
+        studentNumbers[size] = student.getStudentNumber();
+        hashes[size] = StudentJournal.valueHash(student);
+        size++;
+    }
+
+    /**
+     * Gets the number of keys.
+     *
+     * @return The number of keys.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the student number of a key.
+     *
+     * @param key The key number.
+     * @return The student number.
+     */
+    public long getStudentNumber(int key) {
+        return studentNumbers[key];
+    }
+
+    /**
+     * Gets the hash of a key.
+     *
+     * @param key The key number.
+     * @return The hash of the student's fields.
+     */
+    public long getHash(int key) {
+        return hashes[key];
+    }
+}
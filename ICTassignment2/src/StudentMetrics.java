@@ -0,0 +1,526 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * StudentMetrics class counts and times the hot paths of the Student Grade System: rows
+ * parsed from CSV files, lookups by student number, sorts by student number and CSV
+ * exports.
+ * <p>
+ * Counters are {@link LongAdder}s, which spread updates from several threads over
+ * separate cells instead of contending on one value. Durations are recorded in
+ * {@link Histogram}s with logarithmic buckets, so recording is one array increment and
+ * percentiles are read from the bucket counts to within about 6%. The parser adds its
+ * counts once per file or chunk rather than per row. Sorts and exports are timed with
+ * two {@link System#nanoTime()} calls each. Lookups take a fraction of a microsecond,
+ * about as long as the two calls and the recording, so every lookup is counted but only
+ * one in {@value #LOOKUP_SAMPLE_RATE}, picked at random, is timed. The report gives the
+ * number of lookups timed next to their times, and no times at all until one is timed.
+ * </p>
+ * <p>
+ * The metrics are shown by the menu, through the {@link StudentMetricsMXBean} registered
+ * by {@link #registerMBean()}, and by {@link #startDump(String, long)}, which appends
+ * the report to a file every period. Recording can be switched off with
+ * {@link #setEnabled(boolean)}, which also makes the timing calls return at once.
+ * </p>
+ * <p>
+ * Precondition: None, any thread may record at any time.
+ * Postconditions: Reading the metrics while they are being recorded, or during
+ * {@link #reset()}, may give values from slightly different moments.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class StudentMetrics implements StudentMetricsMXBean {
+
+    /**
+     * The JMX name the metrics are registered under.
+     */
+    public static final String OBJECT_NAME = "StudentGradeSystem:type=Metrics";
+
+    /**
+     * Time between reports appended to the dump file when no period is given.
+     */
+    public static final long DEFAULT_DUMP_SECONDS = 60;
+
+    /**
+     * One in this many lookups is timed, a power of two.
+     */
+    public static final int LOOKUP_SAMPLE_RATE = 64;
+
+    private static final ValidationErrors.Code[] CODES = ValidationErrors.Code.values();
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // Created after the constants its constructor uses
+    private static final StudentMetrics METRICS = new StudentMetrics();
+
+    private volatile boolean enabled = true;
+    private volatile LocalDateTime since = LocalDateTime.now();
+
+    // Ingest
+    private final LongAdder rowsParsed = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder[] rowsRejected = new LongAdder[CODES.length];
+
+    // Lookups, sorts and exports
+    private final LongAdder lookups = new LongAdder();
+    private final Histogram lookupNanos = new Histogram();
+    private final Histogram sortNanos = new Histogram();
+    private final LongAdder rowsSorted = new LongAdder();
+    private final Histogram exportNanos = new Histogram();
+    private final LongAdder rowsExported = new LongAdder();
+    private final LongAdder bytesExported = new LongAdder();
+
+    private ScheduledExecutorService dump;
+
+    /**
+     * A histogram of durations in nanoseconds, with 16 buckets for every power of two.
+     * <p>
+     * Values below 16 have a bucket each. Above that, a value falls in the bucket given
+     * by its highest set bit and the 4 bits after it, so every bucket is at most a
+     * sixteenth of its lowest value wide, as in an HDR histogram with one significant
+     * decimal digit.
+     * </p>
+     */
+    public static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        /**
+         * Records a duration.
+         *
+         * @param nanos The duration in nanoseconds, negative durations count as 0.
+         */
+        public void record(long nanos) {
+            long value = Math.max(0, nanos);
+            counts.incrementAndGet(bucketOf(value));
+            count.increment();
+            total.add(value);
+            max.accumulate(value);
+        }
+
+        /**
+         * Gets the number of durations recorded.
+         *
+         * @return The count.
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Gets the sum of the durations recorded.
+         *
+         * @return The total in nanoseconds.
+         */
+        public long getTotal() {
+            return total.sum();
+        }
+
+        /**
+         * Gets the mean duration.
+         *
+         * @return The mean in nanoseconds, or 0 if nothing was recorded.
+         */
+        public double getMean() {
+            long recorded = count.sum();
+            return recorded == 0 ? 0 : total.sum() / (double) recorded;
+        }
+
+        /**
+         * Gets the longest duration.
+         *
+         * @return The maximum in nanoseconds, or 0 if nothing was recorded.
+         */
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * Gets the duration that the given percentage of the durations do not exceed,
+         * as the highest value of its bucket.
+         *
+         * @param percentile The percentage, from 0 to 100.
+         * @return The duration in nanoseconds, or 0 if nothing was recorded.
+         */
+        public long getPercentile(double percentile) {
+            long[] snapshot = new long[BUCKETS];
+            long recorded = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                snapshot[bucket] = counts.get(bucket);
+                recorded += snapshot[bucket];
+            }
+            if (recorded == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                seen += snapshot[bucket];
+                if (seen >= rank) {
+                    return Math.min(highestValueOf(bucket), getMax());
+                }
+            }
+            return getMax();
+        }
+
+        /**
+         * Sets the histogram back to empty.
+         */
+        public void reset() {
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                counts.set(bucket, 0);
+            }
+            count.reset();
+            total.reset();
+            max.reset();
+        }
+
+        /**
+         * Finds the bucket of a value.
+         *
+         * @param value The value, not negative.
+         * @return The bucket.
+         */
+        private static int bucketOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+
+        /**
+         * Gets the highest value that falls in a bucket.
+         *
+         * @param bucket The bucket.
+         * @return The value.
+         */
+        private static long highestValueOf(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int shift = bucket / SUB_BUCKETS - 1;
+            long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+            return lowest + (1L << shift) - 1;
+        }
+    }
+
+    /**
+     * Constructs the metrics, all zero.
+     */
+    private StudentMetrics() {
+        for (int i = 0; i < rowsRejected.length; i++) {
+            rowsRejected[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Gets the metrics of the program.
+     *
+     * @return The metrics.
+     */
+    public static StudentMetrics getMetrics() {
+        return METRICS;
+    }
+
+    /**
+     * Gets the start time of an operation to be timed.
+     *
+     * @return The current time in nanoseconds, or 0 if the metrics are not recorded.
+     */
+    public static long start() {
+        return METRICS.enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Counts a lookup by student number and gets its start time if it is one of the
+     * lookups timed.
+     *
+     * @return The current time in nanoseconds, or 0 if the lookup is not timed.
+     */
+    public static long startLookup() {
+        if (!METRICS.enabled) {
+            return 0;
+        }
+        METRICS.lookups.increment();
+        return (ThreadLocalRandom.current().nextInt() & (LOOKUP_SAMPLE_RATE - 1)) == 0 ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the rows of a CSV file, or of part of one, that a parser has finished.
+     *
+     * @param rows     The number of rows parsed.
+     * @param bytes    The number of bytes parsed.
+     * @param rejected The number of rows rejected for each {@link ValidationErrors.Code},
+     *                 by ordinal.
+     */
+    public static void parsed(long rows, long bytes, long[] rejected) {
+        if (!METRICS.enabled) {
+            return;
+        }
+        METRICS.rowsParsed.add(rows);
+        METRICS.bytesRead.add(bytes);
+        for (int i = 0; i < rejected.length; i++) {
+            if (rejected[i] != 0) {
+                METRICS.rowsRejected[i].add(rejected[i]);
+            }
+        }
+    }
+
+    /**
+     * Records the time of a lookup by student number.
+     *
+     * @param start The time from {@link #startLookup()}.
+     */
+    public static void lookedUp(long start) {
+        if (start != 0) {
+            METRICS.lookupNanos.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records a sort by student number.
+     *
+     * @param rows  The number of rows sorted.
+     * @param start The time from {@link #start()}.
+     */
+    public static void sorted(int rows, long start) {
+        if (start != 0) {
+            METRICS.sortNanos.record(System.nanoTime() - start);
+            METRICS.rowsSorted.add(rows);
+        }
+    }
+
+    /**
+     * Records a CSV file that has been written.
+     *
+     * @param rows  The number of rows written.
+     * @param bytes The number of bytes written.
+     * @param start The time from {@link #start()}.
+     */
+    public static void exported(long rows, long bytes, long start) {
+        if (start != 0) {
+            METRICS.exportNanos.record(System.nanoTime() - start);
+            METRICS.rowsExported.add(rows);
+            METRICS.bytesExported.add(bytes);
+        }
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server as {@value #OBJECT_NAME}.
+     * Registering again does nothing.
+     */
+    public static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(METRICS, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Already registered
+        } catch (JMException e) {
+            System.out.println("Error while registering the metrics with JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends the report to a file every period, on a background thread, replacing any
+     * dump already started.
+     *
+     * @param fileName      The name of the file to append to.
+     * @param periodSeconds The time between reports.
+     */
+    public static synchronized void startDump(String fileName, long periodSeconds) {
+        if (METRICS.dump != null) {
+            METRICS.dump.shutdownNow();
+        }
+        METRICS.dump = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "student-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        METRICS.dump.scheduleAtFixedRate(() -> {
+            try {
+                Files.write(Paths.get(fileName), (METRICS.getReport() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                System.out.println("Error while writing the metrics to: " + fileName);
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public long getRowsParsed() {
+        return rowsParsed.sum();
+    }
+
+    @Override
+    public long getRowsRejected() {
+        long total = 0;
+        for (LongAdder rows : rowsRejected) {
+            total += rows.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public Map<String, Long> getRowsRejectedByReason() {
+        LinkedHashMap<String, Long> byReason = new LinkedHashMap<>();
+        for (ValidationErrors.Code code : CODES) {
+            long rows = rowsRejected[code.ordinal()].sum();
+            if (rows > 0) {
+                byReason.put(code.getDescription(), rows);
+            }
+        }
+        return byReason;
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    @Override
+    public long getLookupsTimed() {
+        return lookupNanos.getCount();
+    }
+
+    @Override
+    public double getLookupMeanMicros() {
+        return lookupNanos.getMean() / 1e3;
+    }
+
+    @Override
+    public double getLookupP50Micros() {
+        return lookupNanos.getPercentile(50) / 1e3;
+    }
+
+    @Override
+    public double getLookupP99Micros() {
+        return lookupNanos.getPercentile(99) / 1e3;
+    }
+
+    @Override
+    public double getLookupMaxMicros() {
+        return lookupNanos.getMax() / 1e3;
+    }
+
+    @Override
+    public long getSorts() {
+        return sortNanos.getCount();
+    }
+
+    @Override
+    public double getSortMeanMillis() {
+        return sortNanos.getMean() / 1e6;
+    }
+
+    @Override
+    public double getSortMaxMillis() {
+        return sortNanos.getMax() / 1e6;
+    }
+
+    @Override
+    public long getRowsExported() {
+        return rowsExported.sum();
+    }
+
+    @Override
+    public long getBytesExported() {
+        return bytesExported.sum();
+    }
+
+    @Override
+    public double getExportRowsPerSecond() {
+        long nanos = exportNanos.getTotal();
+        return nanos == 0 ? 0 : rowsExported.sum() / (nanos / 1e9);
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("Metrics at ").append(LocalDateTime.now().format(TIME_FORMAT))
+                .append(" since ").append(since.format(TIME_FORMAT))
+                .append(enabled ? "" : " (not recording)").append(System.lineSeparator());
+        report.append(String.format("  Ingest: %d rows parsed, %d rejected, %.1f MB read%n", getRowsParsed(),
+                getRowsRejected(), getBytesRead() / 1e6));
+        for (Map.Entry<String, Long> reason : getRowsRejectedByReason().entrySet()) {
+            report.append("    ").append(reason.getKey()).append(": ").append(reason.getValue()).append(System.lineSeparator());
+        }
+        // Times are only printed when some were recorded, a mean of 0.0 would look measured
+        report.append(String.format("  Lookups: %d, %d timed, ", getLookups(), getLookupsTimed()));
+        if (getLookupsTimed() == 0) {
+            report.append("times n/a").append(System.lineSeparator());
+        } else {
+            report.append(String.format("mean %.1f us, p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us%n",
+                    getLookupMeanMicros(), getLookupP50Micros(), getLookupP99Micros(),
+                    lookupNanos.getPercentile(99.9) / 1e3, getLookupMaxMicros()));
+        }
+        report.append(String.format("  Sorts: %d of %d rows, ", getSorts(), rowsSorted.sum()));
+        if (getSorts() == 0) {
+            report.append("times n/a").append(System.lineSeparator());
+        } else {
+            report.append(String.format("mean %.1f ms, p99 %.1f ms, max %.1f ms%n", getSortMeanMillis(),
+                    sortNanos.getPercentile(99) / 1e6, getSortMaxMillis()));
+        }
+        report.append(String.format("  Exports: %d files, %d rows, %.1f MB in %.1f ms, %.0f rows/s",
+                exportNanos.getCount(), getRowsExported(), getBytesExported() / 1e6, exportNanos.getTotal() / 1e6,
+                getExportRowsPerSecond()));
+        return report.toString();
+    }
+
+    @Override
+    public void reset() {
+        rowsParsed.reset();
+        bytesRead.reset();
+        for (LongAdder rows : rowsRejected) {
+            rows.reset();
+        }
+        lookups.reset();
+        lookupNanos.reset();
+        sortNanos.reset();
+        rowsSorted.reset();
+        exportNanos.reset();
+        rowsExported.reset();
+        bytesExported.reset();
+        since = LocalDateTime.now();
+    }
+}
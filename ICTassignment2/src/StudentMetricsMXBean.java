@@ -0,0 +1,150 @@
+import java.util.Map;
+
+/**
+ * StudentMetricsMXBean interface is the JMX view of the {@link StudentMetrics}, registered
+ * as {@value StudentMetrics#OBJECT_NAME} so the metrics can be read with JConsole or any
+ * other JMX client while the program runs.
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public interface StudentMetricsMXBean {
+
+    /**
+     * Checks whether the metrics are being recorded.
+     *
+     * @return true if the metrics are recorded, false otherwise.
+     */
+    boolean isEnabled();
+
+    /**
+     * Starts or stops recording the metrics. The metrics already recorded are kept.
+     *
+     * @param enabled true to record the metrics, false to stop.
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Gets the number of CSV rows parsed, accepted or rejected.
+     *
+     * @return The number of rows parsed.
+     */
+    long getRowsParsed();
+
+    /**
+     * Gets the number of CSV rows rejected.
+     *
+     * @return The number of rows rejected.
+     */
+    long getRowsRejected();
+
+    /**
+     * Gets the number of CSV rows rejected for each reason that rejected any.
+     *
+     * @return The number of rows by the description of the reason.
+     */
+    Map<String, Long> getRowsRejectedByReason();
+
+    /**
+     * Gets the number of CSV bytes parsed.
+     *
+     * @return The number of bytes read.
+     */
+    long getBytesRead();
+
+    /**
+     * Gets the number of lookups by student number.
+     *
+     * @return The number of lookups.
+     */
+    long getLookups();
+
+    /**
+     * Gets the number of lookups that were timed, which the lookup times are taken from.
+     *
+     * @return The number of lookups timed.
+     */
+    long getLookupsTimed();
+
+    /**
+     * Gets the mean time of a lookup, from the lookups timed.
+     *
+     * @return The time in microseconds.
+     */
+    double getLookupMeanMicros();
+
+    /**
+     * Gets the median time of a lookup.
+     *
+     * @return The time in microseconds.
+     */
+    double getLookupP50Micros();
+
+    /**
+     * Gets the 99th percentile time of a lookup.
+     *
+     * @return The time in microseconds.
+     */
+    double getLookupP99Micros();
+
+    /**
+     * Gets the longest time of a lookup.
+     *
+     * @return The time in microseconds.
+     */
+    double getLookupMaxMicros();
+
+    /**
+     * Gets the number of sorts by student number.
+     *
+     * @return The number of sorts.
+     */
+    long getSorts();
+
+    /**
+     * Gets the mean time of a sort.
+     *
+     * @return The time in milliseconds.
+     */
+    double getSortMeanMillis();
+
+    /**
+     * Gets the longest time of a sort.
+     *
+     * @return The time in milliseconds.
+     */
+    double getSortMaxMillis();
+
+    /**
+     * Gets the number of rows written to CSV files.
+     *
+     * @return The number of rows exported.
+     */
+    long getRowsExported();
+
+    /**
+     * Gets the number of bytes written to CSV files.
+     *
+     * @return The number of bytes exported.
+     */
+    long getBytesExported();
+
+    /**
+     * Gets the rows written per second while CSV files were being written.
+     *
+     * @return The rows per second, or 0 if nothing was exported.
+     */
+    double getExportRowsPerSecond();
+
+    /**
+     * Gets every metric as the text shown by the menu.
+     *
+     * @return The report.
+     */
+    String getReport();
+
+    /**
+     * Sets every metric back to zero.
+     */
+    void reset();
+}
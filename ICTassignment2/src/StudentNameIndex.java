@@ -0,0 +1,501 @@
+import java.util.List;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * StudentNameIndex class finds the students of a list whose first or last name
+ * starts with or contains a piece of text, ignoring case, without scanning the students.
+ * <p>
+ * Every distinct lower case name is given a code by a {@link StringDictionary}, and the
+ * rows holding each name are kept in two posting lists per code, one for first names and
+ * one for last names. Searches work on the distinct names, which are far fewer than the
+ * students, and then read the rows of the matching names:
+ * </p>
+ * <ul>
+ * <li>Prefix searches binary search an array of the name codes sorted by name, which is
+ * the flattened form of a trie: the names sharing a prefix are one run of the array.</li>
+ * <li>Substring searches look up the trigrams (three character pieces) of the text in a
+ * trigram posting index over the names, and check only the names in the shortest posting
+ * list. Text shorter than three characters is matched against every distinct name.</li>
+ * </ul>
+ * <p>
+ * The posting lists hold the stable ids of the {@link RowIdMap} the tracked
+ * {@link StudentStore} keeps of its rows, rather than rows, so removing a student from the middle of a sorted list, which moves every later student
+ * up one row, only takes its id out of two posting lists. Each id also keeps its two
+ * name codes and its position in each of its two posting lists, so an id is taken out
+ * by moving the last id of the posting list into its place, and on swap-remove the
+ * moved student takes over the id of its new row in place. Both take O(1) time apart
+ * from the O(log n) amortized id lookup, however many students share a name. Names
+ * stay in the dictionary once seen, so a name whose students were all removed simply
+ * has empty posting lists.
+ * </p>
+ * <p>
+ * Names first seen since the last prefix search are missing from the sorted array until
+ * the next prefix search sorts them in, so searches are synchronized (see
+ * {@link ConcurrentStudentStore}).
+ * </p>
+ * <p>
+ * Precondition: The index is told about every change to the tracked list, and names are
+ * not changed through the setters after the student was added.
+ * Postconditions: If the tracked list changed in a way the index was not told about, or
+ * started a new map of its rows, the index is rebuilt before it is used.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class StudentNameIndex {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int[] NO_ROWS = new int[0];
+
+    // The list being indexed, the ids of its rows and the number of changes to them seen
+    private final List<Student> tracked;
+    private RowIdMap rowIds;
+    private int changesSeen;
+
+    // Lower case name codes, and the code of each name as written to skip lower casing
+    private StringDictionary names;
+    private HashMap<String, Integer> nameCodes;
+
+    // Row ids of each name code, as a first name and as a last name
+    private Postings[] firstNameRows;
+    private Postings[] lastNameRows;
+
+    // Name codes of each id, and the position of the id in the posting list of each code
+    private int[] firstNameCodes;
+    private int[] lastNameCodes;
+    private int[] firstNamePositions;
+    private int[] lastNamePositions;
+
+    // Name codes of each trigram, keyed on the three characters packed into a long
+    private HashMap<Long, Postings> trigramNames;
+
+    // Name codes sorted by name, the first sortedCount codes of the dictionary
+    private int[] sortedCodes;
+    private int sortedCount;
+
+    /**
+     * Constructs an index over the given list and indexes its current students.
+     *
+     * @param tracked The list of Student objects to be indexed.
+     */
+    public StudentNameIndex(List<Student> tracked) {
+        this.tracked = tracked;
+        rebuild(tracked);
+    }
+
+    /**
+     * Checks whether this index is tracking the given list.
+     *
+     * @param students The list to check.
+     * @return true if the list is the one being indexed, false otherwise.
+     */
+    public boolean isTracking(List<Student> students) {
+        return students == tracked;
+    }
+
+    /**
+     * Records that a student was appended to the end of the list.
+     *
+     * @param students The list the student was appended to.
+     * @param student  The appended student.
+     */
+    public void studentAdded(List<Student> students, Student student) {
+        if (students != tracked) {
+            return;
+        }
+        if (!rowIds.isNextChange(students, changesSeen)) {
+            rebuild(students);
+            return;
+        }
+        changesSeen++;
+        insert(rowIds.getIdCount() - 1, student);
+    }
+
+    /**
+     * Records that the student at a row was removed by moving the last student of the
+     * list into that row. Must be called after the list has been changed.
+     *
+     * @param students The list the student was removed from.
+     * @param row      The row of the removed student.
+     * @param removed  The removed student.
+     */
+    public void studentSwapRemoved(List<Student> students, int row, Student removed) {
+        if (students != tracked) {
+            return;
+        }
+        if (!rowIds.isNextChange(students, changesSeen)) {
+            rebuild(students);
+            return;
+        }
+        changesSeen++;
+        int id = rowIds.idOfSwapRemoved(row);
+        int lastId = rowIds.getLastRetired();
+        delete(id);
+        if (id != lastId) {
+            // The moved student takes over the id of its new row
+            move(lastId, id);
+        }
+    }
+
+    /**
+     * Records that the student at a row was removed by moving every later student up
+     * by one row. Must be called after the list has been changed.
+     *
+     * @param students The list the student was removed from.
+     * @param row      The row of the removed student.
+     * @param removed  The removed student.
+     */
+    public void studentRemoved(List<Student> students, int row, Student removed) {
+        if (students != tracked) {
+            return;
+        }
+        if (!rowIds.isNextChange(students, changesSeen)) {
+            rebuild(students);
+            return;
+        }
+        changesSeen++;
+        delete(rowIds.getLastRetired());
+    }
+
+    /**
+     * Rebuilds the index from the current contents of the list, for example after the
+     * list has been sorted.
+     *
+     * @param students The list to be indexed.
+     */
+    public void rebuild(List<Student> students) {
+        if (students != tracked) {
+            return;
+        }
+        names = new StringDictionary();
+        nameCodes = new HashMap<>();
+        firstNameRows = new Postings[INITIAL_CAPACITY];
+        lastNameRows = new Postings[INITIAL_CAPACITY];
+        rowIds = RowIdMap.of(students);
+        changesSeen = rowIds.getChangeCount();
+        int capacity = Math.max(INITIAL_CAPACITY, rowIds.getIdCount());
+        firstNameCodes = new int[capacity];
+        lastNameCodes = new int[capacity];
+        firstNamePositions = new int[capacity];
+        lastNamePositions = new int[capacity];
+        trigramNames = new HashMap<>();
+        sortedCodes = new int[0];
+        sortedCount = 0;
+        int[] ids = rowIds.idsInRowOrder();
+        if (students instanceof StudentStore) {
+            rebuild((StudentStore) students, ids);
+            return;
+        }
+        int row = 0;
+        for (Student student : students) {
+            insert(ids[row++], student);
+        }
+    }
+
+    /**
+     * Indexes every row of a store from its name columns, without creating a Student.
+     * Each distinct name of the store's dictionaries is given its code once.
+     *
+     * @param store The store.
+     * @param ids   The id of each row.
+     */
+    private void rebuild(StudentStore store, int[] ids) {
+        // Code of each store dictionary name, -1 until a row uses it
+        int[] firstCodes = new int[store.getFirstNameDictionary().size()];
+        int[] lastCodes = new int[store.getLastNameDictionary().size()];
+        Arrays.fill(firstCodes, -1);
+        Arrays.fill(lastCodes, -1);
+        for (int row = 0; row < ids.length; row++) {
+            int first = store.getFirstNameCode(row);
+            if (firstCodes[first] < 0) {
+                firstCodes[first] = addName(store.getFirstName(row));
+            }
+            int last = store.getLastNameCode(row);
+            if (lastCodes[last] < 0) {
+                lastCodes[last] = addName(store.getLastName(row));
+            }
+            insert(ids[row], firstCodes[first], lastCodes[last]);
+        }
+    }
+
+    /**
+     * Finds the students whose first or last name starts with the given text, ignoring
+     * case.
+     *
+     * @param prefix The start of the name.
+     * @param limit  The most rows to return.
+     * @return Up to limit rows in ascending order.
+     */
+    public synchronized int[] rowsWithPrefix(String prefix, int limit) {
+        checkInSync();
+        String text = prefix.toLowerCase(Locale.ROOT);
+        sortNames();
+
+        // The names starting with the text are one run of the sorted names
+        int low = 0;
+        int high = sortedCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (names.decode(sortedCodes[middle]).compareTo(text) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        int end = low;
+        while (end < sortedCount && names.decode(sortedCodes[end]).startsWith(text)) {
+            end++;
+        }
+        return rowsOf(Arrays.copyOfRange(sortedCodes, low, end), limit);
+    }
+
+    /**
+     * Finds the students whose first or last name contains the given text, ignoring case.
+     *
+     * @param text  The part of the name.
+     * @param limit The most rows to return.
+     * @return Up to limit rows in ascending order.
+     */
+    public synchronized int[] rowsContaining(String text, int limit) {
+        checkInSync();
+        String lowerText = text.toLowerCase(Locale.ROOT);
+
+        // Only names holding every trigram of the text can match, so check the names of the rarest one
+        int[] candidates = null;
+        int candidateCount = names.size();
+        for (int i = 0; i + 3 <= lowerText.length(); i++) {
+            Postings posting = trigramNames.get(trigram(lowerText, i));
+            if (posting == null) {
+                return NO_ROWS;
+            }
+            if (posting.size < candidateCount) {
+                candidates = posting.values;
+                candidateCount = posting.size;
+            }
+        }
+
+        int[] matches = new int[candidateCount];
+        int matchCount = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            int code = candidates == null ? i : candidates[i];
+            if (names.decode(code).contains(lowerText)) {
+                matches[matchCount++] = code;
+            }
+        }
+        return rowsOf(Arrays.copyOf(matches, matchCount), limit);
+    }
+
+    /**
+     * Collects the rows of the given name codes as a first name or a last name. A student
+     * matching on both names is only returned once.
+     *
+     * @param codes The matching name codes.
+     * @param limit The most rows to return.
+     * @return Up to limit rows in ascending order.
+     */
+    private int[] rowsOf(int[] codes, int limit) {
+        if (codes.length == 0 || limit <= 0) {
+            return NO_ROWS;
+        }
+        boolean[] matching = new boolean[names.size()];
+        for (int code : codes) {
+            matching[code] = true;
+        }
+
+        int[] result = new int[Math.min(limit, INITIAL_CAPACITY)];
+        int count = 0;
+        for (int code : codes) {
+            Postings ids = firstNameRows[code];
+            for (int i = 0; i < ids.size && count < limit; i++) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, (int) Math.min(limit, count * 2L));
+                }
+                result[count++] = rowIds.rowOf(ids.values[i]);
+            }
+        }
+        for (int code : codes) {
+            Postings ids = lastNameRows[code];
+            for (int i = 0; i < ids.size && count < limit; i++) {
+                int id = ids.values[i];
+                // Already found through the first name
+                if (matching[firstNameCodes[id]]) {
+                    continue;
+                }
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, (int) Math.min(limit, count * 2L));
+                }
+                result[count++] = rowIds.rowOf(id);
+            }
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Adds a student to the posting lists of its names, adding new names to the
+     * dictionary and the trigram index.
+     *
+     * @param id      The id of the row of the student.
+     * @param student The student.
+     */
+    private void insert(int id, Student student) {
+        // Adding a name can grow the posting arrays, so get both codes first
+        insert(id, addName(student.getFirstName()), addName(student.getLastName()));
+    }
+
+    /**
+     * Adds an id to the posting lists of its two name codes.
+     *
+     * @param id            The id of the row.
+     * @param firstNameCode The code of the lower case first name.
+     * @param lastNameCode  The code of the lower case last name.
+     */
+    private void insert(int id, int firstNameCode, int lastNameCode) {
+        if (id >= firstNameCodes.length) {
+            int capacity = Math.max(id + 1, firstNameCodes.length + (firstNameCodes.length >> 1));
+            firstNameCodes = Arrays.copyOf(firstNameCodes, capacity);
+            lastNameCodes = Arrays.copyOf(lastNameCodes, capacity);
+            firstNamePositions = Arrays.copyOf(firstNamePositions, capacity);
+            lastNamePositions = Arrays.copyOf(lastNamePositions, capacity);
+        }
+        firstNameCodes[id] = firstNameCode;
+        lastNameCodes[id] = lastNameCode;
+        firstNamePositions[id] = firstNameRows[firstNameCode].size;
+        lastNamePositions[id] = lastNameRows[lastNameCode].size;
+        firstNameRows[firstNameCode].add(id);
+        lastNameRows[lastNameCode].add(id);
+    }
+
+    /**
+     * Takes an id out of the posting lists of its names by moving the last id of each
+     * posting list into its place.
+     *
+     * @param id The id of the removed row.
+     */
+    private void delete(int id) {
+        Postings first = firstNameRows[firstNameCodes[id]];
+        int moved = first.values[--first.size];
+        first.values[firstNamePositions[id]] = moved;
+        firstNamePositions[moved] = firstNamePositions[id];
+
+        Postings last = lastNameRows[lastNameCodes[id]];
+        moved = last.values[--last.size];
+        last.values[lastNamePositions[id]] = moved;
+        lastNamePositions[moved] = lastNamePositions[id];
+    }
+
+    /**
+     * Gives the student of one id another id, in the same places of its posting lists.
+     *
+     * @param from The old id of the student.
+     * @param to   The new id of the student, which is not in any posting list.
+     */
+    private void move(int from, int to) {
+        firstNameCodes[to] = firstNameCodes[from];
+        lastNameCodes[to] = lastNameCodes[from];
+        firstNamePositions[to] = firstNamePositions[from];
+        lastNamePositions[to] = lastNamePositions[from];
+        firstNameRows[firstNameCodes[to]].values[firstNamePositions[to]] = to;
+        lastNameRows[lastNameCodes[to]].values[lastNamePositions[to]] = to;
+    }
+
+    /**
+     * Gets the code of a name, adding the name if it has not been seen.
+     *
+     * @param name The name as written, null is treated as empty.
+     * @return The code of the lower case name.
+     */
+    private int addName(String name) {
+        String key = name == null ? "" : name;
+        Integer code = nameCodes.get(key);
+        if (code != null) {
+            return code;
+        }
+        int size = names.size();
+        String lowerName = key.toLowerCase(Locale.ROOT);
+        int newCode = names.encode(lowerName);
+        nameCodes.put(key, newCode);
+        if (newCode == size) {
+            // A name not seen in any case yet
+            if (newCode == firstNameRows.length) {
+                firstNameRows = Arrays.copyOf(firstNameRows, newCode * 2);
+                lastNameRows = Arrays.copyOf(lastNameRows, newCode * 2);
+            }
+            firstNameRows[newCode] = new Postings();
+            lastNameRows[newCode] = new Postings();
+            for (int i = 0; i + 3 <= lowerName.length(); i++) {
+                Postings posting = trigramNames.computeIfAbsent(trigram(lowerName, i), t -> new Postings());
+                // A name repeating a trigram is only listed once
+                if (posting.size == 0 || posting.values[posting.size - 1] != newCode) {
+                    posting.add(newCode);
+                }
+            }
+        }
+        return newCode;
+    }
+
+    /**
+     * Sorts the name codes by name if names were added since the last sort.
+     */
+    private void sortNames() {
+        int size = names.size();
+        if (sortedCount == size) {
+            return;
+        }
+        Integer[] codes = new Integer[size];
+        for (int code = 0; code < size; code++) {
+            codes[code] = code;
+        }
+        Arrays.sort(codes, (a, b) -> names.decode(a).compareTo(names.decode(b)));
+        sortedCodes = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortedCodes[i] = codes[i];
+        }
+        sortedCount = size;
+    }
+
+    /**
+     * Rebuilds the index if the tracked list was changed without it being told.
+     */
+    private void checkInSync() {
+        if (!rowIds.isCurrent(tracked, changesSeen)) {
+            rebuild(tracked);
+        }
+    }
+
+    /**
+     * Packs the three characters of a name starting at a position into a long.
+     *
+     * @param text     The lower case text.
+     * @param position The position of the first character.
+     * @return The trigram key.
+     */
+    private static long trigram(String text, int position) {
+        return ((long) text.charAt(position) << 32) | ((long) text.charAt(position + 1) << 16) | text.charAt(position + 2);
+    }
+
+    /**
+     * A growable list of ints, in no particular order.
+     */
+    private static final class Postings {
+        private int[] values = new int[4];
+        private int size;
+
+        /**
+         * Appends a value.
+         *
+         * @param value The value.
+         */
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+    }
+}
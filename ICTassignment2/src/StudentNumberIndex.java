@@ -0,0 +1,343 @@
+import java.util.List;
+import java.util.Arrays;
+
+/**
+ * StudentNumberIndex class is a hash index from student number to the position (row)
+ * of the student in a list of students.
+ * <p>
+ * The index uses open addressing with linear probing over primitive arrays, so no
+ * Long or Integer objects are created. Each table slot holds one distinct student number
+ * and the first row with that number. Rows sharing a student number are chained together
+ * through a per-row next array, so duplicate student numbers are all found.
+ * </p>
+ * <p>
+ * The chains hold the stable ids of the {@link RowIdMap} the tracked
+ * {@link StudentStore} keeps of its rows, rather than rows, so removing a student from
+ * the middle of a sorted list, which moves every later student up one row, only unlinks
+ * one id. Students of an unsorted list are removed with swap-remove: the last student is
+ * moved into the freed row and takes over its id. Adding a student is O(1) expected time
+ * and removing one O(log n) amortized. Deleted table slots are closed with backward-shift
+ * deletion, so no tombstones are left behind.
+ * </p>
+ * <p>
+ * An index that fell out of step with the list is rebuilt by the next lookup, so lookups
+ * are synchronized (see {@link ConcurrentStudentStore}).
+ * </p>
+ * <p>
+ * Precondition: The index is told about every change to the tracked list.
+ * Postconditions: If the tracked list changed in a way the index was not told about, or
+ * started a new map of its rows, the index is rebuilt before it is used.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class StudentNumberIndex {
+
+    // Marks an empty table slot or the end of a chain
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    // The list being indexed
+    private final List<Student> tracked;
+
+    // Open addressing table: student number and first row for each distinct number
+    private long[] keys;
+    private int[] heads;
+    private int mask;
+    private int distinctKeys;
+
+    // Next id with the same student number, indexed by id
+    private int[] next;
+
+    // Ids of the rows, the chains hold ids, and the number of changes to them seen
+    private RowIdMap rowIds;
+    private int changesSeen;
+
+    /**
+     * Constructs an index over the given list and indexes its current students.
+     *
+     * @param tracked The list of Student objects to be indexed.
+     */
+    public StudentNumberIndex(List<Student> tracked) {
+        this.tracked = tracked;
+        rebuild(tracked);
+    }
+
+    /**
+     * Checks whether this index is tracking the given list.
+     *
+     * @param students The list to check.
+     * @return true if the list is the one being indexed, false otherwise.
+     */
+    public boolean isTracking(List<Student> students) {
+        return students == tracked;
+    }
+
+    /**
+     * Records that a student was appended to the end of the list.
+     *
+     * @param students      The list the student was appended to.
+     * @param studentNumber The student number of the appended student.
+     */
+    public void studentAdded(List<Student> students, long studentNumber) {
+        if (students != tracked) {
+            return;
+        }
+        if (!rowIds.isNextChange(students, changesSeen)) {
+            rebuild(students);
+            return;
+        }
+        changesSeen++;
+        insert(rowIds.getIdCount() - 1, studentNumber);
+    }
+
+    /**
+     * Records that the student at a row was removed by moving the last student of the
+     * list into that row. Must be called after the list has been changed.
+     *
+     * @param students             The list the student was removed from.
+     * @param row                  The row of the removed student.
+     * @param removedStudentNumber The student number of the removed student.
+     */
+    public void studentSwapRemoved(List<Student> students, int row, long removedStudentNumber) {
+        if (students != tracked) {
+            return;
+        }
+        if (!rowIds.isNextChange(students, changesSeen)) {
+            rebuild(students);
+            return;
+        }
+        changesSeen++;
+        int id = rowIds.idOfSwapRemoved(row);
+        int lastId = rowIds.getLastRetired();
+        unlink(id, removedStudentNumber);
+        if (id != lastId) {
+            // The moved student takes over the id of its new row
+            relink(lastId, id, StudentStore.studentNumberAt(students, row));
+        }
+    }
+
+    /**
+     * Records that the student at a row was removed by moving every later student up
+     * by one row. Must be called after the list has been changed.
+     *
+     * @param students             The list the student was removed from.
+     * @param row                  The row of the removed student.
+     * @param removedStudentNumber The student number of the removed student.
+     */
+    public void studentRemoved(List<Student> students, int row, long removedStudentNumber) {
+        if (students != tracked) {
+            return;
+        }
+        if (!rowIds.isNextChange(students, changesSeen)) {
+            rebuild(students);
+            return;
+        }
+        changesSeen++;
+        unlink(rowIds.getLastRetired(), removedStudentNumber);
+    }
+
+    /**
+     * Rebuilds the index from the current contents of the list, for example after the
+     * list has been sorted.
+     *
+     * @param students The list to be indexed.
+     */
+    public void rebuild(List<Student> students) {
+        if (students != tracked) {
+            return;
+        }
+        int n = students.size();
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < n * 2) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        heads = new int[capacity];
+        Arrays.fill(heads, NONE);
+        mask = capacity - 1;
+        distinctKeys = 0;
+        rowIds = RowIdMap.of(students);
+        changesSeen = rowIds.getChangeCount();
+        next = new int[Math.max(INITIAL_CAPACITY, rowIds.getIdCount())];
+        int[] ids = rowIds.idsInRowOrder();
+
+        // Insert in reverse so that each chain lists its ids in ascending order
+        for (int row = n - 1; row >= 0; row--) {
+            insert(ids[row], StudentStore.studentNumberAt(students, row));
+        }
+    }
+
+    /**
+     * Finds every row holding the given student number.
+     *
+     * @param students      The list to search, which must be the tracked list.
+     * @param studentNumber The student number to look for.
+     * @return The rows in ascending order, empty if the student number is not present,
+     *         or null if the list is not the one being indexed.
+     */
+    public synchronized int[] rows(List<Student> students, long studentNumber) {
+        if (students != tracked) {
+            return null;
+        }
+        if (!rowIds.isCurrent(students, changesSeen)) {
+            rebuild(students);
+        }
+        int slot = findSlot(studentNumber);
+        if (heads[slot] == NONE) {
+            return new int[0];
+        }
+
+        int count = 0;
+        for (int id = heads[slot]; id != NONE; id = next[id]) {
+            count++;
+        }
+        int[] result = new int[count];
+        int i = 0;
+        for (int id = heads[slot]; id != NONE; id = next[id]) {
+            result[i++] = rowIds.rowOf(id);
+        }
+        // Appends and swap-remove can put a later row at the front of a chain
+        if (count > 1) {
+            Arrays.sort(result);
+        }
+        return result;
+    }
+
+    /**
+     * Adds an id to the chain of its student number, growing the arrays when needed.
+     *
+     * @param id            The id of the row to add.
+     * @param studentNumber The student number stored in that row.
+     */
+    private void insert(int id, long studentNumber) {
+        if (id >= next.length) {
+            next = Arrays.copyOf(next, Math.max(id + 1, next.length + (next.length >> 1)));
+        }
+        int slot = findSlot(studentNumber);
+        if (heads[slot] == NONE) {
+            keys[slot] = studentNumber;
+            heads[slot] = id;
+            next[id] = NONE;
+            distinctKeys++;
+            if (distinctKeys * 2 > keys.length) {
+                grow();
+            }
+        } else {
+            next[id] = heads[slot];
+            heads[slot] = id;
+        }
+    }
+
+    /**
+     * Removes an id from the chain of its student number, deleting the table slot if the
+     * chain becomes empty.
+     *
+     * @param id            The id of the row to remove.
+     * @param studentNumber The student number stored in that row.
+     */
+    private void unlink(int id, long studentNumber) {
+        int slot = findSlot(studentNumber);
+        if (heads[slot] == id) {
+            heads[slot] = next[id];
+            if (heads[slot] == NONE) {
+                deleteSlot(slot);
+            }
+            return;
+        }
+        int previous = heads[slot];
+        while (next[previous] != id) {
+            previous = next[previous];
+        }
+        next[previous] = next[id];
+    }
+
+    /**
+     * Replaces an id in the chain of its student number after the student was moved to
+     * the row of another id.
+     *
+     * @param from          The old id of the student.
+     * @param to            The new id of the student.
+     * @param studentNumber The student number of the moved student.
+     */
+    private void relink(int from, int to, long studentNumber) {
+        next[to] = next[from];
+        int slot = findSlot(studentNumber);
+        if (heads[slot] == from) {
+            heads[slot] = to;
+            return;
+        }
+        int previous = heads[slot];
+        while (next[previous] != from) {
+            previous = next[previous];
+        }
+        next[previous] = to;
+    }
+
+    /**
+     * Finds the slot holding a student number, or the empty slot where it would go.
+     *
+     * @param studentNumber The student number to look for.
+     * @return The slot position.
+     */
+    private int findSlot(long studentNumber) {
+        int slot = hash(studentNumber) & mask;
+        while (heads[slot] != NONE && keys[slot] != studentNumber) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empties a slot and shifts later entries of the probe sequence back into the gap.
+     *
+     * @param slot The slot to empty.
+     */
+    private void deleteSlot(int slot) {
+        int hole = slot;
+        int i = (hole + 1) & mask;
+        while (heads[i] != NONE) {
+            int ideal = hash(keys[i]) & mask;
+            // Move the entry back if the hole lies between its ideal slot and where it is now
+            if (((i - ideal) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                heads[hole] = heads[i];
+                hole = i;
+            }
+            i = (i + 1) & mask;
+        }
+        heads[hole] = NONE;
+        distinctKeys--;
+    }
+
+    /**
+     * Doubles the table and reinserts every distinct student number.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldHeads = heads;
+        keys = new long[oldKeys.length * 2];
+        heads = new int[oldHeads.length * 2];
+        Arrays.fill(heads, NONE);
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldHeads[i] != NONE) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                heads[slot] = oldHeads[i];
+            }
+        }
+    }
+
+    /**
+     * Spreads the bits of a student number so that sequential numbers do not cluster.
+     *
+     * @param studentNumber The student number to hash.
+     * @return The hash value.
+     */
+    private static int hash(long studentNumber) {
+        long h = studentNumber * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,595 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * StudentQueryServer class serves the menu's operations as JSON over HTTP on localhost,
+ * so other programs can look up, analyze, load, remove and export students without
+ * driving the menu.
+ * <p>
+ * Every request works on the students of the menu (see {@link Client#getStudentStore()}),
+ * through the {@link ConcurrentStudentStore}, so lookups keep being answered while a
+ * file is being loaded. The endpoints are:
+ * </p>
+ * <ul>
+ * <li>GET /students/{studentNumber}: the students with that student number, with their
+ * marks, overall mark and grade (reportGradeOfStudent). 404 if there are none.</li>
+ * <li>DELETE /students/{studentNumber}: removes every student with that student number.</li>
+ * <li>GET /analytics: the count, average and the number of students below and at or above
+ * the average overall mark (analyzeStudentGrades).</li>
+ * <li>POST /load?file=name: loads a CSV file (loadStudentsInformationFromFile), or a
+ * snapshot file if the name ends in .snap.</li>
+ * <li>POST /export?file=name[&amp;from=n&amp;to=n]: writes the students, optionally of a
+ * student number range, to a CSV file in student number order
+ * (outputStudentsInRangeToCSV).</li>
+ * </ul>
+ * <p>
+ * The server only listens on the loopback address, but any local program, and any web
+ * page open in a local browser, can reach it. So every request must carry the token the
+ * server prints when it starts, in an X-Student-Token header, and a request with an
+ * Origin header from anywhere but the server itself is refused with 403. A browser
+ * cannot add the header to a cross-site form post. The file names of /load and /export
+ * are resolved against the data directory, and names leading outside it are refused
+ * with 403, so the server only reads and overwrites files in that directory.
+ * </p>
+ * <p>
+ * Requests are handled on virtual threads when the Java runtime has them (Java 21 and
+ * later), and otherwise on a fixed pool of platform threads (see {@link TaskExecutors}).
+ * </p>
+ * <p>
+ * Usage: java StudentQueryServer [--port 8080] [--threads n] [--data-dir directory]
+ * [--journal directory] [--watch path] [--metrics-dump file] [--metrics-interval 60]
+ * [file ...]. The data directory is the working directory unless given. The files are
+ * loaded before the server starts. A watched file or directory is loaded too, and rows
+ * appended to it are added while the server runs (see {@link StudentFileWatcher}). With
+ * a journal every change is journaled (see {@link StudentJournal}); if the directory
+ * already holds a journal the students are recovered from it and the files are not
+ * loaded again. The {@link StudentMetrics} are registered with JMX, and with a dump file
+ * they are also appended to it every interval.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class StudentQueryServer {
+
+    /**
+     * Port the server listens on when none is given.
+     */
+    public static final int DEFAULT_PORT = 8080;
+
+    /**
+     * Request header carrying the token printed when the server starts.
+     */
+    public static final String TOKEN_HEADER = "X-Student-Token";
+
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final int TOKEN_BYTES = 16;
+
+    static {
+        // Responses are written as headers then body, which without this waits on delayed acknowledgements
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final ConcurrentStudentStore store;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Path dataDirectory;
+    private final byte[] token;
+
+    /**
+     * Constructs a server for the menu's students on a localhost port, with a new random
+     * token. The server does not accept requests until it is started.
+     *
+     * @param port          The port, or 0 for any free port.
+     * @param threads       The number of request threads when virtual threads are not
+     *                      available, or 0 for two per available processor.
+     * @param dataDirectory The directory the files of /load and /export must be in.
+     * @throws IOException If the port cannot be opened or the data directory does not
+     *                     exist.
+     */
+    public StudentQueryServer(int port, int threads, String dataDirectory) throws IOException {
+        this.store = Client.getStudentStore();
+        this.dataDirectory = Paths.get(dataDirectory).toRealPath();
+        byte[] random = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(random);
+        this.token = HexFormat.of().formatHex(random).getBytes(StandardCharsets.US_ASCII);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = TaskExecutors.newExecutor(threads <= 0 ? Runtime.getRuntime().availableProcessors() * 2 : threads);
+        server.setExecutor(executor);
+        server.createContext("/students/", exchange -> handle(exchange, this::students));
+        server.createContext("/analytics", exchange -> handle(exchange, this::analytics));
+        server.createContext("/load", exchange -> handle(exchange, this::load));
+        server.createContext("/export", exchange -> handle(exchange, this::export));
+    }
+
+    /**
+     * Starts the server and loads the given files into the menu's students.
+     *
+     * @param args The options and the names of the files to load.
+     * @throws IOException If the port cannot be opened.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        int threads = 0;
+        String dataDirectory = ".";
+        String watchPath = null;
+        String journalDirectory = null;
+        String metricsFileName = null;
+        long metricsSeconds = StudentMetrics.DEFAULT_DUMP_SECONDS;
+        ArrayList<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--data-dir":
+                    dataDirectory = args[++i];
+                    break;
+                case "--watch":
+                    watchPath = args[++i];
+                    break;
+                case "--journal":
+                    journalDirectory = args[++i];
+                    break;
+                case "--metrics-dump":
+                    metricsFileName = args[++i];
+                    break;
+                case "--metrics-interval":
+                    metricsSeconds = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    files.add(args[i]);
+                    break;
+            }
+        }
+
+        StudentMetrics.registerMBean();
+        if (metricsFileName != null) {
+            StudentMetrics.startDump(metricsFileName, metricsSeconds);
+        }
+
+        boolean recovered = journalDirectory != null && Client.openJournal(journalDirectory, null);
+        if (!recovered) {
+            for (String file : files) {
+                load(file);
+            }
+        }
+        if (watchPath != null) {
+            Client.watchFiles(watchPath);
+        }
+
+        StudentQueryServer server = new StudentQueryServer(port, threads, dataDirectory);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            Client.closeJournal();
+        }));
+        server.start();
+        System.out.println("Student query server listening on http://localhost:" + server.getPort() + "/");
+        System.out.println("Send " + TOKEN_HEADER + ": " + server.getToken() + " with every request");
+        System.out.println("Files are loaded from and exported to " + server.dataDirectory);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and stops the request threads.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Gets the token every request must carry in its {@value #TOKEN_HEADER} header.
+     *
+     * @return The token.
+     */
+    public String getToken() {
+        return new String(token, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Answers GET and DELETE /students/{studentNumber}.
+     *
+     * @param exchange The request.
+     * @return The response.
+     */
+    private Response students(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        long studentNumber;
+        try {
+            studentNumber = Long.parseLong(path.substring("/students/".length()));
+        } catch (NumberFormatException e) {
+            return Response.error(400, "Invalid student number");
+        }
+
+        Student[] found;
+        switch (exchange.getRequestMethod()) {
+            case "GET":
+                found = store.query(students -> Client.findStudents(students, studentNumber));
+                break;
+            case "DELETE":
+                found = Client.removeStudentsByStudentNumber(studentNumber);
+                break;
+            default:
+                return Response.error(405, "Method not allowed");
+        }
+        if (found.length == 0) {
+            return Response.error(404, "Student with student number " + studentNumber + " was not found");
+        }
+
+        StringBuilder json = new StringBuilder(256).append("{\"studentNumber\":").append(studentNumber)
+                .append(",\"students\":[");
+        for (int i = 0; i < found.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendStudent(json, found[i]);
+        }
+        return new Response(200, json.append("]}"));
+    }
+
+    /**
+     * Answers GET /analytics.
+     *
+     * @param exchange The request.
+     * @return The response.
+     */
+    private Response analytics(HttpExchange exchange) {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            return Response.error(405, "Method not allowed");
+        }
+        return store.query(students -> {
+            GradeAnalytics analytics = Client.gradeAnalyticsOf(students);
+            StringBuilder json = new StringBuilder(160)
+                    .append("{\"students\":").append(students.size())
+                    .append(",\"count\":").append(analytics.getCount())
+                    .append(",\"average\":").append(String.format("%.2f", analytics.getAverage()))
+                    .append(",\"belowAverage\":").append(analytics.getNumBelowAverage())
+                    .append(",\"atOrAboveAverage\":").append(analytics.getNumAtOrAboveAverage())
+                    .append('}');
+            return new Response(200, json);
+        });
+    }
+
+    /**
+     * Answers POST /load?file=name.
+     *
+     * @param exchange The request.
+     * @return The response.
+     */
+    private Response load(HttpExchange exchange) {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            return Response.error(405, "Method not allowed");
+        }
+        String file = query(exchange).get("file");
+        if (file == null) {
+            return Response.error(400, "Missing file");
+        }
+        Path path = resolve(file);
+        if (path == null) {
+            return Response.error(403, "File is not in the data directory: " + file);
+        }
+        int before = store.query(List::size);
+        if (!load(path.toString())) {
+            return Response.error(404, "File not found: " + file);
+        }
+        int after = store.query(List::size);
+        StringBuilder json = new StringBuilder(96).append("{\"file\":");
+        appendString(json, file);
+        return new Response(200, json.append(",\"added\":").append(after - before)
+                .append(",\"students\":").append(after).append('}'));
+    }
+
+    /**
+     * Answers POST /export?file=name[&amp;from=n&amp;to=n].
+     *
+     * @param exchange The request.
+     * @return The response.
+     */
+    private Response export(HttpExchange exchange) {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            return Response.error(405, "Method not allowed");
+        }
+        HashMap<String, String> parameters = query(exchange);
+        String file = parameters.get("file");
+        if (file == null) {
+            return Response.error(400, "Missing file");
+        }
+        Path path = resolve(file);
+        if (path == null) {
+            return Response.error(403, "File is not in the data directory: " + file);
+        }
+        long from;
+        long to;
+        try {
+            from = parameters.containsKey("from") ? Long.parseLong(parameters.get("from")) : Long.MIN_VALUE;
+            to = parameters.containsKey("to") ? Long.parseLong(parameters.get("to")) : Long.MAX_VALUE;
+        } catch (NumberFormatException e) {
+            return Response.error(400, "Invalid student number range");
+        }
+
+        // Copy the range under the read lock and write the file after releasing it, so a
+        // long export does not hold up writers, nor the readers queued behind them
+        StudentStore range = store.query(students -> Client.copyStudentsInRange(students, from, to));
+        int rows;
+        try {
+            rows = Client.writeStudentsInRangeToCSV(range, from, to, path.toString());
+        } catch (IOException e) {
+            return Response.error(500, "Error writing to CSV file: " + file);
+        }
+        StringBuilder json = new StringBuilder(96).append("{\"file\":");
+        appendString(json, file);
+        return new Response(200, json.append(",\"students\":").append(rows).append('}'));
+    }
+
+    /**
+     * Loads a CSV file, or a snapshot file if the name ends in .snap, into the menu's
+     * students.
+     *
+     * @param file The name of the file.
+     * @return true if the file was found, false otherwise.
+     */
+    private static boolean load(String file) {
+        if (!new File(file).isFile()) {
+            System.out.println("File not Found: " + file);
+            return false;
+        }
+        if (file.endsWith(".snap")) {
+            Client.loadStudentsFromSnapshot(Client.getStudentStore(), file);
+        } else {
+            try {
+                Client.loadStudentsInformationFromFile(Client.getStudentStore(), file);
+            } catch (FileNotFoundException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Resolves a file name of a request against the data directory. Symbolic links are
+     * followed, so a link in the directory cannot lead outside it either.
+     *
+     * @param file The file name, relative to the data directory.
+     * @return The path of the file, or null if it is not in the data directory or its
+     *         directory does not exist.
+     */
+    private Path resolve(String file) {
+        try {
+            Path path = dataDirectory.resolve(file).normalize();
+            Path parent = path.getParent();
+            if (parent == null || !path.startsWith(dataDirectory)) {
+                return null;
+            }
+            Path real = Files.exists(path) ? path.toRealPath() : parent.toRealPath().resolve(path.getFileName());
+            return real.startsWith(dataDirectory) && !real.equals(dataDirectory) ? real : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks the token and origin of a request, runs an endpoint and sends its response,
+     * turning unexpected failures into a 500 response.
+     *
+     * @param exchange The request.
+     * @param endpoint The endpoint.
+     * @throws IOException If the response cannot be sent.
+     */
+    private void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        Response response;
+        String origin = exchange.getRequestHeaders().getFirst("Origin");
+        String sentToken = exchange.getRequestHeaders().getFirst(TOKEN_HEADER);
+        if (origin != null && !isOwnOrigin(origin)) {
+            response = Response.error(403, "Requests from other origins are not allowed");
+        } else if (sentToken == null
+                || !MessageDigest.isEqual(token, sentToken.getBytes(StandardCharsets.US_ASCII))) {
+            response = Response.error(401, "Missing or wrong " + TOKEN_HEADER + " header");
+        } else {
+            try {
+                response = endpoint.handle(exchange);
+            } catch (RuntimeException e) {
+                response = Response.error(500, String.valueOf(e.getMessage()));
+            }
+        }
+
+        byte[] body = response.body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Checks whether an Origin header names this server.
+     *
+     * @param origin The value of the Origin header.
+     * @return true if the origin is this server on localhost, false otherwise.
+     */
+    private boolean isOwnOrigin(String origin) {
+        int port = getPort();
+        return origin.equals("http://localhost:" + port) || origin.equals("http://127.0.0.1:" + port)
+                || origin.equals("http://[::1]:" + port);
+    }
+
+    /**
+     * Appends a student as a JSON object.
+     *
+     * @param json    The JSON being built.
+     * @param student The student.
+     */
+    private static void appendStudent(StringBuilder json, Student student) {
+        json.append("{\"studentNumber\":").append(student.getStudentNumber()).append(",\"firstName\":");
+        appendString(json, student.getFirstName());
+        json.append(",\"lastName\":");
+        appendString(json, student.getLastName());
+        if (student instanceof Student_Course) {
+            json.append(",\"enrolmentType\":\"C\"");
+            Unit_Course unitCourse = ((Student_Course) student).getUnitCourse();
+            if (unitCourse != null) {
+                json.append(",\"unitID\":");
+                appendString(json, unitCourse.getUnitID());
+                json.append(",\"level\":").append(unitCourse.getLevel())
+                        .append(",\"assignment1Mark\":").append(unitCourse.getAssignment1Mark())
+                        .append(",\"assignment2Mark\":").append(unitCourse.getAssignment2Mark())
+                        .append(",\"finalExamMark\":").append(unitCourse.getFinalExamMark());
+                appendResult(json, unitCourse.overallMarkHundredths(), unitCourse.grade());
+            }
+        } else if (student instanceof Student_Research) {
+            json.append(",\"enrolmentType\":\"R\"");
+            Research_Course researchCourse = ((Student_Research) student).getResearchCourse();
+            if (researchCourse != null) {
+                json.append(",\"proposalMark\":").append(researchCourse.getProposalMark())
+                        .append(",\"finalDissertationMark\":").append(researchCourse.getFinalDissertationMark());
+                appendResult(json, researchCourse.overallMarkHundredths(), researchCourse.grade());
+            }
+        }
+        json.append('}');
+    }
+
+    /**
+     * Appends the overall mark and grade fields.
+     *
+     * @param json           The JSON being built.
+     * @param markHundredths The overall mark in hundredths of a mark.
+     * @param grade          The grade.
+     */
+    private static void appendResult(StringBuilder json, int markHundredths, Grade grade) {
+        json.append(",\"overallMark\":").append(markHundredths / 100).append('.');
+        int fraction = markHundredths % 100;
+        json.append(fraction < 10 ? "0" : "").append(fraction).append(",\"grade\":\"").append(grade.name()).append('"');
+    }
+
+    /**
+     * Appends a JSON string, escaping quotes, backslashes and control characters.
+     *
+     * @param json  The JSON being built.
+     * @param value The string, null is written as null.
+     */
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Decodes the query parameters of a request.
+     *
+     * @param exchange The request.
+     * @return The parameters by name.
+     */
+    private static HashMap<String, String> query(HttpExchange exchange) {
+        HashMap<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * An endpoint of the server.
+     */
+    @FunctionalInterface
+    private interface Endpoint {
+
+        /**
+         * Answers a request.
+         *
+         * @param exchange The request.
+         * @return The response.
+         */
+        Response handle(HttpExchange exchange);
+    }
+
+    /**
+     * A status code and JSON body.
+     */
+    private static final class Response {
+        private final int status;
+        private final CharSequence body;
+
+        /**
+         * Constructs a response.
+         *
+         * @param status The HTTP status code.
+         * @param body   The JSON body.
+         */
+        Response(int status, CharSequence body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        /**
+         * Constructs an error response with a message.
+         *
+         * @param status  The HTTP status code.
+         * @param message The message.
+         * @return The response.
+         */
+        static Response error(int status, String message) {
+            StringBuilder json = new StringBuilder(message.length() + 16).append("{\"error\":");
+            appendString(json, message);
+            return new Response(status, json.append('}'));
+        }
+    }
+}
@@ -0,0 +1,602 @@
+import java.util.List;
+import java.util.Arrays;
+
+/**
+ * StudentRangeIndex class is a sorted index from student number to the position (row) of
+ * the student in a list of students, answering point lookups and student number
+ * range scans without sorting or scanning the list.
+ * <p>
+ * The index holds one entry per student: its student number and the row of the student,
+ * as a stable id of the {@link RowIdMap} the tracked {@link StudentStore} keeps of its
+ * rows, so that removing a student from the middle of a sorted list does not renumber
+ * the later entries. Entries are ordered by student
+ * number and then by row, so a range lists students sharing a student number in list
+ * order, as the stable sort of {@link StudentSorter} would. {@link #lowerBound(long)} and
+ * {@link #upperBound(long)} give the first and one past the last position of a range of
+ * student numbers, and the positions between them are walked with {@link #rowAt(int)}.
+ * </p>
+ * <p>
+ * The entries are kept in a two level B-tree: sorted blocks of at most
+ * {@value #BLOCK_SIZE} entries, found by a binary search over the last entry of each
+ * block, with a Fenwick (binary indexed) tree over the block sizes to turn a block into
+ * a position and back. Inserting or removing an entry is a binary search and a shift
+ * inside one block, so it takes O(log n) time plus the block size, however large the
+ * index is. A full block is split in two, and an emptied block is dropped.
+ * </p>
+ * <p>
+ * Students appended to the list are not inserted one by one, which would make a large
+ * load pay for every insert. Their student numbers and ids are kept in a pending buffer
+ * until the next lookup or removal, then radix sorted and either inserted, when there
+ * are few of them, or merged with the blocks in one linear pass. Removals merge the
+ * buffer first, so they never force a rebuild. After a swap-remove the student moved
+ * into the freed row is given the id of its new row.
+ * </p>
+ * <p>
+ * A lookup that finds students in the pending buffer merges them into the blocks before
+ * searching, so lookups are synchronized even though they only read the list (see
+ * {@link ConcurrentStudentStore}).
+ * </p>
+ * <p>
+ * Precondition: The index is told about every change to the tracked list.
+ * Postconditions: If the tracked list changed in a way the index was not told about, or
+ * started a new map of its rows, the index is rebuilt before it is used.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class StudentRangeIndex {
+
+    // Most entries in a block, and the entries put in each block when blocks are filled in bulk
+    private static final int BLOCK_SIZE = 1024;
+    private static final int BLOCK_FILL = 768;
+    private static final int INITIAL_BLOCKS = 4;
+    private static final int INITIAL_PENDING = 16;
+
+    // Pending students are inserted one by one while there are fewer than 1/MERGE_RATIO of the entries
+    private static final int MERGE_RATIO = 8;
+
+    // The list being indexed
+    private final List<Student> tracked;
+
+    // Blocks of entries in student number and row id order, each of the first blockCount holds at least one entry
+    private long[][] blockKeys;
+    private int[][] blockIds;
+    private int[] blockSizes;
+    private int blockCount;
+    private int size;
+
+    // Fenwick tree over the block sizes, blockTree[i] covers blocks (i - lowbit(i), i] shifted by one
+    private int[] blockTree;
+
+    // Student numbers and ids of appended students not yet in the blocks, in the order they were appended
+    private long[] pendingKeys;
+    private int[] pendingIds;
+    private int pendingCount;
+
+    // Ids of the rows, indexed and pending alike, and the number of changes to them seen
+    private RowIdMap rowIds;
+    private int changesSeen;
+    private boolean stale;
+
+    /**
+     * Constructs an index over the given list and indexes its current students.
+     *
+     * @param tracked The list of Student objects to be indexed.
+     */
+    public StudentRangeIndex(List<Student> tracked) {
+        this.tracked = tracked;
+        rebuild(tracked);
+    }
+
+    /**
+     * Checks whether this index is tracking the given list.
+     *
+     * @param students The list to check.
+     * @return true if the list is the one being indexed, false otherwise.
+     */
+    public boolean isTracking(List<Student> students) {
+        return students == tracked;
+    }
+
+    /**
+     * Records that a student was appended to the end of the list. The student is indexed
+     * on the next lookup or removal.
+     *
+     * @param students      The list the student was appended to.
+     * @param studentNumber The student number of the appended student.
+     */
+    public void studentAdded(List<Student> students, long studentNumber) {
+        if (students != tracked) {
+            return;
+        }
+        if (stale || !rowIds.isNextChange(students, changesSeen)) {
+            stale = true;
+            return;
+        }
+        changesSeen++;
+        if (pendingCount == pendingKeys.length) {
+            pendingKeys = Arrays.copyOf(pendingKeys, pendingCount * 2);
+            pendingIds = Arrays.copyOf(pendingIds, pendingKeys.length);
+        }
+        pendingKeys[pendingCount] = studentNumber;
+        pendingIds[pendingCount++] = rowIds.getIdCount() - 1;
+    }
+
+    /**
+     * Records that the student at a row was removed by moving the last student of the
+     * list into that row. Must be called after the list has been changed.
+     *
+     * @param students             The list the student was removed from.
+     * @param row                  The row of the removed student.
+     * @param removedStudentNumber The student number of the removed student.
+     */
+    public void studentSwapRemoved(List<Student> students, int row, long removedStudentNumber) {
+        if (students != tracked) {
+            return;
+        }
+        if (stale || !rowIds.isNextChange(students, changesSeen)) {
+            stale = true;
+            return;
+        }
+        changesSeen++;
+        mergePending();
+        int id = rowIds.idOfSwapRemoved(row);
+        int lastId = rowIds.getLastRetired();
+        removeEntry(removedStudentNumber, id);
+        if (id != lastId) {
+            // The moved student takes over the id of its new row
+            long movedStudentNumber = StudentStore.studentNumberAt(students, row);
+            removeEntry(movedStudentNumber, lastId);
+            insertEntry(movedStudentNumber, id);
+        }
+    }
+
+    /**
+     * Records that the student at a row was removed by moving every later student up
+     * by one row. Must be called after the list has been changed.
+     *
+     * @param students             The list the student was removed from.
+     * @param row                  The row of the removed student.
+     * @param removedStudentNumber The student number of the removed student.
+     */
+    public void studentRemoved(List<Student> students, int row, long removedStudentNumber) {
+        if (students != tracked) {
+            return;
+        }
+        if (stale || !rowIds.isNextChange(students, changesSeen)) {
+            stale = true;
+            return;
+        }
+        changesSeen++;
+        mergePending();
+        removeEntry(removedStudentNumber, rowIds.getLastRetired());
+    }
+
+    /**
+     * Rebuilds the index from the current contents of the list, for example after the
+     * list has been sorted.
+     *
+     * @param students The list to be indexed.
+     */
+    public void rebuild(List<Student> students) {
+        if (students != tracked) {
+            return;
+        }
+        int n = students.size();
+        long[] numbers = new long[n];
+        for (int row = 0; row < n; row++) {
+            numbers[row] = StudentStore.studentNumberAt(students, row);
+        }
+        rowIds = RowIdMap.of(students);
+        changesSeen = rowIds.getChangeCount();
+        int[] ids = rowIds.idsInRowOrder();
+        // The ids are in row order too, so the stable sort keeps equal student numbers in id order
+        int[] order = StudentSorter.sortedOrder(numbers);
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = numbers[order[i]];
+            order[i] = ids[order[i]];
+        }
+        fillBlocks(keys, order, n);
+        pendingKeys = new long[INITIAL_PENDING];
+        pendingIds = new int[INITIAL_PENDING];
+        pendingCount = 0;
+        stale = false;
+    }
+
+    /**
+     * Gets the number of indexed students.
+     *
+     * @return The number of positions in the index.
+     */
+    public synchronized int size() {
+        update();
+        return size;
+    }
+
+    /**
+     * Finds the first position whose student number is at or above the given number.
+     *
+     * @param studentNumber The lowest student number of the range.
+     * @return The position, {@link #size()} if every student number is lower.
+     */
+    public synchronized int lowerBound(long studentNumber) {
+        update();
+        // Every id is above -1, so this is the first entry with the student number or a higher one
+        int block = findBlock(studentNumber, -1);
+        if (block == blockCount) {
+            return size;
+        }
+        return countBefore(block) + searchBlock(block, studentNumber, -1);
+    }
+
+    /**
+     * Finds the first position whose student number is above the given number.
+     *
+     * @param studentNumber The highest student number of the range.
+     * @return The position, {@link #size()} if no student number is higher.
+     */
+    public synchronized int upperBound(long studentNumber) {
+        return studentNumber == Long.MAX_VALUE ? size() : lowerBound(studentNumber + 1);
+    }
+
+    /**
+     * Gets the student number at a position of the index.
+     *
+     * @param position The position, 0 to {@link #size()} - 1.
+     * @return The student number.
+     */
+    public synchronized long studentNumberAt(int position) {
+        update();
+        int block = blockAt(position);
+        return blockKeys[block][position - countBefore(block)];
+    }
+
+    /**
+     * Gets the row of the student at a position of the index.
+     *
+     * @param position The position, 0 to {@link #size()} - 1.
+     * @return The row of the student in the list.
+     */
+    public synchronized int rowAt(int position) {
+        update();
+        int block = blockAt(position);
+        return rowIds.rowOf(blockIds[block][position - countBefore(block)]);
+    }
+
+    /**
+     * Finds every row holding the given student number with a binary search.
+     *
+     * @param students      The list to search, which must be the tracked list.
+     * @param studentNumber The student number to look for.
+     * @return The rows in ascending order, empty if the student number is not present,
+     *         or null if the list is not the one being indexed.
+     */
+    public synchronized int[] rows(List<Student> students, long studentNumber) {
+        if (students != tracked) {
+            return null;
+        }
+        int from = lowerBound(studentNumber);
+        int to = upperBound(studentNumber);
+        int[] result = new int[to - from];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = rowAt(from + i);
+        }
+        return result;
+    }
+
+    /**
+     * Brings the index up to date with the tracked list before a lookup, merging pending
+     * appends or rebuilding it after an unreported change.
+     */
+    private void update() {
+        if (stale || !rowIds.isCurrent(tracked, changesSeen)) {
+            rebuild(tracked);
+        } else {
+            mergePending();
+        }
+    }
+
+    /**
+     * Sorts the pending student numbers and adds them to the blocks. A few are inserted
+     * one at a time; more are merged with the blocks in one linear pass, refilling the
+     * blocks. The pending students have the highest ids, so on equal student numbers the
+     * indexed entry goes first.
+     */
+    private void mergePending() {
+        int pending = pendingCount;
+        if (pending == 0) {
+            return;
+        }
+        int[] order = StudentSorter.sortedOrder(Arrays.copyOf(pendingKeys, pending));
+        if ((long) pending * MERGE_RATIO < size) {
+            for (int j = 0; j < pending; j++) {
+                insertEntry(pendingKeys[order[j]], pendingIds[order[j]]);
+            }
+        } else {
+            int total = size + pending;
+            long[] keys = new long[total];
+            int[] ids = new int[total];
+            int k = 0;
+            int j = 0;
+            for (int block = 0; block < blockCount; block++) {
+                long[] blockKeyArray = blockKeys[block];
+                int[] blockIdArray = blockIds[block];
+                for (int i = 0; i < blockSizes[block]; i++) {
+                    while (j < pending && pendingKeys[order[j]] < blockKeyArray[i]) {
+                        keys[k] = pendingKeys[order[j]];
+                        ids[k++] = pendingIds[order[j++]];
+                    }
+                    keys[k] = blockKeyArray[i];
+                    ids[k++] = blockIdArray[i];
+                }
+            }
+            while (j < pending) {
+                keys[k] = pendingKeys[order[j]];
+                ids[k++] = pendingIds[order[j++]];
+            }
+            fillBlocks(keys, ids, total);
+        }
+        pendingCount = 0;
+        if (pendingKeys.length > BLOCK_SIZE) {
+            pendingKeys = new long[INITIAL_PENDING];
+            pendingIds = new int[INITIAL_PENDING];
+        }
+    }
+
+    /**
+     * Replaces the blocks with blocks filled from sorted entries.
+     *
+     * @param keys The student numbers, in order.
+     * @param ids  The row id of each student number.
+     * @param n    The number of entries.
+     */
+    private void fillBlocks(long[] keys, int[] ids, int n) {
+        int blocks = (n + BLOCK_FILL - 1) / BLOCK_FILL;
+        int capacity = Math.max(INITIAL_BLOCKS, blocks + (blocks >> 1));
+        blockKeys = new long[capacity][];
+        blockIds = new int[capacity][];
+        blockSizes = new int[capacity];
+        for (int block = 0; block < blocks; block++) {
+            int from = block * BLOCK_FILL;
+            int length = Math.min(BLOCK_FILL, n - from);
+            blockKeys[block] = new long[BLOCK_SIZE];
+            blockIds[block] = new int[BLOCK_SIZE];
+            System.arraycopy(keys, from, blockKeys[block], 0, length);
+            System.arraycopy(ids, from, blockIds[block], 0, length);
+            blockSizes[block] = length;
+        }
+        blockCount = blocks;
+        size = n;
+        rebuildTree();
+    }
+
+    /**
+     * Finds the first block whose last entry is at or after a student number and row id.
+     *
+     * @param studentNumber The student number.
+     * @param id            The row id.
+     * @return The block, or blockCount if every entry is before it.
+     */
+    private int findBlock(long studentNumber, int id) {
+        int low = 0;
+        int high = blockCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int last = blockSizes[middle] - 1;
+            if (before(blockKeys[middle][last], blockIds[middle][last], studentNumber, id)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the position inside a block of a student number and row id, or where it
+     * would be inserted.
+     *
+     * @param block         The block.
+     * @param studentNumber The student number.
+     * @param id            The row id.
+     * @return The first position of the block ordered at or after the student number and row id.
+     */
+    private int searchBlock(int block, long studentNumber, int id) {
+        long[] keys = blockKeys[block];
+        int[] ids = blockIds[block];
+        int low = 0;
+        int high = blockSizes[block];
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (before(keys[middle], ids[middle], studentNumber, id)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Checks whether an entry comes before another, by student number and then row id.
+     *
+     * @param studentNumber      The student number of the first entry.
+     * @param id                 The row id of the first entry.
+     * @param otherStudentNumber The student number of the second entry.
+     * @param otherId            The row id of the second entry.
+     * @return true if the first entry comes first.
+     */
+    private static boolean before(long studentNumber, int id, long otherStudentNumber, int otherId) {
+        return studentNumber < otherStudentNumber || (studentNumber == otherStudentNumber && id < otherId);
+    }
+
+    /**
+     * Removes the entry of a student number and row id, dropping its block if it empties.
+     *
+     * @param studentNumber The student number.
+     * @param id            The row id.
+     */
+    private void removeEntry(long studentNumber, int id) {
+        int block = findBlock(studentNumber, id);
+        int position = searchBlock(block, studentNumber, id);
+        int count = blockSizes[block];
+        System.arraycopy(blockKeys[block], position + 1, blockKeys[block], position, count - position - 1);
+        System.arraycopy(blockIds[block], position + 1, blockIds[block], position, count - position - 1);
+        blockSizes[block] = count - 1;
+        size--;
+        if (count == 1) {
+            removeBlock(block);
+        } else {
+            addToTree(block, -1);
+        }
+    }
+
+    /**
+     * Inserts an entry for a student number and row id at its sorted position, splitting
+     * its block first if the block is full.
+     *
+     * @param studentNumber The student number.
+     * @param id            The row id.
+     */
+    private void insertEntry(long studentNumber, int id) {
+        int block;
+        if (blockCount == 0) {
+            insertBlock(0);
+            block = 0;
+        } else {
+            block = Math.min(findBlock(studentNumber, id), blockCount - 1);
+        }
+        if (blockSizes[block] == BLOCK_SIZE) {
+            splitBlock(block);
+            int last = blockSizes[block] - 1;
+            if (before(blockKeys[block][last], blockIds[block][last], studentNumber, id)) {
+                block++;
+            }
+        }
+        int position = searchBlock(block, studentNumber, id);
+        int count = blockSizes[block];
+        System.arraycopy(blockKeys[block], position, blockKeys[block], position + 1, count - position);
+        System.arraycopy(blockIds[block], position, blockIds[block], position + 1, count - position);
+        blockKeys[block][position] = studentNumber;
+        blockIds[block][position] = id;
+        blockSizes[block] = count + 1;
+        size++;
+        addToTree(block, 1);
+    }
+
+    /**
+     * Moves the upper half of a full block into a new block after it.
+     *
+     * @param block The block to split.
+     */
+    private void splitBlock(int block) {
+        insertBlock(block + 1);
+        int half = BLOCK_SIZE / 2;
+        System.arraycopy(blockKeys[block], half, blockKeys[block + 1], 0, BLOCK_SIZE - half);
+        System.arraycopy(blockIds[block], half, blockIds[block + 1], 0, BLOCK_SIZE - half);
+        blockSizes[block] = half;
+        blockSizes[block + 1] = BLOCK_SIZE - half;
+        rebuildTree();
+    }
+
+    /**
+     * Inserts an empty block, moving the later blocks up by one.
+     *
+     * @param block The position of the new block.
+     */
+    private void insertBlock(int block) {
+        if (blockCount == blockKeys.length) {
+            int capacity = blockCount + (blockCount >> 1) + 1;
+            blockKeys = Arrays.copyOf(blockKeys, capacity);
+            blockIds = Arrays.copyOf(blockIds, capacity);
+            blockSizes = Arrays.copyOf(blockSizes, capacity);
+        }
+        System.arraycopy(blockKeys, block, blockKeys, block + 1, blockCount - block);
+        System.arraycopy(blockIds, block, blockIds, block + 1, blockCount - block);
+        System.arraycopy(blockSizes, block, blockSizes, block + 1, blockCount - block);
+        blockKeys[block] = new long[BLOCK_SIZE];
+        blockIds[block] = new int[BLOCK_SIZE];
+        blockSizes[block] = 0;
+        blockCount++;
+        rebuildTree();
+    }
+
+    /**
+     * Drops an empty block, moving the later blocks down by one.
+     *
+     * @param block The block to drop.
+     */
+    private void removeBlock(int block) {
+        System.arraycopy(blockKeys, block + 1, blockKeys, block, blockCount - block - 1);
+        System.arraycopy(blockIds, block + 1, blockIds, block, blockCount - block - 1);
+        System.arraycopy(blockSizes, block + 1, blockSizes, block, blockCount - block - 1);
+        blockCount--;
+        blockKeys[blockCount] = null;
+        blockIds[blockCount] = null;
+        blockSizes[blockCount] = 0;
+        rebuildTree();
+    }
+
+    /**
+     * Builds the tree over the block sizes in linear time.
+     */
+    private void rebuildTree() {
+        blockTree = new int[blockSizes.length + 1];
+        for (int i = 1; i < blockTree.length; i++) {
+            blockTree[i] += blockSizes[i - 1];
+            int parent = i + (i & -i);
+            if (parent < blockTree.length) {
+                blockTree[parent] += blockTree[i];
+            }
+        }
+    }
+
+    /**
+     * Changes the size of a block in the tree.
+     *
+     * @param block The block.
+     * @param delta The change in its size.
+     */
+    private void addToTree(int block, int delta) {
+        for (int i = block + 1; i < blockTree.length; i += i & -i) {
+            blockTree[i] += delta;
+        }
+    }
+
+    /**
+     * Counts the entries of the blocks before a block, which is the position of its
+     * first entry.
+     *
+     * @param block The block.
+     * @return The number of entries before the block.
+     */
+    private int countBefore(int block) {
+        int result = 0;
+        for (int i = block; i > 0; i -= i & -i) {
+            result += blockTree[i];
+        }
+        return result;
+    }
+
+    /**
+     * Finds the block holding a position by walking down the tree.
+     *
+     * @param position The position, 0 to size - 1.
+     * @return The block.
+     */
+    private int blockAt(int position) {
+        int block = 0;
+        int remaining = position;
+        for (int step = Integer.highestOneBit(blockTree.length - 1); step > 0; step >>= 1) {
+            int next = block + step;
+            if (next < blockTree.length && blockTree[next] <= remaining) {
+                block = next;
+                remaining -= blockTree[next];
+            }
+        }
+        // The blocks before block hold at most position entries, so block holds the position
+        return block;
+    }
+}
@@ -0,0 +1,310 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Scanner;
+
+/**
+ * StudentReportWriter class writes the student details and grade reports shown by
+ * Client to the console or to a text file, through one reusable buffer.
+ * <p>
+ * Printing a report with System.out.println takes the lock of System.out and flushes
+ * the console for every line, so a report of a million students spends its time in
+ * println rather than in writing. This writer formats the reports into one reusable
+ * StringBuilder with {@link Student#appendDetails(StringBuilder)} and
+ * {@link Student#appendGradeReport(StringBuilder)}, encodes the text in large blocks
+ * into a ByteBuffer, and writes the buffer whenever it fills up: to the FileChannel of
+ * the file, or to System.out in one call, so a console report goes wherever System.out
+ * has been set to. The text is the same as printing the reports one line at a time.
+ * </p>
+ * <p>
+ * A console report can be shown a page at a time: after every page the buffered text is
+ * written and the reader presses Enter for the next page or enters q to stop the report.
+ * </p>
+ * <p>
+ * Precondition: The writer is used by one thread at a time, and nothing else prints to
+ * System.out while a console report is being written.
+ * Postconditions: After flush or close, every report written is on the console or in
+ * the file.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class StudentReportWriter implements AutoCloseable {
+
+    // Size of the output buffer, the channel is written in blocks of this size
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    // Formatted text is encoded into the output buffer in blocks of this many characters
+    private static final int TEXT_BLOCK = 1 << 14;
+
+    private static final String NEW_LINE = System.lineSeparator();
+
+    // The file, or null for the console
+    private final FileChannel channel;
+    private final boolean console;
+
+    // The console is written from the array of a heap buffer, a file from a direct buffer
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder;
+
+    // Reports are formatted into this buffer and encoded once it holds a block of text
+    private final StringBuilder text = new StringBuilder(2 * TEXT_BLOCK);
+    private final char[] block = new char[TEXT_BLOCK];
+    private final CharBuffer blockBuffer = CharBuffer.wrap(block);
+
+    private int pageSize;
+    private Scanner input;
+
+    private long studentsWritten;
+    private boolean stopped;
+
+    /**
+     * Constructs a writer to a channel.
+     *
+     * @param channel The channel to write to, or null for the console.
+     * @param console true to write to System.out, which is not closed.
+     * @param charset The charset to encode the text with.
+     */
+    private StudentReportWriter(FileChannel channel, boolean console, Charset charset) {
+        this.channel = channel;
+        this.console = console;
+        this.buffer = console ? ByteBuffer.allocate(BUFFER_SIZE) : ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Opens a text file for writing reports in UTF-8, replacing any existing file.
+     *
+     * @param fileName The name of the file.
+     * @throws IOException If the file cannot be opened.
+     */
+    public StudentReportWriter(String fileName) throws IOException {
+        this(FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), false, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates a writer to the console, encoding the text like System.out.
+     * Anything already printed to System.out is flushed first.
+     *
+     * @return The writer.
+     */
+    public static StudentReportWriter toConsole() {
+        System.out.flush();
+        return new StudentReportWriter(null, true, Charset.defaultCharset());
+    }
+
+    /**
+     * Shows the reports a page at a time. Only useful for the console.
+     *
+     * @param pageSize The number of students on a page, or 0 to show every student at once.
+     * @param input    The scanner the reader presses Enter or enters q on.
+     */
+    public void setPageSize(int pageSize, Scanner input) {
+        if (pageSize < 0) {
+            throw new IllegalArgumentException("Page size must not be negative: " + pageSize);
+        }
+        this.pageSize = pageSize;
+        this.input = input;
+    }
+
+    /**
+     * Checks whether the reader stopped the report at the end of a page.
+     *
+     * @return true if the report was stopped, false otherwise.
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Writes a line of text.
+     *
+     * @param line The line, without a line separator.
+     * @throws IOException If writing fails.
+     */
+    public void writeLine(String line) throws IOException {
+        text.append(line).append(NEW_LINE);
+        encodeFullBlocks();
+    }
+
+    /**
+     * Writes the details of a student, as displayed by Client.displayAllStudentDetails:
+     * the student details, the marks of their unit course or research course, and an
+     * empty line.
+     *
+     * @param student The student.
+     * @return true if the student was written, false if the reader stopped the report.
+     * @throws IOException If writing fails.
+     */
+    public boolean writeDetails(Student student) throws IOException {
+        if (!startStudent()) {
+            return false;
+        }
+        // Display common student details: type, name, and student number
+        student.appendDetails(text);
+
+        if (student instanceof Student_Course) {
+            Unit_Course unitCourse = ((Student_Course) student).getUnitCourse();
+            if (unitCourse != null) {
+                text.append("Unit ID: ").append(unitCourse.getUnitID()).append(NEW_LINE);
+                text.append("Unit Level: ").append(unitCourse.getLevel()).append(NEW_LINE);
+                text.append("Assignment 1 Mark: ").append(unitCourse.getAssignment1Mark()).append(NEW_LINE);
+                text.append("Assignment 2 Mark: ").append(unitCourse.getAssignment2Mark()).append(NEW_LINE);
+                text.append("Final Exam Mark: ").append(unitCourse.getFinalExamMark()).append(NEW_LINE);
+            } else {
+                text.append("No Unit Course Information").append(NEW_LINE);
+            }
+        } else if (student instanceof Student_Research) {
+            Research_Course researchCourse = ((Student_Research) student).getResearchCourse();
+            if (researchCourse != null) {
+                text.append("Proposal Mark: ").append(researchCourse.getProposalMark()).append(NEW_LINE);
+                text.append("Final Dissertation Mark: ").append(researchCourse.getFinalDissertationMark()).append(NEW_LINE);
+            } else {
+                text.append("No Research Information").append(NEW_LINE);
+            }
+        }
+        // An empty line between each student's details
+        text.append(NEW_LINE);
+        encodeFullBlocks();
+        return true;
+    }
+
+    /**
+     * Writes the grade report of a student, as printed by {@link Student#reportGrade()}.
+     *
+     * @param student The student.
+     * @return true if the student was written, false if the reader stopped the report.
+     * @throws IOException If writing fails.
+     */
+    public boolean writeGradeReport(Student student) throws IOException {
+        if (!startStudent()) {
+            return false;
+        }
+        student.appendGradeReport(text);
+        encodeFullBlocks();
+        return true;
+    }
+
+    /**
+     * Gets the number of students written.
+     *
+     * @return The number of students written.
+     */
+    public long getStudentsWritten() {
+        return studentsWritten;
+    }
+
+    /**
+     * Writes all buffered text to the console or the file.
+     *
+     * @throws IOException If writing fails.
+     */
+    public void flush() throws IOException {
+        encode(text.length());
+        writeBuffer();
+    }
+
+    /**
+     * Writes all buffered text and closes the file. The console stays open.
+     *
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            if (!console) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Counts a student about to be written, first asking the reader for the next page if
+     * the previous student ended a page.
+     *
+     * @return true if the student should be written, false if the reader stopped the report.
+     * @throws IOException If writing fails.
+     */
+    private boolean startStudent() throws IOException {
+        if (stopped) {
+            return false;
+        }
+        if (pageSize > 0 && studentsWritten > 0 && studentsWritten % pageSize == 0) {
+            flush();
+            System.out.println("-- " + studentsWritten + " students shown. Press Enter for the next page, or enter q to stop --");
+            if (!input.hasNextLine() || input.nextLine().trim().equalsIgnoreCase("q")) {
+                stopped = true;
+                return false;
+            }
+        }
+        studentsWritten++;
+        return true;
+    }
+
+    /**
+     * Encodes the whole blocks of buffered text, leaving less than a block in the buffer.
+     *
+     * @throws IOException If writing fails.
+     */
+    private void encodeFullBlocks() throws IOException {
+        if (text.length() >= TEXT_BLOCK) {
+            encode(text.length() - text.length() % TEXT_BLOCK);
+        }
+    }
+
+    /**
+     * Encodes the start of the buffered text into the output buffer, writing the output
+     * buffer to the channel whenever it fills up, and removes the encoded text.
+     *
+     * @param length The number of characters to encode.
+     * @throws IOException If writing fails.
+     */
+    private void encode(int length) throws IOException {
+        int start = 0;
+        while (start < length) {
+            int end = Math.min(length, start + TEXT_BLOCK);
+            // Keep a surrogate pair in one block, the encoder cannot join pairs across blocks
+            if (end < text.length() && end - start > 1 && Character.isHighSurrogate(text.charAt(end - 1))) {
+                end--;
+            }
+            text.getChars(start, end, block, 0);
+            blockBuffer.clear().limit(end - start);
+            while (encoder.encode(blockBuffer, buffer, false).isOverflow()) {
+                writeBuffer();
+            }
+            start = end;
+        }
+        text.delete(0, start);
+    }
+
+    /**
+     * Writes the output buffer to the file, or to System.out in one call.
+     *
+     * @throws IOException If writing fails.
+     */
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        if (console) {
+            System.out.write(buffer.array(), buffer.arrayOffset(), buffer.limit());
+            System.out.flush();
+        } else {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        buffer.clear();
+    }
+}
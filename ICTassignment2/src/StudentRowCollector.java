@@ -0,0 +1,112 @@
+import java.util.ArrayList;
+
+/**
+ * StudentRowCollector class turns the rows found by a {@link StudentCsvParser} into
+ * Student_Course and Student_Research objects.
+ * <p>
+ * The students are collected in file order in a buffer owned by the collector, so the
+ * caller can add them to its own list once parsing has finished. Messages for rejected
+ * rows are printed to the console as they are found, or kept until printMessages is
+ * called when several collectors run at the same time.
+ * </p>
+ * <p>
+ * Precondition: The collector is only used by one parser at a time.
+ * Postconditions: getStudents returns the students of every accepted row in file order.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class StudentRowCollector implements StudentCsvParser.RowHandler {
+
+    // The students created so far, in file order
+    private ArrayList<Student> students = new ArrayList<>();
+
+    // Messages of rejected rows, only used when the messages are buffered
+    private final ArrayList<String> messages = new ArrayList<>();
+    private final boolean bufferMessages;
+
+    /**
+     * Constructs a collector that prints messages of rejected rows straight away.
+     */
+    public StudentRowCollector() {
+        this(false);
+    }
+
+    /**
+     * Constructs a collector.
+     *
+     * @param bufferMessages true to keep the messages of rejected rows until
+     *                       printMessages is called, false to print them straight away.
+     */
+    public StudentRowCollector(boolean bufferMessages) {
+        this.bufferMessages = bufferMessages;
+    }
+
+    /**
+     * Creates a course work student with its unit course and adds it to the buffer.
+     */
+    @Override
+    public void courseWorkRow(String firstName, String lastName, long studentNumber, String unitID,
+            int level, int assignment1Mark, int assignment2Mark, int finalExamMark) {
+        Unit_Course unitCourse = new Unit_Course(unitID, level, assignment1Mark, assignment2Mark, finalExamMark);
+        Student_Course studentCourse = new Student_Course("C", firstName, lastName, studentNumber);
+        studentCourse.setUnitCourse(unitCourse);
+        students.add(studentCourse);
+    }
+
+    /**
+     * Creates a research student with its research course and adds it to the buffer.
+     */
+    @Override
+    public void researchRow(String firstName, String lastName, long studentNumber,
+            int proposalMark, int dissertationMark) {
+        Research_Course research = new Research_Course(proposalMark, dissertationMark);
+        Student_Research studentResearch = new Student_Research("R", firstName, lastName, studentNumber);
+        studentResearch.setResearchCourse(research);
+        students.add(studentResearch);
+    }
+
+    /**
+     * Prints or buffers the message of a rejected row.
+     */
+    @Override
+    public void invalidRow(String message) {
+        if (bufferMessages) {
+            messages.add(message);
+        } else {
+            System.out.println(message);
+        }
+    }
+
+    /**
+     * Prints the buffered messages of rejected rows in file order and clears them.
+     */
+    public void printMessages() {
+        for (String message : messages) {
+            System.out.println(message);
+        }
+        messages.clear();
+    }
+
+    /**
+     * Gets the students collected so far.
+     *
+     * @return The collected students in file order.
+     */
+    public ArrayList<Student> getStudents() {
+        return students;
+    }
+
+    /**
+     * Gets the students collected so far and starts collecting into a new buffer, so one
+     * collector and its parser can be used for several parses.
+     *
+     * @return The collected students in file order.
+     */
+    public ArrayList<Student> takeStudents() {
+        ArrayList<Student> taken = students;
+        students = new ArrayList<>();
+        return taken;
+    }
+}
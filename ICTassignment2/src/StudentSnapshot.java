@@ -0,0 +1,532 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * StudentSnapshot class saves a {@link StudentStore} to a compact binary file and reads it
+ * back column by column without parsing.
+ * <p>
+ * File layout (all numbers little-endian):
+ * </p>
+ * <pre>
+ * header (64 bytes)
+ *   0  magic "STUDSNAP"          8  version (int)        12 flags (int, 1 = sorted)
+ *   16 row count (long)          24 record size (int)    28 string count (int)
+ *   32 records offset (long)     40 string index offset  48 string pool offset
+ *   56 CRC32C of every byte after the header (long)
+ * records (32 bytes each)
+ *   0  student number (long)     8  first name string    12 last name string
+ *   16 unit ID string (-1 none)  20 level (int)          24 enrolment type (byte)
+ *   25 mark A, 26 mark B, 27 mark C (bytes)             28 reserved
+ * string index: string count + 1 offsets into the string pool (long)
+ * string pool: the UTF-8 bytes of every distinct name and unit ID
+ * </pre>
+ * <p>
+ * Opening a snapshot reads the file once through a reused direct buffer, checking the
+ * checksum as it goes, and copies the records out into one array per field, so no
+ * mapping of the file is kept open (a mapped file cannot be replaced on Windows until
+ * the mapping is garbage collected). Each string is decoded the first time it is used.
+ * {@link #toStore()} fills a store from the arrays, encoding each distinct string into
+ * the store's dictionaries once, without creating a Student for any row. CSV files
+ * remain the way students are imported; a snapshot is a fast way to save and restore a
+ * roster between runs. The menu keeps one next to its start-up CSV file and loads it
+ * instead of parsing the CSV file while it is newer.
+ * </p>
+ * <p>
+ * Precondition: A snapshot file is not changed while it is being opened.
+ * Postconditions: A restored snapshot holds the same rows, in the same order, as the
+ * store that was saved.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class StudentSnapshot {
+
+    /**
+     * Current version of the file format.
+     */
+    public static final int VERSION = 2;
+
+    private static final byte[] MAGIC = "STUDSNAP".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 32;
+    private static final int FLAG_SORTED = 1;
+    private static final int NO_STRING = -1;
+
+    // Record offsets of the fields
+    private static final int FIRST_NAME = 8;
+    private static final int LAST_NAME = 12;
+    private static final int UNIT_ID = 16;
+    private static final int LEVEL = 20;
+    private static final int ENROLMENT_TYPE = 24;
+    private static final int MARKS = 25;
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+
+    // The records, one array per field
+    private final long[] studentNumbers;
+    private final byte[] enrolmentTypes;
+    private final int[] firstNames;
+    private final int[] lastNames;
+    private final int[] unitIDs;
+    private final int[] levels;
+    private final byte[] markA;
+    private final byte[] markB;
+    private final byte[] markC;
+
+    // Offsets of the strings in the pool, and the pool itself
+    private final long[] stringOffsets;
+    private final byte[] stringPool;
+
+    private final int size;
+    private final boolean sorted;
+
+    // Strings decoded so far, filled in the first time each one is used
+    private final String[] strings;
+
+    /**
+     * Constructs an empty snapshot with room for the records and strings of a file.
+     *
+     * @param size        The number of rows.
+     * @param stringCount The number of strings.
+     * @param poolSize    The number of bytes in the string pool.
+     * @param sorted      Whether the rows are sorted by student number.
+     */
+    private StudentSnapshot(int size, int stringCount, int poolSize, boolean sorted) {
+        this.studentNumbers = new long[size];
+        this.enrolmentTypes = new byte[size];
+        this.firstNames = new int[size];
+        this.lastNames = new int[size];
+        this.unitIDs = new int[size];
+        this.levels = new int[size];
+        this.markA = new byte[size];
+        this.markB = new byte[size];
+        this.markC = new byte[size];
+        this.stringOffsets = new long[stringCount + 1];
+        this.stringPool = new byte[poolSize];
+        this.size = size;
+        this.sorted = sorted;
+        this.strings = new String[stringCount];
+    }
+
+
+    /**
+     * Writes a store to a snapshot file, replacing any existing file.
+     *
+     * @param store    The store to save.
+     * @param fileName The name of the snapshot file.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(StudentStore store, String fileName) throws IOException {
+        StringDictionary firstNames = store.getFirstNameDictionary();
+        StringDictionary lastNames = store.getLastNameDictionary();
+        StringDictionary unitIDs = store.getUnitIDDictionary();
+
+        // One string pool holds the three dictionaries one after another
+        int lastNameBase = firstNames.size();
+        int unitIDBase = lastNameBase + lastNames.size();
+        int stringCount = unitIDBase + unitIDs.size();
+
+        long recordsOffset = HEADER_SIZE;
+        long stringIndexOffset = recordsOffset + (long) store.size() * RECORD_SIZE;
+        long stringPoolOffset = stringIndexOffset + (long) (stringCount + 1) * Long.BYTES;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            CRC32C checksum = new CRC32C();
+            channel.position(HEADER_SIZE);
+
+            // Records
+            for (int row = 0; row < store.size(); row++) {
+                if (buffer.remaining() < RECORD_SIZE) {
+                    flush(channel, buffer, checksum);
+                }
+                int unitID = store.getUnitIDCode(row);
+                buffer.putLong(store.getStudentNumber(row));
+                buffer.putInt(store.getFirstNameCode(row));
+                buffer.putInt(lastNameBase + store.getLastNameCode(row));
+                buffer.putInt(unitID < 0 ? NO_STRING : unitIDBase + unitID);
+                buffer.putInt(store.getLevel(row));
+                buffer.put(store.getEnrolmentType(row));
+                buffer.put((byte) store.getMarkA(row));
+                buffer.put((byte) store.getMarkB(row));
+                buffer.put((byte) store.getMarkC(row));
+                buffer.putInt(0);
+            }
+
+            // String index, then string pool
+            byte[][] encoded = new byte[stringCount][];
+            for (int i = 0; i < stringCount; i++) {
+                encoded[i] = dictionaryString(i, firstNames, lastNames, unitIDs, lastNameBase, unitIDBase)
+                        .getBytes(StandardCharsets.UTF_8);
+            }
+            long offset = 0;
+            for (int i = 0; i <= stringCount; i++) {
+                if (buffer.remaining() < Long.BYTES) {
+                    flush(channel, buffer, checksum);
+                }
+                buffer.putLong(offset);
+                if (i < stringCount) {
+                    offset += encoded[i].length;
+                }
+            }
+            for (byte[] bytes : encoded) {
+                int written = 0;
+                while (written < bytes.length) {
+                    if (!buffer.hasRemaining()) {
+                        flush(channel, buffer, checksum);
+                    }
+                    int length = Math.min(buffer.remaining(), bytes.length - written);
+                    buffer.put(bytes, written, length);
+                    written += length;
+                }
+            }
+            flush(channel, buffer, checksum);
+
+            // Header last, once the checksum is known
+            buffer.put(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(store.isSorted() ? FLAG_SORTED : 0);
+            buffer.putLong(store.size());
+            buffer.putInt(RECORD_SIZE);
+            buffer.putInt(stringCount);
+            buffer.putLong(recordsOffset);
+            buffer.putLong(stringIndexOffset);
+            buffer.putLong(stringPoolOffset);
+            buffer.putLong(checksum.getValue());
+            buffer.flip();
+            channel.position(0);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Opens a snapshot file, checking its header and checksum, and reads its records and
+     * strings into memory.
+     *
+     * @param fileName The name of the snapshot file.
+     * @return The opened snapshot.
+     * @throws IOException If the file cannot be read or is not a valid snapshot.
+     */
+    public static StudentSnapshot open(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("Not a student snapshot file: " + fileName);
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            fill(channel, buffer, HEADER_SIZE, fileName);
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a student snapshot file: " + fileName);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + fileName);
+            }
+            int flags = buffer.getInt();
+            long rows = buffer.getLong();
+            int recordSize = buffer.getInt();
+            int stringCount = buffer.getInt();
+            long recordsOffset = buffer.getLong();
+            long stringIndexOffset = buffer.getLong();
+            long stringPoolOffset = buffer.getLong();
+            long expectedChecksum = buffer.getLong();
+
+            if (recordSize != RECORD_SIZE || rows < 0 || rows > Integer.MAX_VALUE || stringCount < 0
+                    || stringCount == Integer.MAX_VALUE || recordsOffset != HEADER_SIZE
+                    || stringIndexOffset != recordsOffset + rows * RECORD_SIZE
+                    || stringPoolOffset != stringIndexOffset + (stringCount + 1L) * Long.BYTES
+                    || stringPoolOffset > fileSize || fileSize - stringPoolOffset > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt snapshot header: " + fileName);
+            }
+
+            // The sections follow the header, so they are read in one pass checking every byte
+            StudentSnapshot snapshot = new StudentSnapshot((int) rows, stringCount,
+                    (int) (fileSize - stringPoolOffset), (flags & FLAG_SORTED) != 0);
+            CRC32C checksum = new CRC32C();
+            snapshot.readRecords(channel, buffer, checksum, fileName);
+            snapshot.readStrings(channel, buffer, checksum, fileName);
+            if (checksum.getValue() != expectedChecksum) {
+                throw new IOException("Snapshot checksum does not match: " + fileName);
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Gets the number of rows in the snapshot.
+     *
+     * @return The number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the saved store was sorted by student number.
+     *
+     * @return true if the rows are in ascending student number order, false otherwise.
+     */
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    /**
+     * Gets the student number of a row.
+     *
+     * @param row The row number.
+     * @return The student number.
+     */
+    public long getStudentNumber(int row) {
+        return studentNumbers[row];
+    }
+
+    /**
+     * Creates a Student object for a row.
+     *
+     * @param row The row number.
+     * @return A Student_Course or Student_Research for the row.
+     */
+    public Student getStudent(int row) {
+        String firstName = string(firstNames[row]);
+        String lastName = string(lastNames[row]);
+        if (enrolmentTypes[row] == StudentStore.COURSE_WORK) {
+            Student_Course student = new Student_Course("C", firstName, lastName, studentNumbers[row]);
+            student.setUnitCourse(new Unit_Course(string(unitIDs[row]), levels[row], markA[row], markB[row], markC[row]));
+            return student;
+        }
+        Student_Research student = new Student_Research("R", firstName, lastName, studentNumbers[row]);
+        student.setResearchCourse(new Research_Course(markA[row], markB[row]));
+        return student;
+    }
+
+    /**
+     * Adds every row to a store, column by column. Each distinct string is encoded into
+     * the store's dictionaries once, the first time a row uses it.
+     *
+     * @param store The store to add the rows to.
+     */
+    public void addTo(StudentStore store) {
+        // Store dictionary code of each string number, -1 until the string is first used
+        int[] firstNameCodes = newCodeTable();
+        int[] lastNameCodes = newCodeTable();
+        int[] unitIDCodes = newCodeTable();
+        StringDictionary firstNameDictionary = store.getFirstNameDictionary();
+        StringDictionary lastNameDictionary = store.getLastNameDictionary();
+        StringDictionary unitIDDictionary = store.getUnitIDDictionary();
+        for (int row = 0; row < size; row++) {
+            store.encodedRow(studentNumbers[row], enrolmentTypes[row],
+                    storeCode(firstNameCodes, firstNames[row], firstNameDictionary),
+                    storeCode(lastNameCodes, lastNames[row], lastNameDictionary),
+                    storeCode(unitIDCodes, unitIDs[row], unitIDDictionary),
+                    levels[row], markA[row], markB[row], markC[row]);
+        }
+    }
+
+    /**
+     * Creates a new store holding every row of the snapshot.
+     *
+     * @return The new store.
+     */
+    public StudentStore toStore() {
+        StudentStore store = new StudentStore(size);
+        addTo(store);
+        return store;
+    }
+
+    /**
+     * Creates Student objects for every row, in row order.
+     *
+     * @return The students.
+     */
+    public ArrayList<Student> toStudents() {
+        ArrayList<Student> students = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            students.add(getStudent(row));
+        }
+        return students;
+    }
+
+    /**
+     * Reads the records into the field arrays, adding their bytes to the checksum.
+     *
+     * @param channel  The file channel, positioned at the records.
+     * @param buffer   The read buffer.
+     * @param checksum The running checksum.
+     * @param fileName The name of the snapshot file.
+     * @throws IOException If the file cannot be read or ends early.
+     */
+    private void readRecords(FileChannel channel, ByteBuffer buffer, CRC32C checksum, String fileName)
+            throws IOException {
+        int rowsPerRead = buffer.capacity() / RECORD_SIZE;
+        int row = 0;
+        while (row < size) {
+            int rows = Math.min(size - row, rowsPerRead);
+            fill(channel, buffer, rows * RECORD_SIZE, fileName);
+            checksum.update(buffer.duplicate());
+            for (int offset = 0; offset < rows * RECORD_SIZE; offset += RECORD_SIZE, row++) {
+                studentNumbers[row] = buffer.getLong(offset);
+                firstNames[row] = buffer.getInt(offset + FIRST_NAME);
+                lastNames[row] = buffer.getInt(offset + LAST_NAME);
+                unitIDs[row] = buffer.getInt(offset + UNIT_ID);
+                levels[row] = buffer.getInt(offset + LEVEL);
+                enrolmentTypes[row] = buffer.get(offset + ENROLMENT_TYPE);
+                markA[row] = buffer.get(offset + MARKS);
+                markB[row] = buffer.get(offset + MARKS + 1);
+                markC[row] = buffer.get(offset + MARKS + 2);
+            }
+        }
+    }
+
+    /**
+     * Reads the string index and the string pool, adding their bytes to the checksum.
+     *
+     * @param channel  The file channel, positioned at the string index.
+     * @param buffer   The read buffer.
+     * @param checksum The running checksum.
+     * @param fileName The name of the snapshot file.
+     * @throws IOException If the file cannot be read or ends early.
+     */
+    private void readStrings(FileChannel channel, ByteBuffer buffer, CRC32C checksum, String fileName)
+            throws IOException {
+        int offsetsPerRead = buffer.capacity() / Long.BYTES;
+        for (int i = 0; i < stringOffsets.length; ) {
+            int count = Math.min(stringOffsets.length - i, offsetsPerRead);
+            fill(channel, buffer, count * Long.BYTES, fileName);
+            checksum.update(buffer.duplicate());
+            buffer.asLongBuffer().get(stringOffsets, i, count);
+            i += count;
+        }
+        for (int i = 0; i < stringPool.length; ) {
+            int count = Math.min(stringPool.length - i, buffer.capacity());
+            fill(channel, buffer, count, fileName);
+            checksum.update(buffer.duplicate());
+            buffer.get(stringPool, i, count);
+            i += count;
+        }
+    }
+
+    /**
+     * Creates a table from string number to store dictionary code with no code set.
+     *
+     * @return The table, -1 for every string.
+     */
+    private int[] newCodeTable() {
+        int[] codes = new int[strings.length];
+        Arrays.fill(codes, NO_STRING);
+        return codes;
+    }
+
+    /**
+     * Gets the store dictionary code of a string, encoding the string the first time.
+     *
+     * @param codes      The table of codes of the dictionary.
+     * @param code       The string number, or -1 for no string.
+     * @param dictionary The store dictionary.
+     * @return The store code, or -1 for no string.
+     */
+    private int storeCode(int[] codes, int code, StringDictionary dictionary) {
+        if (code == NO_STRING) {
+            return NO_STRING;
+        }
+        int storeCode = codes[code];
+        if (storeCode == NO_STRING) {
+            storeCode = dictionary.encode(string(code));
+            codes[code] = storeCode;
+        }
+        return storeCode;
+    }
+
+    /**
+     * Gets a string from the pool, decoding it the first time it is used.
+     *
+     * @param code The string number, or -1 for no string.
+     * @return The string, or null for -1.
+     */
+    private String string(int code) {
+        if (code == NO_STRING) {
+            return null;
+        }
+        String value = strings[code];
+        if (value == null) {
+            int start = (int) stringOffsets[code];
+            int end = (int) stringOffsets[code + 1];
+            value = new String(stringPool, start, end - start, StandardCharsets.UTF_8);
+            strings[code] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Gets the string with a pool number from the three store dictionaries.
+     *
+     * @param code         The pool number.
+     * @param firstNames   The first name dictionary.
+     * @param lastNames    The last name dictionary.
+     * @param unitIDs      The unit ID dictionary.
+     * @param lastNameBase The pool number of the first last name.
+     * @param unitIDBase   The pool number of the first unit ID.
+     * @return The string.
+     */
+    private static String dictionaryString(int code, StringDictionary firstNames, StringDictionary lastNames,
+            StringDictionary unitIDs, int lastNameBase, int unitIDBase) {
+        if (code < lastNameBase) {
+            return firstNames.decode(code);
+        }
+        if (code < unitIDBase) {
+            return lastNames.decode(code - lastNameBase);
+        }
+        return unitIDs.decode(code - unitIDBase);
+    }
+
+    /**
+     * Writes the buffered bytes to the channel, adding them to the checksum.
+     *
+     * @param channel  The file channel.
+     * @param buffer   The buffer to write.
+     * @param checksum The running checksum.
+     * @throws IOException If writing fails.
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer, CRC32C checksum) throws IOException {
+        buffer.flip();
+        checksum.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Reads the next bytes of the file into the buffer and flips it, so they can be taken
+     * out of it.
+     *
+     * @param channel  The file channel.
+     * @param buffer   The buffer to fill.
+     * @param length   The number of bytes to read, at most the capacity of the buffer.
+     * @param fileName The name of the snapshot file.
+     * @throws IOException If the file cannot be read or ends early.
+     */
+    private static void fill(FileChannel channel, ByteBuffer buffer, int length, String fileName) throws IOException {
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Snapshot file is truncated: " + fileName);
+            }
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,198 @@
+import java.util.List;
+
+/**
+ * StudentSorter class sorts students by their student numbers.
+ * <p>
+ * The student numbers are copied into a primitive long array and sorted with a
+ * least-significant-digit radix sort that carries an index permutation along with
+ * the keys. The list is then reordered in a single pass using that permutation, or,
+ * for a {@link StudentStore}, each of its columns is.
+ * </p>
+ * <p>
+ * Precondition: The list contains non-null Student objects.
+ * Postconditions: The students are in ascending order of student number and students
+ * with equal student numbers keep their original relative order (the sort is stable).
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class StudentSorter {
+
+    // Number of bits sorted in each radix pass and the matching bucket count
+    private static final int RADIX_BITS = 8;
+    private static final int BUCKETS = 1 << RADIX_BITS;
+    private static final int PASSES = Long.SIZE / RADIX_BITS;
+
+    // Below this size an insertion sort is cheaper than building the histograms
+    private static final int INSERTION_SORT_THRESHOLD = 64;
+
+    /**
+     * Private constructor, this class only contains static helper methods.
+     */
+    private StudentSorter() {
+    }
+
+    /**
+     * Describes the algorithm used to sort the given number of students.
+     *
+     * @param n The number of students.
+     * @return The name of the algorithm.
+     */
+    public static String algorithmFor(int n) {
+        if (n < 2) {
+            return "none";
+        }
+        return n < INSERTION_SORT_THRESHOLD ? "insertion sort" : "LSD radix sort, " + RADIX_BITS + " bit digits";
+    }
+
+    /**
+     * Sorts a list of Student objects by student number.
+     *
+     * @param students The list of Student objects to be sorted.
+     */
+    public static void sortByStudentNumber(List<Student> students) {
+        if (students instanceof StudentStore) {
+            ((StudentStore) students).sortByStudentNumber();
+            return;
+        }
+        int n = students.size();
+        if (n < 2) {
+            return;
+        }
+
+        // Pull the keys out once so the sort never touches the Student objects
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = students.get(i).getStudentNumber();
+        }
+
+        int[] order = sortedOrder(keys);
+
+        // Reorder the list in one pass using the permutation
+        Student[] original = students.toArray(new Student[n]);
+        for (int i = 0; i < n; i++) {
+            students.set(i, original[order[i]]);
+        }
+    }
+
+    /**
+     * Computes the stable sorted order of the given keys.
+     * <p>
+     * Postconditions: The keys array is left unchanged. Element i of the returned array
+     * is the position in keys of the i-th smallest key.
+     * </p>
+     *
+     * @param keys The keys to be ordered.
+     * @return The index permutation that sorts the keys in ascending order.
+     */
+    public static int[] sortedOrder(long[] keys) {
+        int n = keys.length;
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        if (n < 2) {
+            return order;
+        }
+
+        // Flip the sign bit so that negative numbers order before positive ones as unsigned values
+        long[] sortKeys = new long[n];
+        for (int i = 0; i < n; i++) {
+            sortKeys[i] = keys[i] ^ Long.MIN_VALUE;
+        }
+
+        if (n <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(sortKeys, order);
+            return order;
+        }
+
+        radixSort(sortKeys, order);
+        return order;
+    }
+
+    /**
+     * Sorts the keys with a stable LSD radix sort, moving the matching index with each key.
+     * Passes whose digit is identical for every key are skipped.
+     *
+     * @param keys  The unsigned keys to be sorted, reordered in place.
+     * @param order The index of each key, reordered in place alongside the keys.
+     */
+    private static void radixSort(long[] keys, int[] order) {
+        int n = keys.length;
+
+        // Build the histogram of every digit in a single pass over the keys
+        int[][] counts = new int[PASSES][BUCKETS];
+        for (int i = 0; i < n; i++) {
+            long key = keys[i];
+            for (int pass = 0; pass < PASSES; pass++) {
+                counts[pass][(int) (key >>> (pass * RADIX_BITS)) & (BUCKETS - 1)]++;
+            }
+        }
+
+        long[] srcKeys = keys;
+        int[] srcOrder = order;
+        long[] dstKeys = new long[n];
+        int[] dstOrder = new int[n];
+
+        for (int pass = 0; pass < PASSES; pass++) {
+            int[] count = counts[pass];
+            int shift = pass * RADIX_BITS;
+
+            // Skip the pass when every key has the same digit
+            if (count[(int) (srcKeys[0] >>> shift) & (BUCKETS - 1)] == n) {
+                continue;
+            }
+
+            // Turn the counts into starting offsets
+            int offset = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                int c = count[b];
+                count[b] = offset;
+                offset += c;
+            }
+
+            // Scatter in input order, which keeps equal digits stable
+            for (int i = 0; i < n; i++) {
+                long key = srcKeys[i];
+                int position = count[(int) (key >>> shift) & (BUCKETS - 1)]++;
+                dstKeys[position] = key;
+                dstOrder[position] = srcOrder[i];
+            }
+
+            long[] swapKeys = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = swapKeys;
+            int[] swapOrder = srcOrder;
+            srcOrder = dstOrder;
+            dstOrder = swapOrder;
+        }
+
+        // Copy back if the final pass left the result in the scratch arrays
+        if (srcOrder != order) {
+            System.arraycopy(srcKeys, 0, keys, 0, n);
+            System.arraycopy(srcOrder, 0, order, 0, n);
+        }
+    }
+
+    /**
+     * Stable insertion sort used for small inputs.
+     *
+     * @param keys  The unsigned keys to be sorted, reordered in place.
+     * @param order The index of each key, reordered in place alongside the keys.
+     */
+    private static void insertionSort(long[] keys, int[] order) {
+        for (int i = 1; i < keys.length; i++) {
+            long key = keys[i];
+            int index = order[i];
+            int j = i - 1;
+            while (j >= 0 && Long.compareUnsigned(keys[j], key) > 0) {
+                keys[j + 1] = keys[j];
+                order[j + 1] = order[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            order[j + 1] = index;
+        }
+    }
+}
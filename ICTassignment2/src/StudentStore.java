@@ -0,0 +1,1138 @@
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * StudentStore class keeps students in columns (struct of arrays) instead of one
+ * Student object per row.
+ * <p>
+ * Student numbers are kept in a long array and the level and each mark in a byte array.
+ * The level column is only widened to an int array when a level does not fit in a byte.
+ * First names, last names and unit IDs are dictionary-encoded: each row keeps an int code
+ * and every distinct String is stored once in a {@link StringDictionary}. A row takes
+ * about 25 bytes plus its share of the dictionaries, compared with well over 200 bytes
+ * for a Student_Course and its Unit_Course. Removing rows rebuilds a dictionary once
+ * less than half of its Strings are still used, so the dictionaries do not keep every
+ * String the store has ever held.
+ * </p>
+ * <p>
+ * Course work rows use the three mark columns for assignment 1, assignment 2 and the
+ * final exam. Research rows use the first two for the proposal and dissertation marks.
+ * Sorting and grade calculations run directly on the columns; a Student object is only
+ * created when {@link #getStudent(int)} is called for a row.
+ * </p>
+ * <p>
+ * The store is also a List of students, which is how the menu keeps its students: the
+ * indexes, statistics and reports work on it like on any list, while only the columns
+ * stay in memory. {@link #get(int)} creates a read-only Student for the row: its setters,
+ * and those of its course, throw an UnsupportedOperationException, because a change to
+ * it could not reach the columns. Rows are changed with {@link #set(int, Student)}, and
+ * {@link #getStudent(int)} creates a Student that may be changed freely. Every get
+ * creates two small objects, so students of a store are compared by value (see
+ * {@link StudentJournal#sameStudent(Student, Student)}), never by identity, and code that
+ * runs over every row, such as sorting, the indexes and the grade statistics, reads the
+ * columns directly, for example through {@link #studentNumberAt(List, int)}.
+ * </p>
+ * <p>
+ * {@link #remove(int)} keeps the row order of a List, so it moves every later row up and
+ * costs time in proportion to the rows after it. {@link #removeRows(int[])} removes any
+ * number of rows in a single pass, and is what the menu uses.
+ * </p>
+ * <p>
+ * The store gives its rows the stable ids of a {@link RowIdMap} and keeps the map up to
+ * date as rows are added and removed, so the indexes tracking the store share one map
+ * instead of each keeping its own (see {@link #getRowIds()}). Sorting, removing several
+ * rows at once, or retiring more ids than there are rows starts a new map.
+ * </p>
+ * <p>
+ * The store can be filled straight from a {@link StudentCsvParser}. Like the Unit_Course
+ * and Research_Course setters, it throws an {@link IllegalMarkException} for a mark
+ * outside 0 to 100.
+ * </p>
+ * <p>
+ * Precondition: The store is not read while it is being changed, and a Student added to
+ * it has a unit course or a research course.
+ * Postconditions: Rows are numbered from 0 to size() - 1 in the order they were added,
+ * until the store is sorted.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class StudentStore extends AbstractList<Student> implements RandomAccess, StudentCsvParser.RowHandler {
+
+    /**
+     * Enrolment type code of a course work row.
+     */
+    public static final byte COURSE_WORK = 'C';
+
+    /**
+     * Enrolment type code of a research row.
+     */
+    public static final byte RESEARCH = 'R';
+
+    // Code stored in the unit ID column of research rows
+    private static final int NO_UNIT = -1;
+    private static final int MAX_MARK = 100;
+    private static final int INITIAL_CAPACITY = 16;
+
+    // A dictionary is only rebuilt when it holds more Strings than this
+    private static final int MIN_DICTIONARY_REBUILD = 1024;
+
+    // The columns, only the first size entries are used
+    private long[] studentNumbers;
+    private byte[] enrolmentTypes;
+    private int[] firstNames;
+    private int[] lastNames;
+    private int[] unitIDs;
+    private byte[] levels;
+    private int[] wideLevels;
+    private byte[] markA;
+    private byte[] markB;
+    private byte[] markC;
+    private int size;
+
+    // Dictionaries for the String columns, rebuilt when rows are removed
+    private StringDictionary firstNameDictionary = new StringDictionary();
+    private StringDictionary lastNameDictionary = new StringDictionary();
+    private StringDictionary unitIDDictionary = new StringDictionary();
+
+    // Whether the rows are in ascending student number order
+    private boolean sorted = true;
+
+    // Stable ids of the rows, shared by the indexes tracking the store
+    private RowIdMap rowIds = new RowIdMap(0);
+
+    /**
+     * Constructs an empty store.
+     */
+    public StudentStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty store with room for the given number of rows.
+     *
+     * @param capacity The number of rows to make room for.
+     */
+    public StudentStore(int capacity) {
+        capacity = Math.max(capacity, INITIAL_CAPACITY);
+        studentNumbers = new long[capacity];
+        enrolmentTypes = new byte[capacity];
+        firstNames = new int[capacity];
+        lastNames = new int[capacity];
+        unitIDs = new int[capacity];
+        levels = new byte[capacity];
+        markA = new byte[capacity];
+        markB = new byte[capacity];
+        markC = new byte[capacity];
+    }
+
+    /**
+     * Creates a store holding the given students, in the same order. A store is copied
+     * column by column, without creating any Student objects.
+     *
+     * @param students The students to copy into the store.
+     * @return The new store.
+     * @throws IllegalArgumentException If a student cannot be stored, see {@link #add(Student)}.
+     */
+    public static StudentStore fromStudents(List<Student> students) {
+        if (students instanceof StudentStore) {
+            return ((StudentStore) students).copy();
+        }
+        StudentStore store = new StudentStore(students.size());
+        for (Student student : students) {
+            store.add(student);
+        }
+        return store;
+    }
+
+    /**
+     * Gets the student number of a row of a list of students. For a store the number is
+     * read from its column, without creating a Student.
+     *
+     * @param students The list of students.
+     * @param row      The row number.
+     * @return The student number.
+     */
+    public static long studentNumberAt(List<Student> students, int row) {
+        if (students instanceof StudentStore) {
+            return ((StudentStore) students).getStudentNumber(row);
+        }
+        return students.get(row).getStudentNumber();
+    }
+
+    /**
+     * Appends a Student_Course or Student_Research to the store.
+     *
+     * @param student The student to add.
+     * @return true, as the store always changes.
+     * @throws IllegalArgumentException If the student has no unit course or research
+     *                                  course, which the columns cannot hold.
+     */
+    @Override
+    public boolean add(Student student) {
+        byte enrolmentType = enrolmentTypeOf(student);
+        int row = newRow(student.getStudentNumber());
+        setRow(row, enrolmentType, student);
+        return true;
+    }
+
+    /**
+     * Adds a copy of a row of a list of students. A row of a store is copied column by
+     * column, without creating a Student.
+     *
+     * @param students The list holding the row.
+     * @param row      The row number.
+     */
+    public void addRow(List<Student> students, int row) {
+        if (!(students instanceof StudentStore)) {
+            add(students.get(row));
+            return;
+        }
+        StudentStore from = (StudentStore) students;
+        int to = newRow(from.studentNumbers[row]);
+        setNames(to, from.studentNumbers[row], from.enrolmentTypes[row], from.getFirstName(row), from.getLastName(row));
+        unitIDs[to] = from.unitIDs[row] == NO_UNIT ? NO_UNIT : unitIDDictionary.encode(from.getUnitID(row));
+        setLevel(to, from.getLevel(row));
+        markA[to] = from.markA[row];
+        markB[to] = from.markB[row];
+        markC[to] = from.markC[row];
+    }
+
+    /**
+     * Creates a read-only Student object for a row. Its setters and those of its course
+     * throw an UnsupportedOperationException; use {@link #set(int, Student)} to change
+     * the row, or {@link #getStudent(int)} for a copy that can be changed.
+     *
+     * @param row The row number.
+     * @return A read-only Student_Course or Student_Research for the row.
+     */
+    @Override
+    public Student get(int row) {
+        Objects.checkIndex(row, size);
+        if (enrolmentTypes[row] == COURSE_WORK) {
+            return new ReadOnlyStudentCourse(getFirstName(row), getLastName(row), studentNumbers[row],
+                    new ReadOnlyUnitCourse(getUnitID(row), getLevel(row), markA[row], markB[row], markC[row]));
+        }
+        return new ReadOnlyStudentResearch(getFirstName(row), getLastName(row), studentNumbers[row],
+                new ReadOnlyResearchCourse(markA[row], markB[row]));
+    }
+
+    /**
+     * Replaces a row with a Student_Course or Student_Research.
+     *
+     * @param row     The row number.
+     * @param student The student to store in the row.
+     * @return A Student object holding a copy of the row as it was.
+     * @throws IllegalArgumentException If the student has no unit course or research
+     *                                  course, which the columns cannot hold.
+     */
+    @Override
+    public Student set(int row, Student student) {
+        Objects.checkIndex(row, size);
+        byte enrolmentType = enrolmentTypeOf(student);
+        Student replaced = getStudent(row);
+        setRow(row, enrolmentType, student);
+        long studentNumber = studentNumbers[row];
+        if ((row > 0 && studentNumber < studentNumbers[row - 1])
+                || (row + 1 < size && studentNumber > studentNumbers[row + 1])) {
+            sorted = false;
+        }
+        return replaced;
+    }
+
+    /**
+     * Removes a row, moving every later row up by one, so a sorted store stays sorted.
+     * Use {@link #removeRows(int[])} to remove more than one row.
+     *
+     * @param row The row number.
+     * @return A Student object holding a copy of the removed row.
+     */
+    @Override
+    public Student remove(int row) {
+        Objects.checkIndex(row, size);
+        Student removed = getStudent(row);
+        removeRange(row, row + 1);
+        return removed;
+    }
+
+    /**
+     * Removes several rows in one pass, moving the remaining rows up in order.
+     *
+     * @param rows The row numbers to remove, in ascending order.
+     */
+    public void removeRows(int[] rows) {
+        int kept = 0;
+        int next = 0;
+        for (int row = 0; row < size; row++) {
+            if (next < rows.length && rows[next] == row) {
+                next++;
+            } else {
+                if (kept != row) {
+                    copyRow(row, kept);
+                }
+                kept++;
+            }
+        }
+        size = kept;
+        modCount++;
+        rowIds = new RowIdMap(size);
+        rebuildDictionaries();
+    }
+
+    /**
+     * Adds a course work row.
+     */
+    @Override
+    public void courseWorkRow(String firstName, String lastName, long studentNumber, String unitID,
+            int level, int assignment1Mark, int assignment2Mark, int finalExamMark) {
+        setCourseWorkRow(newRow(studentNumber), firstName, lastName, studentNumber, unitID, level,
+                assignment1Mark, assignment2Mark, finalExamMark);
+    }
+
+    /**
+     * Adds a research row.
+     */
+    @Override
+    public void researchRow(String firstName, String lastName, long studentNumber,
+            int proposalMark, int dissertationMark) {
+        setResearchRow(newRow(studentNumber), firstName, lastName, studentNumber, proposalMark, dissertationMark);
+    }
+
+    /**
+     * Adds a row whose names and unit ID are already codes of the store's dictionaries, so
+     * no String is looked up for the row. A {@link StudentSnapshot} restores its rows this
+     * way, encoding each distinct String once.
+     *
+     * @param studentNumber  The student number.
+     * @param enrolmentType  COURSE_WORK or RESEARCH.
+     * @param firstNameCode  The code of the first name in {@link #getFirstNameDictionary()}.
+     * @param lastNameCode   The code of the last name in {@link #getLastNameDictionary()}.
+     * @param unitIDCode     The code of the unit ID in {@link #getUnitIDDictionary()}, or -1
+     *                       for none.
+     * @param level          The level of a course work row.
+     * @param firstMark      Assignment 1 or the proposal mark.
+     * @param secondMark     Assignment 2 or the dissertation mark.
+     * @param thirdMark      The final exam mark of a course work row.
+     * @throws IllegalMarkException If a mark is outside 0 to 100.
+     */
+    public void encodedRow(long studentNumber, byte enrolmentType, int firstNameCode, int lastNameCode,
+            int unitIDCode, int level, int firstMark, int secondMark, int thirdMark) {
+        boolean courseWork = enrolmentType == COURSE_WORK;
+        int row = newRow(studentNumber);
+        studentNumbers[row] = studentNumber;
+        enrolmentTypes[row] = courseWork ? COURSE_WORK : RESEARCH;
+        firstNames[row] = firstNameCode;
+        lastNames[row] = lastNameCode;
+        unitIDs[row] = courseWork && unitIDCode >= 0 ? unitIDCode : NO_UNIT;
+        setLevel(row, courseWork ? level : 0);
+        markA[row] = validMark(firstMark);
+        markB[row] = validMark(secondMark);
+        markC[row] = courseWork ? validMark(thirdMark) : 0;
+    }
+
+    /**
+     * Prints the message of a rejected row.
+     */
+    @Override
+    public void invalidRow(String message) {
+        System.out.println(message);
+    }
+
+    /**
+     * Gets the number of rows in the store.
+     *
+     * @return The number of rows.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the student number of a row.
+     *
+     * @param row The row number.
+     * @return The student number.
+     */
+    public long getStudentNumber(int row) {
+        return studentNumbers[row];
+    }
+
+    /**
+     * Gets the enrolment type of a row.
+     *
+     * @param row The row number.
+     * @return COURSE_WORK or RESEARCH.
+     */
+    public byte getEnrolmentType(int row) {
+        return enrolmentTypes[row];
+    }
+
+    /**
+     * Gets the first name of a row.
+     *
+     * @param row The row number.
+     * @return The first name.
+     */
+    public String getFirstName(int row) {
+        return firstNameDictionary.decode(firstNames[row]);
+    }
+
+    /**
+     * Gets the last name of a row.
+     *
+     * @param row The row number.
+     * @return The last name.
+     */
+    public String getLastName(int row) {
+        return lastNameDictionary.decode(lastNames[row]);
+    }
+
+    /**
+     * Gets the unit ID of a course work row.
+     *
+     * @param row The row number.
+     * @return The unit ID, or null for a research row.
+     */
+    public String getUnitID(int row) {
+        return unitIDs[row] == NO_UNIT ? null : unitIDDictionary.decode(unitIDs[row]);
+    }
+
+    /**
+     * Gets the unit level of a course work row.
+     *
+     * @param row The row number.
+     * @return The level, 0 for a research row.
+     */
+    public int getLevel(int row) {
+        return wideLevels == null ? levels[row] : wideLevels[row];
+    }
+
+    /**
+     * Gets the first assignment mark of a course work row, or the proposal mark of a
+     * research row.
+     *
+     * @param row The row number.
+     * @return The mark.
+     */
+    public int getMarkA(int row) {
+        return markA[row];
+    }
+
+    /**
+     * Gets the second assignment mark of a course work row, or the final dissertation
+     * mark of a research row.
+     *
+     * @param row The row number.
+     * @return The mark.
+     */
+    public int getMarkB(int row) {
+        return markB[row];
+    }
+
+    /**
+     * Gets the final exam mark of a course work row.
+     *
+     * @param row The row number.
+     * @return The mark, 0 for a research row.
+     */
+    public int getMarkC(int row) {
+        return markC[row];
+    }
+
+    /**
+     * Gets the dictionary code of the first name of a row.
+     *
+     * @param row The row number.
+     * @return The code in the first name dictionary.
+     */
+    public int getFirstNameCode(int row) {
+        return firstNames[row];
+    }
+
+    /**
+     * Gets the dictionary code of the last name of a row.
+     *
+     * @param row The row number.
+     * @return The code in the last name dictionary.
+     */
+    public int getLastNameCode(int row) {
+        return lastNames[row];
+    }
+
+    /**
+     * Gets the dictionary code of the unit ID of a row.
+     *
+     * @param row The row number.
+     * @return The code in the unit ID dictionary, or -1 for a research row.
+     */
+    public int getUnitIDCode(int row) {
+        return unitIDs[row];
+    }
+
+    /**
+     * Gets the dictionary of first names.
+     *
+     * @return The first name dictionary.
+     */
+    public StringDictionary getFirstNameDictionary() {
+        return firstNameDictionary;
+    }
+
+    /**
+     * Gets the dictionary of last names.
+     *
+     * @return The last name dictionary.
+     */
+    public StringDictionary getLastNameDictionary() {
+        return lastNameDictionary;
+    }
+
+    /**
+     * Gets the dictionary of unit IDs.
+     *
+     * @return The unit ID dictionary.
+     */
+    public StringDictionary getUnitIDDictionary() {
+        return unitIDDictionary;
+    }
+
+    /**
+     * Calculates the overall mark of a row in hundredths of a mark, using the same
+     * weights as Unit_Course and Research_Course. Integer arithmetic keeps it exact.
+     *
+     * @param row The row number.
+     * @return The overall mark multiplied by 100.
+     */
+    public int getOverallMarkHundredths(int row) {
+        if (enrolmentTypes[row] == COURSE_WORK) {
+            return 25 * markA[row] + 25 * markB[row] + 50 * markC[row];
+        }
+        return 35 * markA[row] + 65 * markB[row];
+    }
+
+    /**
+     * Gets the final grade of a row from the grade lookup table.
+     *
+     * @param row The row number.
+     * @return The final grade.
+     */
+    public Grade getGrade(int row) {
+        return Grade.of(getOverallMarkHundredths(row));
+    }
+
+    /**
+     * Creates a Student object holding a copy of a row. The store itself keeps no
+     * Student objects, so changes to the returned object do not change the store; unlike
+     * {@link #get(int)}, the object can be changed.
+     *
+     * @param row The row number.
+     * @return A Student_Course or Student_Research for the row.
+     */
+    public Student getStudent(int row) {
+        if (enrolmentTypes[row] == COURSE_WORK) {
+            Student_Course student = new Student_Course("C", getFirstName(row), getLastName(row), studentNumbers[row]);
+            student.setUnitCourse(new Unit_Course(getUnitID(row), getLevel(row), markA[row], markB[row], markC[row]));
+            return student;
+        }
+        Student_Research student = new Student_Research("R", getFirstName(row), getLastName(row), studentNumbers[row]);
+        student.setResearchCourse(new Research_Course(markA[row], markB[row]));
+        return student;
+    }
+
+    /**
+     * Creates a store holding a copy of the rows, copying the columns and dictionaries
+     * rather than creating Student objects.
+     *
+     * @return The new store.
+     */
+    public StudentStore copy() {
+        StudentStore copy = new StudentStore(size);
+        System.arraycopy(studentNumbers, 0, copy.studentNumbers, 0, size);
+        System.arraycopy(enrolmentTypes, 0, copy.enrolmentTypes, 0, size);
+        System.arraycopy(firstNames, 0, copy.firstNames, 0, size);
+        System.arraycopy(lastNames, 0, copy.lastNames, 0, size);
+        System.arraycopy(unitIDs, 0, copy.unitIDs, 0, size);
+        if (wideLevels == null) {
+            System.arraycopy(levels, 0, copy.levels, 0, size);
+        } else {
+            copy.widenLevels();
+            System.arraycopy(wideLevels, 0, copy.wideLevels, 0, size);
+        }
+        System.arraycopy(markA, 0, copy.markA, 0, size);
+        System.arraycopy(markB, 0, copy.markB, 0, size);
+        System.arraycopy(markC, 0, copy.markC, 0, size);
+        // Codes are handed out in order, so encoding the values in code order keeps every code
+        copyDictionary(firstNameDictionary, copy.firstNameDictionary);
+        copyDictionary(lastNameDictionary, copy.lastNameDictionary);
+        copyDictionary(unitIDDictionary, copy.unitIDDictionary);
+        copy.size = size;
+        copy.sorted = sorted;
+        copy.rowIds = new RowIdMap(size);
+        return copy;
+    }
+
+    /**
+     * Creates Student objects for every row, in row order.
+     *
+     * @return The students.
+     */
+    public ArrayList<Student> toStudents() {
+        ArrayList<Student> students = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            students.add(getStudent(row));
+        }
+        return students;
+    }
+
+    /**
+     * Gets the stable ids of the rows. The map is changed by the store as rows are added
+     * and removed, and replaced by a new map when the rows are reordered, so an index
+     * sharing it checks that it is still the store's map before using its ids.
+     *
+     * @return The map of the rows.
+     */
+    public RowIdMap getRowIds() {
+        return rowIds;
+    }
+
+    /**
+     * Checks whether the rows are in ascending student number order.
+     *
+     * @return true if the store is sorted, false otherwise.
+     */
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    /**
+     * Sorts the rows by student number. The sort is stable, so rows with the same student
+     * number keep their order. Every column is reordered with the same permutation.
+     */
+    public void sortByStudentNumber() {
+        if (sorted) {
+            return;
+        }
+        int[] order = StudentSorter.sortedOrder(Arrays.copyOf(studentNumbers, size));
+
+        studentNumbers = permute(studentNumbers, order);
+        enrolmentTypes = permute(enrolmentTypes, order);
+        firstNames = permute(firstNames, order);
+        lastNames = permute(lastNames, order);
+        unitIDs = permute(unitIDs, order);
+        if (wideLevels == null) {
+            levels = permute(levels, order);
+        } else {
+            wideLevels = permute(wideLevels, order);
+        }
+        markA = permute(markA, order);
+        markB = permute(markB, order);
+        markC = permute(markC, order);
+        sorted = true;
+        rowIds = new RowIdMap(size);
+    }
+
+    /**
+     * Removes the rows from one row up to another, moving the later rows up. Removing one
+     * row retires its id, the later rows keep theirs.
+     *
+     * @param fromRow The first row to remove.
+     * @param toRow   The row after the last one to remove.
+     */
+    @Override
+    protected void removeRange(int fromRow, int toRow) {
+        boolean oneRow = toRow - fromRow == 1;
+        if (oneRow) {
+            rowIds.retire(rowIds.idOf(fromRow));
+        }
+        int moved = size - toRow;
+        System.arraycopy(studentNumbers, toRow, studentNumbers, fromRow, moved);
+        System.arraycopy(enrolmentTypes, toRow, enrolmentTypes, fromRow, moved);
+        System.arraycopy(firstNames, toRow, firstNames, fromRow, moved);
+        System.arraycopy(lastNames, toRow, lastNames, fromRow, moved);
+        System.arraycopy(unitIDs, toRow, unitIDs, fromRow, moved);
+        Object levelColumn = wideLevels == null ? levels : wideLevels;
+        System.arraycopy(levelColumn, toRow, levelColumn, fromRow, moved);
+        System.arraycopy(markA, toRow, markA, fromRow, moved);
+        System.arraycopy(markB, toRow, markB, fromRow, moved);
+        System.arraycopy(markC, toRow, markC, fromRow, moved);
+        size -= toRow - fromRow;
+        modCount++;
+        if (!oneRow || rowIds.getRetiredCount() > rowIds.size()) {
+            rowIds = new RowIdMap(size);
+        }
+        rebuildDictionaries();
+    }
+
+    /**
+     * Starts a new row at the end of the store.
+     *
+     * @param studentNumber The student number of the new row.
+     * @return The new row number.
+     */
+    private int newRow(long studentNumber) {
+        if (size == studentNumbers.length) {
+            grow();
+        }
+        int row = size++;
+        modCount++;
+        rowIds.append();
+        if (row > 0 && studentNumber < studentNumbers[row - 1]) {
+            sorted = false;
+        }
+        return row;
+    }
+
+    /**
+     * Gets the enrolment type a student is stored with.
+     *
+     * @param student The student.
+     * @return COURSE_WORK or RESEARCH.
+     * @throws IllegalArgumentException If the student has no unit course or research
+     *                                  course, which the columns cannot hold.
+     */
+    private static byte enrolmentTypeOf(Student student) {
+        if (student instanceof Student_Course && ((Student_Course) student).getUnitCourse() != null) {
+            return COURSE_WORK;
+        }
+        if (student instanceof Student_Research && ((Student_Research) student).getResearchCourse() != null) {
+            return RESEARCH;
+        }
+        throw new IllegalArgumentException("Student " + student.getStudentNumber()
+                + " has no unit course or research course to store");
+    }
+
+    /**
+     * Stores a student in a row.
+     *
+     * @param row           The row number.
+     * @param enrolmentType The enrolment type from enrolmentTypeOf.
+     * @param student       The student.
+     */
+    private void setRow(int row, byte enrolmentType, Student student) {
+        if (enrolmentType == COURSE_WORK) {
+            Unit_Course unitCourse = ((Student_Course) student).getUnitCourse();
+            setCourseWorkRow(row, student.getFirstName(), student.getLastName(), student.getStudentNumber(),
+                    unitCourse.getUnitID(), unitCourse.getLevel(), unitCourse.getAssignment1Mark(),
+                    unitCourse.getAssignment2Mark(), unitCourse.getFinalExamMark());
+        } else {
+            Research_Course researchCourse = ((Student_Research) student).getResearchCourse();
+            setResearchRow(row, student.getFirstName(), student.getLastName(), student.getStudentNumber(),
+                    researchCourse.getProposalMark(), researchCourse.getFinalDissertationMark());
+        }
+    }
+
+    /**
+     * Fills a row with a course work student.
+     */
+    private void setCourseWorkRow(int row, String firstName, String lastName, long studentNumber, String unitID,
+            int level, int assignment1Mark, int assignment2Mark, int finalExamMark) {
+        setNames(row, studentNumber, COURSE_WORK, firstName, lastName);
+        unitIDs[row] = unitIDDictionary.encode(unitID);
+        setLevel(row, level);
+        markA[row] = validMark(assignment1Mark);
+        markB[row] = validMark(assignment2Mark);
+        markC[row] = validMark(finalExamMark);
+    }
+
+    /**
+     * Fills a row with a research student.
+     */
+    private void setResearchRow(int row, String firstName, String lastName, long studentNumber,
+            int proposalMark, int dissertationMark) {
+        setNames(row, studentNumber, RESEARCH, firstName, lastName);
+        unitIDs[row] = NO_UNIT;
+        setLevel(row, 0);
+        markA[row] = validMark(proposalMark);
+        markB[row] = validMark(dissertationMark);
+        markC[row] = 0;
+    }
+
+    /**
+     * Fills the columns shared by both enrolment types.
+     *
+     * @param row           The row number.
+     * @param studentNumber The student number.
+     * @param enrolmentType COURSE_WORK or RESEARCH.
+     * @param firstName     The first name.
+     * @param lastName      The last name.
+     */
+    private void setNames(int row, long studentNumber, byte enrolmentType, String firstName, String lastName) {
+        studentNumbers[row] = studentNumber;
+        enrolmentTypes[row] = enrolmentType;
+        firstNames[row] = firstNameDictionary.encode(firstName);
+        lastNames[row] = lastNameDictionary.encode(lastName);
+    }
+
+    /**
+     * Stores the level of a row, widening the level column to ints the first time a level
+     * does not fit in a byte.
+     *
+     * @param row   The row number.
+     * @param level The level.
+     */
+    private void setLevel(int row, int level) {
+        if (wideLevels == null && level != (byte) level) {
+            widenLevels();
+        }
+        if (wideLevels == null) {
+            levels[row] = (byte) level;
+        } else {
+            wideLevels[row] = level;
+        }
+    }
+
+    /**
+     * Replaces the byte level column with an int column holding the same levels.
+     */
+    private void widenLevels() {
+        wideLevels = new int[levels.length];
+        for (int row = 0; row < levels.length; row++) {
+            wideLevels[row] = levels[row];
+        }
+        levels = null;
+    }
+
+    /**
+     * Rebuilds each dictionary that holds more than twice as many Strings as there are
+     * rows. At least half of such a dictionary is no longer used, so the rebuilds take no
+     * more time overall than the removals that left the Strings unused.
+     */
+    private void rebuildDictionaries() {
+        if (needsRebuild(firstNameDictionary)) {
+            firstNameDictionary = rebuildDictionary(firstNameDictionary, firstNames);
+        }
+        if (needsRebuild(lastNameDictionary)) {
+            lastNameDictionary = rebuildDictionary(lastNameDictionary, lastNames);
+        }
+        if (needsRebuild(unitIDDictionary)) {
+            unitIDDictionary = rebuildDictionary(unitIDDictionary, unitIDs);
+        }
+    }
+
+    /**
+     * Checks whether a dictionary holds enough unused Strings to be rebuilt.
+     *
+     * @param dictionary The dictionary.
+     * @return true if it should be rebuilt, false otherwise.
+     */
+    private boolean needsRebuild(StringDictionary dictionary) {
+        return dictionary.size() > MIN_DICTIONARY_REBUILD && dictionary.size() > size * 2L;
+    }
+
+    /**
+     * Creates a dictionary of the Strings a column still uses and gives the rows their
+     * new codes.
+     *
+     * @param dictionary The dictionary of the column.
+     * @param column     The column of codes.
+     * @return The new dictionary.
+     */
+    private StringDictionary rebuildDictionary(StringDictionary dictionary, int[] column) {
+        StringDictionary rebuilt = new StringDictionary();
+        // The new code of each old code, NO_UNIT until a row using it is found
+        int[] newCodes = new int[dictionary.size()];
+        Arrays.fill(newCodes, NO_UNIT);
+        for (int row = 0; row < size; row++) {
+            int code = column[row];
+            if (code == NO_UNIT) {
+                continue;
+            }
+            if (newCodes[code] == NO_UNIT) {
+                newCodes[code] = rebuilt.encode(dictionary.decode(code));
+            }
+            column[row] = newCodes[code];
+        }
+        return rebuilt;
+    }
+
+    /**
+     * Copies every column of one row to another.
+     *
+     * @param from The row to copy.
+     * @param to   The row to overwrite.
+     */
+    private void copyRow(int from, int to) {
+        studentNumbers[to] = studentNumbers[from];
+        enrolmentTypes[to] = enrolmentTypes[from];
+        firstNames[to] = firstNames[from];
+        lastNames[to] = lastNames[from];
+        unitIDs[to] = unitIDs[from];
+        if (wideLevels == null) {
+            levels[to] = levels[from];
+        } else {
+            wideLevels[to] = wideLevels[from];
+        }
+        markA[to] = markA[from];
+        markB[to] = markB[from];
+        markC[to] = markC[from];
+    }
+
+    /**
+     * Encodes every value of a dictionary into an empty one, in code order.
+     *
+     * @param from The dictionary to copy.
+     * @param to   The empty dictionary.
+     */
+    private static void copyDictionary(StringDictionary from, StringDictionary to) {
+        for (int code = 0; code < from.size(); code++) {
+            to.encode(from.decode(code));
+        }
+    }
+
+    /**
+     * Checks a mark the same way the mark setters do, so that it fits a byte column.
+     *
+     * @param mark The mark to check.
+     * @return The mark.
+     * @throws IllegalMarkException If the mark is outside 0 to MAX_MARK.
+     */
+    private static byte validMark(int mark) {
+        if (mark < 0 || mark > MAX_MARK) {
+            throw new IllegalMarkException("Mark must be between 0 and " + MAX_MARK);
+        }
+        return (byte) mark;
+    }
+
+    /**
+     * Grows every column by half.
+     */
+    private void grow() {
+        int capacity = studentNumbers.length + (studentNumbers.length >> 1);
+        studentNumbers = Arrays.copyOf(studentNumbers, capacity);
+        enrolmentTypes = Arrays.copyOf(enrolmentTypes, capacity);
+        firstNames = Arrays.copyOf(firstNames, capacity);
+        lastNames = Arrays.copyOf(lastNames, capacity);
+        unitIDs = Arrays.copyOf(unitIDs, capacity);
+        if (wideLevels == null) {
+            levels = Arrays.copyOf(levels, capacity);
+        } else {
+            wideLevels = Arrays.copyOf(wideLevels, capacity);
+        }
+        markA = Arrays.copyOf(markA, capacity);
+        markB = Arrays.copyOf(markB, capacity);
+        markC = Arrays.copyOf(markC, capacity);
+    }
+
+    /**
+     * Reorders a long column.
+     *
+     * @param column The column.
+     * @param order  The row of the old column to place at each position.
+     * @return The reordered column.
+     */
+    private long[] permute(long[] column, int[] order) {
+        long[] result = new long[column.length];
+        for (int i = 0; i < size; i++) {
+            result[i] = column[order[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Reorders an int column.
+     *
+     * @param column The column.
+     * @param order  The row of the old column to place at each position.
+     * @return The reordered column.
+     */
+    private int[] permute(int[] column, int[] order) {
+        int[] result = new int[column.length];
+        for (int i = 0; i < size; i++) {
+            result[i] = column[order[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Reorders a byte column.
+     *
+     * @param column The column.
+     * @param order  The row of the old column to place at each position.
+     * @return The reordered column.
+     */
+    private byte[] permute(byte[] column, int[] order) {
+        byte[] result = new byte[column.length];
+        for (int i = 0; i < size; i++) {
+            result[i] = column[order[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Creates the exception thrown by the setters of a read-only student.
+     *
+     * @return The exception.
+     */
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("A student read from a StudentStore cannot be changed;"
+                + " use StudentStore.set to change the row");
+    }
+
+    /**
+     * A course work student created by {@link StudentStore#get(int)}, whose setters throw.
+     */
+    private static final class ReadOnlyStudentCourse extends Student_Course {
+
+        ReadOnlyStudentCourse(String firstName, String lastName, long studentNumber, Unit_Course unitCourse) {
+            super("C", firstName, lastName, studentNumber);
+            super.setUnitCourse(unitCourse);
+        }
+
+        @Override
+        public void setFirstName(String firstName) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setLastName(String lastName) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setStudentNumber(long studentNumber) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setEnrolmentType(String enrolmentType) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setUnitCourse(Unit_Course unitCourse) {
+            throw readOnly();
+        }
+    }
+
+    /**
+     * A research student created by {@link StudentStore#get(int)}, whose setters throw.
+     */
+    private static final class ReadOnlyStudentResearch extends Student_Research {
+
+        ReadOnlyStudentResearch(String firstName, String lastName, long studentNumber, Research_Course researchCourse) {
+            super("R", firstName, lastName, studentNumber);
+            super.setResearchCourse(researchCourse);
+        }
+
+        @Override
+        public void setFirstName(String firstName) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setLastName(String lastName) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setStudentNumber(long studentNumber) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setEnrolmentType(String enrolmentType) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setResearchCourse(Research_Course researchCourse) {
+            throw readOnly();
+        }
+    }
+
+    /**
+     * The unit course of a {@link ReadOnlyStudentCourse}, whose setters throw once it has
+     * been constructed.
+     */
+    private static final class ReadOnlyUnitCourse extends Unit_Course {
+
+        // false while the Unit_Course constructor sets the marks through the setters
+        private final boolean constructed;
+
+        ReadOnlyUnitCourse(String unitID, int level, int assignment1Mark, int assignment2Mark, int finalExamMark) {
+            super(unitID, level, assignment1Mark, assignment2Mark, finalExamMark);
+            constructed = true;
+        }
+
+        @Override
+        public void setUnitID(String unitID) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setLevel(int level) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setAssignment1Mark(int assignment1Mark) {
+            if (constructed) {
+                throw readOnly();
+            }
+            super.setAssignment1Mark(assignment1Mark);
+        }
+
+        @Override
+        public void setAssignment2Mark(int assignment2Mark) {
+            if (constructed) {
+                throw readOnly();
+            }
+            super.setAssignment2Mark(assignment2Mark);
+        }
+
+        @Override
+        public void setFinalExamMark(int finalExamMark) {
+            if (constructed) {
+                throw readOnly();
+            }
+            super.setFinalExamMark(finalExamMark);
+        }
+
+        @Override
+        public void setEnrolmentType(String enrolmentType) {
+            throw readOnly();
+        }
+    }
+
+    /**
+     * The research course of a {@link ReadOnlyStudentResearch}, whose setters throw once
+     * it has been constructed.
+     */
+    private static final class ReadOnlyResearchCourse extends Research_Course {
+
+        // false while the Research_Course constructor sets the marks through the setters
+        private final boolean constructed;
+
+        ReadOnlyResearchCourse(int proposalMark, int finalDissertationMark) {
+            super(proposalMark, finalDissertationMark);
+            constructed = true;
+        }
+
+        @Override
+        public void setProposalMark(int proposalMark) {
+            if (constructed) {
+                throw readOnly();
+            }
+            super.setProposalMark(proposalMark);
+        }
+
+        @Override
+        public void setFinalDissertationMark(int finalDissertationMark) {
+            if (constructed) {
+                throw readOnly();
+            }
+            super.setFinalDissertationMark(finalDissertationMark);
+        }
+
+        @Override
+        public void setEnrolmentType(String enrolmentType) {
+            throw readOnly();
+        }
+    }
+}
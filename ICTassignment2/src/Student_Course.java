@@ -53,19 +53,23 @@ public class Student_Course extends Student {
     }
 
     /**
-     * Overrides the reportGrade method in the superclass (Student).
-     * Displays information about the student and their unit course, including unit ID,
-     * unit level, overall mark, and final grade.
+     * Overrides the appendGradeReport method in the superclass (Student).
+     * Appends the student details followed by the unit ID, unit level, overall mark,
+     * and final grade of their unit course.
+     *
+     * @param text The buffer to append to.
+     * @return The buffer.
      */
     @Override
-    public void reportGrade() {
-        // Call the display method from the superclass (Student)
-        display();
+    public StringBuilder appendGradeReport(StringBuilder text) {
+        // Append the details from the superclass (Student)
+        appendDetails(text);
 
-        // Display additional information about the unit course
-        System.out.println("Unit ID: " + unitCourse.getUnitID() + "\n"
-                + "Unit level: " + unitCourse.getLevel() + "\n"
-                + "The Overall mark: " + unitCourse.overallMark() + "\n"
-                + "The final grade: " + unitCourse.finalGrade());
+        // Append additional information about the unit course
+        text.append("Unit ID: ").append(unitCourse.getUnitID()).append(NEW_LINE);
+        text.append("Unit level: ").append(unitCourse.getLevel()).append(NEW_LINE);
+        text.append("The Overall mark: ").append(unitCourse.overallMark()).append(NEW_LINE);
+        text.append("The final grade: ").append(unitCourse.finalGrade()).append(NEW_LINE);
+        return text;
     }
 }
\ No newline at end of file
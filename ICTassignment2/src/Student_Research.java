@@ -53,17 +53,21 @@ public class Student_Research extends Student {
     }
 
     /**
-     * Overrides the reportGrade method in the superclass (Student).
-     * Displays information about the student and their research course, including
-     * overall mark and final grade.
+     * Overrides the appendGradeReport method in the superclass (Student).
+     * Appends the student details followed by the overall mark and final grade of their
+     * research course.
+     *
+     * @param text The buffer to append to.
+     * @return The buffer.
      */
     @Override
-    public void reportGrade() {
-        // Call the display method from the superclass (Student)
-        display();
+    public StringBuilder appendGradeReport(StringBuilder text) {
+        // Append the details from the superclass (Student)
+        appendDetails(text);
 
-        // Display additional information about the research course
-        System.out.println("The Overall mark: " + researchCourse.overallMark() + "\n"
-                + "The final grade: " + researchCourse.finalGrade());
+        // Append additional information about the research course
+        text.append("The Overall mark: ").append(researchCourse.overallMark()).append(NEW_LINE);
+        text.append("The final grade: ").append(researchCourse.finalGrade()).append(NEW_LINE);
+        return text;
     }
 }
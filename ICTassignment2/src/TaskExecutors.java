@@ -0,0 +1,37 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * TaskExecutors class creates the executors that run many short, mostly waiting tasks,
+ * such as the files of a {@link BulkStudentLoader} and the requests of a
+ * {@link StudentQueryServer}.
+ * <p>
+ * The Student Grade System is built for Java 17, which has no virtual threads, but runs
+ * on later versions too. Virtual threads are therefore looked up by reflection, and a
+ * fixed pool of platform threads is used when the Java runtime does not have them.
+ * </p>
+ * <p>
+ * Precondition: None.
+ * Postconditions: The caller shuts the executor down when it is no longer needed.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class TaskExecutors {
+
+    /**
+     * Creates a virtual thread per task executor when the Java runtime has one (Java 21
+     * and later), and a fixed pool of platform threads otherwise.
+     *
+     * @param threads The number of platform threads.
+     * @return The executor.
+     */
+    public static ExecutorService newExecutor(int threads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+}
@@ -64,17 +64,18 @@ public class Unit {
      * @return The final grade (e.g., "HD", "D", "C", "P", or "N").
      */
     public String finalGrade(double overallMark) {
-        if (overallMark >= 80) {
-            return "HD";
-        } else if (overallMark >= 70) {
-            return "D";
-        } else if (overallMark >= 60) {
-            return "C";
-        } else if (overallMark >= 50) {
-            return "P";
-        } else {
-            return "N";
-        }
+        return Grade.of(overallMark).name();
+    }
+
+    /**
+     * Determines the final grade of an overall mark given in hundredths of a mark, using
+     * the grade lookup table.
+     * 
+     * @param overallMarkHundredths The overall mark multiplied by 100, 0 to 10000.
+     * @return The final grade.
+     */
+    public Grade grade(int overallMarkHundredths) {
+        return Grade.of(overallMarkHundredths);
     }    
 }
    
@@ -0,0 +1,489 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * UnitGradeAggregation class summarises the overall marks of course work students per
+ * unit ID and level: the count, mean, minimum, maximum and the number of each grade.
+ * <p>
+ * The roster is split into contiguous partitions, one per task. Each task adds its
+ * students to its own hash table keyed on unit ID and level (open addressing over
+ * primitive arrays, with the marks kept as exact hundredths), so the tasks share
+ * nothing while they run. The partial tables are then merged into one and the groups
+ * are sorted by unit ID and level.
+ * </p>
+ * <p>
+ * Research students have no unit ID or level and are not included.
+ * </p>
+ * <p>
+ * Precondition: The students are not changed while they are being aggregated.
+ * Postconditions: The groups hold the same values as a single pass over the students.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class UnitGradeAggregation {
+
+    /**
+     * Rosters with fewer students than this are aggregated on the calling thread.
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    // Partitions per thread, more than one so that a slow partition does not hold up the rest
+    private static final int PARTITIONS_PER_THREAD = 4;
+
+    private static final Grade[] GRADES = Grade.values();
+
+    /**
+     * The summary of one unit ID and level.
+     */
+    public static final class Group {
+        private final String unitID;
+        private final int level;
+        private final long count;
+        private final long totalHundredths;
+        private final int minHundredths;
+        private final int maxHundredths;
+        private final long[] gradeCounts;
+
+        /**
+         * Constructs a group summary.
+         *
+         * @param unitID          The unit ID.
+         * @param level           The level.
+         * @param count           The number of students.
+         * @param totalHundredths The total overall mark in hundredths.
+         * @param minHundredths   The lowest overall mark in hundredths.
+         * @param maxHundredths   The highest overall mark in hundredths.
+         * @param gradeCounts     The number of students with each grade, by ordinal.
+         */
+        private Group(String unitID, int level, long count, long totalHundredths, int minHundredths,
+                int maxHundredths, long[] gradeCounts) {
+            this.unitID = unitID;
+            this.level = level;
+            this.count = count;
+            this.totalHundredths = totalHundredths;
+            this.minHundredths = minHundredths;
+            this.maxHundredths = maxHundredths;
+            this.gradeCounts = gradeCounts;
+        }
+
+        /**
+         * Gets the unit ID.
+         *
+         * @return The unit ID.
+         */
+        public String getUnitID() {
+            return unitID;
+        }
+
+        /**
+         * Gets the level.
+         *
+         * @return The level.
+         */
+        public int getLevel() {
+            return level;
+        }
+
+        /**
+         * Gets the number of students.
+         *
+         * @return The number of students in the group.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the mean overall mark.
+         *
+         * @return The mean overall mark.
+         */
+        public double getMean() {
+            return totalHundredths / 100.0 / count;
+        }
+
+        /**
+         * Gets the lowest overall mark.
+         *
+         * @return The lowest overall mark.
+         */
+        public double getMin() {
+            return minHundredths / 100.0;
+        }
+
+        /**
+         * Gets the highest overall mark.
+         *
+         * @return The highest overall mark.
+         */
+        public double getMax() {
+            return maxHundredths / 100.0;
+        }
+
+        /**
+         * Gets the number of students with a grade.
+         *
+         * @param grade The grade.
+         * @return The number of students in the group with that grade.
+         */
+        public long getGradeCount(Grade grade) {
+            return gradeCounts[grade.ordinal()];
+        }
+    }
+
+    private final List<Group> groups;
+    private final long students;
+
+    /**
+     * Constructs an aggregation from its groups.
+     *
+     * @param groups   The groups, sorted by unit ID and level.
+     * @param students The number of students aggregated.
+     */
+    private UnitGradeAggregation(List<Group> groups, long students) {
+        this.groups = groups;
+        this.students = students;
+    }
+
+    /**
+     * Aggregates a list of students. A StudentStore is aggregated from its columns.
+     *
+     * @param students The students.
+     * @param threads  The number of threads, or 0 to use every available processor.
+     * @return The aggregation.
+     */
+    public static UnitGradeAggregation of(List<Student> students, int threads) {
+        if (students instanceof StudentStore) {
+            return of((StudentStore) students, threads);
+        }
+        return aggregate(students.size(), threads, (table, from, to) -> {
+            for (int i = from; i < to; i++) {
+                Student student = students.get(i);
+                if (student instanceof Student_Course) {
+                    Unit_Course unitCourse = ((Student_Course) student).getUnitCourse();
+                    if (unitCourse != null) {
+                        table.add(unitCourse.getUnitID(), unitCourse.getLevel(), unitCourse.overallMarkHundredths());
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Aggregates the rows of a StudentStore.
+     *
+     * @param store   The store.
+     * @param threads The number of threads, or 0 to use every available processor.
+     * @return The aggregation.
+     */
+    public static UnitGradeAggregation of(StudentStore store, int threads) {
+        return aggregate(store.size(), threads, (table, from, to) -> {
+            for (int row = from; row < to; row++) {
+                if (store.getEnrolmentType(row) == StudentStore.COURSE_WORK) {
+                    table.add(store.getUnitID(row), store.getLevel(row), store.getOverallMarkHundredths(row));
+                }
+            }
+        });
+    }
+
+    /**
+     * Adds a range of rows to a partial table.
+     */
+    private interface PartitionTask {
+
+        /**
+         * Adds the rows of a partition to a table.
+         *
+         * @param table The partial table of the partition.
+         * @param from  The first row.
+         * @param to    The row after the last row.
+         */
+        void run(Table table, int from, int to);
+    }
+
+    /**
+     * Splits the rows into partitions, aggregates each into its own table and merges
+     * the tables.
+     *
+     * @param size    The number of rows.
+     * @param threads The number of threads, or 0 to use every available processor.
+     * @param task    Adds a partition of rows to a table.
+     * @return The aggregation.
+     */
+    private static UnitGradeAggregation aggregate(int size, int threads, PartitionTask task) {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        Table result;
+        if (threads == 1 || size < PARALLEL_THRESHOLD) {
+            result = new Table();
+            task.run(result, 0, size);
+        } else {
+            int partitions = threads * PARTITIONS_PER_THREAD;
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                ArrayList<Future<Table>> futures = new ArrayList<>(partitions);
+                for (int i = 0; i < partitions; i++) {
+                    int from = (int) ((long) size * i / partitions);
+                    int to = (int) ((long) size * (i + 1) / partitions);
+                    futures.add(pool.submit(() -> {
+                        Table table = new Table();
+                        task.run(table, from, to);
+                        return table;
+                    }));
+                }
+                result = futures.get(0).get();
+                for (int i = 1; i < partitions; i++) {
+                    result.merge(futures.get(i).get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while aggregating", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Error while aggregating", e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        return result.toAggregation();
+    }
+
+    /**
+     * Gets the groups, sorted by unit ID and then level.
+     *
+     * @return The groups.
+     */
+    public List<Group> getGroups() {
+        return groups;
+    }
+
+    /**
+     * Gets the number of students aggregated.
+     *
+     * @return The number of course work students.
+     */
+    public long getStudentCount() {
+        return students;
+    }
+
+    /**
+     * Displays the groups as a table on the console.
+     */
+    public void printReport() {
+        if (groups.isEmpty()) {
+            System.out.println("There are no course work students to summarize.");
+            return;
+        }
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-10s %5s %8s %7s %7s %7s %7s %7s %7s %7s %7s%n", "Unit ID", "Level", "Count",
+                "Mean", "Min", "Max", "HD", "D", "C", "P", "N"));
+        for (Group group : groups) {
+            report.append(String.format("%-10s %5d %8d %7.2f %7.2f %7.2f", group.unitID, group.level, group.count,
+                    group.getMean(), group.getMin(), group.getMax()));
+            for (Grade grade : GRADES) {
+                report.append(String.format(" %7d", group.getGradeCount(grade)));
+            }
+            report.append(System.lineSeparator());
+        }
+        report.append(groups.size()).append(" groups, ").append(students).append(" students");
+        System.out.println(report);
+    }
+
+    /**
+     * Writes the groups to a CSV file, replacing any existing file.
+     *
+     * @param fileName The name of the CSV file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void writeCsv(String fileName) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(fileName), StandardCharsets.UTF_8)) {
+            writer.write("UnitID,Level,Count,Mean,Min,Max,HD,D,C,P,N\n");
+            for (Group group : groups) {
+                writer.write(group.unitID + "," + group.level + "," + group.count + ","
+                        + String.format("%.2f,%.2f,%.2f", group.getMean(), group.getMin(), group.getMax()));
+                for (Grade grade : GRADES) {
+                    writer.write("," + group.getGradeCount(grade));
+                }
+                writer.write("\n");
+            }
+        }
+    }
+
+    /**
+     * A hash table of partial group summaries, keyed on unit ID and level. The values of
+     * each group (count, total, minimum and maximum, and one count per grade) sit next to
+     * each other in one long array, so adding a student touches a single cache line of
+     * values.
+     */
+    private static final class Table {
+        private static final int INITIAL_CAPACITY = 64;
+
+        // Offsets of the values of a group within its stride of the values array
+        private static final int COUNT = 0;
+        private static final int TOTAL = 1;
+        private static final int MIN_MAX = 2;
+        private static final int GRADE_COUNTS = 3;
+        private static final int STRIDE = GRADE_COUNTS + 5;
+
+        private String[] unitIDs = new String[INITIAL_CAPACITY];
+        private int[] levels = new int[INITIAL_CAPACITY];
+        private long[] values = new long[INITIAL_CAPACITY * STRIDE];
+        private int mask = INITIAL_CAPACITY - 1;
+        private int size;
+
+        /**
+         * Adds one student's overall mark to its group.
+         *
+         * @param unitID         The unit ID, null is grouped as an empty unit ID.
+         * @param level          The level.
+         * @param markHundredths The overall mark in hundredths, 0 to 10000.
+         */
+        void add(String unitID, int level, int markHundredths) {
+            int base = slot(unitID == null ? "" : unitID, level) * STRIDE;
+            values[base + COUNT]++;
+            values[base + TOTAL] += markHundredths;
+            values[base + MIN_MAX] = minMax(values[base + MIN_MAX], markHundredths, markHundredths);
+            values[base + GRADE_COUNTS + Grade.of(markHundredths).ordinal()]++;
+        }
+
+        /**
+         * Adds the groups of another table to this one.
+         *
+         * @param other The other table.
+         */
+        void merge(Table other) {
+            for (int from = 0; from < other.unitIDs.length; from++) {
+                if (other.unitIDs[from] == null) {
+                    continue;
+                }
+                int base = slot(other.unitIDs[from], other.levels[from]) * STRIDE;
+                int fromBase = from * STRIDE;
+                long minMax = other.values[fromBase + MIN_MAX];
+                values[base + MIN_MAX] = minMax(values[base + MIN_MAX], (int) (minMax >>> 32), (int) minMax);
+                values[base + COUNT] += other.values[fromBase + COUNT];
+                values[base + TOTAL] += other.values[fromBase + TOTAL];
+                for (int g = GRADE_COUNTS; g < STRIDE; g++) {
+                    values[base + g] += other.values[fromBase + g];
+                }
+            }
+        }
+
+        /**
+         * Turns the table into a sorted aggregation.
+         *
+         * @return The aggregation.
+         */
+        UnitGradeAggregation toAggregation() {
+            ArrayList<Group> groups = new ArrayList<>(size);
+            long students = 0;
+            for (int slot = 0; slot < unitIDs.length; slot++) {
+                if (unitIDs[slot] != null) {
+                    int base = slot * STRIDE;
+                    long minMax = values[base + MIN_MAX];
+                    groups.add(new Group(unitIDs[slot], levels[slot], values[base + COUNT], values[base + TOTAL],
+                            (int) (minMax >>> 32), (int) minMax,
+                            Arrays.copyOfRange(values, base + GRADE_COUNTS, base + STRIDE)));
+                    students += values[base + COUNT];
+                }
+            }
+            groups.sort(Comparator.comparing(Group::getUnitID).thenComparingInt(Group::getLevel));
+            return new UnitGradeAggregation(groups, students);
+        }
+
+        /**
+         * Combines a packed minimum and maximum with another minimum and maximum. The
+         * minimum is kept in the high 32 bits and the maximum in the low 32 bits; marks are
+         * never negative, so the packed value of an empty group is min 10001, max 0.
+         *
+         * @param packed The packed minimum and maximum.
+         * @param min    The other minimum.
+         * @param max    The other maximum.
+         * @return The packed result.
+         */
+        private static long minMax(long packed, int min, int max) {
+            int newMin = Math.min((int) (packed >>> 32), min);
+            int newMax = Math.max((int) packed, max);
+            return ((long) newMin << 32) | newMax;
+        }
+
+        /**
+         * Finds the slot of a group, adding the group if it is new.
+         *
+         * @param unitID The unit ID.
+         * @param level  The level.
+         * @return The slot.
+         */
+        private int slot(String unitID, int level) {
+            int slot = hash(unitID, level) & mask;
+            while (unitIDs[slot] != null) {
+                if (levels[slot] == level && (unitIDs[slot] == unitID || unitIDs[slot].equals(unitID))) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            // New group, keep the table at most half full
+            if ((size + 1) * 2 > unitIDs.length) {
+                grow();
+                return slot(unitID, level);
+            }
+            unitIDs[slot] = unitID;
+            levels[slot] = level;
+            values[slot * STRIDE + MIN_MAX] = (long) (Grade.MAX_HUNDREDTHS + 1) << 32;
+            size++;
+            return slot;
+        }
+
+        /**
+         * Doubles the table, moving every group to its new slot.
+         */
+        private void grow() {
+            String[] oldUnitIDs = unitIDs;
+            int[] oldLevels = levels;
+            long[] oldValues = values;
+
+            int capacity = oldUnitIDs.length * 2;
+            unitIDs = new String[capacity];
+            levels = new int[capacity];
+            values = new long[capacity * STRIDE];
+            mask = capacity - 1;
+
+            for (int from = 0; from < oldUnitIDs.length; from++) {
+                if (oldUnitIDs[from] == null) {
+                    continue;
+                }
+                int slot = hash(oldUnitIDs[from], oldLevels[from]) & mask;
+                while (unitIDs[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                unitIDs[slot] = oldUnitIDs[from];
+                levels[slot] = oldLevels[from];
+                System.arraycopy(oldValues, from * STRIDE, values, slot * STRIDE, STRIDE);
+            }
+        }
+
+        /**
+         * Hashes a unit ID and level, spreading the bits so linear probing works well.
+         *
+         * @param unitID The unit ID.
+         * @param level  The level.
+         * @return The hash.
+         */
+        private static int hash(String unitID, int level) {
+            int h = (unitID.hashCode() * 31 + level) * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -30,6 +30,7 @@ public class Unit_Course extends Unit {
      * @param assignment1Mark Marks obtained in the first assignment.
      * @param assignment2Mark Marks obtained in the second assignment.
      * @param finalExamMark   Marks obtained in the final exam.
+     * @throws IllegalMarkException If a mark is outside 0 to 100.
      */
     public Unit_Course(String unitID, int level, int assignment1Mark, int assignment2Mark, int finalExamMark) {
         super("C");
@@ -90,14 +91,11 @@ public class Unit_Course extends Unit {
      * Sets the marks obtained in the first assignment.
      *
      * @param assignment1Mark Marks obtained in the first assignment.
+     * @throws IllegalMarkException If the mark is outside 0 to 100.
      */
     public void setAssignment1Mark(int assignment1Mark) {
-        try {
-            // Validate and ensure that the marks are within the valid range (0 to MAX_MARK)
-            this.assignment1Mark = validateAndSetMark(assignment1Mark);
-        } catch (IllegalMarkException e) {
-            System.out.println("Error: " + e.getMessage());
-        }
+        // Validate and ensure that the marks are within the valid range (0 to MAX_MARK)
+        this.assignment1Mark = validateMark(assignment1Mark);
     }
 
     /**
@@ -113,14 +111,11 @@ public class Unit_Course extends Unit {
      * Sets the marks obtained in the second assignment.
      *
      * @param assignment2Mark Marks obtained in the second assignment.
+     * @throws IllegalMarkException If the mark is outside 0 to 100.
      */
     public void setAssignment2Mark(int assignment2Mark) {
-        try {
-            // Validate and ensure that the marks are within the valid range (0 to MAX_MARK)
-            this.assignment2Mark = validateAndSetMark(assignment2Mark);
-        } catch (IllegalMarkException e) {
-            System.out.println("Error: " + e.getMessage());
-        }
+        // Validate and ensure that the marks are within the valid range (0 to MAX_MARK)
+        this.assignment2Mark = validateMark(assignment2Mark);
     }
 
     /**
@@ -136,25 +131,41 @@ public class Unit_Course extends Unit {
      * Sets the marks obtained in the final exam.
      *
      * @param finalExamMark Marks obtained in the final exam.
+     * @throws IllegalMarkException If the mark is outside 0 to 100.
      */
     public void setFinalExamMark(int finalExamMark) {
-        try {
-            // Validate and ensure that the marks are within the valid range (0 to MAX_MARK)
-            this.finalExamMark = validateAndSetMark(finalExamMark);
-        } catch (IllegalMarkException e) {
-            System.out.println("Error: " + e.getMessage());
-        }
+        // Validate and ensure that the marks are within the valid range (0 to MAX_MARK)
+        this.finalExamMark = validateMark(finalExamMark);
     }
 
     // Methods
 
+    /**
+     * Calculates the overall mark for the unit in hundredths of a mark. The weights
+     * 0.25, 0.25 and 0.5 become 25, 25 and 50, so the result is exact.
+     *
+     * @return The overall mark multiplied by 100, 0 to 10000.
+     */
+    public int overallMarkHundredths() {
+        return 25 * assignment1Mark + 25 * assignment2Mark + 50 * finalExamMark;
+    }
+
     /**
      * Calculates and returns the overall mark for the unit.
      *
      * @return The overall mark for the unit.
      */
     public double overallMark() {
-        return (assignment1Mark * 0.25) + (assignment2Mark * 0.25) + (finalExamMark * 0.5);
+        return overallMarkHundredths() / 100.0;
+    }
+
+    /**
+     * Gets the final grade of the unit from the grade lookup table.
+     *
+     * @return The final grade for the unit.
+     */
+    public Grade grade() {
+        return grade(overallMarkHundredths());
     }
 
     /**
@@ -163,24 +174,23 @@ public class Unit_Course extends Unit {
      * @return The final grade for the unit.
      */
     public String finalGrade() {
-        double overallMark = overallMark();
-        return super.finalGrade(overallMark);
+        return grade().name();
     }
     
- // Helper method to validate and set the mark
+ // Helper method to validate the mark
     /**
-     * Validates and sets the mark for a certain operation.
+     * Validates a mark before it is set.
      *
      * This method is used to ensure that the provided mark is within the valid range.
      *
      * Precondition: The mark parameter should represent a numerical value.
-     * Postconditions: The mark is set if it is within the valid range (0 to MAX_MARK).
+     * Postconditions: Returns the mark if it is within the valid range (0 to MAX_MARK).
      *
-     * @param mark The mark to be validated and set.
+     * @param mark The mark to be validated.
      * @return The validated mark.
      * @throws IllegalMarkException If the provided mark is outside the valid range.
      */
-    private int validateAndSetMark(int mark) throws IllegalMarkException {
+    private static int validateMark(int mark) {
         if (mark < 0 || mark > MAX_MARK) {
             throw new IllegalMarkException("Mark must be between 0 and " + MAX_MARK);
         }
@@ -0,0 +1,506 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * ValidationErrors class records the rows rejected while loading a student CSV file.
+ * <p>
+ * Each rejected row is recorded as a compact error code with its row and column, in
+ * primitive arrays of a fixed capacity, so recording an error creates no objects, builds
+ * no message and never throws. Errors beyond the capacity are still counted by code but
+ * their positions are not kept. {@link #summary()} builds a report of the counts and the
+ * first errors once the load has finished.
+ * </p>
+ * <p>
+ * The mode chooses what happens to a rejected row: it is skipped, the load stops at the
+ * first one (fail-fast), or the raw line is also written to a quarantine file so that it
+ * can be fixed and loaded again.
+ * </p>
+ * <p>
+ * Rows are numbered from 1 and count the non-empty lines of the file; columns are the
+ * field numbers from 1. When a file is loaded on several threads, each chunk records into
+ * its own ValidationErrors made by {@link #newChunk(int)}, and the chunks are merged in file
+ * order with {@link #merge(ValidationErrors, long)}. In fail-fast mode an error stops the
+ * chunks after it but not the chunks before it. Each chunk keeps its quarantined lines
+ * until it is merged, so the quarantine file lists them in file order whichever chunk
+ * finishes first.
+ * </p>
+ * <p>
+ * Precondition: A ValidationErrors is recorded into by one thread at a time.
+ * Postconditions: After close, every quarantined line is in the quarantine file.
+ * </p>
+ *
+ * @author [Khon Min Thite]
+ * @version 1.0
+ */
+public class ValidationErrors implements AutoCloseable {
+
+    /**
+     * What happens to a rejected row.
+     */
+    public enum Mode {
+
+        /**
+         * Stop loading at the first rejected row.
+         */
+        FAIL_FAST,
+
+        /**
+         * Skip rejected rows and carry on.
+         */
+        SKIP,
+
+        /**
+         * Skip rejected rows and write them to the quarantine file.
+         */
+        QUARANTINE
+    }
+
+    /**
+     * Why a row was rejected.
+     */
+    public enum Code {
+
+        /**
+         * The line has fewer than 6 fields.
+         */
+        TOO_FEW_FIELDS("line has too few fields"),
+
+        /**
+         * The enrolment type is not C or R, or a C row has fewer than 9 fields.
+         */
+        UNKNOWN_ENROLMENT_TYPE("unknown enrolment type or missing course work fields"),
+
+        /**
+         * The student number is not a number.
+         */
+        INVALID_STUDENT_NUMBER("invalid student number format"),
+
+        /**
+         * The level of a course work row is not a number.
+         */
+        INVALID_LEVEL("invalid level format"),
+
+        /**
+         * A mark is not a number.
+         */
+        INVALID_MARK("invalid marks format"),
+
+        /**
+         * A mark is outside 0 to 100.
+         */
+        MARK_OUT_OF_RANGE("mark must be between 0 and 100");
+
+        private final String description;
+
+        /**
+         * Constructs an error code.
+         *
+         * @param description A short description of the error.
+         */
+        Code(String description) {
+            this.description = description;
+        }
+
+        /**
+         * Gets a short description of the error.
+         *
+         * @return The description.
+         */
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * Number of error positions kept by default.
+     */
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    // Errors listed in the summary
+    private static final int SUMMARY_ERRORS = 20;
+
+    private static final Code[] CODES = Code.values();
+    private static final int QUARANTINE_BUFFER_SIZE = 1 << 16;
+    private static final byte[] NO_LINES = new byte[0];
+
+    private final Mode mode;
+
+    // Positions of the first errors
+    private final long[] rows;
+    private final int[] columns;
+    private final byte[] codes;
+    private int stored;
+
+    // Number of errors of each code, including those not stored
+    private final long[] counts = new long[CODES.length];
+
+    // The ValidationErrors this chunk belongs to and the chunk number, or null and -1
+    private final ValidationErrors parent;
+    private final int chunk;
+    private volatile boolean stopped;
+
+    // Lowest chunk number that stopped at an error, only used by the top-level ValidationErrors
+    private volatile int firstStoppedChunk = Integer.MAX_VALUE;
+
+    // Quarantine file, only used by the top-level ValidationErrors
+    private final FileChannel quarantine;
+    private final ByteBuffer quarantineBuffer;
+    private long rowsQuarantined;
+
+    // Quarantined lines of a chunk, kept until the chunk is merged
+    private byte[] chunkLines = NO_LINES;
+    private int chunkLinesLength;
+
+    /**
+     * Constructs a ValidationErrors that skips or stops at rejected rows.
+     *
+     * @param mode     Mode.SKIP or Mode.FAIL_FAST.
+     * @param capacity The number of error positions to keep.
+     */
+    public ValidationErrors(Mode mode, int capacity) {
+        this(mode, capacity, null, -1, null);
+        if (mode == Mode.QUARANTINE) {
+            throw new IllegalArgumentException("A quarantine file is needed in quarantine mode");
+        }
+    }
+
+    /**
+     * Constructs a ValidationErrors that writes rejected lines to a quarantine file,
+     * replacing any existing file.
+     *
+     * @param capacity       The number of error positions to keep.
+     * @param quarantineFile The name of the quarantine file.
+     * @throws IOException If the quarantine file cannot be opened.
+     */
+    public ValidationErrors(int capacity, String quarantineFile) throws IOException {
+        this(Mode.QUARANTINE, capacity, null, -1, FileChannel.open(Paths.get(quarantineFile), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Constructs a ValidationErrors.
+     *
+     * @param mode       The mode.
+     * @param capacity   The number of error positions to keep.
+     * @param parent     The ValidationErrors a chunk belongs to, or null.
+     * @param chunk      The chunk number, or -1.
+     * @param quarantine The quarantine file, or null.
+     */
+    private ValidationErrors(Mode mode, int capacity, ValidationErrors parent, int chunk, FileChannel quarantine) {
+        this.mode = mode;
+        this.rows = new long[capacity];
+        this.columns = new int[capacity];
+        this.codes = new byte[capacity];
+        this.parent = parent;
+        this.chunk = chunk;
+        this.quarantine = quarantine;
+        this.quarantineBuffer = quarantine == null ? null : ByteBuffer.allocateDirect(QUARANTINE_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a ValidationErrors for one chunk of a file loaded on several threads. It has
+     * the same mode and capacity, stops when an earlier chunk stops, and quarantines lines
+     * into this one's file.
+     *
+     * @param chunk The chunk number, in file order from 0.
+     * @return The ValidationErrors for the chunk.
+     */
+    public ValidationErrors newChunk(int chunk) {
+        return new ValidationErrors(mode, rows.length, this, chunk, null);
+    }
+
+    /**
+     * Gets the mode.
+     *
+     * @return The mode.
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Records a rejected row. In quarantine mode the line is written to the quarantine
+     * file; in fail-fast mode loading stops.
+     *
+     * @param code   Why the row was rejected.
+     * @param row    The row number.
+     * @param column The column number of the field in error.
+     * @param line   The buffer holding the line.
+     * @param start  The position of the first byte of the line.
+     * @param end    The position after the last byte of the line.
+     * @throws IOException If the quarantine file cannot be written.
+     */
+    public void reject(Code code, long row, int column, ByteBuffer line, int start, int end) throws IOException {
+        record(code, row, column);
+        if (mode == Mode.FAIL_FAST) {
+            stop();
+        } else if (mode == Mode.QUARANTINE) {
+            if (parent == null) {
+                writeQuarantine(line, start, end);
+            } else {
+                keepQuarantined(line, start, end);
+            }
+        }
+    }
+
+    /**
+     * Records an error without any other action.
+     *
+     * @param code   Why the row was rejected.
+     * @param row    The row number.
+     * @param column The column number of the field in error.
+     */
+    public void record(Code code, long row, int column) {
+        counts[code.ordinal()]++;
+        if (stored < rows.length) {
+            rows[stored] = row;
+            columns[stored] = column;
+            codes[stored] = (byte) code.ordinal();
+            stored++;
+        }
+    }
+
+    /**
+     * Checks whether loading should stop.
+     *
+     * @return true after the first rejected row in fail-fast mode, or once an earlier
+     *         chunk has stopped, false otherwise.
+     */
+    public boolean isStopped() {
+        return stopped || (parent != null && parent.firstStoppedChunk < chunk);
+    }
+
+    /**
+     * Adds the errors of a chunk, moving its rows by the number of rows before the chunk,
+     * and writes its quarantined lines to the quarantine file. Chunks must be merged in
+     * file order for the stored errors and quarantined lines to stay in row order.
+     *
+     * @param chunkErrors The ValidationErrors of the chunk.
+     * @param rowOffset   The number of rows in the file before the chunk.
+     * @throws IOException If the quarantine file cannot be written.
+     */
+    public void merge(ValidationErrors chunkErrors, long rowOffset) throws IOException {
+        for (int i = 0; i < CODES.length; i++) {
+            counts[i] += chunkErrors.counts[i];
+        }
+        for (int i = 0; i < chunkErrors.stored && stored < rows.length; i++) {
+            rows[stored] = chunkErrors.rows[i] + rowOffset;
+            columns[stored] = chunkErrors.columns[i];
+            codes[stored] = chunkErrors.codes[i];
+            stored++;
+        }
+        if (chunkErrors.stopped) {
+            stopped = true;
+        }
+        if (chunkErrors.chunkLinesLength > 0) {
+            writeQuarantineBytes(ByteBuffer.wrap(chunkErrors.chunkLines), 0, chunkErrors.chunkLinesLength);
+            rowsQuarantined += chunkErrors.rowsQuarantined;
+            chunkErrors.chunkLines = NO_LINES;
+            chunkErrors.chunkLinesLength = 0;
+        }
+    }
+
+    /**
+     * Gets the total number of errors.
+     *
+     * @return The number of rejected rows.
+     */
+    public long getErrorCount() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the number of errors with a code.
+     *
+     * @param code The error code.
+     * @return The number of rows rejected for that reason.
+     */
+    public long getCount(Code code) {
+        return counts[code.ordinal()];
+    }
+
+    /**
+     * Gets the number of errors whose position was kept.
+     *
+     * @return The number of stored errors, at most the capacity.
+     */
+    public int getStoredCount() {
+        return stored;
+    }
+
+    /**
+     * Gets the code of a stored error.
+     *
+     * @param index The error number, from 0.
+     * @return The error code.
+     */
+    public Code getCode(int index) {
+        return CODES[codes[index]];
+    }
+
+    /**
+     * Gets the row of a stored error.
+     *
+     * @param index The error number, from 0.
+     * @return The row number, from 1.
+     */
+    public long getRow(int index) {
+        return rows[index];
+    }
+
+    /**
+     * Gets the column of a stored error.
+     *
+     * @param index The error number, from 0.
+     * @return The column number, from 1.
+     */
+    public int getColumn(int index) {
+        return columns[index];
+    }
+
+    /**
+     * Gets the number of lines written to the quarantine file.
+     *
+     * @return The number of quarantined lines.
+     */
+    public long getRowsQuarantined() {
+        return rowsQuarantined;
+    }
+
+    /**
+     * Builds a report of the error counts by code and the first errors.
+     *
+     * @return The report.
+     */
+    public String summary() {
+        StringBuilder report = new StringBuilder();
+        long total = getErrorCount();
+        report.append("Rows rejected: ").append(total);
+        if (mode == Mode.FAIL_FAST && total > 0) {
+            report.append(" (loading stopped at the first error)");
+        }
+        report.append('\n');
+        for (Code code : CODES) {
+            if (counts[code.ordinal()] > 0) {
+                report.append("  ").append(code).append(": ").append(counts[code.ordinal()]).append('\n');
+            }
+        }
+        int listed = Math.min(stored, SUMMARY_ERRORS);
+        for (int i = 0; i < listed; i++) {
+            report.append("  row ").append(rows[i]).append(", column ").append(columns[i]).append(": ")
+                    .append(getCode(i).getDescription()).append('\n');
+        }
+        if (total > listed) {
+            report.append("  ... ").append(total - listed).append(" more\n");
+        }
+        if (mode == Mode.QUARANTINE) {
+            report.append("Rows quarantined: ").append(rowsQuarantined).append('\n');
+        }
+        return report.toString();
+    }
+
+    /**
+     * Writes any buffered quarantined lines and closes the quarantine file.
+     *
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        if (quarantine != null) {
+            synchronized (this) {
+                try {
+                    flushQuarantine();
+                } finally {
+                    quarantine.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops loading here and in the later chunks.
+     */
+    private void stop() {
+        stopped = true;
+        if (parent != null) {
+            synchronized (parent) {
+                parent.firstStoppedChunk = Math.min(parent.firstStoppedChunk, chunk);
+            }
+        }
+    }
+
+    /**
+     * Keeps one line and a line break of a chunk until the chunk is merged.
+     *
+     * @param line  The buffer holding the line.
+     * @param start The position of the first byte of the line.
+     * @param end   The position after the last byte of the line.
+     */
+    private void keepQuarantined(ByteBuffer line, int start, int end) {
+        int needed = chunkLinesLength + end - start + 1;
+        if (needed > chunkLines.length) {
+            chunkLines = Arrays.copyOf(chunkLines, Math.max(needed, Math.max(256, chunkLines.length * 2)));
+        }
+        for (int position = start; position < end; position++) {
+            chunkLines[chunkLinesLength++] = line.get(position);
+        }
+        chunkLines[chunkLinesLength++] = '\n';
+        rowsQuarantined++;
+    }
+
+    /**
+     * Appends one line and a line break to the quarantine file.
+     *
+     * @param line  The buffer holding the line.
+     * @param start The position of the first byte of the line.
+     * @param end   The position after the last byte of the line.
+     * @throws IOException If writing fails.
+     */
+    private synchronized void writeQuarantine(ByteBuffer line, int start, int end) throws IOException {
+        writeQuarantineBytes(line, start, end);
+        if (!quarantineBuffer.hasRemaining()) {
+            flushQuarantine();
+        }
+        quarantineBuffer.put((byte) '\n');
+        rowsQuarantined++;
+    }
+
+    /**
+     * Appends bytes to the quarantine file as they are.
+     *
+     * @param bytes The buffer holding the bytes.
+     * @param start The position of the first byte.
+     * @param end   The position after the last byte.
+     * @throws IOException If writing fails.
+     */
+    private synchronized void writeQuarantineBytes(ByteBuffer bytes, int start, int end) throws IOException {
+        int position = start;
+        while (position < end) {
+            if (!quarantineBuffer.hasRemaining()) {
+                flushQuarantine();
+            }
+            quarantineBuffer.put(bytes.get(position++));
+        }
+    }
+
+    /**
+     * Writes the buffered quarantined lines to the file.
+     *
+     * @throws IOException If writing fails.
+     */
+    private void flushQuarantine() throws IOException {
+        quarantineBuffer.flip();
+        while (quarantineBuffer.hasRemaining()) {
+            quarantine.write(quarantineBuffer);
+        }
+        quarantineBuffer.clear();
+    }
+}